@@ -0,0 +1,67 @@
+package top.yumbo.ai.rag.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import top.yumbo.ai.rag.config.RAGConfiguration;
+import top.yumbo.ai.rag.impl.index.LuceneIndexEngine;
+import top.yumbo.ai.rag.model.Query;
+import top.yumbo.ai.rag.model.SearchResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 关键词检索基准：{@link LuceneIndexEngine#search}，含每次查询前的 reader 刷新
+ * (Keyword search benchmark: {@link LuceneIndexEngine#search}, including the reader refresh before each query)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LuceneSearchBenchmark {
+
+    @Param({"10000", "100000"})
+    public int documents;
+
+    private Path baseDir;
+    private LuceneIndexEngine engine;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        baseDir = Files.createTempDirectory("jmh-lucene");
+        engine = new LuceneIndexEngine(new RAGConfiguration.IndexConfig(), baseDir.toString());
+        engine.indexBatch(corpus.documents(documents, 200));
+        engine.commit();
+        queries = new String[64];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = corpus.text(3);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        engine.close();
+        try (Stream<Path> paths = Files.walk(baseDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public SearchResult searchTop20() {
+        return engine.search(Query.builder()
+                .queryText(queries[next++ & (queries.length - 1)])
+                .limit(20)
+                .build());
+    }
+}
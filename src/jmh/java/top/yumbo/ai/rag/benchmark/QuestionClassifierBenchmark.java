@@ -0,0 +1,43 @@
+package top.yumbo.ai.rag.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import top.yumbo.ai.rag.hope.QuestionClassifier;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 问题分类基准：{@link QuestionClassifier#classify}（Question classification benchmark）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionClassifierBenchmark {
+
+    private QuestionClassifier classifier;
+    private String[] questions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        classifier = new QuestionClassifier();
+        classifier.init();
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        questions = new String[64];
+        for (int i = 0; i < questions.length; i++) {
+            questions[i] = corpus.question();
+        }
+        questions[0] = "你好";
+        questions[1] = "如何配置向量检索的相似度阈值，并比较它和关键词检索的差异？";
+    }
+
+    @Benchmark
+    public QuestionClassifier.Classification classify() {
+        return classifier.classify(questions[next++ & (questions.length - 1)]);
+    }
+}
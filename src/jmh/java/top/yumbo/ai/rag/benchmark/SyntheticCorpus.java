@@ -0,0 +1,114 @@
+package top.yumbo.ai.rag.benchmark;
+
+import top.yumbo.ai.rag.model.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试用的合成语料生成器（Synthetic corpus generator for benchmarks）
+ *
+ * <p>
+ * 所有输出只由种子决定，保证每次运行的输入一致；文本从固定的中英文词表中抽词，
+ * 词频近似 Zipf 分布，关键词检索能命中一部分文档
+ * (All output depends only on the seed, so every run sees the same input. Text is drawn from fixed Chinese and
+ * English vocabularies with a roughly Zipfian word frequency, so keyword queries hit a subset of documents)
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+public final class SyntheticCorpus {
+
+    private static final String[] ENGLISH_WORDS = {
+            "index", "vector", "search", "document", "query", "cache", "latency", "retrieval", "model", "embedding",
+            "context", "token", "chunk", "score", "rerank", "session", "layer", "answer", "question", "storage",
+            "lucene", "segment", "config", "stream", "thread", "memory", "buffer", "cluster", "network", "service"
+    };
+
+    private static final String[] CHINESE_WORDS = {
+            "检索", "向量", "文档", "索引", "缓存", "问题", "答案", "模型", "上下文", "切分",
+            "排序", "会话", "知识", "配置", "性能", "延迟", "存储", "服务", "系统", "数据"
+    };
+
+    private final SplittableRandom random;
+
+    public SyntheticCorpus(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * L2 归一化的随机向量（L2-normalized random vector）
+     */
+    public float[] vector(int dimension) {
+        float[] vector = new float[dimension];
+        double norm = 0;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) (random.nextDouble() * 2 - 1);
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    /**
+     * 中英混合的段落文本（Mixed Chinese and English paragraph text）
+     *
+     * @param words 词数（Word count）
+     */
+    public String text(int words) {
+        StringBuilder text = new StringBuilder(words * 6);
+        for (int i = 1; i <= words; i++) {
+            if (random.nextInt(3) == 0) {
+                text.append(CHINESE_WORDS[zipf(CHINESE_WORDS.length)]);
+            } else {
+                text.append(ENGLISH_WORDS[zipf(ENGLISH_WORDS.length)]).append(' ');
+            }
+            if (i % 12 == 0) {
+                text.append(random.nextBoolean() ? "。" : ". ");
+            }
+            if (i % 120 == 0) {
+                text.append("\n\n");
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * 合成文档（Synthetic documents）
+     *
+     * @param count 文档数（Document count）
+     * @param words 每篇词数（Words per document）
+     */
+    public List<Document> documents(int count, int words) {
+        List<Document> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String content = text(words);
+            documents.add(Document.builder()
+                    .id("doc-" + i)
+                    .title("synthetic-" + i + ".md")
+                    .content(content)
+                    .fileSize((long) content.length())
+                    .mimeType("text/markdown")
+                    .build());
+        }
+        return documents;
+    }
+
+    /**
+     * 形如用户提问的短文本（Short user-question-like text）
+     */
+    public String question() {
+        return CHINESE_WORDS[zipf(CHINESE_WORDS.length)] + "的" + ENGLISH_WORDS[zipf(ENGLISH_WORDS.length)]
+                + " " + ENGLISH_WORDS[zipf(ENGLISH_WORDS.length)] + "是什么？";
+    }
+
+    private int zipf(int size) {
+        // 对数均匀取样，小下标更常见（Log-uniform sampling, low indices are more frequent）
+        return (int) Math.min(size - 1, Math.floor(Math.exp(random.nextDouble() * Math.log(size + 1)) - 1));
+    }
+}
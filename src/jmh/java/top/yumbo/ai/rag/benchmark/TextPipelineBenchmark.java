@@ -0,0 +1,80 @@
+package top.yumbo.ai.rag.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import top.yumbo.ai.rag.chunking.ChunkingConfig;
+import top.yumbo.ai.rag.chunking.DocumentChunk;
+import top.yumbo.ai.rag.chunking.impl.SimpleDocumentChunker;
+import top.yumbo.ai.rag.chunking.impl.SmartKeywordChunker;
+import top.yumbo.ai.rag.model.Document;
+import top.yumbo.ai.rag.optimization.SmartContextBuilder;
+import top.yumbo.ai.rag.spring.boot.service.document.TokenEstimator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文本处理基准：上下文构建、Token 估算和两种本地切分器
+ * (Text pipeline benchmark: context building, token estimation and the two local chunkers)
+ *
+ * <p>
+ * AI 语义切分器依赖 LLM 调用，不在微基准范围内
+ * (The AI semantic chunker depends on LLM calls and is out of scope for a microbenchmark)
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextPipelineBenchmark {
+
+    /**
+     * 单篇文档词数（Words per document）
+     */
+    @Param({"500", "5000"})
+    public int words;
+
+    private String question;
+    private String text;
+    private List<Document> documents;
+    private SmartContextBuilder contextBuilder;
+    private TokenEstimator tokenEstimator;
+    private SimpleDocumentChunker simpleChunker;
+    private SmartKeywordChunker keywordChunker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        question = corpus.question();
+        text = corpus.text(words);
+        documents = corpus.documents(5, words);
+        contextBuilder = new SmartContextBuilder();
+        tokenEstimator = new TokenEstimator();
+        simpleChunker = new SimpleDocumentChunker(new ChunkingConfig());
+        keywordChunker = new SmartKeywordChunker(new ChunkingConfig());
+    }
+
+    @Benchmark
+    public String buildSmartContext() {
+        return contextBuilder.buildSmartContext(question, documents);
+    }
+
+    @Benchmark
+    public int estimateTokens() {
+        return tokenEstimator.estimate(text);
+    }
+
+    @Benchmark
+    public List<DocumentChunk> simpleChunker() {
+        return simpleChunker.chunk(text);
+    }
+
+    @Benchmark
+    public List<DocumentChunk> smartKeywordChunker() {
+        return keywordChunker.chunk(text, question);
+    }
+}
@@ -0,0 +1,66 @@
+package top.yumbo.ai.rag.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import top.yumbo.ai.rag.impl.index.SimpleVectorIndexEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 向量检索基准：{@link SimpleVectorIndexEngine#search} 在不同规模下的 Top-K 线性扫描
+ * (Vector search benchmark: Top-K linear scan of {@link SimpleVectorIndexEngine#search} at several sizes)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class VectorSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"384"})
+    public int dimension;
+
+    private Path indexDir;
+    private SimpleVectorIndexEngine engine;
+    private float[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        indexDir = Files.createTempDirectory("jmh-vector");
+        engine = new SimpleVectorIndexEngine(indexDir.toString(), dimension);
+        for (int i = 0; i < size; i++) {
+            engine.addDocument("doc-" + i, corpus.vector(dimension));
+        }
+        queries = new float[64][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = corpus.vector(dimension);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(indexDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<SimpleVectorIndexEngine.VectorSearchResult> searchTop10() {
+        float[] query = queries[next++ & (queries.length - 1)];
+        return engine.search(query, 10, 0.0f);
+    }
+}
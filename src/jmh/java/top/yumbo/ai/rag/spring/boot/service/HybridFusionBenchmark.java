@@ -0,0 +1,50 @@
+package top.yumbo.ai.rag.spring.boot.service;
+
+import org.openjdk.jmh.annotations.*;
+import top.yumbo.ai.rag.benchmark.SyntheticCorpus;
+import top.yumbo.ai.rag.impl.index.SimpleVectorIndexEngine;
+import top.yumbo.ai.rag.model.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 混合检索融合基准：{@link HybridSearchService#fuseScores}，两路结果各半重叠
+ * (Hybrid fusion benchmark: {@link HybridSearchService#fuseScores} with half of the two result lists overlapping)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HybridFusionBenchmark {
+
+    @Param({"20", "100", "500"})
+    public int candidates;
+
+    private List<Document> luceneDocs;
+    private List<SimpleVectorIndexEngine.VectorSearchResult> vectorResults;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        luceneDocs = corpus.documents(candidates, 1);
+        vectorResults = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            // 后一半与关键词结果重叠（The second half overlaps the keyword results）
+            String docId = "doc-" + (i + candidates / 2);
+            vectorResults.add(new SimpleVectorIndexEngine.VectorSearchResult(docId, 1.0f - i / (float) candidates, -1));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Double> fuse() {
+        return HybridSearchService.fuseScores(luceneDocs, vectorResults, 0.3, 0.7);
+    }
+}
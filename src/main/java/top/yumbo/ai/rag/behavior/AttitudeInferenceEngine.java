@@ -89,6 +89,50 @@ public class AttitudeInferenceEngine {
         return score;
     }
 
+    /**
+     * 基于预聚合推断态度 (Infer Attitude from a Pre-aggregate)
+     * 与 {@link #inferAttitude(List, Map)} 口径一致，时间衰减按分区时间中点计算，不再逐条扫描信号
+     * (Same measure as {@link #inferAttitude(List, Map)}; time decay is taken at each partition's midpoint
+     * instead of scanning every signal)
+     *
+     * @param stats 预聚合快照，来自 {@link SignalStore}
+     * @param userId 用户ID，可为 null
+     * @param answerId 答案ID，可为 null
+     * @param userContext 用户上下文信息
+     * @return 态度评分（不含支撑信号）
+     */
+    public AttitudeScore inferAttitude(SignalStats stats, String userId, String answerId,
+                                       Map<String, Object> userContext) {
+        if (stats == null || stats.count() == 0) {
+            logger.warn(I18N.get("behavior.infer.no_signals"));
+            AttitudeScore score = createDefaultScore(null);
+            score.setUserId(userId);
+            score.setAnswerId(answerId);
+            return score;
+        }
+
+        // 上下文调整对每条信号相同，在归一化时约去 (Context adjustment is the same for every signal and cancels out)
+        long now = System.currentTimeMillis();
+        double[] sums = new double[2];
+        SignalWeight signalWeight = weighter.getSignalWeight();
+        stats.forEachPartition((midpointMillis, counts, strengths) -> {
+            double decay = weighter.calculateTimeDecay((now - midpointMillis) / 60_000L);
+            for (SignalType type : SignalType.values()) {
+                double weighted = signalWeight.getWeight(type) * strengths[type.ordinal()] * decay;
+                sums[0] += weighted;
+                sums[1] += Math.abs(weighted);
+            }
+        });
+        double rawScore = sums[1] == 0 ? 0.0 : Math.max(-1.0, Math.min(1.0, sums[0] / sums[1]));
+        double confidence = calculateConfidence(stats, rawScore);
+
+        AttitudeScore score = new AttitudeScore(userId, answerId, rawScore, confidence);
+        score.setExplanation(generateExplanation(stats, rawScore, confidence));
+
+        logger.debug(I18N.get("behavior.infer.complete"), score.getLevel(), rawScore, confidence);
+        return score;
+    }
+
     /**
      * 计算加权总分 (Calculate Weighted Score)
      *
@@ -148,6 +192,30 @@ public class AttitudeInferenceEngine {
         return Math.max(0.0, Math.min(1.0, confidence));
     }
 
+    /**
+     * 基于预聚合计算置信度 (Calculate Confidence from a Pre-aggregate)
+     *
+     * @param stats 预聚合
+     * @param rawScore 原始评分
+     * @return 置信度（0.0 到 1.0）
+     */
+    public double calculateConfidence(SignalStats stats, double rawScore) {
+        long count = stats.count();
+        if (count == 0) {
+            return 0.0;
+        }
+        double countConfidence = calculateCountConfidence((int) Math.min(Integer.MAX_VALUE, count));
+
+        long positive = stats.positiveCount();
+        long consistentCount = rawScore > 0 ? positive : count - positive;
+        double consistencyConfidence = Math.max(0.0, ((double) consistentCount / count - 0.5) * 2.0);
+
+        double strongSignalBonus = Math.min(1.0, stats.strongCount() * STRONG_SIGNAL_BONUS);
+
+        double confidence = (countConfidence * 0.4 + consistencyConfidence * 0.4 + strongSignalBonus * 0.2);
+        return Math.max(0.0, Math.min(1.0, confidence));
+    }
+
     /**
      * 计算基于数量的置信度 (Calculate Count-based Confidence)
      * 信号数量越多，置信度越高
@@ -265,6 +333,40 @@ public class AttitudeInferenceEngine {
         return explanation.toString();
     }
 
+    /**
+     * 基于预聚合生成解释 (Generate Explanation from a Pre-aggregate)
+     * 关键信号按类型汇总 (Key signals are summarized per type)
+     */
+    public String generateExplanation(SignalStats stats, double rawScore, double confidence) {
+        StringBuilder explanation = new StringBuilder();
+
+        AttitudeLevel level = AttitudeLevel.fromScore(rawScore);
+        explanation.append(I18N.get("behavior.infer.explanation.summary", level, rawScore, confidence));
+        explanation.append("\n\n");
+        explanation.append(I18N.get("behavior.infer.explanation.key_signals"));
+        explanation.append("\n");
+
+        // 按类型的加权值之和排序 (Sort types by their summed weighted value)
+        double[] weightedByType = new double[SignalType.values().length];
+        stats.forEachPartition((midpointMillis, counts, strengths) -> {
+            for (SignalType type : SignalType.values()) {
+                weightedByType[type.ordinal()] += type.getBaseWeight() * strengths[type.ordinal()];
+            }
+        });
+        stats.typeDistribution().keySet().stream()
+                .sorted((a, b) -> Double.compare(Math.abs(weightedByType[b.ordinal()]), Math.abs(weightedByType[a.ordinal()])))
+                .limit(5) // 只显示前5个 (Show top 5)
+                .forEach(type -> explanation.append(String.format("  %s %s x%d (%.2f)\n",
+                        type.isPositive() ? "+" : "-",
+                        I18N.get("signal." + type.getIdentifier()),
+                        stats.count(type),
+                        weightedByType[type.ordinal()])));
+
+        explanation.append("\n");
+        explanation.append(I18N.get("behavior.infer.explanation.confidence", stats.count(), confidence));
+        return explanation.toString();
+    }
+
     // ========== 辅助方法 (Helper Methods) ==========
 
     /**
@@ -96,13 +96,7 @@ public class SignalAggregator {
         aggregation.setNegativeSignalCount(negativeCount);
 
         // 判断用户倾向 (Determine user tendency)
-        if (positiveCount > negativeCount * 2) {
-            aggregation.setTendency("positive");
-        } else if (negativeCount > positiveCount * 2) {
-            aggregation.setTendency("negative");
-        } else {
-            aggregation.setTendency("neutral");
-        }
+        aggregation.setTendency(tendency(positiveCount, negativeCount));
     }
 
     /**
@@ -297,6 +291,149 @@ public class SignalAggregator {
         aggregation.setAverageSignalsPerUser(calculateAverageSignalsPerUser(signals));
     }
 
+    // ========== 基于预聚合 (From Pre-aggregates) ==========
+
+    /**
+     * 按用户聚合，读取 {@link SignalStore} 的滚动预聚合而不重新分组原始信号
+     * (Aggregate by user from the rolling pre-aggregates of a {@link SignalStore} instead of regrouping raw signals)
+     *
+     * @param store 信号存储
+     * @return Key: userId, Value: 用户聚合结果
+     */
+    public Map<String, UserAggregation> aggregateByUser(SignalStore store) {
+        Map<String, SignalStats> statsByUser = store.userStats();
+        logger.info(I18N.get("behavior.aggregate.user.start"), store.size());
+
+        Map<String, UserAggregation> results = new HashMap<>();
+        statsByUser.forEach((userId, stats) -> {
+            UserAggregation aggregation = new UserAggregation(userId);
+            aggregation.setAverageAttitude(inferenceEngine.inferAttitude(stats, userId, null, new HashMap<>()));
+            aggregation.setSignalTypeDistribution(stats.typeDistribution());
+            aggregation.setPositiveSignalCount(stats.positiveCount());
+            aggregation.setNegativeSignalCount(stats.negativeCount());
+            aggregation.setTendency(tendency(stats.positiveCount(), stats.negativeCount()));
+            aggregation.setAttitudeTrend(attitudeTrend(stats));
+            results.put(userId, aggregation);
+        });
+
+        logger.info(I18N.get("behavior.aggregate.user.complete"), results.size());
+        return results;
+    }
+
+    /**
+     * 按概念（答案）聚合，读取预聚合 (Aggregate by concept/answer from the pre-aggregates)
+     *
+     * @param store 信号存储
+     * @return Key: answerId, Value: 概念聚合结果
+     */
+    public Map<String, ConceptAggregation> aggregateByConcept(SignalStore store) {
+        Map<String, SignalStats> statsByAnswer = store.answerStats();
+        logger.info(I18N.get("behavior.aggregate.concept.start"), store.size());
+
+        Map<String, ConceptAggregation> results = new HashMap<>();
+        statsByAnswer.forEach((answerId, stats) -> {
+            ConceptAggregation aggregation = new ConceptAggregation(answerId);
+            double avgScore = stats.averageWeightedValue();
+            aggregation.setAverageScore(avgScore);
+            aggregation.setPositiveFeedbackCount(stats.positiveCount());
+            aggregation.setNegativeFeedbackCount(stats.negativeCount());
+            aggregation.setFeedbackRatio(calculateRatio(stats.positiveCount(), stats.negativeCount()));
+            aggregation.setProblematic(avgScore < -0.3
+                    || (double) stats.negativeCount() / stats.count() > 0.6
+                    || stats.strongNegativeCount() > 0);
+            aggregation.setConfidenceIndex(inferenceEngine.calculateConfidence(stats, avgScore));
+            results.put(answerId, aggregation);
+        });
+
+        logger.info(I18N.get("behavior.aggregate.concept.complete"), results.size());
+        return results;
+    }
+
+    /**
+     * 按角色聚合，角色取信号写入时用户的角色 (Aggregate by role, using each user's role at ingest time)
+     *
+     * @param store 信号存储
+     * @return Key: role, Value: 角色聚合结果
+     */
+    public Map<String, RoleAggregation> aggregateByRole(SignalStore store) {
+        Map<String, SignalStats> statsByRole = store.roleStats();
+        logger.info(I18N.get("behavior.aggregate.role.start"), store.size());
+
+        Map<String, RoleAggregation> results = new HashMap<>();
+        statsByRole.forEach((role, stats) -> {
+            RoleAggregation aggregation = new RoleAggregation(role);
+
+            // 每个答案在该角色下的态度 (Attitude per answer within the role)
+            Map<AttitudeLevel, Long> distribution = new EnumMap<>(AttitudeLevel.class);
+            store.roleAnswerStats(role).forEach((answerId, answerStats) -> distribution.merge(
+                    inferenceEngine.inferAttitude(answerStats, null, answerId, new HashMap<>()).getLevel(),
+                    1L, Long::sum));
+            aggregation.setAttitudeDistribution(distribution);
+
+            aggregation.setAverageScore(stats.averageWeightedValue());
+            aggregation.setSignalDiversity(stats.typeDistribution().size());
+            aggregation.setTotalSignalCount((int) stats.count());
+            int users = store.roleUserCount(role);
+            aggregation.setAverageSignalsPerUser(users == 0 ? 0.0 : (double) stats.count() / users);
+            results.put(role, aggregation);
+        });
+
+        logger.info(I18N.get("behavior.aggregate.role.complete"), results.size());
+        return results;
+    }
+
+    /**
+     * 判断用户倾向 (Determine Tendency)
+     */
+    private String tendency(long positiveCount, long negativeCount) {
+        if (positiveCount > negativeCount * 2) {
+            return "positive";
+        } else if (negativeCount > positiveCount * 2) {
+            return "negative";
+        }
+        return "neutral";
+    }
+
+    /**
+     * 基于分区预聚合追踪态度变化 (Track Attitude Changes from Partition Pre-aggregates)
+     * 按时间先后在信号数中点处分为早晚两半，跨中点的分区按比例拆分
+     * (Split at the signal-count midpoint in time order; the partition straddling the midpoint is split pro rata)
+     */
+    private String attitudeTrend(SignalStats stats) {
+        long total = stats.count();
+        if (total < 2) {
+            return "stable";
+        }
+
+        long midpoint = total / 2;
+        // [早期计数, 早期加权和, 晚期计数, 晚期加权和] ([early count, early sum, late count, late sum])
+        double[] halves = new double[4];
+        long[] seen = new long[1];
+        stats.forEachPartition((midpointMillis, counts, strengths) -> {
+            long count = 0;
+            double weighted = 0.0;
+            for (SignalType type : SignalType.values()) {
+                count += counts[type.ordinal()];
+                weighted += type.getBaseWeight() * strengths[type.ordinal()];
+            }
+            long early = Math.max(0, Math.min(count, midpoint - seen[0]));
+            double earlyShare = count == 0 ? 0.0 : (double) early / count;
+            halves[0] += early;
+            halves[1] += weighted * earlyShare;
+            halves[2] += count - early;
+            halves[3] += weighted * (1 - earlyShare);
+            seen[0] += count;
+        });
+
+        double earlyScore = halves[0] == 0 ? 0.0 : halves[1] / halves[0];
+        double lateScore = halves[2] == 0 ? 0.0 : halves[3] / halves[2];
+        double change = lateScore - earlyScore;
+        if (Math.abs(change) < 0.1) {
+            return "stable";
+        }
+        return change > 0 ? "improving" : "declining";
+    }
+
     // ========== 生成报告 (Generate Report) ==========
 
     /**
@@ -20,11 +20,20 @@ public class SignalCollector {
 
     private static final Logger logger = LoggerFactory.getLogger(SignalCollector.class);
 
+    private static final String DEFAULT_ROLE = "regular";
+
     /**
      * 事件存储 (Event Storage)
-     * Key: answerId, Value: 该答案的信号事件列表
+     * 有界的列式存储，写入时更新按用户、答案、角色的预聚合
+     * (Bounded columnar store that updates per-user, per-answer and per-role pre-aggregates on ingest)
+     */
+    private final SignalStore signalStore;
+
+    /**
+     * 用户角色 (User Roles)
+     * Key: userId, Value: 角色，未设置时为 regular
      */
-    private final Map<String, List<BehaviorSignalEvent>> eventStore;
+    private final Map<String, String> userRoles;
 
     /**
      * 会话追踪 (Session Tracking)
@@ -41,7 +50,12 @@ public class SignalCollector {
     // ========== 构造函数 (Constructors) ==========
 
     public SignalCollector() {
-        this.eventStore = new ConcurrentHashMap<>();
+        this(new SignalStore());
+    }
+
+    public SignalCollector(SignalStore signalStore) {
+        this.signalStore = signalStore;
+        this.userRoles = new ConcurrentHashMap<>();
         this.sessionTracker = new ConcurrentHashMap<>();
         this.viewTracker = new ConcurrentHashMap<>();
     }
@@ -267,23 +281,38 @@ public class SignalCollector {
      */
     private void storeEvent(BehaviorSignalEvent event) {
         String answerId = event.getAnswerId();
-        eventStore.computeIfAbsent(answerId, k -> new ArrayList<>()).add(event);
+        signalStore.append(event, userRoles.getOrDefault(event.getUserId(), DEFAULT_ROLE));
 
         logger.debug(I18N.get("behavior.collect.stored"), event.getEventId(), answerId);
     }
 
     /**
-     * 获取答案的所有信号事件 (Get All Events for Answer)
+     * 获取答案在保留窗口内的信号事件，由列数据还原，不含上下文
+     * (Get the signals of an answer within the retention window, rebuilt from columns without context)
      */
     public List<BehaviorSignalEvent> getEvents(String answerId) {
-        return eventStore.getOrDefault(answerId, Collections.emptyList());
+        return signalStore.getEvents(answerId);
+    }
+
+    /**
+     * 获取信号存储，供聚合读取预聚合 (Get the signal store for aggregation from pre-aggregates)
+     */
+    public SignalStore getSignalStore() {
+        return signalStore;
+    }
+
+    /**
+     * 设置用户角色，影响之后采集的信号 (Set a user's role; applies to signals collected afterwards)
+     */
+    public void setUserRole(String userId, String role) {
+        userRoles.put(userId, role);
     }
 
     /**
      * 清除答案的事件 (Clear Events for Answer)
      */
     public void clearEvents(String answerId) {
-        eventStore.remove(answerId);
+        signalStore.removeAnswer(answerId);
         viewTracker.remove(answerId);
         logger.info(I18N.get("behavior.collect.cleared"), answerId);
     }
@@ -293,8 +322,8 @@ public class SignalCollector {
      */
     public Map<String, Object> getStatistics() {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("total_answers", eventStore.size());
-        stats.put("total_events", eventStore.values().stream().mapToInt(List::size).sum());
+        stats.put("total_answers", signalStore.answerCount());
+        stats.put("total_events", signalStore.size());
         stats.put("active_sessions", sessionTracker.size());
         return stats;
     }
@@ -0,0 +1,231 @@
+package top.yumbo.ai.rag.behavior;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 信号滚动预聚合 (Rolling Signal Pre-aggregate)
+ * 某个用户、答案或角色在保留窗口内的信号计数和强度和，按分区和信号类型分格
+ * (Signal counts and strength sums of one user, answer or role within the retained window,
+ * bucketed by partition and signal type)
+ *
+ * <p>
+ * 由 {@link SignalStore} 在写入时累加、在分区滚出时扣减；对外只暴露快照副本
+ * (Added to by {@link SignalStore} on ingest and subtracted from when a partition rolls off;
+ * callers only ever see snapshot copies)
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+public final class SignalStats {
+
+    private static final SignalType[] TYPES = SignalType.values();
+
+    /**
+     * 分格计数 (Counts) [partition][type]，未使用的分区为 null
+     */
+    private final int[][] counts;
+
+    /**
+     * 分格强度和 (Strength sums) [partition][type]
+     */
+    private final double[][] strengths;
+
+    /**
+     * 分区时间信息，仅快照持有 (Partition times, held by snapshots only)
+     */
+    private final SignalStore.PartitionTimes times;
+
+    private long total;
+
+    SignalStats(int partitions) {
+        this.counts = new int[partitions][];
+        this.strengths = new double[partitions][];
+        this.times = null;
+    }
+
+    private SignalStats(SignalStats source, SignalStore.PartitionTimes times) {
+        this.counts = new int[source.counts.length][];
+        this.strengths = new double[source.strengths.length][];
+        for (int p = 0; p < counts.length; p++) {
+            if (source.counts[p] != null) {
+                counts[p] = source.counts[p].clone();
+                strengths[p] = source.strengths[p].clone();
+            }
+        }
+        this.times = times;
+        this.total = source.total;
+    }
+
+    // ========== 写入 (Writes, called by SignalStore) ==========
+
+    void add(int partition, int type, double strength) {
+        if (counts[partition] == null) {
+            counts[partition] = new int[TYPES.length];
+            strengths[partition] = new double[TYPES.length];
+        }
+        counts[partition][type]++;
+        strengths[partition][type] += strength;
+        total++;
+    }
+
+    /**
+     * 扣减一条信号，返回是否已空 (Subtract one signal; returns whether the aggregate is now empty)
+     */
+    boolean subtract(int partition, int type, double strength) {
+        int[] partitionCounts = counts[partition];
+        if (partitionCounts == null || partitionCounts[type] == 0) {
+            return total == 0;
+        }
+        partitionCounts[type]--;
+        // 计数归零时直接清零，避免浮点残差 (Reset on zero count to avoid floating point residue)
+        strengths[partition][type] = partitionCounts[type] == 0 ? 0.0 : strengths[partition][type] - strength;
+        total--;
+        if (isEmpty(partitionCounts)) {
+            counts[partition] = null;
+            strengths[partition] = null;
+        }
+        return total == 0;
+    }
+
+    SignalStats snapshot(SignalStore.PartitionTimes times) {
+        return new SignalStats(this, times);
+    }
+
+    // ========== 读取 (Reads) ==========
+
+    /**
+     * 信号总数 (Total signal count)
+     */
+    public long count() {
+        return total;
+    }
+
+    /**
+     * 某类型的信号数 (Count of one signal type)
+     */
+    public long count(SignalType type) {
+        long sum = 0;
+        for (int[] partitionCounts : counts) {
+            if (partitionCounts != null) {
+                sum += partitionCounts[type.ordinal()];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 正面信号数 (Positive signal count)
+     */
+    public long positiveCount() {
+        return countMatching(true, false, false);
+    }
+
+    /**
+     * 负面信号数 (Negative signal count)
+     */
+    public long negativeCount() {
+        return countMatching(false, true, false);
+    }
+
+    /**
+     * 强信号数 (Strong signal count)
+     */
+    public long strongCount() {
+        return countMatching(false, false, true);
+    }
+
+    /**
+     * 强负面信号数 (Strong negative signal count)
+     */
+    public long strongNegativeCount() {
+        return countMatching(false, true, true);
+    }
+
+    /**
+     * 加权值之和，即各信号 {@link BehaviorSignalEvent#getWeightedValue()} 之和
+     * (Sum of weighted values, i.e. the sum of {@link BehaviorSignalEvent#getWeightedValue()})
+     */
+    public double weightedValueSum() {
+        double sum = 0.0;
+        for (double[] partitionStrengths : strengths) {
+            if (partitionStrengths != null) {
+                for (int t = 0; t < TYPES.length; t++) {
+                    sum += TYPES[t].getBaseWeight() * partitionStrengths[t];
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 平均加权值 (Average weighted value)
+     */
+    public double averageWeightedValue() {
+        return total == 0 ? 0.0 : weightedValueSum() / total;
+    }
+
+    /**
+     * 信号类型分布 (Signal type distribution)
+     */
+    public Map<SignalType, Long> typeDistribution() {
+        Map<SignalType, Long> distribution = new EnumMap<>(SignalType.class);
+        for (SignalType type : TYPES) {
+            long count = count(type);
+            if (count > 0) {
+                distribution.put(type, count);
+            }
+        }
+        return distribution;
+    }
+
+    /**
+     * 按时间先后遍历有数据的分区，仅快照可用
+     * (Visit non-empty partitions oldest first; snapshots only)
+     */
+    public void forEachPartition(PartitionVisitor visitor) {
+        if (times == null) {
+            throw new IllegalStateException("forEachPartition requires a snapshot");
+        }
+        for (int partition : times.oldestFirst()) {
+            if (counts[partition] != null) {
+                visitor.visit(times.midpointMillis(partition), counts[partition], strengths[partition]);
+            }
+        }
+    }
+
+    private long countMatching(boolean positive, boolean negative, boolean strong) {
+        long sum = 0;
+        for (int t = 0; t < TYPES.length; t++) {
+            SignalType type = TYPES[t];
+            if ((positive && !type.isPositive()) || (negative && !type.isNegative()) || (strong && !type.isStrong())) {
+                continue;
+            }
+            sum += count(type);
+        }
+        return sum;
+    }
+
+    private static boolean isEmpty(int[] partitionCounts) {
+        for (int c : partitionCounts) {
+            if (c != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 分区访问器 (Partition Visitor)
+     */
+    @FunctionalInterface
+    public interface PartitionVisitor {
+        /**
+         * @param midpointMillis 分区时间中点 (Partition time midpoint, epoch millis)
+         * @param counts 按 {@link SignalType#ordinal()} 索引的计数 (Counts indexed by ordinal)
+         * @param strengths 按 {@link SignalType#ordinal()} 索引的强度和 (Strength sums indexed by ordinal)
+         */
+        void visit(long midpointMillis, int[] counts, double[] strengths);
+    }
+}
@@ -0,0 +1,443 @@
+package top.yumbo.ai.rag.behavior;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import top.yumbo.ai.rag.i18n.I18N;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 列式信号存储 (Columnar Signal Store)
+ * 按时间分区的环形存储，每个分区以基本类型数组分别保存时间戳、信号类型和强度列，
+ * 写入时同步更新每个用户、答案和角色的滚动预聚合
+ * (Time-partitioned ring; each partition keeps timestamp, signal type and strength columns in primitive arrays.
+ * Rolling pre-aggregates per user, answer and role are updated on ingest)
+ *
+ * <p>
+ * 分区写满或超过分区时长时切换到下一个分区；环绕时最旧分区滚出，其行从预聚合中扣减，
+ * 因此内存上限为 分区数 × 分区容量 行，预聚合始终与保留窗口一致
+ * (A partition is closed when it is full or its time span is exceeded. When the ring wraps, the oldest partition
+ * rolls off and its rows are subtracted from the pre-aggregates, so memory is bounded by partitions × capacity
+ * rows and the pre-aggregates always match the retained window)
+ * </p>
+ *
+ * <p>
+ * 事件的上下文和事件 ID 不保留 (Event context and event ids are not retained)
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+public class SignalStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalStore.class);
+
+    private static final SignalType[] TYPES = SignalType.values();
+    private static final byte REMOVED = -1;
+
+    /**
+     * 默认分区数 (Default partition count)：48 × 30 分钟 = 24 小时窗口
+     */
+    public static final int DEFAULT_PARTITIONS = 48;
+    public static final int DEFAULT_PARTITION_CAPACITY = 8192;
+    public static final Duration DEFAULT_PARTITION_DURATION = Duration.ofMinutes(30);
+
+    private final Partition[] partitions;
+    private final int partitionCapacity;
+    private final long partitionMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Map<String, SignalStats> byUser = new HashMap<>();
+    private final Map<String, SignalStats> byAnswer = new HashMap<>();
+    private final Map<String, SignalStats> byRole = new HashMap<>();
+    private final Map<String, Map<String, SignalStats>> byRoleAnswer = new HashMap<>();
+    private final Map<String, Map<String, SignalStats>> byRoleUser = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int head = -1;
+    private long sequence;
+    private long size;
+
+    // ========== 构造函数 (Constructors) ==========
+
+    public SignalStore() {
+        this(DEFAULT_PARTITIONS, DEFAULT_PARTITION_CAPACITY, DEFAULT_PARTITION_DURATION);
+    }
+
+    /**
+     * @param partitionCount 分区数 (Number of partitions)
+     * @param partitionCapacity 每个分区的行数 (Rows per partition)
+     * @param partitionDuration 每个分区覆盖的时长 (Time span covered by one partition)
+     */
+    public SignalStore(int partitionCount, int partitionCapacity, Duration partitionDuration) {
+        if (partitionCount < 2 || partitionCapacity < 1 || partitionDuration.isZero() || partitionDuration.isNegative()) {
+            throw new IllegalArgumentException("partitionCount >= 2, partitionCapacity >= 1 and a positive duration are required");
+        }
+        this.partitions = new Partition[partitionCount];
+        this.partitionCapacity = partitionCapacity;
+        this.partitionMillis = partitionDuration.toMillis();
+    }
+
+    // ========== 写入 (Writes) ==========
+
+    /**
+     * 追加信号并更新预聚合 (Append a signal and update the pre-aggregates)
+     *
+     * @param event 信号事件
+     * @param role 事件发生时用户的角色 (User role at the time of the event)
+     */
+    public void append(BehaviorSignalEvent event, String role) {
+        long timestamp = toMillis(event.getTimestamp());
+        lock.writeLock().lock();
+        try {
+            Partition partition = partitionFor(timestamp);
+            int row = partition.size++;
+            partition.timestamps[row] = timestamp;
+            partition.types[row] = (byte) event.getSignalType().ordinal();
+            partition.strengths[row] = (float) event.getStrength();
+            partition.users[row] = event.getUserId();
+            partition.answers[row] = event.getAnswerId();
+            partition.roles[row] = role;
+            partition.minTimestamp = Math.min(partition.minTimestamp, timestamp);
+            partition.maxTimestamp = Math.max(partition.maxTimestamp, timestamp);
+            size++;
+            apply(head, partition, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除某答案的所有信号 (Remove all signals of an answer)
+     *
+     * @return 移除的条数 (Number of removed signals)
+     */
+    public int removeAnswer(String answerId) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (int p = 0; p < partitions.length; p++) {
+                Partition partition = partitions[p];
+                if (partition == null) {
+                    continue;
+                }
+                for (int row = 0; row < partition.size; row++) {
+                    if (partition.types[row] != REMOVED && Objects.equals(answerId, partition.answers[row])) {
+                        unapply(p, partition, row);
+                        partition.types[row] = REMOVED;
+                        removed++;
+                    }
+                }
+            }
+            size -= removed;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 滚出已超出保留窗口的分区 (Roll off partitions that fell out of the retention window)
+     * 写入开新分区时会自动执行，长时间无写入时可由调用方触发
+     * (Runs automatically when ingest opens a partition; callers may trigger it after long idle periods)
+     *
+     * @param nowMillis 当前时间 (Current time, epoch millis)
+     */
+    public void expire(long nowMillis) {
+        lock.writeLock().lock();
+        try {
+            expireBefore(nowMillis - partitionMillis * partitions.length);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== 读取 (Reads) ==========
+
+    /**
+     * 保留窗口内的信号数 (Signals within the retention window)
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 有信号的答案数 (Number of answers with signals)
+     */
+    public int answerCount() {
+        lock.readLock().lock();
+        try {
+            return byAnswer.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按用户的预聚合快照 (Snapshot of the per-user pre-aggregates)
+     */
+    public Map<String, SignalStats> userStats() {
+        return snapshot(byUser);
+    }
+
+    /**
+     * 按答案的预聚合快照 (Snapshot of the per-answer pre-aggregates)
+     */
+    public Map<String, SignalStats> answerStats() {
+        return snapshot(byAnswer);
+    }
+
+    /**
+     * 按角色的预聚合快照 (Snapshot of the per-role pre-aggregates)
+     */
+    public Map<String, SignalStats> roleStats() {
+        return snapshot(byRole);
+    }
+
+    /**
+     * 某角色下按答案的预聚合快照 (Snapshot of the per-answer pre-aggregates within a role)
+     */
+    public Map<String, SignalStats> roleAnswerStats(String role) {
+        lock.readLock().lock();
+        try {
+            return copy(byRoleAnswer.getOrDefault(role, Collections.emptyMap()), partitionTimes());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 某角色下的用户数 (Number of users within a role)
+     */
+    public int roleUserCount(String role) {
+        lock.readLock().lock();
+        try {
+            return byRoleUser.getOrDefault(role, Collections.emptyMap()).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从列数据还原某答案的信号，按时间先后 (Rebuild the signals of an answer from the columns, oldest first)
+     */
+    public List<BehaviorSignalEvent> getEvents(String answerId) {
+        lock.readLock().lock();
+        try {
+            if (!byAnswer.containsKey(answerId)) {
+                return Collections.emptyList();
+            }
+            List<BehaviorSignalEvent> events = new ArrayList<>();
+            for (int p : partitionTimes().oldestFirst()) {
+                Partition partition = partitions[p];
+                for (int row = 0; row < partition.size; row++) {
+                    if (partition.types[row] != REMOVED && answerId.equals(partition.answers[row])) {
+                        events.add(toEvent(partition, row));
+                    }
+                }
+            }
+            return events;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== 私有方法 (Private Methods) ==========
+
+    /**
+     * 取得可写入该时间戳的分区，必要时切换并滚出最旧分区
+     * (Get the partition to write the timestamp into, advancing and rolling off the oldest one when needed)
+     */
+    private Partition partitionFor(long timestamp) {
+        Partition current = head >= 0 ? partitions[head] : null;
+        if (current != null && current.size < partitionCapacity
+                && (current.size == 0 || timestamp < current.startTimestamp + partitionMillis)) {
+            if (current.size == 0) {
+                current.startTimestamp = timestamp;
+            }
+            return current;
+        }
+
+        // 开新分区时顺带滚出超出窗口的分区 (Opening a partition also rolls off those outside the window)
+        expireBefore(timestamp - partitionMillis * partitions.length);
+        head = (head + 1) % partitions.length;
+        Partition next = partitions[head];
+        if (next == null) {
+            next = new Partition(partitionCapacity);
+            partitions[head] = next;
+        } else if (next.size > 0) {
+            rollOff(head);
+        }
+        next.sequence = ++sequence;
+        next.startTimestamp = timestamp;
+        return next;
+    }
+
+    private void expireBefore(long cutoff) {
+        for (int p = 0; p < partitions.length; p++) {
+            Partition partition = partitions[p];
+            if (partition != null && partition.size > 0 && partition.maxTimestamp < cutoff) {
+                rollOff(p);
+            }
+        }
+    }
+
+    private void rollOff(int p) {
+        Partition partition = partitions[p];
+        int live = 0;
+        for (int row = 0; row < partition.size; row++) {
+            if (partition.types[row] != REMOVED) {
+                unapply(p, partition, row);
+                live++;
+            }
+        }
+        size -= live;
+        logger.debug(I18N.get("behavior.collect.rolled_off"), p, live);
+        partition.clear();
+    }
+
+    private void apply(int p, Partition partition, int row) {
+        int type = partition.types[row];
+        double strength = partition.strengths[row];
+        String user = partition.users[row];
+        String role = partition.roles[row];
+        stats(byUser, user).add(p, type, strength);
+        stats(byAnswer, partition.answers[row]).add(p, type, strength);
+        stats(byRole, role).add(p, type, strength);
+        stats(byRoleAnswer.computeIfAbsent(role, k -> new HashMap<>()), partition.answers[row]).add(p, type, strength);
+        stats(byRoleUser.computeIfAbsent(role, k -> new HashMap<>()), user).add(p, type, strength);
+    }
+
+    private void unapply(int p, Partition partition, int row) {
+        int type = partition.types[row];
+        double strength = partition.strengths[row];
+        String role = partition.roles[row];
+        subtract(byUser, partition.users[row], p, type, strength);
+        subtract(byAnswer, partition.answers[row], p, type, strength);
+        subtract(byRole, role, p, type, strength);
+        subtractNested(byRoleAnswer, role, partition.answers[row], p, type, strength);
+        subtractNested(byRoleUser, role, partition.users[row], p, type, strength);
+    }
+
+    private SignalStats stats(Map<String, SignalStats> index, String key) {
+        return index.computeIfAbsent(key, k -> new SignalStats(partitions.length));
+    }
+
+    private static void subtract(Map<String, SignalStats> index, String key, int p, int type, double strength) {
+        SignalStats stats = index.get(key);
+        if (stats != null && stats.subtract(p, type, strength)) {
+            index.remove(key);
+        }
+    }
+
+    private static void subtractNested(Map<String, Map<String, SignalStats>> index, String outer, String inner,
+                                       int p, int type, double strength) {
+        Map<String, SignalStats> nested = index.get(outer);
+        if (nested != null) {
+            subtract(nested, inner, p, type, strength);
+            if (nested.isEmpty()) {
+                index.remove(outer);
+            }
+        }
+    }
+
+    private Map<String, SignalStats> snapshot(Map<String, SignalStats> index) {
+        lock.readLock().lock();
+        try {
+            return copy(index, partitionTimes());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Map<String, SignalStats> copy(Map<String, SignalStats> index, PartitionTimes times) {
+        Map<String, SignalStats> copy = new HashMap<>(index.size() * 2);
+        index.forEach((key, stats) -> copy.put(key, stats.snapshot(times)));
+        return copy;
+    }
+
+    private PartitionTimes partitionTimes() {
+        long[] midpoints = new long[partitions.length];
+        List<Integer> live = new ArrayList<>();
+        for (int p = 0; p < partitions.length; p++) {
+            Partition partition = partitions[p];
+            if (partition != null && partition.size > 0) {
+                midpoints[p] = partition.minTimestamp + (partition.maxTimestamp - partition.minTimestamp) / 2;
+                live.add(p);
+            }
+        }
+        live.sort(Comparator.comparingLong(p -> partitions[p].sequence));
+        return new PartitionTimes(midpoints, live.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private BehaviorSignalEvent toEvent(Partition partition, int row) {
+        BehaviorSignalEvent event = new BehaviorSignalEvent(partition.users[row], null, partition.answers[row],
+                TYPES[partition.types[row]]);
+        event.setStrength(partition.strengths[row]);
+        event.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(partition.timestamps[row]), zone));
+        return event;
+    }
+
+    private long toMillis(LocalDateTime timestamp) {
+        return (timestamp != null ? timestamp : LocalDateTime.now()).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 一个分区的列数据 (Column data of one partition)
+     */
+    private static final class Partition {
+        final long[] timestamps;
+        final byte[] types;
+        final float[] strengths;
+        // 字符串列只保存引用，同一 ID 通常共享实例 (String columns hold references, usually shared per id)
+        final String[] users;
+        final String[] answers;
+        final String[] roles;
+        int size;
+        long sequence;
+        long startTimestamp;
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+
+        Partition(int capacity) {
+            this.timestamps = new long[capacity];
+            this.types = new byte[capacity];
+            this.strengths = new float[capacity];
+            this.users = new String[capacity];
+            this.answers = new String[capacity];
+            this.roles = new String[capacity];
+        }
+
+        void clear() {
+            Arrays.fill(users, 0, size, null);
+            Arrays.fill(answers, 0, size, null);
+            Arrays.fill(roles, 0, size, null);
+            size = 0;
+            minTimestamp = Long.MAX_VALUE;
+            maxTimestamp = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * 分区时间快照 (Partition time snapshot)
+     *
+     * @param midpoints 各分区的时间中点 (Time midpoint of each partition, epoch millis)
+     * @param oldestFirst 有数据的分区下标，按写入先后 (Non-empty partition indexes in write order)
+     */
+    record PartitionTimes(long[] midpoints, int[] oldestFirst) {
+        long midpointMillis(int partition) {
+            return midpoints[partition];
+        }
+    }
+}
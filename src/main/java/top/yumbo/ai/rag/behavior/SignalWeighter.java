@@ -135,7 +135,16 @@ public class SignalWeighter {
      */
     private double calculateTimeDecay(LocalDateTime timestamp) {
         Duration age = Duration.between(timestamp, LocalDateTime.now());
-        long minutes = age.toMinutes();
+        return calculateTimeDecay(age.toMinutes());
+    }
+
+    /**
+     * 按信号年龄计算时间衰减因子 (Calculate Time Decay by Signal Age)
+     *
+     * @param minutes 信号年龄（分钟）
+     * @return 衰减因子（0.5 ~ 1.0）
+     */
+    public double calculateTimeDecay(long minutes) {
 
         // 30分钟内无衰减 (No decay within 30 minutes)
         if (minutes <= 30) {
@@ -49,6 +49,16 @@ public class ChunkingConfig {
          */
         private String model = "deepseek-chat";
 
+        /**
+         * 长文档分段后同时进行的请求数 (Concurrent requests for the segments of a long document)
+         */
+        private int parallelism = 4;
+
+        /**
+         * 每秒请求数上限，0 表示不限流 (Requests per second, 0 disables limiting)
+         */
+        private double requestsPerSecond = 0;
+
         /**
          * 语义切分的 Prompt 模板 (Prompt template for semantic chunking)
          */
@@ -0,0 +1,139 @@
+package top.yumbo.ai.rag.chunking;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.rag.i18n.I18N;
+import top.yumbo.ai.rag.util.TokenBucket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LLM 分段调度器 (LLM segment dispatcher)
+ * 将长文档各段的 LLM 分块请求并发发出，按令牌桶限流，结果按原顺序拼回；单段失败时只对该段降级，不影响整篇文档
+ * (Sends the per-segment LLM chunking prompts of a long document concurrently, rate-limited with a token
+ * bucket, and reassembles the results in order; a failed segment falls back on its own without aborting
+ * the document)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+public class LLMSegmentDispatcher implements AutoCloseable {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final int parallelism;
+    private final TokenBucket limiter;
+    private final ExecutorService executor;
+
+    /**
+     * @param name              线程名前缀 (Thread name prefix)
+     * @param parallelism       同时进行的请求数 (Number of requests in flight)
+     * @param requestsPerSecond 每秒请求数，0 表示不限流 (Requests per second, 0 disables limiting)
+     */
+    public LLMSegmentDispatcher(String name, int parallelism, double requestsPerSecond) {
+        this.parallelism = Math.max(1, parallelism);
+        this.limiter = requestsPerSecond > 0 ? new TokenBucket(requestsPerSecond, this.parallelism) : null;
+
+        // 空闲线程会回收，闲置的调度器不占用线程 (Idle threads time out, so an unused dispatcher holds none)
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(this.parallelism, this.parallelism,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+
+        log.info(I18N.get("chunking_strategy.dispatch.initialized", name, this.parallelism, requestsPerSecond));
+    }
+
+    /**
+     * 并发处理各段，返回与输入顺序一致的结果 (Process the segments concurrently and return results in input order)
+     *
+     * @param segments 文档分段 (Document segments)
+     * @param call     对单段调用 LLM 并解析结果 (Calls the LLM for one segment and parses the result)
+     * @param fallback 单段失败时的降级处理 (Fallback for a segment that failed)
+     * @return 每段的结果 (Result of each segment)
+     */
+    public <T> List<T> dispatch(List<String> segments, SegmentCall<T> call, SegmentFallback<T> fallback) {
+        long start = System.currentTimeMillis();
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            int index = i;
+            String segment = segments.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (limiter != null) {
+                        limiter.acquire();
+                    }
+                    return call.apply(index, segment);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+
+        List<T> results = new ArrayList<>(segments.size());
+        int failed = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            try {
+                results.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                failed++;
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn(I18N.get("chunking_strategy.dispatch.segment_failed", i + 1, segments.size(), cause.getMessage()));
+                results.add(fallback.apply(segments.get(i), cause));
+            }
+        }
+
+        log.info(I18N.get("chunking_strategy.dispatch.completed", segments.size(), failed,
+                System.currentTimeMillis() - start));
+        return results;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 单段 LLM 调用 (LLM call for one segment)
+     */
+    @FunctionalInterface
+    public interface SegmentCall<T> {
+        T apply(int index, String segment) throws Exception;
+    }
+
+    /**
+     * 单段降级处理 (Fallback for one segment)
+     */
+    @FunctionalInterface
+    public interface SegmentFallback<T> {
+        T apply(String segment, Throwable cause);
+    }
+}
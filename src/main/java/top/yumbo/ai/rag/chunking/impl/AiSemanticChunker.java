@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import top.yumbo.ai.rag.chunking.ChunkingConfig;
 import top.yumbo.ai.rag.chunking.DocumentChunk;
 import top.yumbo.ai.rag.chunking.DocumentChunker;
+import top.yumbo.ai.rag.chunking.LLMSegmentDispatcher;
 import top.yumbo.ai.rag.spring.boot.llm.LLMClient;
 import top.yumbo.ai.rag.i18n.I18N;
 
@@ -26,12 +27,20 @@ public class AiSemanticChunker implements DocumentChunker {
     private final ChunkingConfig config;
     private final LLMClient llmClient;
     private final ObjectMapper objectMapper;
+    private final LLMSegmentDispatcher dispatcher;
+
+    /**
+     * 单次请求最多处理的内容为块大小的倍数 (Content per request, as a multiple of the chunk size)
+     */
+    private static final int SEGMENT_SIZE_FACTOR = 10;
 
     public AiSemanticChunker(ChunkingConfig config, LLMClient llmClient) {
         this.config = config;
         this.llmClient = llmClient;
         this.objectMapper = new ObjectMapper();
         config.validate();
+        this.dispatcher = new LLMSegmentDispatcher("AiSemanticChunker",
+                config.getAiChunking().getParallelism(), config.getAiChunking().getRequestsPerSecond());
 
         if (!config.getAiChunking().isEnabled()) {
             log.warn(I18N.get("log.chunk.ai_not_enabled"));
@@ -55,29 +64,68 @@ public class AiSemanticChunker implements DocumentChunker {
                     .build());
         }
 
-        try {
-            log.info(I18N.get("log.chunk.ai_start", content.length()));
-            long startTime = System.currentTimeMillis();
-
-            // 构建 Prompt (Build prompt)
-            String prompt = buildChunkingPrompt(content, query);
+        log.info(I18N.get("log.chunk.ai_start", content.length()));
+        long startTime = System.currentTimeMillis();
 
-            // 调用 LLM (Call LLM)
-            String response = llmClient.generate(prompt);
+        // 长文档按段落边界分段，各段的 LLM 请求并发发出 (Long content is split at paragraph boundaries and the
+        // LLM requests of the segments are sent concurrently)
+        List<int[]> bounds = segmentBounds(content, config.getChunkSize() * SEGMENT_SIZE_FACTOR);
+        List<String> segments = new ArrayList<>(bounds.size());
+        for (int[] bound : bounds) {
+            segments.add(content.substring(bound[0], bound[1]));
+        }
 
-            // 解析响应 (Parse response)
-            List<DocumentChunk> chunks = parseChunkingResponse(response, content);
+        List<List<DocumentChunk>> results = dispatcher.dispatch(segments,
+                (index, segment) -> parseChunkingResponse(llmClient.generate(buildChunkingPrompt(segment, query)), segment),
+                (segment, cause) -> {
+                    // 失败的段降级到智能关键词切分 (A failed segment falls back to smart keyword chunking)
+                    log.error(I18N.get("log.chunk.ai_failed"), cause);
+                    return new SmartKeywordChunker(config).chunk(segment, query);
+                });
+
+        // 按原顺序拼回，位置换算为整篇文档中的偏移 (Reassemble in order, with positions relative to the whole content)
+        List<DocumentChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            int offset = bounds.get(i)[0];
+            for (DocumentChunk chunk : results.get(i)) {
+                chunk.setStartPosition(chunk.getStartPosition() + offset);
+                chunk.setEndPosition(chunk.getEndPosition() + offset);
+                chunks.add(chunk);
+            }
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            chunks.get(i).setIndex(i);
+            chunks.get(i).setTotalChunks(chunks.size());
+        }
 
-            long duration = System.currentTimeMillis() - startTime;
-            log.info(I18N.get("log.chunk.ai_completed", content.length(), chunks.size(), duration));
+        long duration = System.currentTimeMillis() - startTime;
+        log.info(I18N.get("log.chunk.ai_completed", content.length(), chunks.size(), duration));
 
-            return chunks;
+        return chunks;
+    }
 
-        } catch (Exception e) {
-            log.error(I18N.get("log.chunk.ai_failed"), e);
-            // 失败时降级到智能关键词切分 (Fallback to smart keyword chunking on failure)
-            return new SmartKeywordChunker(config).chunk(content, query);
+    /**
+     * 按段落边界将内容分成不超过 maxLength 的段，返回每段的 [起始, 结束) 位置
+     * (Split content at paragraph boundaries into segments of at most maxLength, returning each [start, end))
+     */
+    static List<int[]> segmentBounds(String content, int maxLength) {
+        List<int[]> bounds = new ArrayList<>();
+        int start = 0;
+        while (start < content.length()) {
+            int end = Math.min(start + maxLength, content.length());
+            if (end < content.length()) {
+                int paragraph = content.lastIndexOf("\n\n", end);
+                int line = content.lastIndexOf('\n', end);
+                if (paragraph > start) {
+                    end = paragraph + 2;
+                } else if (line > start) {
+                    end = line + 1;
+                }
+            }
+            bounds.add(new int[]{start, end});
+            start = end;
         }
+        return bounds;
     }
 
     /**
@@ -90,7 +138,7 @@ public class AiSemanticChunker implements DocumentChunker {
         // 替换占位符 (Replace placeholders)
         String prompt = promptTemplate
                 .replace("{chunk_size}", String.valueOf(chunkSize))
-                .replace("{content}", truncateIfNeeded(content));
+                .replace("{content}", content);
 
         // 如果有查询上下文，添加到 Prompt 中 (If there is query context, add to prompt)
         if (query != null && !query.isEmpty()) {
@@ -100,20 +148,6 @@ public class AiSemanticChunker implements DocumentChunker {
         return prompt;
     }
 
-    /**
-     * 如果内容太长，截断到合理长度 (Truncate content if too long)
-     */
-    private String truncateIfNeeded(String content) {
-        int maxLength = config.getChunkSize() * 10; // 最多处理10倍块大小
-
-        if (content.length() <= maxLength) {
-            return content;
-        }
-
-        log.warn(I18N.get("log.chunk.truncate_warning", content.length(), maxLength));
-        return content.substring(0, maxLength) + "\n\n[内容过长已截断...]";
-    }
-
     /**
      * 解析 AI 返回的切分结果 (Parse AI chunking response)
      */
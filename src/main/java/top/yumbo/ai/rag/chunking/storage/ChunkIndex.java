@@ -0,0 +1,304 @@
+package top.yumbo.ai.rag.chunking.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.rag.chunking.DocumentChunk;
+import top.yumbo.ai.rag.i18n.I18N;
+import top.yumbo.ai.rag.spring.boot.service.document.TokenEstimator;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 文档块偏移索引（Chunk offset index）
+ * 入库时按文档内容哈希记录切分结果：块ID、起止偏移和预估 Token 数
+ * （Records the chunking result per document content hash at ingest time: chunk id, offsets and estimated tokens）
+ *
+ * 查询时只需按偏移从文档内容中截取块并打分，无需重新切分，也不写磁盘
+ * （At query time chunks are sliced from the document content by offset and scored, without re-chunking or disk writes）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+public class ChunkIndex implements AutoCloseable {
+
+    private static final String CREATE_CHUNKS_TABLE = """
+            CREATE TABLE IF NOT EXISTS chunk_index (
+                content_hash TEXT NOT NULL,
+                chunk_index INTEGER NOT NULL,
+                chunk_id TEXT NOT NULL,
+                title TEXT,
+                start_position INTEGER NOT NULL,
+                end_position INTEGER NOT NULL,
+                token_count INTEGER NOT NULL,
+                metadata TEXT,
+                PRIMARY KEY (content_hash, chunk_index)
+            )
+            """;
+
+    private static final int CACHE_SIZE = 2000;
+
+    private final String dbPath;
+    private static final TokenEstimator TOKEN_ESTIMATOR = new TokenEstimator();
+
+    private final Cache<String, List<ChunkIndexEntry>> cache = Caffeine.newBuilder()
+            .maximumSize(CACHE_SIZE)
+            .build();
+    private Connection connection;
+
+    public ChunkIndex(String dbPath) {
+        this.dbPath = dbPath;
+        initialize();
+    }
+
+    /**
+     * 初始化数据库（Initialize database）
+     */
+    private void initialize() {
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute(CREATE_CHUNKS_TABLE);
+            }
+
+            log.info(I18N.get("log.chunk.index.initialized", dbPath));
+        } catch (SQLException e) {
+            log.error(I18N.get("log.chunk.index.init_failed", dbPath), e);
+            throw new RuntimeException(I18N.get("log.chunk.index.init_failed", dbPath), e);
+        }
+    }
+
+    /**
+     * 记录文档的切分结果，覆盖已有条目（Record the chunks of a document, replacing existing entries）
+     *
+     * @param contentHash 文档内容哈希（Document content hash）
+     * @param content     文档内容，用于校验偏移和估算 Token（Document content, used to validate offsets and estimate tokens）
+     * @param chunks      切分结果（Chunking result）
+     * @return 写入的条目（Entries written）
+     */
+    public synchronized List<ChunkIndexEntry> put(String contentHash, String content, List<DocumentChunk> chunks) {
+        List<ChunkIndexEntry> entries = toEntries(contentHash, content, chunks);
+
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM chunk_index WHERE content_hash = ?");
+                 PreparedStatement insert = connection.prepareStatement("""
+                         INSERT INTO chunk_index
+                         (content_hash, chunk_index, chunk_id, title, start_position, end_position, token_count, metadata)
+                         VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                         """)) {
+                delete.setString(1, contentHash);
+                delete.executeUpdate();
+
+                for (ChunkIndexEntry entry : entries) {
+                    insert.setString(1, contentHash);
+                    insert.setInt(2, entry.getChunkIndex());
+                    insert.setString(3, entry.getChunkId());
+                    insert.setString(4, entry.getTitle());
+                    insert.setInt(5, entry.getStartPosition());
+                    insert.setInt(6, entry.getEndPosition());
+                    insert.setInt(7, entry.getTokenCount());
+                    insert.setString(8, entry.getMetadata());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+            cache.put(contentHash, entries);
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // 回滚失败时保留原始异常（Keep the original exception if rollback fails）
+            }
+            log.error(I18N.get("log.chunk.index.write_failed", contentHash), e);
+            throw new RuntimeException(I18N.get("log.chunk.index.write_failed", contentHash), e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.warn(I18N.get("log.chunk.index.write_failed", contentHash), e);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * 查找文档的块条目，按块序号排序（Find the chunk entries of a document, ordered by chunk index）
+     *
+     * @param contentHash 文档内容哈希（Document content hash）
+     * @return 块条目；文档未建立索引时为空（Chunk entries; empty if the document was never indexed）
+     */
+    public Optional<List<ChunkIndexEntry>> get(String contentHash) {
+        if (contentHash == null) {
+            return Optional.empty();
+        }
+        List<ChunkIndexEntry> cached = cache.getIfPresent(contentHash);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        List<ChunkIndexEntry> entries = load(contentHash);
+        if (entries.isEmpty()) {
+            return Optional.empty();
+        }
+        cache.put(contentHash, entries);
+        return Optional.of(entries);
+    }
+
+    /**
+     * 删除文档的块条目（Remove the chunk entries of a document）
+     */
+    public synchronized void remove(String contentHash) {
+        cache.invalidate(contentHash);
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "DELETE FROM chunk_index WHERE content_hash = ?")) {
+            pstmt.setString(1, contentHash);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            log.warn(I18N.get("log.chunk.index.write_failed", contentHash), e);
+        }
+    }
+
+    /**
+     * 删除全部块条目，用于知识库整体重建（Remove all chunk entries, used when the knowledge base is rebuilt）
+     */
+    public synchronized void clear() {
+        cache.invalidateAll();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DELETE FROM chunk_index");
+        } catch (SQLException e) {
+            log.warn(I18N.get("log.chunk.index.write_failed", "*"), e);
+        }
+    }
+
+    private synchronized List<ChunkIndexEntry> load(String contentHash) {
+        String sql = """
+                SELECT chunk_index, chunk_id, title, start_position, end_position, token_count, metadata
+                FROM chunk_index WHERE content_hash = ? ORDER BY chunk_index
+                """;
+        List<ChunkIndexEntry> entries = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, contentHash);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(ChunkIndexEntry.builder()
+                            .chunkIndex(rs.getInt("chunk_index"))
+                            .chunkId(rs.getString("chunk_id"))
+                            .title(rs.getString("title"))
+                            .startPosition(rs.getInt("start_position"))
+                            .endPosition(rs.getInt("end_position"))
+                            .tokenCount(rs.getInt("token_count"))
+                            .metadata(rs.getString("metadata"))
+                            .build());
+                }
+            }
+        } catch (SQLException e) {
+            log.warn(I18N.get("log.chunk.index.read_failed", contentHash), e);
+        }
+        return entries;
+    }
+
+    /**
+     * 将切分结果转换为条目，丢弃偏移越界的块（Convert chunks to entries, dropping chunks with out-of-range offsets）
+     *
+     * @param contentHash 文档内容哈希，用作块ID前缀（Document content hash, used as chunk id prefix）
+     */
+    public static List<ChunkIndexEntry> toEntries(String contentHash, String content, List<DocumentChunk> chunks) {
+        List<ChunkIndexEntry> entries = new ArrayList<>(chunks.size());
+        for (DocumentChunk chunk : chunks) {
+            int start = chunk.getStartPosition();
+            int end = chunk.getEndPosition();
+            if (start < 0 || end > content.length() || start >= end) {
+                continue;
+            }
+            entries.add(ChunkIndexEntry.builder()
+                    .chunkIndex(entries.size())
+                    .chunkId(contentHash + "_chunk_" + String.format("%03d", entries.size() + 1))
+                    .title(chunk.getTitle())
+                    .startPosition(start)
+                    .endPosition(end)
+                    .tokenCount(TOKEN_ESTIMATOR.estimate(content.substring(start, end)))
+                    .metadata(chunk.getMetadata())
+                    .build());
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void close() {
+        cache.invalidateAll();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn(I18N.get("log.chunk.index.close_failed", dbPath), e);
+            }
+            connection = null;
+        }
+    }
+
+    /**
+     * 块索引条目（Chunk index entry）
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChunkIndexEntry {
+
+        /**
+         * 块ID（chunk ID）
+         */
+        private String chunkId;
+
+        /**
+         * 块序号（chunk index）
+         */
+        private int chunkIndex;
+
+        /**
+         * 块标题（chunk title）
+         */
+        private String title;
+
+        /**
+         * 在文档内容中的起始偏移（start offset in the document content）
+         */
+        private int startPosition;
+
+        /**
+         * 在文档内容中的结束偏移（end offset in the document content, exclusive）
+         */
+        private int endPosition;
+
+        /**
+         * 预估 Token 数（estimated token count）
+         */
+        private int tokenCount;
+
+        /**
+         * 切分器标记（chunker metadata）
+         */
+        private String metadata;
+
+        /**
+         * 块长度（字符）（chunk length in characters）
+         */
+        public int getLength() {
+            return endPosition - startPosition;
+        }
+    }
+}
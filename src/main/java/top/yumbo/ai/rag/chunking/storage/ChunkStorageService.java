@@ -66,7 +66,7 @@ public class ChunkStorageService {
 
         for (DocumentChunk chunk : chunks) {
             try {
-                ChunkStorageInfo info = saveChunk(cleanDocId, chunk);
+                ChunkStorageInfo info = writeChunk(cleanDocId, chunk);
                 storageInfos.add(info);
             } catch (Exception e) {
                 log.error(I18N.get("log.chunk.save_failed", documentId, chunk.getIndex()), e);
@@ -77,10 +77,21 @@ public class ChunkStorageService {
         return storageInfos;
     }
 
+    /**
+     * 逐个保存文档块（用于流式索引，总块数未知时为 0）
+     *
+     * @param documentId 文档ID（原始文档名）
+     * @param chunk 文档块
+     * @return 保存的文件信息
+     */
+    public ChunkStorageInfo saveChunk(String documentId, DocumentChunk chunk) throws IOException {
+        return writeChunk(sanitizeFilename(documentId), chunk);
+    }
+
     /**
      * 保存单个文档块
      */
-    private ChunkStorageInfo saveChunk(String documentId, DocumentChunk chunk) throws IOException {
+    private ChunkStorageInfo writeChunk(String documentId, DocumentChunk chunk) throws IOException {
         // 生成文件名
         String chunkId = generateChunkId(documentId, chunk);
         String contentFile = chunkId + CONTENT_SUFFIX;
@@ -152,7 +163,10 @@ public class ChunkStorageService {
         // 添加元信息
         md.append("> **块信息**: ");
         md.append("第 ").append(chunk.getIndex() + 1);
-        md.append("/").append(chunk.getTotalChunks()).append(" 块");
+        if (chunk.getTotalChunks() > 0) {
+            md.append("/").append(chunk.getTotalChunks());
+        }
+        md.append(" 块");
         if (chunk.getMetadata() != null) {
             md.append(" | 标签: ").append(chunk.getMetadata());
         }
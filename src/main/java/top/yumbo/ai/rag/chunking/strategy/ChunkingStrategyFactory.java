@@ -30,6 +30,12 @@ public class ChunkingStrategyFactory {
     @Value("${knowledge.qa.chunking.llm-chunking.prompt-template:}")
     private String llmPromptTemplate;
 
+    @Value("${knowledge.qa.chunking.llm-chunking.parallelism:4}")
+    private int llmParallelism;
+
+    @Value("${knowledge.qa.chunking.llm-chunking.requests-per-second:0}")
+    private double llmRequestsPerSecond;
+
     // 策略实例缓存
     private ChunkingStrategy pplStrategy;
     private ChunkingStrategy llmStrategy;
@@ -81,7 +87,9 @@ public class ChunkingStrategyFactory {
             llmStrategy = new LLMChunkingStrategy(
                 llmClient,
                 llmChunkingEnabled && llmClient != null,
-                llmPromptTemplate
+                llmPromptTemplate,
+                llmParallelism,
+                llmRequestsPerSecond
             );
         }
         return llmStrategy;
@@ -2,6 +2,7 @@ package top.yumbo.ai.rag.chunking.strategy;
 
 import lombok.extern.slf4j.Slf4j;
 import top.yumbo.ai.rag.chunking.DocumentChunk;
+import top.yumbo.ai.rag.chunking.LLMSegmentDispatcher;
 import top.yumbo.ai.rag.i18n.I18N;
 import top.yumbo.ai.rag.ppl.PPLException;
 import top.yumbo.ai.rag.ppl.PPLProviderType;
@@ -36,6 +37,7 @@ public class LLMChunkingStrategy implements ChunkingStrategy {
     private final LLMClient llmClient;
     private final boolean enabled;
     private final String promptTemplate;
+    private final LLMSegmentDispatcher dispatcher;
 
     // 默认提示词模板（当配置未提供时使用）(Default prompt template when not configured)
     private static final String DEFAULT_PROMPT_TEMPLATE = """
@@ -66,11 +68,23 @@ public class LLMChunkingStrategy implements ChunkingStrategy {
     }
 
     public LLMChunkingStrategy(LLMClient llmClient, boolean enabled, String promptTemplate) {
+        this(llmClient, enabled, promptTemplate, LLMSegmentDispatcher.DEFAULT_PARALLELISM, 0);
+    }
+
+    /**
+     * @param parallelism       超大文档各段同时进行的 LLM 请求数 (Concurrent LLM requests for the segments of a very large document)
+     * @param requestsPerSecond 每秒请求数，0 表示不限流 (Requests per second, 0 disables limiting)
+     */
+    public LLMChunkingStrategy(LLMClient llmClient, boolean enabled, String promptTemplate,
+                               int parallelism, double requestsPerSecond) {
         this.llmClient = llmClient;
         this.enabled = enabled;
         this.promptTemplate = (promptTemplate != null && !promptTemplate.trim().isEmpty())
                 ? promptTemplate
                 : DEFAULT_PROMPT_TEMPLATE;
+        this.dispatcher = enabled && llmClient != null
+                ? new LLMSegmentDispatcher("LLMChunking", parallelism, requestsPerSecond)
+                : null;
 
         if (enabled && llmClient != null) {
             log.info(I18N.get("chunking_strategy.llm.initialized"));
@@ -140,35 +154,41 @@ public class LLMChunkingStrategy implements ChunkingStrategy {
      */
     private List<DocumentChunk> chunkWithLLM(String content, ChunkConfig config) {
         try {
-            // 构建提示词（使用配置的模板）(Build prompt using configured template)
-            String prompt = promptTemplate
-                    .replace("{minSize}", String.valueOf(config.getMinChunkSize()))
-                    .replace("{maxSize}", String.valueOf(config.getMaxChunkSize()))
-                    .replace("{content}", content);
-
-            // 调用 LLM (Call LLM)
-            log.debug(I18N.get("chunking_strategy.llm.calling_llm"));
-            String response = llmClient.generate(prompt);
-
-            // 解析 LLM 返回的结果 (Parse LLM response)
-            List<DocumentChunk> chunks = parseChunkResponse(response, content, config);
-
-            if (chunks.isEmpty()) {
-                // LLM 未返回有效分块，使用原文 (LLM returned no valid chunks, use original text)
-                log.warn(I18N.get("chunking_strategy.llm.no_valid_chunks"));
-                return List.of(DocumentChunk.builder()
-                        .content(content)
-                        .build());
-            }
-
-            return chunks;
-
+            return requestChunks(content, config);
         } catch (Exception e) {
             log.warn(I18N.get("chunking_strategy.llm.fallback_warning", e.getMessage()));
             return fallbackChunk(content, config);
         }
     }
 
+    /**
+     * 调用 LLM 对一段内容分块，失败时抛出异常由调用方降级 (Ask the LLM to chunk one piece of content; failures are thrown for the caller to fall back)
+     */
+    private List<DocumentChunk> requestChunks(String content, ChunkConfig config) throws Exception {
+        // 构建提示词（使用配置的模板）(Build prompt using configured template)
+        String prompt = promptTemplate
+                .replace("{minSize}", String.valueOf(config.getMinChunkSize()))
+                .replace("{maxSize}", String.valueOf(config.getMaxChunkSize()))
+                .replace("{content}", content);
+
+        // 调用 LLM (Call LLM)
+        log.debug(I18N.get("chunking_strategy.llm.calling_llm"));
+        String response = llmClient.generate(prompt);
+
+        // 解析 LLM 返回的结果 (Parse LLM response)
+        List<DocumentChunk> chunks = parseChunkResponse(response, content, config);
+
+        if (chunks.isEmpty()) {
+            // LLM 未返回有效分块，使用原文 (LLM returned no valid chunks, use original text)
+            log.warn(I18N.get("chunking_strategy.llm.no_valid_chunks"));
+            return List.of(DocumentChunk.builder()
+                    .content(content)
+                    .build());
+        }
+
+        return chunks;
+    }
+
     /**
      * 超大文档的分段处理策略 (Segmented processing strategy for very large documents)
      */
@@ -180,12 +200,16 @@ public class LLMChunkingStrategy implements ChunkingStrategy {
 
         log.info(I18N.get("chunking_strategy.llm.coarse_split", coarseChunks.size()));
 
-        // 2. 对每段进行 LLM 精细分块 (Then, fine-grained LLM chunking for each segment)
-        for (int i = 0; i < coarseChunks.size(); i++) {
-            String chunk = coarseChunks.get(i);
-            log.debug(I18N.get("chunking_strategy.llm.processing_segment", i + 1, coarseChunks.size(), chunk.length()));
-
-            List<DocumentChunk> subChunks = chunkWithLLM(chunk, config);
+        // 2. 各段并发进行 LLM 精细分块，按原顺序拼回；失败的段单独降级 (Then, fine-grained LLM chunking of all
+        // segments concurrently, reassembled in order; a failed segment falls back on its own)
+        List<List<DocumentChunk>> results = dispatcher.dispatch(coarseChunks,
+                (index, segment) -> {
+                    log.debug(I18N.get("chunking_strategy.llm.processing_segment",
+                            index + 1, coarseChunks.size(), segment.length()));
+                    return requestChunks(segment, config);
+                },
+                (segment, cause) -> fallbackChunk(segment, config));
+        for (List<DocumentChunk> subChunks : results) {
             allChunks.addAll(subChunks);
         }
 
@@ -206,11 +230,11 @@ public class LLMChunkingStrategy implements ChunkingStrategy {
         for (String para : paragraphs) {
             if (currentChunk.length() + para.length() > maxSize && currentChunk.length() > 0) {
                 // 当前块已满，保存并开始新块 (Current chunk is full, save and start new)
-                chunks.add(currentChunk.toString());
+                chunks.add(currentChunk.toString().trim());
                 currentChunk = new StringBuilder();
             }
 
-            currentChunk.append(para).append("\\n\\n");
+            currentChunk.append(para).append("\n\n");
         }
 
         // 添加最后一块 (Add last chunk)
@@ -0,0 +1,366 @@
+package top.yumbo.ai.rag.feedback;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.rag.i18n.I18N;
+
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 问答记录索引（QA Record Index）
+ * 基于 SQLite 的问答记录索引：ID → 文件位置映射，以及日期、评分、审核状态的二级索引
+ * （SQLite-backed index of QA records: id → file location, plus secondary indexes on date, rating and review status）
+ *
+ * 记录正文同时保存在索引中，列表和统计查询无需再遍历目录、解析 JSON 文件
+ * （The record body is kept in the index too, so listing and statistics queries never walk directories or parse files）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+public class QARecordIndex implements AutoCloseable {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * 旧目录迁移完成标记（Marker key for the one-time legacy directory migration）
+     */
+    public static final String META_LEGACY_MIGRATED = "legacy_migrated";
+
+    private static final String CREATE_RECORDS_TABLE = """
+            CREATE TABLE IF NOT EXISTS qa_records (
+                id TEXT PRIMARY KEY,
+                file_path TEXT NOT NULL,
+                record_date TEXT NOT NULL,
+                created_at INTEGER NOT NULL,
+                question TEXT,
+                overall_rating INTEGER,
+                review_status TEXT,
+                has_feedback INTEGER NOT NULL DEFAULT 0,
+                record_json TEXT NOT NULL
+            )
+            """;
+
+    private static final String CREATE_META_TABLE = """
+            CREATE TABLE IF NOT EXISTS qa_index_meta (
+                meta_key TEXT PRIMARY KEY,
+                meta_value TEXT
+            )
+            """;
+
+    private static final String CREATE_DATE_INDEX = """
+            CREATE INDEX IF NOT EXISTS idx_qa_created_at ON qa_records(created_at)
+            """;
+
+    private static final String CREATE_RATING_INDEX = """
+            CREATE INDEX IF NOT EXISTS idx_qa_rating ON qa_records(overall_rating)
+            """;
+
+    private static final String CREATE_STATUS_INDEX = """
+            CREATE INDEX IF NOT EXISTS idx_qa_status ON qa_records(review_status, has_feedback)
+            """;
+
+    private final String dbPath;
+    private Connection connection;
+
+    public QARecordIndex(String dbPath) {
+        this.dbPath = dbPath;
+        initialize();
+    }
+
+    /**
+     * 初始化数据库（Initialize database）
+     */
+    private void initialize() {
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute(CREATE_RECORDS_TABLE);
+                stmt.execute(CREATE_META_TABLE);
+                stmt.execute(CREATE_DATE_INDEX);
+                stmt.execute(CREATE_RATING_INDEX);
+                stmt.execute(CREATE_STATUS_INDEX);
+            }
+
+            log.info(I18N.get("log.qa.index_initialized", dbPath));
+        } catch (SQLException e) {
+            log.error(I18N.get("log.qa.index_init_failed", dbPath), e);
+            throw new RuntimeException(I18N.get("log.qa.index_init_failed", dbPath), e);
+        }
+    }
+
+    /**
+     * 写入或更新索引条目（Insert or update an index entry）
+     *
+     * @param record     问答记录（QA record）
+     * @param filePath   记录文件位置（Location of the record file）
+     * @param recordJson 记录 JSON（Serialized record）
+     */
+    public synchronized void upsert(QARecord record, String filePath, String recordJson) {
+        String sql = """
+                INSERT OR REPLACE INTO qa_records
+                (id, file_path, record_date, created_at, question, overall_rating,
+                 review_status, has_feedback, record_json)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+
+        LocalDateTime timestamp = record.getTimestamp() != null ? record.getTimestamp() : LocalDateTime.now();
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, record.getId());
+            pstmt.setString(2, filePath);
+            pstmt.setString(3, timestamp.format(DATE_FORMATTER));
+            pstmt.setLong(4, timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            pstmt.setString(5, record.getQuestion());
+            pstmt.setObject(6, record.getOverallRating());
+            pstmt.setString(7, record.getReviewStatus() != null ? record.getReviewStatus().name() : null);
+            pstmt.setInt(8, hasFeedback(record) ? 1 : 0);
+            pstmt.setString(9, recordJson);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            log.error(I18N.get("log.qa.index_write_failed", record.getId()), e);
+            throw new RuntimeException(I18N.get("log.qa.index_write_failed", record.getId()), e);
+        }
+    }
+
+    /**
+     * 批量写入索引条目（用于一次性迁移）（Batch upsert, used by the one-time migration）
+     */
+    public synchronized void upsertAll(List<IndexedEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            connection.setAutoCommit(false);
+            for (IndexedEntry entry : entries) {
+                upsert(entry.getRecord(), entry.getFilePath(), entry.getRecordJson());
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // 回滚失败时保留原始异常（Keep the original exception if rollback fails）
+            }
+            throw new RuntimeException(I18N.get("log.qa.index_migrate_failed"), e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.warn(I18N.get("log.qa.index_migrate_failed"), e);
+            }
+        }
+    }
+
+    /**
+     * 根据ID查找记录 JSON（Find record JSON by id）
+     */
+    public synchronized Optional<String> findJson(String id) {
+        return querySingleString("SELECT record_json FROM qa_records WHERE id = ?", id);
+    }
+
+    /**
+     * 根据ID查找记录文件位置（Find record file location by id）
+     */
+    public synchronized Optional<String> findFilePath(String id) {
+        return querySingleString("SELECT file_path FROM qa_records WHERE id = ?", id);
+    }
+
+    /**
+     * 最近的记录 JSON，按时间倒序（Most recent record JSON, newest first）
+     */
+    public synchronized List<String> findRecentJson(int limit) {
+        String sql = "SELECT record_json FROM qa_records ORDER BY created_at DESC, id DESC LIMIT ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            return readStrings(pstmt);
+        } catch (SQLException e) {
+            log.error(I18N.get("log.qa.index_query_failed"), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 待审核且已有反馈的记录 JSON（Record JSON that is pending review and has feedback）
+     */
+    public synchronized List<String> findPendingJson() {
+        String sql = """
+                SELECT record_json FROM qa_records
+                WHERE review_status = ? AND has_feedback = 1
+                ORDER BY created_at DESC
+                """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, QARecord.ReviewStatus.PENDING.name());
+            return readStrings(pstmt);
+        } catch (SQLException e) {
+            log.error(I18N.get("log.qa.index_query_failed"), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 评分不低于阈值的问题摘要（Question summaries with a rating at or above the threshold）
+     */
+    public synchronized List<RatedQuestion> findRatedQuestions(int minRating) {
+        String sql = """
+                SELECT question, overall_rating, created_at FROM qa_records
+                WHERE overall_rating >= ?
+                ORDER BY overall_rating DESC, created_at DESC
+                """;
+        List<RatedQuestion> results = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, minRating);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(new RatedQuestion(
+                            rs.getString("question"),
+                            rs.getInt("overall_rating"),
+                            LocalDateTime.ofInstant(
+                                    Instant.ofEpochMilli(rs.getLong("created_at")),
+                                    ZoneId.systemDefault())));
+                }
+            }
+        } catch (SQLException e) {
+            log.error(I18N.get("log.qa.index_query_failed"), e);
+        }
+        return results;
+    }
+
+    /**
+     * 聚合统计（Aggregate statistics）
+     */
+    public synchronized QARecordService.QAStatistics statistics() {
+        String sql = """
+                SELECT COUNT(*) AS total,
+                       COUNT(overall_rating) AS rated,
+                       AVG(overall_rating) AS avg_rating,
+                       SUM(CASE WHEN review_status = ? THEN 1 ELSE 0 END) AS pending
+                FROM qa_records
+                """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, QARecord.ReviewStatus.PENDING.name());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return QARecordService.QAStatistics.builder()
+                            .totalRecords(rs.getLong("total"))
+                            .recordsWithFeedback(rs.getLong("rated"))
+                            .averageRating(rs.getDouble("avg_rating"))
+                            .pendingReview(rs.getLong("pending"))
+                            .build();
+                }
+            }
+        } catch (SQLException e) {
+            log.error(I18N.get("log.qa.index_query_failed"), e);
+        }
+        return new QARecordService.QAStatistics();
+    }
+
+    /**
+     * 索引条目数（Number of indexed records）
+     */
+    public synchronized long count() {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM qa_records")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            log.error(I18N.get("log.qa.index_query_failed"), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 读取元数据（Read a metadata value）
+     */
+    public synchronized Optional<String> getMeta(String key) {
+        return querySingleString("SELECT meta_value FROM qa_index_meta WHERE meta_key = ?", key);
+    }
+
+    /**
+     * 写入元数据（Write a metadata value）
+     */
+    public synchronized void putMeta(String key, String value) {
+        String sql = "INSERT OR REPLACE INTO qa_index_meta (meta_key, meta_value) VALUES (?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, key);
+            pstmt.setString(2, value);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            log.error(I18N.get("log.qa.index_query_failed"), e);
+        }
+    }
+
+    private Optional<String> querySingleString(String sql, String param) {
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, param);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.ofNullable(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            log.error(I18N.get("log.qa.index_query_failed"), e);
+        }
+        return Optional.empty();
+    }
+
+    private List<String> readStrings(PreparedStatement pstmt) throws SQLException {
+        List<String> results = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                results.add(rs.getString(1));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 是否有用户反馈（整体评分或文档反馈）（Whether the record carries any user feedback）
+     */
+    private static boolean hasFeedback(QARecord record) {
+        return record.getOverallRating() != null ||
+                (record.getDocumentFeedbacks() != null && !record.getDocumentFeedbacks().isEmpty());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.error(I18N.get("log.qa.index_query_failed"), e);
+            }
+        }
+    }
+
+    /**
+     * 待索引条目（Entry to be indexed）
+     */
+    @Data
+    @AllArgsConstructor
+    public static class IndexedEntry {
+        private QARecord record;
+        private String filePath;
+        private String recordJson;
+    }
+
+    /**
+     * 评分问题摘要（Rated question summary）
+     */
+    @Data
+    @AllArgsConstructor
+    public static class RatedQuestion {
+        private String question;
+        private int rating;
+        private LocalDateTime timestamp;
+    }
+}
@@ -2,6 +2,7 @@ package top.yumbo.ai.rag.feedback;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,9 @@ import java.util.stream.Collectors;
  * 问答记录存储服务（QA Record Storage Service）
  * 负责问答记录的存储、查询和管理（Responsible for storing, querying, and managing QA records）
  *
+ * 记录仍按日期目录保存为 JSON 文件，查询统一走 {@link QARecordIndex}，不再遍历目录
+ * （Records are still written as JSON files per date directory; all lookups go through {@link QARecordIndex} instead of directory walks）
+ *
  * @author AI Reviewer Team
  * @since 2025-11-27
  */
@@ -30,6 +34,7 @@ import java.util.stream.Collectors;
 public class QARecordService {
 
     private static final String RECORDS_DIR = "./data/qa-records";
+    private static final String INDEX_DB_FILE = "qa-index.db";
     private static final DateTimeFormatter FILE_DATE_FORMATTER =
         DateTimeFormatter.ofPattern("yyyyMMdd");
 
@@ -37,19 +42,30 @@ public class QARecordService {
     private final Path recordsPath;
     private final FeedbackConfig feedbackConfig;
     private final DocumentWeightService documentWeightService;
+    private final QARecordIndex recordIndex;
     private QAArchiveService qaArchiveService; // 延迟注入，避免循环依赖（Lazy injection to avoid circular dependency）
 
     @Autowired
     public QARecordService(FeedbackConfig feedbackConfig,
                           DocumentWeightService documentWeightService) {
+        this(feedbackConfig, documentWeightService, Paths.get(RECORDS_DIR));
+    }
+
+    QARecordService(FeedbackConfig feedbackConfig,
+                    DocumentWeightService documentWeightService,
+                    Path recordsPath) {
         this.feedbackConfig = feedbackConfig;
         this.documentWeightService = documentWeightService;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
-        this.recordsPath = Paths.get(RECORDS_DIR);
+        this.recordsPath = recordsPath;
 
         // 初始化存储目录（Initialize storage directory）
         initStorageDirectory();
+
+        // 初始化索引并一次性迁移旧记录（Initialize the index and migrate legacy records once）
+        this.recordIndex = new QARecordIndex(recordsPath.resolve(INDEX_DB_FILE).toString());
+        migrateLegacyRecords();
     }
 
     /**
@@ -91,8 +107,7 @@ public class QARecordService {
                 record.getId().substring(0, 8));
             Path recordFile = dateDir.resolve(fileName);
 
-            objectMapper.writerWithDefaultPrettyPrinter()
-                .writeValue(recordFile.toFile(), record);
+            writeRecord(record, recordFile);
 
             log.info(I18N.get("log.qa.record_saved", record.getId(), recordFile));
             return record.getId();
@@ -107,15 +122,12 @@ public class QARecordService {
      * 根据ID获取记录（Get record by ID）
      */
     public Optional<QARecord> getRecord(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
         try {
-            // 遍历所有日期目录查找（Traverse all date directories to find）
-            return Files.walk(recordsPath, 2)
-                .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(".json"))
-                .filter(p -> p.getFileName().toString().contains(id.substring(0, 8)))
-                .findFirst()
-                .map(this::loadRecord);
-        } catch (IOException e) {
+            return recordIndex.findJson(id).map(this::parseRecord);
+        } catch (RuntimeException e) {
             log.error(I18N.get("log.qa.find_failed", id), e);
             return Optional.empty();
         }
@@ -126,23 +138,18 @@ public class QARecordService {
      */
     public boolean updateRecord(QARecord record) {
         try {
-            // 查找现有文件（Find existing file）
-            Optional<Path> existingFile = Files.walk(recordsPath, 2)
-                .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(".json"))
-                .filter(p -> p.getFileName().toString().contains(record.getId().substring(0, 8)))
-                .findFirst();
+            // 通过索引定位现有文件（Locate the existing file through the index）
+            Optional<String> existingFile = recordIndex.findFilePath(record.getId());
 
             if (existingFile.isPresent()) {
-                objectMapper.writerWithDefaultPrettyPrinter()
-                    .writeValue(existingFile.get().toFile(), record);
+                writeRecord(record, Paths.get(existingFile.get()));
                 log.info(I18N.get("log.qa.record_updated", record.getId()));
                 return true;
             } else {
                 log.warn(I18N.get("log.qa.record_notfound", record.getId()));
                 return false;
             }
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
             log.error(I18N.get("log.qa.record_update_failed", record.getId()), e);
             return false;
         }
@@ -388,15 +395,11 @@ public class QARecordService {
      */
     public List<QARecord> getRecentRecords(int limit) {
         try {
-            return Files.walk(recordsPath, 2)
-                .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(".json"))
-                .sorted(Comparator.comparing(Path::getFileName).reversed())
-                .limit(limit)
-                .map(this::loadRecord)
+            return recordIndex.findRecentJson(limit).stream()
+                .map(this::parseRecord)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
-        } catch (IOException e) {
+        } catch (RuntimeException e) {
             log.error(I18N.get("log.qa.recent_failed"), e);
             return Collections.emptyList();
         }
@@ -407,16 +410,11 @@ public class QARecordService {
      */
     public List<QARecord> getPendingRecords() {
         try {
-            return Files.walk(recordsPath, 2)
-                .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(".json"))
-                .map(this::loadRecord)
+            return recordIndex.findPendingJson().stream()
+                .map(this::parseRecord)
                 .filter(Objects::nonNull)
-                .filter(r -> r.getReviewStatus() == QARecord.ReviewStatus.PENDING)
-                .filter(r -> r.getOverallRating() != null ||
-                           (r.getDocumentFeedbacks() != null && !r.getDocumentFeedbacks().isEmpty()))
                 .collect(Collectors.toList());
-        } catch (IOException e) {
+        } catch (RuntimeException e) {
             log.error(I18N.get("log.qa.pending_failed"), e);
             return Collections.emptyList();
         }
@@ -427,36 +425,31 @@ public class QARecordService {
      */
     public QAStatistics getStatistics() {
         try {
-            List<QARecord> allRecords = Files.walk(recordsPath, 2)
-                .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(".json"))
-                .map(this::loadRecord)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+            return recordIndex.statistics();
+        } catch (RuntimeException e) {
+            log.error(I18N.get("log.qa.stats_failed"), e);
+            return new QAStatistics();
+        }
+    }
 
-            long totalCount = allRecords.size();
-            long withFeedback = allRecords.stream()
-                .filter(r -> r.getOverallRating() != null)
-                .count();
-            double avgRating = allRecords.stream()
-                .filter(r -> r.getOverallRating() != null)
-                .mapToInt(QARecord::getOverallRating)
-                .average()
-                .orElse(0.0);
-            long pendingReview = allRecords.stream()
-                .filter(r -> r.getReviewStatus() == QARecord.ReviewStatus.PENDING)
-                .count();
-
-            return QAStatistics.builder()
-                .totalRecords(totalCount)
-                .recordsWithFeedback(withFeedback)
-                .averageRating(avgRating)
-                .pendingReview(pendingReview)
-                .build();
+    /**
+     * 写入记录文件并更新索引（Write the record file and update the index）
+     */
+    private void writeRecord(QARecord record, Path recordFile) throws IOException {
+        objectMapper.writerWithDefaultPrettyPrinter()
+            .writeValue(recordFile.toFile(), record);
+        recordIndex.upsert(record, recordFile.toString(), objectMapper.writeValueAsString(record));
+    }
 
+    /**
+     * 从索引中的 JSON 解析记录（Parse a record from the JSON stored in the index）
+     */
+    private QARecord parseRecord(String json) {
+        try {
+            return objectMapper.readValue(json, QARecord.class);
         } catch (IOException e) {
-            log.error(I18N.get("log.qa.stats_failed"), e);
-            return new QAStatistics();
+            log.error(I18N.get("log.qa.index_parse_failed"), e);
+            return null;
         }
     }
 
@@ -472,6 +465,47 @@ public class QARecordService {
         }
     }
 
+    /**
+     * 一次性迁移旧的 JSON 记录目录到索引（One-time migration of legacy JSON record directories into the index）
+     */
+    private void migrateLegacyRecords() {
+        if (recordIndex.getMeta(QARecordIndex.META_LEGACY_MIGRATED).isPresent()) {
+            return;
+        }
+
+        List<QARecordIndex.IndexedEntry> entries = new ArrayList<>();
+        try (var paths = Files.walk(recordsPath, 2)) {
+            paths.filter(Files::isRegularFile)
+                .filter(p -> p.toString().endsWith(".json"))
+                .forEach(path -> {
+                    QARecord record = loadRecord(path);
+                    if (record == null || record.getId() == null) {
+                        return;
+                    }
+                    try {
+                        entries.add(new QARecordIndex.IndexedEntry(
+                            record, path.toString(), objectMapper.writeValueAsString(record)));
+                    } catch (IOException e) {
+                        log.warn(I18N.get("log.qa.load_failed", path.toString()), e);
+                    }
+                });
+
+            recordIndex.upsertAll(entries);
+            recordIndex.putMeta(QARecordIndex.META_LEGACY_MIGRATED, LocalDateTime.now().toString());
+            log.info(I18N.get("log.qa.index_migrated", entries.size()));
+        } catch (IOException | RuntimeException e) {
+            log.error(I18N.get("log.qa.index_migrate_failed"), e);
+        }
+    }
+
+    /**
+     * 关闭索引（Close the index）
+     */
+    @PreDestroy
+    public void close() {
+        recordIndex.close();
+    }
+
     /**
      * 初始化存储目录（Initialize storage directory）
      */
@@ -494,46 +528,21 @@ public class QARecordService {
      */
     public List<PromptRecommendation> getTopRatedPrompts(String strategyType, int limit) {
         try {
-            List<PromptRecommendation> recommendations = new ArrayList<>();
-            
-            // 遍历所有记录
-            Files.walk(recordsPath, 2)
-                .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(".json"))
-                .forEach(path -> {
-                    try {
-                        QARecord record = loadRecord(path);
-                        if (record != null && record.getOverallRating() != null && record.getOverallRating() >= 4) {
-            // 高评分记录 (High rating record)
-            PromptRecommendation rec = new PromptRecommendation();
-                            rec.setPrompt(record.getQuestion());
-                            rec.setRating(record.getOverallRating());
-                            rec.setUsageCount(1); // 简化版，后续可以统计实际使用次数
-                            rec.setStrategy(detectStrategy(record.getQuestion()));
-                            rec.setTimestamp(record.getTimestamp());
-                            
-                            // 如果指定了策略类型，进行筛选 (Filter if strategy type is specified)
-                            if (strategyType == null || strategyType.isEmpty() || 
-                                rec.getStrategy().contains(strategyType) || strategyType.equals("all")) {
-                                recommendations.add(rec);
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("Failed to process record: {}", path, e);
-                    }
-                });
-
-            // 按评分和使用次数排序 (Sort by rating and usage count)
-            return recommendations.stream()
-                .sorted((a, b) -> {
-                    int ratingCompare = Integer.compare(b.getRating(), a.getRating());
-                    if (ratingCompare != 0) return ratingCompare;
-                    return Integer.compare(b.getUsageCount(), a.getUsageCount());
-                })
+            // 索引已按评分倒序返回高评分问题，无需解析记录文件 (Index returns high-rated questions by rating, no file parsing)
+            return recordIndex.findRatedQuestions(4).stream()
+                .map(q -> new PromptRecommendation(
+                    q.getQuestion(),
+                    q.getRating(),
+                    1, // 简化版，后续可以统计实际使用次数
+                    detectStrategy(q.getQuestion()),
+                    q.getTimestamp()))
+                // 如果指定了策略类型，进行筛选 (Filter if strategy type is specified)
+                .filter(rec -> strategyType == null || strategyType.isEmpty() ||
+                    rec.getStrategy().contains(strategyType) || strategyType.equals("all"))
                 .limit(limit)
                 .collect(Collectors.toList());
 
-        } catch (IOException e) {
+        } catch (RuntimeException e) {
             log.error("Failed to get top rated prompts", e);
             return new ArrayList<>();
         }
@@ -25,6 +25,13 @@ public class HOPEConfig {
      */
     private boolean enabled = true;
 
+    /**
+     * 是否并行查询三层知识：同时发起查询，按层级优先级合并，高优先级层直接命中时立即返回并取消其余查询
+     * (Whether to query the three layers concurrently: lookups start together, results are combined by layer
+     * priority, and a direct hit in the highest-priority pending layer returns at once and cancels the rest)
+     */
+    private boolean parallelLookup = true;
+
     /**
      * 低频层配置 (Permanent Layer Config)
      */
@@ -45,6 +52,11 @@ public class HOPEConfig {
      */
     private StrategyConfig strategy = new StrategyConfig();
 
+    /**
+     * 知识层持久化配置 (Layer Persistence Config)
+     */
+    private JournalConfig journal = new JournalConfig();
+
     /**
      * 低频层配置 - 技能知识库
      * (Permanent Layer - Skill Knowledge Base)
@@ -144,6 +156,31 @@ public class HOPEConfig {
         private int maxHistoryPerSession = 20;
     }
 
+    /**
+     * 知识层持久化配置 - 操作日志与快照
+     * (Layer Persistence - Operation Log and Snapshots)
+     */
+    @Data
+    public static class JournalConfig {
+        /**
+         * 成组刷盘间隔（毫秒）
+         * (Group flush interval in milliseconds)
+         */
+        private long flushIntervalMs = 1000;
+
+        /**
+         * 待写操作达到此数量时立即刷盘
+         * (Flush at once when this many operations are pending)
+         */
+        private int flushThreshold = 64;
+
+        /**
+         * 日志达到此操作数时压缩为快照
+         * (Compact into a snapshot after this many logged operations)
+         */
+        private int compactThreshold = 1000;
+    }
+
     /**
      * 响应策略配置
      * (Response Strategy Config)
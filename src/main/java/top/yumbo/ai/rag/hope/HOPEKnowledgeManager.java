@@ -1,5 +1,6 @@
 package top.yumbo.ai.rag.hope;
 
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,11 @@ import top.yumbo.ai.rag.i18n.I18N;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -51,6 +57,8 @@ public class HOPEKnowledgeManager {
     private final HighFrequencyLayerService highFreqLayer;
     private final QuestionClassifier questionClassifier;
     private final ResponseStrategyDecider strategyDecider;
+    // 并行查询使用的虚拟线程 (Virtual threads for concurrent lookups)
+    private final ExecutorService lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     @Autowired
     public HOPEKnowledgeManager(HOPEConfig config,
@@ -68,8 +76,16 @@ public class HOPEKnowledgeManager {
     }
 
     /**
-     * 智能查询 - 按层级依次查询
-     * (Smart query - Query layers in order)
+     * 智能查询 - 按层级优先级查询
+     * (Smart query - Query layers by priority)
+     *
+     * <p>
+     * 启用 parallelLookup 时三层同时查询，结果仍按 低频层 &gt; 中频层 的优先级合并，
+     * 与依次查询的结果一致，但耗时取决于最慢的一层而不是各层之和
+     * (With parallelLookup the three layers are queried at once. Results are still combined with the permanent
+     * layer ahead of the ordinary layer, so they match the sequential path, but latency is the slowest layer
+     * rather than the sum of all layers)
+     * </p>
      *
      * @param question 用户问题 (User question)
      * @param sessionId 会话ID（用于高频层） (Session ID for high-frequency layer)
@@ -92,85 +108,19 @@ public class HOPEKnowledgeManager {
             log.debug(I18N.get("hope.query.classified",
                 classification.getType(), classification.getComplexity(), classification.getConfidence()));
 
-            // 2. 首先查询高频层（当前会话上下文）- 获取上下文增强
-            HighFrequencyLayerService.HighFreqQueryResult highFreqResult = highFreqLayer.query(sessionId, question);
-            if (highFreqResult.isHasRelevantContext()) {
-                resultBuilder.contexts(highFreqResult.getContexts());
-
-                // 如果是话题延续，添加对话摘要到上下文
-                if (highFreqResult.isTopicContinuation() && highFreqResult.getConversationSummary() != null) {
-                    resultBuilder.contexts(List.of(highFreqResult.getConversationSummary()));
-                }
-
-                if (highFreqResult.getSessionContext() != null) {
-                    resultBuilder.sessionContext(HOPEQueryResult.SessionContext.builder()
-                        .sessionId(sessionId)
-                        .currentTopic(highFreqResult.getCurrentTopic())
-                        .build());
-                }
-
-                log.debug(I18N.get("hope.high_frequency.context_found", sessionId));
-            }
-
-            // 3. 查询低频层（技能知识）
-            PermanentLayerService.PermanentQueryResult permResult = permanentLayer.query(question);
-
-            if (permResult.isDirectAnswer()) {
-                resultBuilder
-                    .answer(permResult.getAnswer())
-                    .sourceLayer("permanent")
-                    .confidence(permResult.getConfidence())
-                    .needsLLM(false)
-                    .factualKnowledge(permResult.getFactualKnowledge());
-
-                log.info(I18N.get("hope.query.direct_hit", permResult.getConfidence()));
-
+            // 2. 查询各层，直接命中时立即返回 (Query the layers; return at once on a direct hit)
+            boolean directAnswer = config.isParallelLookup()
+                ? queryLayersConcurrently(question, sessionId, resultBuilder)
+                : queryLayersSequentially(question, sessionId, resultBuilder);
+            if (directAnswer) {
                 long processingTime = System.currentTimeMillis() - startTime;
                 resultBuilder.processingTimeMs(processingTime);
                 return resultBuilder.build();
             }
 
-            if (permResult.getSkillTemplate() != null) {
-                resultBuilder.skillTemplate(permResult.getSkillTemplate());
-            }
-
-            // 4. 查询中频层（近期问答）
-            OrdinaryLayerService.OrdinaryQueryResult ordResult = ordinaryLayer.query(question);
-            if (ordResult.isFound()) {
-                if (ordResult.isDirectUsable()) {
-                    resultBuilder
-                        .answer(ordResult.getBestMatch().getAnswer())
-                        .sourceLayer("ordinary")
-                        .confidence(ordResult.getSimilarity())
-                        .needsLLM(false);
-
-                    log.info(I18N.get("hope.ordinary.direct_hit",
-                        ordResult.getBestMatch().getId(), ordResult.getSimilarity()));
-
-                    long processingTime = System.currentTimeMillis() - startTime;
-                    resultBuilder.processingTimeMs(processingTime);
-                    return resultBuilder.build();
-
-                } else if (ordResult.isAsReference()) {
-                    List<HOPEQueryResult.SimilarQA> similarQAs = ordResult.getAllMatches().stream()
-                        .map(match -> HOPEQueryResult.SimilarQA.builder()
-                            .question(match.getQa().getQuestion())
-                            .answer(match.getQa().getAnswer())
-                            .similarity(match.getSimilarity())
-                            .rating(match.getQa().getRating())
-                            .build())
-                        .collect(Collectors.toList());
-
-                    resultBuilder.similarQAs(similarQAs);
-                    resultBuilder.needsLLM(true);
-
-                    log.info(I18N.get("hope.ordinary.reference_hit",
-                        ordResult.getBestMatch().getId(), ordResult.getSimilarity()));
-                }
-            } else {
-                resultBuilder.needsLLM(true);
-            }
-
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultBuilder.needsLLM(true);
         } catch (Exception e) {
             log.error(I18N.get("hope.query.error"), e);
             resultBuilder.needsLLM(true);
@@ -189,6 +139,176 @@ public class HOPEKnowledgeManager {
         return result;
     }
 
+    /**
+     * 依次查询高频层、低频层、中频层
+     * (Query the high-frequency, permanent and ordinary layers one after another)
+     *
+     * @return 是否已得到直接回答 (Whether a direct answer was found)
+     */
+    private boolean queryLayersSequentially(String question, String sessionId,
+                                            HOPEQueryResult.HOPEQueryResultBuilder resultBuilder) {
+        applyHighFrequency(resultBuilder, highFreqLayer.query(sessionId, question), sessionId);
+
+        if (applyPermanent(resultBuilder, permanentLayer.query(question))) {
+            return true;
+        }
+        return applyOrdinary(resultBuilder, ordinaryLayer.query(question));
+    }
+
+    /**
+     * 并行查询三层：低频层在当前线程执行，高频层和中频层在虚拟线程上执行；
+     * 低频层直接命中时不再等待其余查询，中频层直接命中时不再等待高频层
+     * (Query the three layers concurrently. The permanent layer runs on the caller thread while the
+     * high-frequency and ordinary layers run on virtual threads. A permanent direct hit stops waiting for
+     * the others, and an ordinary direct hit stops waiting for the high-frequency layer)
+     *
+     * @return 是否已得到直接回答 (Whether a direct answer was found)
+     */
+    private boolean queryLayersConcurrently(String question, String sessionId,
+                                            HOPEQueryResult.HOPEQueryResultBuilder resultBuilder)
+            throws InterruptedException, ExecutionException {
+        CompletableFuture<HighFrequencyLayerService.HighFreqQueryResult> highFreq =
+            lookupAsync(() -> highFreqLayer.query(sessionId, question));
+        CompletableFuture<OrdinaryLayerService.OrdinaryQueryResult> ordinary =
+            lookupAsync(() -> ordinaryLayer.lookup(question));
+
+        try {
+            PermanentLayerService.PermanentQueryResult permResult = permanentLayer.query(question);
+            if (permResult.isDirectAnswer()) {
+                applyHighFrequency(resultBuilder, completedOrNull(highFreq), sessionId);
+                applyPermanent(resultBuilder, permResult);
+                log.debug(I18N.get("hope.query.short_circuit", "permanent"));
+                return true;
+            }
+            applyPermanent(resultBuilder, permResult);
+
+            // 只有被采用的中频层结果才记录访问 (Only record access once the ordinary result is used)
+            OrdinaryLayerService.OrdinaryQueryResult ordResult = ordinary.get();
+            ordinaryLayer.recordAccess(ordResult);
+            if (ordResult.isFound() && ordResult.isDirectUsable()) {
+                applyHighFrequency(resultBuilder, completedOrNull(highFreq), sessionId);
+                log.debug(I18N.get("hope.query.short_circuit", "ordinary"));
+                return applyOrdinary(resultBuilder, ordResult);
+            }
+
+            applyHighFrequency(resultBuilder, highFreq.get(), sessionId);
+            return applyOrdinary(resultBuilder, ordResult);
+        } finally {
+            // 已完成的查询不受影响，未开始的查询不再执行 (No-op when done; a lookup not yet started never runs)
+            highFreq.cancel(false);
+            ordinary.cancel(false);
+        }
+    }
+
+    /**
+     * 在查询线程上异步执行一次知识层查询
+     * (Run one layer lookup asynchronously on the lookup threads)
+     *
+     * @param lookup 查询 (Lookup)
+     * @return 查询结果 (Lookup result)
+     */
+    public <T> CompletableFuture<T> lookupAsync(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(lookup, lookupExecutor);
+    }
+
+    private static <T> T completedOrNull(CompletableFuture<T> future) {
+        return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    /**
+     * 合并高频层上下文 (Merge high-frequency layer context)
+     */
+    private void applyHighFrequency(HOPEQueryResult.HOPEQueryResultBuilder resultBuilder,
+                                    HighFrequencyLayerService.HighFreqQueryResult highFreqResult,
+                                    String sessionId) {
+        if (highFreqResult == null || !highFreqResult.isHasRelevantContext()) {
+            return;
+        }
+        resultBuilder.contexts(highFreqResult.getContexts());
+
+        // 如果是话题延续，添加对话摘要到上下文
+        if (highFreqResult.isTopicContinuation() && highFreqResult.getConversationSummary() != null) {
+            resultBuilder.contexts(List.of(highFreqResult.getConversationSummary()));
+        }
+
+        if (highFreqResult.getSessionContext() != null) {
+            resultBuilder.sessionContext(HOPEQueryResult.SessionContext.builder()
+                .sessionId(sessionId)
+                .currentTopic(highFreqResult.getCurrentTopic())
+                .build());
+        }
+
+        log.debug(I18N.get("hope.high_frequency.context_found", sessionId));
+    }
+
+    /**
+     * 合并低频层结果 (Merge permanent layer result)
+     *
+     * @return 是否直接回答 (Whether it is a direct answer)
+     */
+    private boolean applyPermanent(HOPEQueryResult.HOPEQueryResultBuilder resultBuilder,
+                                   PermanentLayerService.PermanentQueryResult permResult) {
+        if (permResult.isDirectAnswer()) {
+            resultBuilder
+                .answer(permResult.getAnswer())
+                .sourceLayer("permanent")
+                .confidence(permResult.getConfidence())
+                .needsLLM(false)
+                .factualKnowledge(permResult.getFactualKnowledge());
+
+            log.info(I18N.get("hope.query.direct_hit", permResult.getConfidence()));
+            return true;
+        }
+
+        if (permResult.getSkillTemplate() != null) {
+            resultBuilder.skillTemplate(permResult.getSkillTemplate());
+        }
+        return false;
+    }
+
+    /**
+     * 合并中频层结果 (Merge ordinary layer result)
+     *
+     * @return 是否直接回答 (Whether it is a direct answer)
+     */
+    private boolean applyOrdinary(HOPEQueryResult.HOPEQueryResultBuilder resultBuilder,
+                                  OrdinaryLayerService.OrdinaryQueryResult ordResult) {
+        if (!ordResult.isFound()) {
+            resultBuilder.needsLLM(true);
+            return false;
+        }
+
+        if (ordResult.isDirectUsable()) {
+            resultBuilder
+                .answer(ordResult.getBestMatch().getAnswer())
+                .sourceLayer("ordinary")
+                .confidence(ordResult.getSimilarity())
+                .needsLLM(false);
+
+            log.info(I18N.get("hope.ordinary.direct_hit",
+                ordResult.getBestMatch().getId(), ordResult.getSimilarity()));
+            return true;
+        }
+
+        if (ordResult.isAsReference()) {
+            List<HOPEQueryResult.SimilarQA> similarQAs = ordResult.getAllMatches().stream()
+                .map(match -> HOPEQueryResult.SimilarQA.builder()
+                    .question(match.getQa().getQuestion())
+                    .answer(match.getQa().getAnswer())
+                    .similarity(match.getSimilarity())
+                    .rating(match.getQa().getRating())
+                    .build())
+                .collect(Collectors.toList());
+
+            resultBuilder.similarQAs(similarQAs);
+            resultBuilder.needsLLM(true);
+
+            log.info(I18N.get("hope.ordinary.reference_hit",
+                ordResult.getBestMatch().getId(), ordResult.getSimilarity()));
+        }
+        return false;
+    }
+
     /**
      * 获取响应策略
      * (Get response strategy)
@@ -314,6 +434,21 @@ public class HOPEKnowledgeManager {
         return stats;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
+    /**
+     * 是否并行查询各层
+     * (Whether layers are queried concurrently)
+     *
+     * @return 是否并行 (Whether concurrent)
+     */
+    public boolean isParallelLookup() {
+        return config.isParallelLookup();
+    }
+
     /**
      * 检查 HOPE 是否启用
      * (Check if HOPE is enabled)
@@ -156,12 +156,14 @@ public class HOPEEnhancedLLMClient implements LLMClient {
                                      String imageUrl, List<String> imageUrls) {
         long startTime = System.currentTimeMillis();
         String sessionId = currentSessionId.get();
+        long hopeQueryMs = -1;
 
         // 1. HOPE 智能查询
         if (hopeManager != null && hopeManager.isEnabled() && config.isHopeQueryEnabled()) {
             try {
                 HOPEQueryResult hopeResult = hopeManager.smartQuery(prompt, sessionId);
                 ResponseStrategy strategy = hopeManager.getStrategy(prompt, hopeResult);
+                hopeQueryMs = System.currentTimeMillis() - startTime;
 
                 log.debug(I18N.get("hope.query.debug_info"),
                     hopeResult.isNeedsLLM(), hopeResult.getSourceLayer(), hopeResult.getConfidence());
@@ -177,7 +179,7 @@ public class HOPEEnhancedLLMClient implements LLMClient {
                     // 记录最后查询 (Record last query)
                     lastQuery.set(new LastQuery(prompt, hopeResult.getAnswer(),
                         hopeResult.getSourceLayer(), true, elapsed,
-                        hopeResult.getConfidence(), strategy.name()));
+                        hopeResult.getConfidence(), strategy.name(), hopeQueryMs));
 
                     log.info(I18N.get("hope.direct_answer.success"),
                         hopeResult.getSourceLayer(), elapsed);
@@ -235,7 +237,7 @@ public class HOPEEnhancedLLMClient implements LLMClient {
 
         // 5. 记录最后查询 (Record last query)
         lastQuery.set(new LastQuery(prompt, result, null, false, elapsed,
-                0.0, "FULL_RAG"));
+                0.0, "FULL_RAG", hopeQueryMs));
 
         return result;
     }
@@ -266,6 +268,7 @@ public class HOPEEnhancedLLMClient implements LLMClient {
         private final long responseTimeMs;
         private final double confidence;        // HOPE 置信度 (HOPE confidence)
         private final String strategyUsed;      // 使用的策略 (Strategy used)
+        private final long hopeQueryMs;         // HOPE 查询耗时，未查询为 -1 (HOPE lookup time, -1 if not queried)
 
         public LastQuery(String question, String answer, String hopeSource,
                          boolean directAnswer, long responseTimeMs) {
@@ -275,6 +278,12 @@ public class HOPEEnhancedLLMClient implements LLMClient {
         public LastQuery(String question, String answer, String hopeSource,
                          boolean directAnswer, long responseTimeMs,
                          double confidence, String strategyUsed) {
+            this(question, answer, hopeSource, directAnswer, responseTimeMs, confidence, strategyUsed, -1);
+        }
+
+        public LastQuery(String question, String answer, String hopeSource,
+                         boolean directAnswer, long responseTimeMs,
+                         double confidence, String strategyUsed, long hopeQueryMs) {
             this.question = question;
             this.answer = answer;
             this.hopeSource = hopeSource;
@@ -283,6 +292,7 @@ public class HOPEEnhancedLLMClient implements LLMClient {
             this.confidence = confidence;
             this.strategyUsed = strategyUsed != null ? strategyUsed :
                 (directAnswer ? "DIRECT_ANSWER" : "FULL_RAG");
+            this.hopeQueryMs = hopeQueryMs;
         }
 
         public String getQuestion() { return question; }
@@ -293,6 +303,7 @@ public class HOPEEnhancedLLMClient implements LLMClient {
         public long getResponseTime() { return responseTimeMs; }  // 别名 (Alias)
         public double getConfidence() { return confidence; }
         public String getStrategyUsed() { return strategyUsed; }
+        public long getHopeQueryMs() { return hopeQueryMs; }
     }
 
     /**
@@ -0,0 +1,266 @@
+package top.yumbo.ai.rag.hope.layer;
+
+import top.yumbo.ai.rag.util.AhoCorasickMatcher;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 编译后的知识匹配器（Compiled knowledge matcher）
+ * 构建时预编译全部正则，并把所有关键词以及正则中必须出现的字面量合并成一个 Aho-Corasick 自动机；
+ * 查询时扫描问题一次即可选出候选，只对候选计算分数和执行正则，耗时不随知识条数线性增长
+ * （Precompiles every regex once and folds all keywords, plus the literals a regex requires, into one
+ * Aho-Corasick automaton. A query scans the question once to select candidates, and only candidates are
+ * scored or run against their regex, so lookup time does not grow linearly with the number of entries）
+ *
+ * 形如 {@code .*项目.*框架.*|.*技术栈.*} 的正则，只有某个分支的全部字面量都出现在问题中时才可能匹配，
+ * 因此只在这种情况下执行；无法分析的正则每次都执行
+ * （A regex such as {@code .*项目.*框架.*|.*技术栈.*} can only match when every literal of one branch occurs
+ * in the question, so it is only run then; regexes that cannot be analysed are always run）
+ *
+ * 实例不可变，知识变化时整体重建（Instances are immutable and rebuilt when the knowledge changes）
+ *
+ * @param <T> 知识类型（Knowledge type）
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+final class CompiledKnowledgeMatcher<T> {
+
+    private static final String REGEX_META = "\\[](){}*+?^$|";
+
+    private final List<T> entries;
+    private final Pattern[] patterns;
+    // 每个条目的关键词对应的词编号（Term ids of each entry's keywords）
+    private final int[][] keywordTerms;
+    // 每个条目正则各分支必需的字面量，null 表示每次都执行正则（Required literals per regex branch; null means always run）
+    private final int[][][] patternLiterals;
+    // 词编号 -> 关键词或正则字面量含有该词的条目（Term id -> entries whose keywords or regex literals contain it）
+    private final int[][] termEntries;
+    private final int[] alwaysRun;
+    private final AhoCorasickMatcher automaton;
+
+    /**
+     * @param entries          知识条目（Knowledge entries）
+     * @param keywords         取条目关键词（Keyword accessor）
+     * @param pattern          取条目正则（Regex accessor）
+     * @param lowercasePattern 正则是否先转小写，与问题的规范化一致（Whether to lowercase the regex like the question）
+     */
+    CompiledKnowledgeMatcher(Collection<T> entries,
+                             Function<T, String[]> keywords,
+                             Function<T, String> pattern,
+                             boolean lowercasePattern) {
+        this.entries = List.copyOf(entries);
+        int size = this.entries.size();
+        this.patterns = new Pattern[size];
+        this.patternLiterals = new int[size][][];
+
+        // 1. 预编译正则，收集全部词（Precompile regexes and collect every term）
+        List<String[]> keywordLists = new ArrayList<>(size);
+        List<List<List<String>>> literalLists = new ArrayList<>(size);
+        Set<String> terms = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) {
+            T entry = this.entries.get(i);
+
+            String[] words = lowercase(keywords.apply(entry));
+            keywordLists.add(words);
+            terms.addAll(Arrays.asList(words));
+
+            String regex = pattern.apply(entry);
+            List<List<String>> literals = null;
+            if (regex != null) {
+                if (lowercasePattern) {
+                    regex = regex.toLowerCase();
+                }
+                try {
+                    patterns[i] = Pattern.compile(regex);
+                    literals = requiredLiterals(regex);
+                } catch (PatternSyntaxException e) {
+                    // 正则错误，只按关键词匹配（Invalid regex; match by keywords only）
+                }
+            }
+            literalLists.add(literals);
+            if (literals != null) {
+                literals.forEach(terms::addAll);
+            }
+        }
+        this.automaton = new AhoCorasickMatcher(terms);
+
+        // 2. 将关键词和字面量换成词编号，建立倒排表（Map keywords and literals to term ids and build postings）
+        this.keywordTerms = new int[size][];
+        List<Set<Integer>> postings = new ArrayList<>();
+        for (int t = 0; t < automaton.size(); t++) {
+            postings.add(new LinkedHashSet<>());
+        }
+        List<Integer> always = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            keywordTerms[i] = termIds(keywordLists.get(i));
+            for (int term : keywordTerms[i]) {
+                postings.get(term).add(i);
+            }
+
+            List<List<String>> literals = literalLists.get(i);
+            if (patterns[i] == null) {
+                continue;
+            }
+            if (literals == null) {
+                always.add(i);
+                continue;
+            }
+            patternLiterals[i] = new int[literals.size()][];
+            for (int b = 0; b < literals.size(); b++) {
+                patternLiterals[i][b] = termIds(literals.get(b).toArray(new String[0]));
+                for (int term : patternLiterals[i][b]) {
+                    postings.get(term).add(i);
+                }
+            }
+        }
+        this.termEntries = new int[postings.size()][];
+        for (int t = 0; t < postings.size(); t++) {
+            termEntries[t] = postings.get(t).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.alwaysRun = always.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 找出与问题相关的条目：正则匹配或至少命中一个关键词，按构建顺序返回
+     * （Find the entries relevant to the question, i.e. whose regex matches or with at least one keyword hit,
+     * in build order）
+     *
+     * @param question 已规范化（小写、去首尾空白）的问题（Normalized question: lowercased and trimmed）
+     */
+    List<Match<T>> match(String question) {
+        BitSet found = automaton.match(question);
+
+        BitSet candidates = new BitSet(entries.size());
+        for (int term = found.nextSetBit(0); term >= 0; term = found.nextSetBit(term + 1)) {
+            for (int entry : termEntries[term]) {
+                candidates.set(entry);
+            }
+        }
+        for (int entry : alwaysRun) {
+            candidates.set(entry);
+        }
+
+        List<Match<T>> matches = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            int hits = 0;
+            for (int term : keywordTerms[i]) {
+                if (found.get(term)) {
+                    hits++;
+                }
+            }
+            boolean patternMatched = patterns[i] != null
+                    && mayMatch(patternLiterals[i], found)
+                    && patterns[i].matcher(question).matches();
+            if (patternMatched || hits > 0) {
+                matches.add(new Match<>(entries.get(i), patternMatched, hits, keywordTerms[i].length));
+            }
+        }
+        return matches;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int termCount() {
+        return automaton.size();
+    }
+
+    /**
+     * 某个分支的字面量全部出现时正则才可能匹配（The regex can only match when all literals of a branch occur）
+     */
+    private static boolean mayMatch(int[][] branches, BitSet found) {
+        if (branches == null) {
+            return true;
+        }
+        for (int[] branch : branches) {
+            boolean all = true;
+            for (int term : branch) {
+                if (!found.get(term)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 提取正则每个分支必须出现的字面量；只支持由字面量、{@code .}、{@code .*}、{@code .+}、{@code .?} 和顶层
+     * {@code |} 组成的正则，其他返回 null
+     * （Extract the literals each regex branch requires. Only regexes made of literals, {@code .}, {@code .*},
+     * {@code .+}, {@code .?} and top-level {@code |} are supported; anything else returns null）
+     */
+    static List<List<String>> requiredLiterals(String regex) {
+        List<List<String>> branches = new ArrayList<>();
+        for (String branch : regex.split("\\|", -1)) {
+            List<String> literals = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < branch.length(); i++) {
+                char c = branch.charAt(i);
+                if (c == '.') {
+                    if (i + 1 < branch.length() && "*+?".indexOf(branch.charAt(i + 1)) >= 0) {
+                        i++;
+                    }
+                    addLiteral(literals, literal);
+                } else if (REGEX_META.indexOf(c) >= 0) {
+                    return null;
+                } else {
+                    literal.append(c);
+                }
+            }
+            addLiteral(literals, literal);
+            // 没有字面量的分支可以匹配任何问题（A branch without literals can match any question）
+            if (literals.isEmpty()) {
+                return null;
+            }
+            branches.add(literals);
+        }
+        return branches;
+    }
+
+    private static void addLiteral(List<String> literals, StringBuilder literal) {
+        if (!literal.isEmpty()) {
+            literals.add(literal.toString());
+            literal.setLength(0);
+        }
+    }
+
+    private int[] termIds(String[] words) {
+        return Arrays.stream(words).mapToInt(automaton::indexOf).filter(id -> id >= 0).toArray();
+    }
+
+    private static String[] lowercase(String[] words) {
+        if (words == null) {
+            return new String[0];
+        }
+        return Arrays.stream(words).filter(Objects::nonNull).map(String::toLowerCase).toArray(String[]::new);
+    }
+
+    /**
+     * 匹配结果（Match result）
+     *
+     * @param entry          知识条目（Knowledge entry）
+     * @param patternMatched 正则是否匹配（Whether the regex matched）
+     * @param keywordHits    命中的关键词数（Number of keywords found in the question）
+     * @param keywordCount   关键词总数（Total number of keywords）
+     */
+    record Match<T>(T entry, boolean patternMatched, int keywordHits, int keywordCount) {
+
+        /**
+         * 正则匹配为 1.0，否则为关键词覆盖率（1.0 on a regex match, otherwise the keyword coverage）
+         */
+        double score() {
+            if (patternMatched) {
+                return 1.0;
+            }
+            return keywordCount > 0 ? (double) keywordHits / keywordCount : 0.0;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package top.yumbo.ai.rag.hope.layer;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+/**
+ * 并发关键词倒排索引 (Concurrent keyword posting index)
+ *
+ * <p>
+ * 每个关键词对应一个有序 int 数组，写入时复制出新数组再整体替换，读取无需加锁，也不会在迭代中遇到并发修改；
+ * 条目 ID 映射为紧凑的 int，求交集和并集时直接在有序数组上归并，不分配集合，并可随时提前结束
+ * (Each keyword maps to a sorted int array that writers copy and replace as a whole, so reads take no lock and
+ * never see a concurrent modification. Entry ids are mapped to compact ints, and intersection and union
+ * merge the sorted arrays directly without allocating sets and can stop early)
+ * </p>
+ *
+ * <p>
+ * 移除条目后其 int ID 进入空闲表，由下一个新条目复用，ID 上界不超过同时存在的条目数峰值；
+ * 并发读取可能拿到刚被复用的 ID，调用方应以 {@link #entryId(int)} 取到的条目本身为准
+ * (The int id of a removed entry goes to a free list and is reused by the next new entry, so the id bound never
+ * exceeds the peak number of live entries. A concurrent read may see an id that was just reused, so callers
+ * should judge the entry that {@link #entryId(int)} returns rather than assume it matched)
+ * </p>
+ *
+ * <p>
+ * 适用于读多写少的 HOPE 知识层：每次查询都要取候选，而写入只在学习或清理时发生
+ * (Suited to the read-mostly HOPE layers: every query selects candidates, while writes only happen when
+ * learning or cleaning up)
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+public class KeywordPostingIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, Posting> postings = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    // 已移除条目留下的 int ID，加锁访问 (Int ids left by removed entries, accessed under the lock)
+    private final BitSet freeIds = new BitSet();
+    // int ID -> 条目 ID，写入时复制 (int id -> entry id, copy-on-write)
+    private volatile String[] idToEntry = new String[64];
+
+    /**
+     * 添加或替换条目的关键词 (Add an entry, or replace its keywords)
+     *
+     * @param entryId  条目 ID (Entry id)
+     * @param keywords 关键词，统一转小写 (Keywords, lowercased)
+     */
+    public void add(String entryId, String[] keywords) {
+        String[] normalized = normalize(keywords);
+        synchronized (this) {
+            Entry previous = entries.get(entryId);
+            int id;
+            if (previous != null) {
+                id = previous.id;
+                removePostings(id, previous.keywords);
+            } else {
+                id = allocateId();
+                String[] table = idToEntry;
+                if (id >= table.length) {
+                    table = Arrays.copyOf(table, Math.max(id + 1, table.length * 2));
+                }
+                table[id] = entryId;
+                idToEntry = table;
+            }
+            entries.put(entryId, new Entry(id, normalized));
+            for (String keyword : normalized) {
+                postings.computeIfAbsent(keyword, k -> new Posting()).add(id);
+            }
+        }
+    }
+
+    /**
+     * 移除条目 (Remove an entry)
+     */
+    public void remove(String entryId) {
+        synchronized (this) {
+            Entry entry = entries.remove(entryId);
+            if (entry == null) {
+                return;
+            }
+            removePostings(entry.id, entry.keywords);
+            idToEntry[entry.id] = null;
+            freeIds.set(entry.id);
+        }
+    }
+
+    /**
+     * 按 int ID 升序访问包含任一关键词的条目，每个条目只访问一次
+     * (Visit the entries containing any of the keywords in ascending int id order, each exactly once)
+     *
+     * @param keywords 关键词 (Keywords)
+     * @param visitor  返回 false 时提前结束 (Return false to stop early)
+     */
+    public void union(String[] keywords, IntPredicate visitor) {
+        int[][] lists = lists(keywords);
+        int[] cursors = new int[lists.length];
+        while (true) {
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < lists.length; i++) {
+                if (cursors[i] < lists[i].length && lists[i][cursors[i]] < min) {
+                    min = lists[i][cursors[i]];
+                }
+            }
+            if (min == Integer.MAX_VALUE) {
+                return;
+            }
+            for (int i = 0; i < lists.length; i++) {
+                if (cursors[i] < lists[i].length && lists[i][cursors[i]] == min) {
+                    cursors[i]++;
+                }
+            }
+            if (!visitor.test(min)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按 int ID 升序访问包含全部关键词的条目 (Visit the entries containing all of the keywords in ascending int id order)
+     *
+     * @param keywords 关键词 (Keywords)
+     * @param visitor  返回 false 时提前结束 (Return false to stop early)
+     */
+    public void intersect(String[] keywords, IntPredicate visitor) {
+        int[][] lists = lists(keywords);
+        if (lists.length == 0) {
+            return;
+        }
+        // 从最短的列表出发，在其余列表中二分查找 (Walk the shortest list and binary-search the others)
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        int[] shortest = lists[0];
+        int[] from = new int[lists.length];
+        for (int id : shortest) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.length; i++) {
+                int pos = Arrays.binarySearch(lists[i], from[i], lists[i].length, id);
+                if (pos < 0) {
+                    from[i] = -pos - 1;
+                    inAll = false;
+                    break;
+                }
+                from[i] = pos + 1;
+            }
+            if (inAll && !visitor.test(id)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 条目的 int ID，不存在时返回 -1 (Int id of an entry, or -1 if absent)
+     */
+    public int idOf(String entryId) {
+        Entry entry = entries.get(entryId);
+        return entry != null ? entry.id : -1;
+    }
+
+    /**
+     * int ID 对应的条目 ID，已移除时返回 null (Entry id for an int id, or null once removed)
+     */
+    public String entryId(int id) {
+        String[] table = idToEntry;
+        return id >= 0 && id < table.length ? table[id] : null;
+    }
+
+    /**
+     * 已分配的 int ID 上界，可用于 BitSet 大小；移除的 ID 会被复用，上界不随增删次数增长
+     * (Upper bound of assigned int ids, e.g. to size a BitSet; removed ids are reused, so it does not grow with churn)
+     */
+    public int idBound() {
+        return nextId.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int keywordCount() {
+        return postings.size();
+    }
+
+    /**
+     * 优先复用最小的空闲 ID，保持 ID 紧凑；调用方持有写锁 (Reuse the lowest free id first to keep ids compact; caller holds the write lock)
+     */
+    private int allocateId() {
+        int free = freeIds.nextSetBit(0);
+        if (free >= 0) {
+            freeIds.clear(free);
+            return free;
+        }
+        return nextId.getAndIncrement();
+    }
+
+    /**
+     * 从关键词列表中移除 ID，空列表一并删除；调用方持有写锁 (Remove an id from its postings and drop emptied ones; caller holds the write lock)
+     */
+    private void removePostings(int id, String[] keywords) {
+        for (String keyword : keywords) {
+            Posting posting = postings.get(keyword);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.ids.length == 0) {
+                    postings.remove(keyword);
+                }
+            }
+        }
+    }
+
+    private int[][] lists(String[] keywords) {
+        if (keywords == null) {
+            return new int[0][];
+        }
+        int[][] lists = new int[keywords.length][];
+        int n = 0;
+        for (String keyword : keywords) {
+            if (keyword == null) {
+                continue;
+            }
+            Posting posting = postings.get(keyword.toLowerCase());
+            lists[n++] = posting != null ? posting.ids : EMPTY;
+        }
+        return n == lists.length ? lists : Arrays.copyOf(lists, n);
+    }
+
+    private static String[] normalize(String[] keywords) {
+        if (keywords == null) {
+            return new String[0];
+        }
+        return Arrays.stream(keywords)
+                .filter(k -> k != null && !k.isEmpty())
+                .map(String::toLowerCase)
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private record Entry(int id, String[] keywords) {
+    }
+
+    /**
+     * 一个关键词的有序列表，写入时复制 (Sorted list of one keyword, copy-on-write)
+     */
+    private static final class Posting {
+        private volatile int[] ids = EMPTY;
+
+        synchronized void add(int id) {
+            int[] current = ids;
+            int pos = Arrays.binarySearch(current, id);
+            if (pos >= 0) {
+                return;
+            }
+            int insert = -pos - 1;
+            int[] next = new int[current.length + 1];
+            System.arraycopy(current, 0, next, 0, insert);
+            next[insert] = id;
+            System.arraycopy(current, insert, next, insert + 1, current.length - insert);
+            ids = next;
+        }
+
+        synchronized void remove(int id) {
+            int[] current = ids;
+            int pos = Arrays.binarySearch(current, id);
+            if (pos < 0) {
+                return;
+            }
+            int[] next = new int[current.length - 1];
+            System.arraycopy(current, 0, next, 0, pos);
+            System.arraycopy(current, pos + 1, next, pos, current.length - pos - 1);
+            ids = next;
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package top.yumbo.ai.rag.hope.layer;
 
-import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONWriter;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +9,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import top.yumbo.ai.rag.hope.HOPEConfig;
 import top.yumbo.ai.rag.hope.model.RecentQA;
+import top.yumbo.ai.rag.hope.persistence.LayerJournal;
 import top.yumbo.ai.rag.i18n.I18N;
 
 import java.io.IOException;
@@ -43,8 +43,11 @@ public class OrdinaryLayerService {
     // 近期问答存储
     private final Map<String, RecentQA> recentQAs = new ConcurrentHashMap<>();
 
-    // 关键词到问答ID的索引
-    private final Map<String, Set<String>> keywordIndex = new ConcurrentHashMap<>();
+    // 关键词到问答ID的索引，读取无锁 (Keyword index to Q&A ids; reads are lock-free)
+    private final KeywordPostingIndex keywordIndex = new KeywordPostingIndex();
+
+    // 操作日志，HOPE 未启用时为空 (Operation log; null when HOPE is disabled)
+    private LayerJournal<RecentQA> journal;
 
     @Autowired
     public OrdinaryLayerService(HOPEConfig config,
@@ -88,6 +91,20 @@ public class OrdinaryLayerService {
      * @return 查询结果 (Query result)
      */
     public OrdinaryQueryResult query(String question) {
+        OrdinaryQueryResult result = lookup(question);
+        recordAccess(result);
+        return result;
+    }
+
+    /**
+     * 查询中频层但不记录访问，供并行查询在确定采用结果后再调用 {@link #recordAccess}
+     * (Query the ordinary layer without recording access, so a concurrent lookup can call
+     * {@link #recordAccess} only once its result is actually used)
+     *
+     * @param question 用户问题 (User question)
+     * @return 查询结果 (Query result)
+     */
+    public OrdinaryQueryResult lookup(String question) {
         long startTime = System.currentTimeMillis();
         OrdinaryQueryResult result = new OrdinaryQueryResult();
 
@@ -103,9 +120,6 @@ public class OrdinaryLayerService {
             result.setSimilarity(bestMatch.getSimilarity());
             result.setAllMatches(matches);
 
-            // 1. 记录访问 (Record access)
-            bestMatch.getQa().recordAccess();
-
             // 判断是否可直接使用
             if (bestMatch.getSimilarity() >= config.getOrdinary().getSimilarityThreshold()) {
                 result.setDirectUsable(true);
@@ -120,6 +134,17 @@ public class OrdinaryLayerService {
         return result;
     }
 
+    /**
+     * 记录最佳匹配的访问 (Record access to the best match)
+     *
+     * @param result 查询结果 (Query result)
+     */
+    public void recordAccess(OrdinaryQueryResult result) {
+        if (result != null && result.isFound()) {
+            result.getBestMatch().recordAccess();
+        }
+    }
+
     /**
      * 查找相似问答（公开方法）
      * (Find similar Q&A - public method)
@@ -129,20 +154,31 @@ public class OrdinaryLayerService {
      * @return 最相似的问答，如果未找到或相似度低于阈值返回 null
      */
     public RecentQA findSimilarQA(String question, double minSimilarity) {
-        List<SimilarMatch> matches = findSimilarQAs(question);
+        SimilarMatch bestMatch = findBestMatch(question, minSimilarity);
+        if (bestMatch == null) {
+            return null;
+        }
+        RecentQA qa = bestMatch.getQa();
+        // 设置相似度评分
+        qa.setSimilarityScore(bestMatch.getSimilarity());
+        // 1. 记录访问 (Record access)
+        qa.recordAccess();
+        return qa;
+    }
 
-        if (!matches.isEmpty()) {
-            SimilarMatch bestMatch = matches.get(0);
-            if (bestMatch.getSimilarity() >= minSimilarity) {
-                RecentQA qa = bestMatch.getQa();
-                // 设置相似度评分
-                qa.setSimilarityScore(bestMatch.getSimilarity());
-                // 1. 记录访问 (Record access)
-                qa.recordAccess();
-                return qa;
-            }
+    /**
+     * 查找最相似的问答，不记录访问
+     * (Find the most similar Q&A without recording access)
+     *
+     * @param question 用户问题 (User question)
+     * @param minSimilarity 最小相似度阈值 (Minimum similarity)
+     * @return 最佳匹配，未找到或低于阈值返回 null (Best match, or null if none reaches the threshold)
+     */
+    public SimilarMatch findBestMatch(String question, double minSimilarity) {
+        List<SimilarMatch> matches = findSimilarQAs(question);
+        if (!matches.isEmpty() && matches.get(0).getSimilarity() >= minSimilarity) {
+            return matches.get(0);
         }
-
         return null;
     }
 
@@ -158,17 +194,16 @@ public class OrdinaryLayerService {
         String[] queryWords = extractKeywords(question);
 
         // 1. 通过关键词索引获取候选 (Get candidates through keyword index)
-        Set<String> candidateIds = new HashSet<>();
-        for (String word : queryWords) {
-            Set<String> ids = keywordIndex.get(word.toLowerCase());
-            if (ids != null) {
-                candidateIds.addAll(ids);
-            }
-        }
+        BitSet candidateIds = new BitSet(keywordIndex.idBound());
+        keywordIndex.union(queryWords, id -> {
+            candidateIds.set(id);
+            return true;
+        });
 
         // 2. 计算相似度 (Calculate similarity)
-        for (String id : candidateIds) {
-            RecentQA qa = recentQAs.get(id);
+        for (int id = candidateIds.nextSetBit(0); id >= 0; id = candidateIds.nextSetBit(id + 1)) {
+            String qaId = keywordIndex.entryId(id);
+            RecentQA qa = qaId != null ? recentQAs.get(qaId) : null;
             if (qa == null || qa.isPromoted()) {
                 continue;
             }
@@ -182,7 +217,8 @@ public class OrdinaryLayerService {
         // 3. 如果关键词索引没找到足够的，遍历所有 (If keyword index doesn't find enough, traverse all)
         if (matches.size() < 3) {
             for (RecentQA qa : recentQAs.values()) {
-                if (qa.isPromoted() || candidateIds.contains(qa.getId())) {
+                int id = keywordIndex.idOf(qa.getId());
+                if (qa.isPromoted() || (id >= 0 && candidateIds.get(id))) {
                     continue;
                 }
 
@@ -316,12 +352,10 @@ public class OrdinaryLayerService {
         recentQAs.put(qa.getId(), qa);
 
         // 更新关键词索引
-        for (String keyword : qa.getKeywords()) {
-            keywordIndex.computeIfAbsent(keyword.toLowerCase(), k -> new HashSet<>()).add(qa.getId());
-        }
+        keywordIndex.add(qa.getId(), qa.getKeywords());
 
         // 持久化
-        persistData();
+        persist(qa);
 
         log.debug(I18N.get("hope.ordinary.saved", qa.getId()));
     }
@@ -354,7 +388,7 @@ public class OrdinaryLayerService {
             // 2. 更新现有记录的评分 (Update existing record's rating)
             RecentQA existing = existingResult.getBestMatch();
             existing.recordRating(rating);
-            persistData();
+            persist(existing);
             log.debug(I18N.get("hope.ordinary.updated", existing.getId()));
             return;
         }
@@ -381,14 +415,13 @@ public class OrdinaryLayerService {
         recentQAs.put(id, qa);
 
         // 更新关键词索引
-        for (String keyword : keywords) {
-            keywordIndex.computeIfAbsent(keyword.toLowerCase(), k -> new HashSet<>()).add(id);
-        }
+        keywordIndex.add(id, keywords);
+
+        persist(qa);
 
         // 检查是否超过最大条目数
         enforceMaxEntries();
 
-        persistData();
         log.info(I18N.get("hope.ordinary.saved", id, rating));
     }
 
@@ -406,16 +439,13 @@ public class OrdinaryLayerService {
                 // 尝试晋升
                 if (promoteToPeranent(qa)) {
                     qa.setPromoted(true);
+                    persist(qa);
                     promoted.add(qa);
                     log.info(I18N.get("hope.learn.promoted", qa.getId()));
                 }
             }
         }
 
-        if (!promoted.isEmpty()) {
-            persistData();
-        }
-
         return promoted;
     }
 
@@ -472,19 +502,14 @@ public class OrdinaryLayerService {
 
         for (String id : expiredIds) {
             RecentQA removed = recentQAs.remove(id);
-            if (removed != null && removed.getKeywords() != null) {
-                // 清理关键词索引
-                for (String keyword : removed.getKeywords()) {
-                    Set<String> ids = keywordIndex.get(keyword.toLowerCase());
-                    if (ids != null) {
-                        ids.remove(id);
-                    }
-                }
+            if (removed != null && journal != null) {
+                journal.delete(id);
             }
+            // 清理关键词索引
+            keywordIndex.remove(id);
         }
 
         if (!expiredIds.isEmpty()) {
-            persistData();
             log.info(I18N.get("hope.ordinary.cleaned", expiredIds.size()));
         }
     }
@@ -513,15 +538,11 @@ public class OrdinaryLayerService {
         for (int i = 0; i < toRemove && i < sortedByAccess.size(); i++) {
             RecentQA qa = sortedByAccess.get(i);
             recentQAs.remove(qa.getId());
-            // 清理关键词索引
-            if (qa.getKeywords() != null) {
-                for (String keyword : qa.getKeywords()) {
-                    Set<String> ids = keywordIndex.get(keyword.toLowerCase());
-                    if (ids != null) {
-                        ids.remove(qa.getId());
-                    }
-                }
+            if (journal != null) {
+                journal.delete(qa.getId());
             }
+            // 清理关键词索引
+            keywordIndex.remove(qa.getId());
         }
     }
 
@@ -556,44 +577,53 @@ public class OrdinaryLayerService {
     }
 
     /**
-     * 持久化数据
+     * 追加一条变更到操作日志，开销与层的大小无关
+     * (Append one change to the operation log; the cost does not depend on the layer size)
      */
-    private void persistData() {
-        try {
-            Path storagePath = Paths.get(config.getOrdinary().getStoragePath());
-            Path dataPath = storagePath.resolve("recent_qa.json");
-            Files.writeString(dataPath, JSON.toJSONString(recentQAs.values(),
-                JSONWriter.Feature.PrettyFormat));
-        } catch (IOException e) {
-            log.error(I18N.get("hope.ordinary.persist_failed"), e);
+    private void persist(RecentQA qa) {
+        if (journal != null) {
+            journal.put(qa);
         }
     }
 
     /**
-     * 加载数据
+     * 从快照和操作日志加载数据，首次运行时迁移旧版 recent_qa.json
+     * (Load data from the snapshot and operation log, migrating the legacy recent_qa.json on first run)
      */
     private void loadData() {
         try {
             Path storagePath = Paths.get(config.getOrdinary().getStoragePath());
-            Path dataPath = storagePath.resolve("recent_qa.json");
-
-            if (Files.exists(dataPath)) {
-                String json = Files.readString(dataPath);
-                List<RecentQA> qas = JSON.parseArray(json, RecentQA.class);
-                for (RecentQA qa : qas) {
-                    recentQAs.put(qa.getId(), qa);
-                    // 重建关键词索引
-                    if (qa.getKeywords() != null) {
-                        for (String keyword : qa.getKeywords()) {
-                            keywordIndex.computeIfAbsent(keyword.toLowerCase(), k -> new HashSet<>())
-                                .add(qa.getId());
-                        }
-                    }
-                }
-                log.info(I18N.get("hope.ordinary.loaded", qas.size()));
+            HOPEConfig.JournalConfig journalConfig = config.getJournal();
+            journal = new LayerJournal<>(storagePath, "recent_qa", RecentQA.class, RecentQA::getId,
+                recentQAs::values, journalConfig.getFlushIntervalMs(),
+                journalConfig.getFlushThreshold(), journalConfig.getCompactThreshold());
+
+            Map<String, RecentQA> qas = journal.load("recent_qa.json");
+            for (RecentQA qa : qas.values()) {
+                recentQAs.put(qa.getId(), qa);
+                // 重建关键词索引
+                keywordIndex.add(qa.getId(), qa.getKeywords());
             }
+            log.info(I18N.get("hope.ordinary.loaded", qas.size()));
         } catch (IOException e) {
             log.error(I18N.get("hope.ordinary.load_failed"), e);
+            // 加载失败的日志不接受写入，关闭并告警 (A journal that failed to load refuses writes; close it and warn)
+            if (journal != null && !journal.isOpen()) {
+                journal.close();
+                journal = null;
+                log.error(I18N.get("hope.journal.disabled", "recent_qa"));
+            }
+        }
+    }
+
+    /**
+     * 关闭时刷盘并写出快照，查询中累积的访问计数也随之保存
+     * (Flush and write a snapshot on shutdown, which also saves the access counts accumulated by queries)
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (journal != null) {
+            journal.close();
         }
     }
 
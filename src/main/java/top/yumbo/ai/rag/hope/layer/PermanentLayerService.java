@@ -1,12 +1,12 @@
 package top.yumbo.ai.rag.hope.layer;
 
-import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONWriter;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import top.yumbo.ai.rag.hope.HOPEConfig;
+import top.yumbo.ai.rag.hope.persistence.LayerJournal;
 import top.yumbo.ai.rag.hope.model.FactualKnowledge;
 import top.yumbo.ai.rag.hope.model.SkillTemplate;
 import top.yumbo.ai.rag.i18n.I18N;
@@ -18,7 +18,7 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -45,8 +45,13 @@ public class PermanentLayerService {
     // 确定性知识存储
     private final Map<String, FactualKnowledge> factualKnowledge = new ConcurrentHashMap<>();
 
-    // 关键词到知识ID的索引
-    private final Map<String, Set<String>> keywordIndex = new ConcurrentHashMap<>();
+    // 编译后的匹配器，知识变化后置空，下次查询时重建 (Compiled matchers; cleared on change and rebuilt by the next query)
+    private volatile CompiledKnowledgeMatcher<FactualKnowledge> factMatcher;
+    private volatile CompiledKnowledgeMatcher<SkillTemplate> skillMatcher;
+
+    // 操作日志，HOPE 未启用时为空 (Operation logs; null when HOPE is disabled)
+    private LayerJournal<SkillTemplate> skillJournal;
+    private LayerJournal<FactualKnowledge> factJournal;
 
     @Autowired
     public PermanentLayerService(HOPEConfig config) {
@@ -146,116 +151,91 @@ public class PermanentLayerService {
 
     /**
      * 查找匹配的确定性知识
+     * (Find matching factual knowledge)
      */
     private FactualKnowledge findFactualKnowledge(String question) {
-        // 1. 通过关键词索引快速查找 (Quick search through keyword index)
-        String[] words = question.split("\\s+");
-        Set<String> candidateIds = new HashSet<>();
-
-        for (String word : words) {
-            Set<String> ids = keywordIndex.get(word.toLowerCase());
-            if (ids != null) {
-                if (candidateIds.isEmpty()) {
-                    candidateIds.addAll(ids);
-                } else {
-                    candidateIds.retainAll(ids); // 交集
-                }
-            }
-        }
-
-        // 2. 对候选进行模式匹配 (Pattern matching for candidates)
+        // 自动机一次扫描选出候选，只对候选打分 (One automaton scan selects the candidates; only they are scored)
         FactualKnowledge bestMatch = null;
         double bestScore = 0;
 
-        for (String id : candidateIds) {
-            FactualKnowledge fact = factualKnowledge.get(id);
-            if (fact == null || !fact.isEnabled()) {
+        for (CompiledKnowledgeMatcher.Match<FactualKnowledge> match : factMatcher().match(question)) {
+            FactualKnowledge fact = match.entry();
+            if (!fact.isEnabled()) {
                 continue;
             }
-
-            double score = calculateMatchScore(question, fact);
+            double score = match.score();
             if (score > bestScore && score >= 0.7) {
                 bestScore = score;
                 bestMatch = fact;
             }
         }
 
-        // 3. 如果关键词索引没找到，遍历所有知识 (If keyword index not found, traverse all knowledge)
-        if (bestMatch == null) {
-            for (FactualKnowledge fact : factualKnowledge.values()) {
-                if (!fact.isEnabled()) {
-                    continue;
-                }
-                double score = calculateMatchScore(question, fact);
-                if (score > bestScore && score >= 0.7) {
-                    bestScore = score;
-                    bestMatch = fact;
-                }
-            }
-        }
-
         return bestMatch;
     }
 
     /**
      * 查找匹配的技能模板
+     * (Find matching skill template)
      */
     private SkillTemplate findSkillTemplate(String question) {
-        for (SkillTemplate template : skillTemplates.values()) {
-            if (!template.isEnabled()) {
-                continue;
-            }
-
-            // 检查正则模式
-            if (template.getPattern() != null) {
-                try {
-                    if (Pattern.matches(template.getPattern(), question)) {
-                        return template;
-                    }
-                } catch (Exception e) {
-                    // 正则错误，跳过
-                }
-            }
-
-            // 检查关键词
-            if (template.getKeywords() != null) {
-                for (String keyword : template.getKeywords()) {
-                    if (question.contains(keyword.toLowerCase())) {
-                        return template;
-                    }
-                }
+        for (CompiledKnowledgeMatcher.Match<SkillTemplate> match : skillMatcher().match(question)) {
+            if (match.entry().isEnabled()) {
+                return match.entry();
             }
         }
         return null;
     }
 
-    /**
-     * 计算问题与知识的匹配分数
-     */
-    private double calculateMatchScore(String question, FactualKnowledge fact) {
-        // 1. 正则匹配
-        if (fact.getQuestionPattern() != null) {
-            try {
-                if (Pattern.matches(fact.getQuestionPattern().toLowerCase(), question)) {
-                    return 1.0;
+    private CompiledKnowledgeMatcher<FactualKnowledge> factMatcher() {
+        CompiledKnowledgeMatcher<FactualKnowledge> matcher = factMatcher;
+        if (matcher == null) {
+            synchronized (this) {
+                matcher = factMatcher;
+                if (matcher == null) {
+                    long start = System.currentTimeMillis();
+                    matcher = new CompiledKnowledgeMatcher<>(sortedById(factualKnowledge.values(), FactualKnowledge::getId),
+                        FactualKnowledge::getKeywords, FactualKnowledge::getQuestionPattern, true);
+                    factMatcher = matcher;
+                    log.debug(I18N.get("hope.permanent.facts_compiled",
+                        matcher.size(), matcher.termCount(), System.currentTimeMillis() - start));
                 }
-            } catch (Exception e) {
-                // 正则错误
             }
         }
+        return matcher;
+    }
 
-        // 2. 关键词覆盖率
-        if (fact.getKeywords() != null && fact.getKeywords().length > 0) {
-            int matched = 0;
-            for (String keyword : fact.getKeywords()) {
-                if (question.contains(keyword.toLowerCase())) {
-                    matched++;
+    private CompiledKnowledgeMatcher<SkillTemplate> skillMatcher() {
+        CompiledKnowledgeMatcher<SkillTemplate> matcher = skillMatcher;
+        if (matcher == null) {
+            synchronized (this) {
+                matcher = skillMatcher;
+                if (matcher == null) {
+                    long start = System.currentTimeMillis();
+                    matcher = new CompiledKnowledgeMatcher<>(sortedById(skillTemplates.values(), SkillTemplate::getId),
+                        SkillTemplate::getKeywords, SkillTemplate::getPattern, false);
+                    skillMatcher = matcher;
+                    log.debug(I18N.get("hope.permanent.skills_compiled",
+                        matcher.size(), matcher.termCount(), System.currentTimeMillis() - start));
                 }
             }
-            return (double) matched / fact.getKeywords().length;
         }
+        return matcher;
+    }
 
-        return 0.0;
+    /**
+     * 知识变化后使匹配器失效；与重建互斥，避免重建中的旧快照覆盖失效标记
+     * (Invalidate the matchers after a change; excludes a concurrent rebuild so a stale snapshot cannot
+     * overwrite the invalidation)
+     */
+    private synchronized void invalidateMatchers() {
+        factMatcher = null;
+        skillMatcher = null;
+    }
+
+    private static <T> List<T> sortedById(Collection<T> values, Function<T, String> id) {
+        List<T> sorted = new ArrayList<>(values);
+        sorted.sort(Comparator.comparing(id, Comparator.nullsLast(Comparator.naturalOrder())));
+        return sorted;
     }
 
     /**
@@ -274,7 +254,8 @@ public class PermanentLayerService {
         template.setEnabled(true);
 
         skillTemplates.put(template.getId(), template);
-        persistData();
+        invalidateMatchers();
+        persist(skillJournal, template);
 
         log.info(I18N.get("hope.permanent.skill_saved", template.getId(), template.getName()));
     }
@@ -296,16 +277,9 @@ public class PermanentLayerService {
         knowledge.setEnabled(true);
 
         factualKnowledge.put(knowledge.getId(), knowledge);
+        invalidateMatchers();
 
-        // 更新关键词索引
-        if (knowledge.getKeywords() != null) {
-            for (String keyword : knowledge.getKeywords()) {
-                keywordIndex.computeIfAbsent(keyword.toLowerCase(), k -> new HashSet<>())
-                    .add(knowledge.getId());
-            }
-        }
-
-        persistData();
+        persist(factJournal, knowledge);
 
         log.info(I18N.get("hope.permanent.factual_saved", knowledge.getId()));
     }
@@ -317,7 +291,7 @@ public class PermanentLayerService {
         SkillTemplate template = skillTemplates.get(templateId);
         if (template != null) {
             template.recordUsage(success);
-            persistData();
+            persist(skillJournal, template);
         }
     }
 
@@ -335,7 +309,7 @@ public class PermanentLayerService {
                 log.warn(I18N.get("hope.permanent.factual_disabled", knowledgeId));
             }
 
-            persistData();
+            persist(factJournal, knowledge);
         }
     }
 
@@ -460,66 +434,66 @@ public class PermanentLayerService {
     }
 
     /**
-     * 持久化数据到文件
-     * (Persist data to files)
+     * 追加一条变更到操作日志，开销与层的大小无关
+     * (Append one change to the operation log; the cost does not depend on the layer size)
      */
-    private void persistData() {
-        try {
-            Path storagePath = Paths.get(config.getPermanent().getStoragePath());
-
-            // 保存技能模板
-            Path skillPath = storagePath.resolve("skill_templates.json");
-            Files.writeString(skillPath, JSON.toJSONString(skillTemplates.values(),
-                JSONWriter.Feature.PrettyFormat));
-
-            // 保存确定性知识
-            Path factPath = storagePath.resolve("factual_knowledge.json");
-            Files.writeString(factPath, JSON.toJSONString(factualKnowledge.values(),
-                JSONWriter.Feature.PrettyFormat));
-
-        } catch (IOException e) {
-            log.error(I18N.get("hope.permanent.persist_failed"), e);
+    private <T> void persist(LayerJournal<T> journal, T entry) {
+        if (journal != null) {
+            journal.put(entry);
         }
     }
 
     /**
-     * 从文件加载数据
+     * 从快照和操作日志加载数据，首次运行时迁移旧版 JSON 文件
+     * (Load data from the snapshots and operation logs, migrating the legacy JSON files on first run)
      */
     private void loadData() {
         try {
             Path storagePath = Paths.get(config.getPermanent().getStoragePath());
+            HOPEConfig.JournalConfig journalConfig = config.getJournal();
 
             // 加载技能模板
-            Path skillPath = storagePath.resolve("skill_templates.json");
-            if (Files.exists(skillPath)) {
-                String json = Files.readString(skillPath);
-                List<SkillTemplate> templates = JSON.parseArray(json, SkillTemplate.class);
-                for (SkillTemplate template : templates) {
-                    skillTemplates.put(template.getId(), template);
-                }
-                log.info(I18N.get("hope.permanent.skills_loaded", templates.size()));
-            }
+            skillJournal = new LayerJournal<>(storagePath, "skill_templates", SkillTemplate.class,
+                SkillTemplate::getId, skillTemplates::values, journalConfig.getFlushIntervalMs(),
+                journalConfig.getFlushThreshold(), journalConfig.getCompactThreshold());
+            skillTemplates.putAll(skillJournal.load("skill_templates.json"));
+            log.info(I18N.get("hope.permanent.skills_loaded", skillTemplates.size()));
 
             // 加载确定性知识
-            Path factPath = storagePath.resolve("factual_knowledge.json");
-            if (Files.exists(factPath)) {
-                String json = Files.readString(factPath);
-                List<FactualKnowledge> facts = JSON.parseArray(json, FactualKnowledge.class);
-                for (FactualKnowledge fact : facts) {
-                    factualKnowledge.put(fact.getId(), fact);
-                    // 重建关键词索引
-                    if (fact.getKeywords() != null) {
-                        for (String keyword : fact.getKeywords()) {
-                            keywordIndex.computeIfAbsent(keyword.toLowerCase(), k -> new HashSet<>())
-                                .add(fact.getId());
-                        }
-                    }
-                }
-                log.info(I18N.get("hope.permanent.facts_loaded", facts.size()));
-            }
+            factJournal = new LayerJournal<>(storagePath, "factual_knowledge", FactualKnowledge.class,
+                FactualKnowledge::getId, factualKnowledge::values, journalConfig.getFlushIntervalMs(),
+                journalConfig.getFlushThreshold(), journalConfig.getCompactThreshold());
+            factualKnowledge.putAll(factJournal.load("factual_knowledge.json"));
+            log.info(I18N.get("hope.permanent.facts_loaded", factualKnowledge.size()));
 
+            invalidateMatchers();
         } catch (IOException e) {
             log.error(I18N.get("hope.permanent.load_failed"), e);
+            // 加载失败的日志不接受写入，关闭并告警 (A journal that failed to load refuses writes; close it and warn)
+            if (skillJournal != null && !skillJournal.isOpen()) {
+                skillJournal.close();
+                skillJournal = null;
+                log.error(I18N.get("hope.journal.disabled", "skill_templates"));
+            }
+            if (factJournal != null && !factJournal.isOpen()) {
+                factJournal.close();
+                factJournal = null;
+                log.error(I18N.get("hope.journal.disabled", "factual_knowledge"));
+            }
+        }
+    }
+
+    /**
+     * 关闭时刷盘并写出快照，查询中累积的访问计数也随之保存
+     * (Flush and write snapshots on shutdown, which also saves the access counts accumulated by queries)
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (skillJournal != null) {
+            skillJournal.close();
+        }
+        if (factJournal != null) {
+            factJournal.close();
         }
     }
 
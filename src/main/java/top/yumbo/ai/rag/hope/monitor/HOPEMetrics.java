@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import top.yumbo.ai.rag.util.LatencyHistogram;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -39,6 +40,7 @@ public class HOPEMetrics {
     private final AtomicLong directAnswerTime = new AtomicLong(0);   // 直接回答总时间 (Total direct answer time)
     private final AtomicLong templateAnswerTime = new AtomicLong(0);  // 模板回答总时间 (Total template answer time)
     private final AtomicLong fullRAGTime = new AtomicLong(0);        // 完整RAG总时间 (Total full RAG time)
+    private final LatencyHistogram responseTimes = new LatencyHistogram(); // 响应时间分布 (Response time distribution)
 
     // 4. 学习统计 (Learning statistics)
     private final AtomicLong learnEvents = new AtomicLong(0);        // 学习事件数 (Learning event count)
@@ -68,6 +70,7 @@ public class HOPEMetrics {
         // 1. 更新总查询数和总响应时间 (Update total query count and total response time)
         totalQueries.incrementAndGet();
         totalResponseTime.addAndGet(responseTimeMs);
+        responseTimes.record(responseTimeMs);
 
         // 2. 按策略类型统计 (Statistics by strategy type)
         switch (strategyType) {
@@ -209,6 +212,7 @@ public class HOPEMetrics {
      * @return 指标摘要对象 (Metrics summary object)
      */
     public MetricsSummary getSummary() {
+        LatencyHistogram.Snapshot latency = responseTimes.snapshot();
         return MetricsSummary.builder()
             .totalQueries(totalQueries.get())
             .directAnswers(directAnswers.get())
@@ -221,6 +225,9 @@ public class HOPEMetrics {
             .avgResponseTimeMs(getAverageResponseTime())
             .directAnswerAvgTimeMs(getDirectAnswerAvgTime())
             .fullRAGAvgTimeMs(getFullRAGAvgTime())
+            .p50ResponseTimeMs(latency.percentile(0.50))
+            .p95ResponseTimeMs(latency.percentile(0.95))
+            .p99ResponseTimeMs(latency.percentile(0.99))
             .learnEvents(learnEvents.get())
             .promotions(promotions.get())
             .errors(errors.get())
@@ -252,6 +259,7 @@ public class HOPEMetrics {
         directAnswerTime.set(0);
         templateAnswerTime.set(0);
         fullRAGTime.set(0);
+        responseTimes.reset();
         
         // 4. 重置学习事件计数器 (Reset learning event counters)
         learnEvents.set(0);
@@ -319,6 +327,9 @@ public class HOPEMetrics {
         private double avgResponseTimeMs;        // 平均响应时间(毫秒) (Average response time in milliseconds)
         private double directAnswerAvgTimeMs;    // 直接回答平均时间(毫秒) (Direct answer average time in milliseconds)
         private double fullRAGAvgTimeMs;         // 完整RAG平均时间(毫秒) (Full RAG average time in milliseconds)
+        private long p50ResponseTimeMs;          // 响应时间P50(毫秒) (Response time P50 in milliseconds)
+        private long p95ResponseTimeMs;          // 响应时间P95(毫秒) (Response time P95 in milliseconds)
+        private long p99ResponseTimeMs;          // 响应时间P99(毫秒) (Response time P99 in milliseconds)
         private long learnEvents;                // 学习事件数 (Learning events)
         private long promotions;                 // 晋升事件数 (Promotions)
         private long errors;                     // 错误数 (Errors)
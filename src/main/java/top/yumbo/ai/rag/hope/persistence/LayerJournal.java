@@ -0,0 +1,352 @@
+package top.yumbo.ai.rag.hope.persistence;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.rag.i18n.I18N;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * HOPE 知识层的预写日志 (Write-ahead journal for a HOPE knowledge layer)
+ *
+ * <p>
+ * 每次变更只向操作日志追加一行，写入开销与层的大小无关；日志按定时器或条数阈值成组刷盘，
+ * 累积到一定条数后压缩为快照。快照先写临时文件再原子重命名，启动时加载快照并重放其后的日志
+ * (Each change appends one line to an operation log, so the write cost does not depend on the layer size.
+ * The log is group-flushed on a timer or a size threshold and compacted into a snapshot once enough
+ * operations have accumulated. Snapshots are written to a temporary file and atomically renamed; startup
+ * loads the snapshot and replays the log written after it)
+ * </p>
+ *
+ * <p>
+ * 文件 (Files):
+ * <ul>
+ *   <li>{@code <name>.snapshot.json} - 快照及其代数 (Snapshot and its generation)</li>
+ *   <li>{@code <name>.<generation>.log} - 每行一个 put/delete 操作 (One put/delete operation per line)</li>
+ * </ul>
+ * 压缩时先切换到新一代日志，再写快照，最后删除旧日志，任何一步崩溃都不会丢失或重复应用变更
+ * (Compaction first rotates to a new log generation, then writes the snapshot, then deletes the old logs,
+ * so a crash at any step neither loses nor reorders changes)
+ * </p>
+ *
+ * @param <T> 条目类型 (Entry type)
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+public class LayerJournal<T> implements AutoCloseable {
+
+    private final Path directory;
+    private final String name;
+    private final Class<T> type;
+    private final Function<T, String> idOf;
+    private final Supplier<Collection<T>> state;
+    private final int flushThreshold;
+    private final int compactThreshold;
+    private final ScheduledExecutorService flusher;
+
+    private final List<String> pending = new ArrayList<>();
+    private FileChannel logChannel;
+    private long generation;
+    private int opsSinceSnapshot;
+    private boolean closed;
+
+    /**
+     * @param directory        存储目录 (Storage directory)
+     * @param name             层名称，用作文件名前缀 (Layer name, used as the file name prefix)
+     * @param type             条目类型 (Entry type)
+     * @param idOf             取条目 ID (Entry id accessor)
+     * @param state            当前全部条目，压缩时写入快照 (All current entries, written to the snapshot on compaction)
+     * @param flushIntervalMs  成组刷盘间隔 (Group flush interval)
+     * @param flushThreshold   待写条数达到此值立即刷盘 (Flush at once when this many operations are pending)
+     * @param compactThreshold 日志达到此条数时压缩为快照 (Compact into a snapshot after this many logged operations)
+     */
+    public LayerJournal(Path directory, String name, Class<T> type, Function<T, String> idOf,
+                        Supplier<Collection<T>> state, long flushIntervalMs, int flushThreshold, int compactThreshold) {
+        this.directory = directory;
+        this.name = name;
+        this.type = type;
+        this.idOf = idOf;
+        this.state = state;
+        this.flushThreshold = Math.max(1, flushThreshold);
+        this.compactThreshold = Math.max(1, compactThreshold);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hope-journal-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 加载快照并重放日志；没有快照时读取旧版整体 JSON 文件
+     * (Load the snapshot and replay the log; without a snapshot, read the legacy whole-layer JSON file)
+     *
+     * @param legacyFile 旧版 JSON 数组文件名，可为空 (Legacy JSON array file name, may be null)
+     * @return 按 ID 排列的条目 (Entries by id)
+     */
+    public synchronized Map<String, T> load(String legacyFile) throws IOException {
+        Files.createDirectories(directory);
+        Map<String, T> entries = new LinkedHashMap<>();
+
+        // 1. 快照，或迁移前的旧文件 (Snapshot, or the legacy file before migration)
+        Path snapshot = snapshotPath();
+        long snapshotGeneration = 0;
+        if (Files.exists(snapshot)) {
+            JSONObject json = JSON.parseObject(Files.readString(snapshot));
+            snapshotGeneration = json.getLongValue("generation");
+            JSONArray array = json.getJSONArray("entries");
+            for (int i = 0; array != null && i < array.size(); i++) {
+                T entry = array.getObject(i, type);
+                entries.put(idOf.apply(entry), entry);
+            }
+        } else if (legacyFile != null && Files.exists(directory.resolve(legacyFile))) {
+            // 旧文件保持不动，写出第一个快照后不再读取 (The legacy file is left alone and ignored once a snapshot exists)
+            List<T> legacy = JSON.parseArray(Files.readString(directory.resolve(legacyFile)), type);
+            if (legacy != null) {
+                legacy.forEach(entry -> entries.put(idOf.apply(entry), entry));
+            }
+        }
+
+        // 2. 按代数重放快照之后的日志 (Replay the logs written after the snapshot, by generation)
+        List<Long> generations = logGenerations();
+        for (long g : generations) {
+            if (g < snapshotGeneration) {
+                Files.deleteIfExists(logPath(g));
+            } else {
+                opsSinceSnapshot += replay(logPath(g), entries);
+            }
+        }
+        generation = generations.isEmpty() ? snapshotGeneration
+                : Math.max(snapshotGeneration, generations.get(generations.size() - 1));
+
+        logChannel = openLog(generation);
+        log.info(I18N.get("hope.journal.loaded", name, entries.size(), opsSinceSnapshot));
+        return entries;
+    }
+
+    /**
+     * 日志是否已加载并可写入 (Whether the journal has been loaded and accepts writes)
+     */
+    public synchronized boolean isOpen() {
+        return logChannel != null;
+    }
+
+    /**
+     * 记录新增或更新 (Record an insert or update)
+     */
+    public void put(T entry) {
+        JSONObject op = new JSONObject();
+        op.put("op", "put");
+        op.put("id", idOf.apply(entry));
+        op.put("value", entry);
+        append(op.toJSONString());
+    }
+
+    /**
+     * 记录删除 (Record a delete)
+     */
+    public void delete(String id) {
+        JSONObject op = new JSONObject();
+        op.put("op", "delete");
+        op.put("id", id);
+        append(op.toJSONString());
+    }
+
+    private void append(String line) {
+        boolean flushNow;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (logChannel == null) {
+                // 未成功加载时拒绝写入，避免待写队列无限增长而变更静默丢失
+                // (Refuse writes until load succeeded, so pending never grows without bound while changes are lost)
+                throw new IllegalStateException(I18N.get("hope.journal.not_open", name));
+            }
+            pending.add(line);
+            flushNow = pending.size() >= flushThreshold;
+        }
+        if (flushNow) {
+            flushQuietly();
+        }
+    }
+
+    /**
+     * 将待写操作追加到日志并刷盘，必要时压缩 (Append pending operations to the log, force it, and compact if due)
+     */
+    public synchronized void flush() throws IOException {
+        if (logChannel == null) {
+            return;
+        }
+        if (!pending.isEmpty()) {
+            StringBuilder batch = new StringBuilder();
+            for (String line : pending) {
+                batch.append(line).append('\n');
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                logChannel.write(bytes);
+            }
+            logChannel.force(false);
+            opsSinceSnapshot += pending.size();
+            pending.clear();
+        }
+        if (opsSinceSnapshot >= compactThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * 把当前状态写成快照并丢弃旧日志 (Write the current state as a snapshot and drop the old logs)
+     */
+    public synchronized void compact() throws IOException {
+        if (logChannel == null) {
+            return;
+        }
+        // 1. 切换到新一代日志，快照之后的变更写入新日志 (Rotate first; changes after the snapshot go to the new log)
+        logChannel.close();
+        generation++;
+        logChannel = openLog(generation);
+
+        // 2. 写临时文件、刷盘后原子重命名 (Write a temp file, force it, then rename atomically)
+        JSONObject json = new JSONObject();
+        json.put("generation", generation);
+        json.put("entries", new ArrayList<>(state.get()));
+        Path tmp = directory.resolve(name + ".snapshot.json.tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(json.toJSONString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, snapshotPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // 3. 快照已覆盖旧日志 (The snapshot now covers the old logs)
+        for (long g : logGenerations()) {
+            if (g < generation) {
+                Files.deleteIfExists(logPath(g));
+            }
+        }
+        opsSinceSnapshot = 0;
+        log.debug(I18N.get("hope.journal.compacted", name, generation));
+    }
+
+    /**
+     * 刷盘、压缩并关闭 (Flush, compact and close)
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                flush();
+                compact();
+            } catch (IOException e) {
+                log.error(I18N.get("hope.journal.write_failed", name, e.getMessage()), e);
+            }
+            closed = true;
+            if (logChannel != null) {
+                try {
+                    logChannel.close();
+                } catch (IOException e) {
+                    log.warn(I18N.get("hope.journal.write_failed", name, e.getMessage()));
+                }
+                logChannel = null;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            log.error(I18N.get("hope.journal.write_failed", name, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * 重放一个日志文件；末尾未写完的行被截掉，中间无法解析的行被跳过
+     * (Replay one log file; a torn trailing line is truncated and an unparseable complete line is skipped)
+     *
+     * @return 重放的操作数 (Number of operations replayed)
+     */
+    private int replay(Path file, Map<String, T> entries) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        int ops = 0;
+        int start = 0;
+        while (start < data.length) {
+            int end = start;
+            while (end < data.length && data[end] != '\n') {
+                end++;
+            }
+            if (end == data.length) {
+                // 崩溃时写了一半的末行：截掉，避免新追加的行接在残行后面
+                // (A trailing line torn by a crash: truncate it, so new appends never follow a broken line)
+                log.warn(I18N.get("hope.journal.truncated", file.getFileName(), start));
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(start);
+                }
+                break;
+            }
+            try {
+                JSONObject op = JSON.parseObject(new String(data, start, end - start, StandardCharsets.UTF_8));
+                if ("delete".equals(op.getString("op"))) {
+                    entries.remove(op.getString("id"));
+                } else {
+                    entries.put(op.getString("id"), op.getObject("value", type));
+                }
+                ops++;
+            } catch (RuntimeException e) {
+                // 完整但无法解析的行（如结构变更后）只跳过，其后的操作照常重放
+                // (A complete line that fails to parse, e.g. after a schema change, is skipped; later operations still replay)
+                log.warn(I18N.get("hope.journal.skipped", file.getFileName(), start, e.getMessage()));
+            }
+            start = end + 1;
+        }
+        return ops;
+    }
+
+    private FileChannel openLog(long g) throws IOException {
+        return FileChannel.open(logPath(g), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Long> logGenerations() throws IOException {
+        String prefix = name + ".";
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(f -> f.startsWith(prefix) && f.endsWith(".log"))
+                    .map(f -> f.substring(prefix.length(), f.length() - ".log".length()))
+                    .filter(g -> !g.isEmpty() && g.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path logPath(long g) {
+        return directory.resolve(name + "." + g + ".log");
+    }
+
+    private Path snapshotPath() {
+        return directory.resolve(name + ".snapshot.json");
+    }
+}
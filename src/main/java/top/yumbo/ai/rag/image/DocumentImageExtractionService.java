@@ -36,15 +36,26 @@ public class DocumentImageExtractionService {
     private final AIImageAnalyzer aiAnalyzer;
     private final boolean aiAnalysisEnabled;
     private final SmartImageExtractor smartImageExtractor;  // 新增：智能图片提取器
+    private final ImageUnderstandingService understandingService;  // 并发、限流、按内容缓存的图片理解
 
     public DocumentImageExtractionService(ImageStorageService storageService,
                                          AIImageAnalyzer aiAnalyzer,
                                          boolean aiAnalysisEnabled,
                                          SmartImageExtractor smartImageExtractor) {
+        this(storageService, aiAnalyzer, aiAnalysisEnabled, smartImageExtractor,
+             new ImageUnderstandingService(smartImageExtractor));
+    }
+
+    public DocumentImageExtractionService(ImageStorageService storageService,
+                                         AIImageAnalyzer aiAnalyzer,
+                                         boolean aiAnalysisEnabled,
+                                         SmartImageExtractor smartImageExtractor,
+                                         ImageUnderstandingService understandingService) {
         this.storageService = storageService;
         this.aiAnalyzer = aiAnalyzer;
         this.aiAnalysisEnabled = aiAnalysisEnabled;
         this.smartImageExtractor = smartImageExtractor;
+        this.understandingService = understandingService;
 
         // 初始化所有提取器（Initialize all extractors）
         this.extractors = new ArrayList<>();
@@ -139,21 +150,7 @@ public class DocumentImageExtractionService {
 
             // 3. 使用 SmartImageExtractor 理解图片含义 (Use SmartImageExtractor to understand image content) (Use SmartImageExtractor to understand image content)
             // 这一步会执行 OCR 或 Vision LLM 分析，提取图片中的文字和语义 (This step performs OCR or Vision LLM analysis to extract text and semantics from images)
-            for (ExtractedImage image : extractedImages) {
-                try {
-                    // 使用 SmartImageExtractor 提取图片内容 (Use SmartImageExtractor to extract image content)
-                    ByteArrayInputStream imageStream = new ByteArrayInputStream(image.getData());
-                    String imageContent = smartImageExtractor.extractContent(imageStream, image.getDisplayName());
-
-                    // 将提取的内容设置为图片描述 (Set extracted content as image description)
-                    if (imageContent != null && !imageContent.trim().isEmpty()) {
-                        image.setAiDescription(imageContent);
-                        log.debug(I18N.get("log.image.ai_analysis_complete", image.getDisplayName(), imageContent.length()));
-                    }
-                } catch (Exception e) {
-                    log.warn(I18N.get("log.image.ai_analysis_failed", image.getDisplayName(), e.getMessage()));
-                }
-            }
+            understandImages(extractedImages);
 
             // 4. AI 分析图片（可选，如果还需要额外分析） (AI analyze images (optional, if additional analysis needed))
             if (aiAnalysisEnabled && aiAnalyzer != null) {
@@ -246,20 +243,7 @@ public class DocumentImageExtractionService {
             calculateImagePositions(extractedImages, originalContent);
 
             // 3. 使用 SmartImageExtractor 理解图片含义 (Use SmartImageExtractor to understand image content)
-            for (ExtractedImage image : extractedImages) {
-                try {
-                    // 使用 SmartImageExtractor 提取图片内容（传递上下文以提高准确度） (Use SmartImageExtractor to extract image content (pass context for better accuracy))
-                    ByteArrayInputStream imageStream = new ByteArrayInputStream(image.getData());
-                    String imageContent = smartImageExtractor.extractContent(imageStream, image.getDisplayName());
-
-                    if (imageContent != null && !imageContent.trim().isEmpty()) {
-                        image.setAiDescription(imageContent);
-                        log.debug(I18N.get("log.image.ai_analysis_complete", image.getDisplayName(), imageContent.length()));
-                    }
-                } catch (Exception e) {
-                    log.warn(I18N.get("log.image.ai_analysis_failed", image.getDisplayName(), e.getMessage()));
-                }
-            }
+            understandImages(extractedImages);
 
             // 4. 保存图片（复用原有逻辑） (Save images (reuse original logic))
             return saveExtractedImages(extractedImages, documentId, documentName);
@@ -271,6 +255,46 @@ public class DocumentImageExtractionService {
         return savedImages;
     }
 
+    /**
+     * 分析并保存解析阶段已提取的图片（Analyze and save images already extracted while parsing）
+     * 用于单遍解析：图片和字符位置来自同一次 Tika 解析，无需重新打开文件
+     * （Used by the single-pass parse: images and offsets come from the same Tika parse, so the file is not re-opened）
+     *
+     * @param extractedImages 已提取的图片（Extracted images）
+     * @param documentId 文档ID（用于存储）（Document ID (for storage)）
+     * @param documentName 文档名称（Document name）
+     * @param content 文档文本，用于提取图片上下文（Document text, used for image context）
+     * @return 保存的图片信息列表（List of saved image information）
+     */
+    public List<ImageInfo> analyzeAndSaveImages(List<ExtractedImage> extractedImages,
+                                                String documentId,
+                                                String documentName,
+                                                String content) {
+        if (extractedImages == null || extractedImages.isEmpty()) {
+            log.info(I18N.get("log.image.service.no_images", documentName));
+            return new ArrayList<>();
+        }
+
+        try {
+            log.info(I18N.get("log.image.service.extracted", extractedImages.size()));
+            List<ExtractedImage> images = new ArrayList<>(extractedImages);
+            calculateImagePositions(images, content);
+            understandImages(images);
+            return saveExtractedImages(images, documentId, documentName);
+        } catch (Exception e) {
+            log.error(I18N.get("log.image.service.failed", documentName), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 使用 SmartImageExtractor 理解图片含义（Use SmartImageExtractor to understand image content）
+     * 远程识别并发执行，按端点限流，重复图片复用缓存结果（Remote recognition runs concurrently, rate-limited per endpoint, with repeated images served from cache）
+     */
+    private void understandImages(List<ExtractedImage> extractedImages) {
+        understandingService.understand(extractedImages);
+    }
+
     /**
      * 计算图片在文档文本中的位置
      * Calculate image positions in document text
@@ -288,8 +312,9 @@ public class DocumentImageExtractionService {
         for (int i = 0; i < images.size(); i++) {
             ExtractedImage image = images.get(i);
 
-            // 策略1：如果有页码信息，按页码比例估算位置 (Strategy 1: If page info available, estimate position by page ratio)
-            if (image.getPosition() > 0) {
+            // 策略1：如果有页码信息，按页码比例估算位置；解析时已记录的精确位置保持不变
+            // (Strategy 1: If page info available, estimate position by page ratio; exact offsets recorded while parsing are kept)
+            if (image.getCharPositionInDocument() == null && image.getPosition() > 0) {
                 // 假设图片均匀分布在文档中 (Assume images are evenly distributed in document)
                 // 位置 = (图片页码 / 总图片数) * 文档总长度 (Position = (image page / total images) * total text length)
                 int estimatedPosition = (int) ((double) (i + 1) / (imageCount + 1) * totalLength);
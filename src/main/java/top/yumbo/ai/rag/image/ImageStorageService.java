@@ -1,20 +1,53 @@
 package top.yumbo.ai.rag.image;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import top.yumbo.ai.rag.i18n.I18N;
 
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 /**
  * 文档图片提取和存储服务（Document image extraction and storage service）
  * 负责从文档中提取图片并保存到文件系统（Responsible for extracting images from documents and saving them to the file system）
  *
+ * 图片按 SHA-256 内容寻址存储在 {@code images/_blobs} 下，相同图片只写一份；每个文档目录只保存一个
+ * {@code manifest.json}，记录对外文件名到内容块的映射。可选的感知哈希会把近似重复的图片合并到同一内容块。
+ * 文档图片列表由内存索引提供，问答时不再扫描目录
+ * （Images are content-addressed by SHA-256 under {@code images/_blobs} and identical images are written once;
+ * each document directory only keeps a {@code manifest.json} mapping public filenames to blobs. An optional
+ * perceptual hash merges near-duplicates into the same blob. Image listings are served from an in-memory
+ * index, so QA requests no longer scan directories）
+ *
+ * 内容块可能被多个文档共享，删除文档时只回收不再被任何清单引用的内容块
+ * （Blobs may be shared by several documents, so deleting a document only reclaims the blobs no manifest references any more）
+ *
  * @author AI Reviewer Team
  * @since 2025-11-26
  */
@@ -23,11 +56,48 @@ public class ImageStorageService {
 
     private final String storageBasePath;
     private static final String IMAGE_DIR = "images";
+    private static final String BLOB_DIR = "_blobs";
+    private static final String MANIFEST_FILE = "manifest.json";
+    private static final String PHASH_INDEX_FILE = "phash.tsv";
     private static final List<String> SUPPORTED_FORMATS = List.of("jpg", "jpeg", "png", "gif", "bmp", "svg", "webp");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final boolean perceptualDedup;
+    private final int perceptualMaxDistance;
+
+    /**
+     * 文档目录名 -> 图片清单（Document directory name -> image manifest）
+     */
+    private final Map<String, List<ManifestEntry>> manifests = new ConcurrentHashMap<>();
+
+    /**
+     * 已存储内容块的感知哈希，仅在启用近似去重时使用（Perceptual hashes of stored blobs, only used with near-duplicate dedup）
+     */
+    private final List<PerceptualEntry> perceptualIndex = new CopyOnWriteArrayList<>();
+
+    /**
+     * 保存时持读锁，回收内容块时持写锁，避免刚被引用的内容块被删除
+     * (Saves hold the read lock and blob reclamation the write lock, so a blob being referenced is never deleted)
+     */
+    private final ReentrantReadWriteLock blobLock = new ReentrantReadWriteLock();
 
     public ImageStorageService(String storageBasePath) {
+        this(storageBasePath, false, 0);
+    }
+
+    /**
+     * @param storageBasePath 存储根目录（Storage base path）
+     * @param perceptualDedup 是否按感知哈希合并近似重复图片（Whether to merge near-duplicates by perceptual hash）
+     * @param perceptualMaxDistance 视为近似重复的最大汉明距离（Max Hamming distance treated as near-duplicate）
+     */
+    public ImageStorageService(String storageBasePath, boolean perceptualDedup, int perceptualMaxDistance) {
         this.storageBasePath = storageBasePath;
+        this.perceptualDedup = perceptualDedup;
+        this.perceptualMaxDistance = perceptualMaxDistance;
         initializeStorage();
+        if (perceptualDedup) {
+            loadPerceptualIndex();
+        }
     }
 
     /**
@@ -40,6 +110,7 @@ public class ImageStorageService {
                 Files.createDirectories(imagePath);
                 log.info(I18N.get("log.image.storage.created", imagePath.toString()));
             }
+            Files.createDirectories(imagePath.resolve(BLOB_DIR));
         } catch (IOException e) {
             log.error(I18N.get("log.image.storage.init_failed"), e);
             throw new RuntimeException("Failed to initialize image storage", e);
@@ -49,69 +120,118 @@ public class ImageStorageService {
     /**
      * 保存图片（Save image）
      *
+     * 相同内容只存储一次；同一文档内重复出现的图片返回已有文件名
+     * （Identical content is stored once; an image repeated within a document returns the existing filename）
+     *
      * @param documentId 文档ID（Document ID）
      * @param imageData 图片数据（Image data）
      * @param originalFilename 原始文件名（Original filename）
      * @return 图片存储信息（Image storage information）
      */
     public ImageInfo saveImage(String documentId, byte[] imageData, String originalFilename) throws IOException {
-        // 准备文档图片目录 (Prepare document image directory)
-        Path docImageDir = Paths.get(storageBasePath, IMAGE_DIR, sanitizeFilename(documentId));
-        if (!Files.exists(docImageDir)) {
-            Files.createDirectories(docImageDir);
+        blobLock.readLock().lock();
+        try {
+            return storeImage(documentId, imageData, originalFilename);
+        } finally {
+            blobLock.readLock().unlock();
         }
+    }
 
-        // 获取扩展名 (Get file extension)
+    private ImageInfo storeImage(String documentId, byte[] imageData, String originalFilename) throws IOException {
+        String docDir = sanitizeFilename(documentId);
         String extension = getFileExtension(originalFilename);
 
-        // 计算下一个顺序编号（从现有图片数量+1开始）
-        // (Calculate next sequence number, starting from existing image count + 1)
-        int nextIndex = getNextImageIndex(docImageDir);
-
-        // 生成简洁的文件名：image_001.jpg, image_002.png, etc.
-        // (Generate concise filename: image_001.jpg, image_002.png, etc.)
-        String filename = String.format("image_%04d.%s", nextIndex, extension);
-
-        // 使用 UUID 作为 imageId（用于内部跟踪）
-        // (Use UUID as imageId for internal tracking)
-        String imageId = UUID.randomUUID().toString();
-
-        Path imagePath = docImageDir.resolve(filename);
-        Files.write(imagePath, imageData);
+        // 1. 内容寻址：精确哈希，必要时按感知哈希合并近似重复
+        // (Content addressing: exact hash, merging near-duplicates by perceptual hash when enabled)
+        String sha256 = sha256(imageData);
+        String blob = resolveBlob(sha256, extension, imageData, originalFilename);
+        // 合并到近似重复时记录实际保留的内容块大小（When merged into a near-duplicate, record the size of the kept blob）
+        long fileSize = blob.startsWith(blobPrefix(sha256))
+                ? imageData.length
+                : Files.size(Paths.get(storageBasePath, IMAGE_DIR).resolve(blob));
+
+        List<ManifestEntry> entries = manifest(docDir);
+        synchronized (entries) {
+            // 2. 同一文档内相同内容复用已有条目（Reuse the existing entry for identical content within the document）
+            for (ManifestEntry entry : entries) {
+                if (blob.equals(entry.getBlob())) {
+                    log.debug(I18N.get("log.image.storage.duplicate_in_document", documentId, entry.getFilename()));
+                    return toImageInfo(docDir, entry);
+                }
+            }
 
-        log.info(I18N.get("log.image.saved", filename, documentId));
+            // 生成简洁的文件名：image_001.jpg, image_002.png, etc.
+            // (Generate concise filename: image_001.jpg, image_002.png, etc.)
+            String filename = String.format("image_%04d.%s", entries.size() + 1, extension);
+            ManifestEntry entry = new ManifestEntry(filename, originalFilename, blob, fileSize, extension);
+            entries.add(entry);
+            writeManifest(docDir, entries);
 
-        return ImageInfo.builder()
-                .imageId(imageId)
-                .documentId(documentId)
-                .filename(filename)
-                .originalFilename(originalFilename)
-                .filePath(imagePath.toString())
-                .fileSize(imageData.length)
-                .format(extension)
-                .build();
+            log.info(I18N.get("log.image.saved", filename, documentId));
+            return toImageInfo(docDir, entry);
+        }
     }
 
     /**
-     * 获取下一个图片序号 (Get next image index)
+     * 确定图片对应的内容块，不存在时写入（Resolve the blob of an image, writing it if absent）
      *
-     * 扫描目录中现有的图片文件，返回下一个可用序号
-     * (Scan existing image files in directory and return next available index)
+     * 近似重复只在格式相同时合并：对外文件名的扩展名决定返回的媒体类型，必须与内容块一致
+     * （Near-duplicates are only merged within the same format: the public filename's extension decides the served
+     * media type, so it must match the blob）
+     *
+     * @return 相对于 images 目录的内容块路径（Blob path relative to the images directory）
      */
-    private int getNextImageIndex(Path docImageDir) throws IOException {
-        if (!Files.exists(docImageDir)) {
-            return 1;
+    private String resolveBlob(String sha256, String extension, byte[] imageData, String originalFilename) throws IOException {
+        Long phash = null;
+        if (perceptualDedup) {
+            phash = perceptualHash(imageData);
+            if (phash != null) {
+                for (PerceptualEntry candidate : perceptualIndex) {
+                    int distance = Long.bitCount(candidate.hash() ^ phash);
+                    if (distance <= perceptualMaxDistance && sameFormat(candidate.blob(), extension)) {
+                        if (!candidate.blob().startsWith(blobPrefix(sha256))) {
+                            log.debug(I18N.get("log.image.storage.near_duplicate", originalFilename, candidate.blob(), distance));
+                        }
+                        return candidate.blob();
+                    }
+                }
+            }
         }
 
-        // 计算目录中现有图片文件的数量 (Count existing image files in directory)
-        try (var stream = Files.list(docImageDir)) {
-            long existingCount = stream
-                    .filter(Files::isRegularFile)
-                    .filter(p -> isSupportedImageFormat(p.getFileName().toString()))
-                    .count();
+        String blob = blobPrefix(sha256) + "." + extension;
+        Path blobPath = Paths.get(storageBasePath, IMAGE_DIR).resolve(blob);
+        if (!Files.exists(blobPath)) {
+            Files.createDirectories(blobPath.getParent());
+            Path tmp = Files.createTempFile(blobPath.getParent(), sha256, ".tmp");
+            Files.write(tmp, imageData);
+            try {
+                Files.move(tmp, blobPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // 并发写入同一内容块时，另一方已经完成（Another writer already stored the same blob）
+                Files.deleteIfExists(tmp);
+                if (!Files.exists(blobPath)) {
+                    throw e;
+                }
+            }
+        }
 
-            return (int) existingCount + 1;
+        if (phash != null) {
+            recordPerceptualHash(new PerceptualEntry(phash, blob));
         }
+        return blob;
+    }
+
+    private boolean sameFormat(String blob, String extension) {
+        return normalizeFormat(getFileExtension(blob)).equals(normalizeFormat(extension));
+    }
+
+    private static String normalizeFormat(String extension) {
+        String format = extension.toLowerCase();
+        return "jpeg".equals(format) ? "jpg" : format;
+    }
+
+    private String blobPrefix(String sha256) {
+        return BLOB_DIR + "/" + sha256.substring(0, 2) + "/" + sha256;
     }
 
     /**
@@ -127,7 +247,10 @@ public class ImageStorageService {
      * 读取图片数据（Read image data）
      */
     public byte[] readImage(String documentId, String filename) throws IOException {
-        Path imagePath = Paths.get(storageBasePath, IMAGE_DIR, sanitizeFilename(documentId), filename);
+        String docDir = sanitizeFilename(documentId);
+        Path imagePath = findEntry(docDir, filename)
+                .map(entry -> resolvePath(docDir, entry))
+                .orElse(Paths.get(storageBasePath, IMAGE_DIR, docDir, filename));
 
         if (!Files.exists(imagePath)) {
             throw new IOException("Image not found: " + filename);
@@ -138,71 +261,274 @@ public class ImageStorageService {
 
     /**
      * 列出文档的所有图片（List all images of the document）
+     * 由内存索引提供，首次访问时从清单加载（Served from the in-memory index, loaded from the manifest on first access）
      */
     public List<ImageInfo> listImages(String documentId) throws IOException {
-        String sanitizedDocId = sanitizeFilename(documentId);
-        Path docImageDir = Paths.get(storageBasePath, IMAGE_DIR, sanitizedDocId);
-
-        log.debug("Listing images for documentId: {} (sanitized: {}), path: {}", 
-                  documentId, sanitizedDocId, docImageDir);
-
-        if (!Files.exists(docImageDir)) {
-            log.debug("Image directory not found: {}", docImageDir);
-            return List.of();
-        }
-
-        List<ImageInfo> images = new ArrayList<>();
-
-        Files.list(docImageDir)
-            .filter(Files::isRegularFile)
-            .filter(p -> isSupportedImageFormat(p.getFileName().toString()))
-            .forEach(imagePath -> {
-                try {
-                    String filename = imagePath.getFileName().toString();
-                    long fileSize = Files.size(imagePath);
-                    
-                    log.debug("Found image: documentId={}, filename={}", sanitizedDocId, filename);
-                    
-                    ImageInfo info = ImageInfo.builder()
-                            .documentId(sanitizedDocId)
-                            .filename(filename)
-                            .filePath(imagePath.toString())
-                            .fileSize(fileSize)
-                            .format(getFileExtension(filename))
-                            .build();
-
-                    // 记录生成的URL用于调试
-                    log.debug("Generated URL: {}", info.getUrl());
-                    
-                    images.add(info);
-                } catch (IOException e) {
-                    log.warn(I18N.get("log.image.read_info_failed", imagePath.toString()), e);
-                }
-            });
+        String docDir = sanitizeFilename(documentId);
+        List<ManifestEntry> entries = manifest(docDir);
+
+        List<ImageInfo> images;
+        synchronized (entries) {
+            images = new ArrayList<>(entries.size());
+            for (ManifestEntry entry : entries) {
+                images.add(toImageInfo(docDir, entry));
+            }
+        }
 
-        log.info("Listed {} images for document: {}", images.size(), sanitizedDocId);
+        log.debug("Listed {} images for document: {}", images.size(), docDir);
         return images;
     }
 
+    private java.util.Optional<ManifestEntry> findEntry(String docDir, String filename) {
+        List<ManifestEntry> entries = manifest(docDir);
+        synchronized (entries) {
+            return entries.stream().filter(entry -> entry.getFilename().equals(filename)).findFirst();
+        }
+    }
+
+    /**
+     * 获取文档的图片清单，首次访问时加载（Get the image manifest of a document, loading it on first access）
+     */
+    private List<ManifestEntry> manifest(String docDir) {
+        return manifests.computeIfAbsent(docDir, this::loadManifest);
+    }
+
+    /**
+     * 从清单文件加载；旧版本目录没有清单时扫描一次目录并补写清单
+     * （Load from the manifest file; legacy directories without one are scanned once and the manifest is written）
+     */
+    private List<ManifestEntry> loadManifest(String docDir) {
+        Path docImageDir = Paths.get(storageBasePath, IMAGE_DIR, docDir);
+        Path manifestPath = docImageDir.resolve(MANIFEST_FILE);
+        List<ManifestEntry> entries = new ArrayList<>();
+
+        if (Files.exists(manifestPath)) {
+            try {
+                entries.addAll(MAPPER.readValue(manifestPath.toFile(), new TypeReference<List<ManifestEntry>>() {}));
+                log.debug(I18N.get("log.image.storage.loaded", docDir, entries.size()));
+                return entries;
+            } catch (IOException e) {
+                log.warn(I18N.get("log.image.storage.manifest_read_failed", manifestPath.toString()), e);
+            }
+        }
+
+        if (Files.isDirectory(docImageDir)) {
+            try (var stream = Files.list(docImageDir)) {
+                stream.filter(Files::isRegularFile)
+                        .filter(p -> isSupportedImageFormat(p.getFileName().toString()))
+                        .sorted()
+                        .forEach(imagePath -> {
+                            try {
+                                String filename = imagePath.getFileName().toString();
+                                // 旧版本图片直接位于文档目录（Legacy images live directly in the document directory）
+                                entries.add(new ManifestEntry(filename, filename, null,
+                                        Files.size(imagePath), getFileExtension(filename)));
+                            } catch (IOException e) {
+                                log.warn(I18N.get("log.image.read_info_failed", imagePath.toString()), e);
+                            }
+                        });
+            } catch (IOException e) {
+                log.warn(I18N.get("log.image.list_failed", docDir), e);
+            }
+            if (!entries.isEmpty()) {
+                writeManifest(docDir, entries);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 原子写入清单文件（Write the manifest file atomically）
+     */
+    private void writeManifest(String docDir, List<ManifestEntry> entries) {
+        Path docImageDir = Paths.get(storageBasePath, IMAGE_DIR, docDir);
+        try {
+            Files.createDirectories(docImageDir);
+            Path tmp = docImageDir.resolve(MANIFEST_FILE + ".tmp");
+            MAPPER.writeValue(tmp.toFile(), entries);
+            Files.move(tmp, docImageDir.resolve(MANIFEST_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn(I18N.get("log.image.storage.manifest_write_failed", docImageDir.toString()), e);
+        }
+    }
+
+    private Path resolvePath(String docDir, ManifestEntry entry) {
+        Path imageRoot = Paths.get(storageBasePath, IMAGE_DIR);
+        return entry.getBlob() != null
+                ? imageRoot.resolve(entry.getBlob())
+                : imageRoot.resolve(docDir).resolve(entry.getFilename());
+    }
+
+    private ImageInfo toImageInfo(String docDir, ManifestEntry entry) {
+        return ImageInfo.builder()
+                .imageId(UUID.nameUUIDFromBytes((docDir + "/" + entry.getFilename()).getBytes(StandardCharsets.UTF_8)).toString())
+                .documentId(docDir)
+                .filename(entry.getFilename())
+                .originalFilename(entry.getOriginalFilename())
+                .filePath(resolvePath(docDir, entry).toString())
+                .fileSize(entry.getFileSize())
+                .format(entry.getFormat())
+                .build();
+    }
+
+    /**
+     * 计算 64 位差值感知哈希；无法解码的格式（如 SVG）返回 null
+     * （Compute a 64-bit difference hash; returns null for formats that cannot be decoded, such as SVG）
+     */
+    static Long perceptualHash(byte[] imageData) {
+        BufferedImage source;
+        try {
+            source = ImageIO.read(new ByteArrayInputStream(imageData));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        if (source == null) {
+            return null;
+        }
+
+        // 缩放为 9x8 灰度图，比较相邻像素亮度（Scale to 9x8 grayscale and compare neighbouring pixels）
+        BufferedImage small = new BufferedImage(9, 8, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = small.createGraphics();
+        g.drawImage(source, 0, 0, 9, 8, null);
+        g.dispose();
+
+        long hash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                int left = small.getRaster().getSample(x, y, 0);
+                int right = small.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    private void recordPerceptualHash(PerceptualEntry entry) {
+        perceptualIndex.add(entry);
+        Path indexPath = Paths.get(storageBasePath, IMAGE_DIR, BLOB_DIR, PHASH_INDEX_FILE);
+        try {
+            Files.writeString(indexPath, Long.toHexString(entry.hash()) + "\t" + entry.blob() + "\n",
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn(I18N.get("log.image.storage.manifest_write_failed", indexPath.toString()), e);
+        }
+    }
+
+    private void loadPerceptualIndex() {
+        Path indexPath = Paths.get(storageBasePath, IMAGE_DIR, BLOB_DIR, PHASH_INDEX_FILE);
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(indexPath)) {
+                int tab = line.indexOf('\t');
+                // 跳过已回收的内容块（Skip blobs that have been reclaimed）
+                if (tab > 0 && Files.exists(Paths.get(storageBasePath, IMAGE_DIR).resolve(line.substring(tab + 1)))) {
+                    perceptualIndex.add(new PerceptualEntry(Long.parseUnsignedLong(line.substring(0, tab), 16),
+                            line.substring(tab + 1)));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn(I18N.get("log.image.storage.phash_index_failed", indexPath.toString()), e);
+        }
+    }
+
+    private void rewritePerceptualIndex() {
+        Path indexPath = Paths.get(storageBasePath, IMAGE_DIR, BLOB_DIR, PHASH_INDEX_FILE);
+        StringBuilder lines = new StringBuilder();
+        for (PerceptualEntry entry : perceptualIndex) {
+            lines.append(Long.toHexString(entry.hash())).append('\t').append(entry.blob()).append('\n');
+        }
+        try {
+            Files.writeString(indexPath, lines.toString());
+        } catch (IOException e) {
+            log.warn(I18N.get("log.image.storage.manifest_write_failed", indexPath.toString()), e);
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * 删除文档的所有图片（Delete all images of the document）
+     * 删除清单和旧版本图片文件，并回收不再被其他文档引用的内容块
+     * （Removes the manifest and legacy files, and reclaims the blobs no other document references）
      */
     public void deleteImages(String documentId) throws IOException {
-        Path docImageDir = Paths.get(storageBasePath, IMAGE_DIR, sanitizeFilename(documentId));
-
-        if (Files.exists(docImageDir)) {
-            Files.walk(docImageDir)
-                .sorted((a, b) -> -a.compareTo(b))
-                .forEach(path -> {
-                    try {
-                        Files.delete(path);
-                    } catch (IOException e) {
-                        log.warn(I18N.get("log.image.delete_failed", path.toString()), e);
-                    }
-                });
+        String docDir = sanitizeFilename(documentId);
+        Path docImageDir = Paths.get(storageBasePath, IMAGE_DIR, docDir);
+
+        blobLock.writeLock().lock();
+        try {
+            Set<String> candidates = new HashSet<>();
+            for (ManifestEntry entry : manifest(docDir)) {
+                if (entry.getBlob() != null) {
+                    candidates.add(entry.getBlob());
+                }
+            }
+            manifests.remove(docDir);
+
+            if (Files.exists(docImageDir)) {
+                try (Stream<Path> paths = Files.walk(docImageDir)) {
+                    paths.sorted((a, b) -> -a.compareTo(b))
+                        .forEach(path -> {
+                            try {
+                                Files.delete(path);
+                            } catch (IOException e) {
+                                log.warn(I18N.get("log.image.delete_failed", path.toString()), e);
+                            }
+                        });
+                }
+                log.info(I18N.get("log.image.deleted_all", documentId));
+            }
+
+            if (!candidates.isEmpty()) {
+                reclaimBlobs(candidates);
+            }
+        } finally {
+            blobLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除候选中不再被任何清单引用的内容块，调用方持有写锁
+     * （Delete the candidate blobs that no manifest references any more; the caller holds the write lock）
+     */
+    private void reclaimBlobs(Set<String> candidates) throws IOException {
+        Path imageRoot = Paths.get(storageBasePath, IMAGE_DIR);
+        try (Stream<Path> dirs = Files.list(imageRoot)) {
+            for (Path dir : (Iterable<Path>) dirs::iterator) {
+                String name = dir.getFileName().toString();
+                if (BLOB_DIR.equals(name) || !Files.isDirectory(dir)) {
+                    continue;
+                }
+                for (ManifestEntry entry : manifest(name)) {
+                    candidates.remove(entry.getBlob());
+                }
+                if (candidates.isEmpty()) {
+                    return;
+                }
+            }
+        }
 
-            log.info(I18N.get("log.image.deleted_all", documentId));
+        for (String blob : candidates) {
+            Path blobPath = imageRoot.resolve(blob);
+            try {
+                Files.deleteIfExists(blobPath);
+            } catch (IOException e) {
+                log.warn(I18N.get("log.image.delete_failed", blobPath.toString()), e);
+            }
+        }
+        if (perceptualIndex.removeIf(entry -> candidates.contains(entry.blob()))) {
+            rewritePerceptualIndex();
         }
+        log.info(I18N.get("log.image.storage.blobs_reclaimed", candidates.size()));
     }
 
     /**
@@ -307,4 +633,44 @@ public class ImageStorageService {
         
         return sanitized;
     }
+
+    /**
+     * 文档图片清单条目（Document image manifest entry）
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class ManifestEntry {
+
+        /**
+         * 对外文件名，如 image_0001.png（Public filename such as image_0001.png）
+         */
+        private String filename;
+
+        /**
+         * 原始文件名（Original filename）
+         */
+        private String originalFilename;
+
+        /**
+         * 相对 images 目录的内容块路径；旧版本图片为 null（Blob path relative to the images directory; null for legacy images）
+         */
+        private String blob;
+
+        /**
+         * 文件大小（字节）（File size in bytes）
+         */
+        private long fileSize;
+
+        /**
+         * 图片格式（Image format）
+         */
+        private String format;
+    }
+
+    /**
+     * 内容块的感知哈希（Perceptual hash of a blob）
+     */
+    private record PerceptualEntry(long hash, String blob) {
+    }
 }
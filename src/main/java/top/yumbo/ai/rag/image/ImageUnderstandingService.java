@@ -0,0 +1,233 @@
+package top.yumbo.ai.rag.image;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.rag.i18n.I18N;
+import top.yumbo.ai.rag.image.extractor.ExtractedImage;
+import top.yumbo.ai.rag.impl.parser.image.ImageContentExtractorStrategy;
+import top.yumbo.ai.rag.impl.parser.image.SmartImageExtractor;
+import top.yumbo.ai.rag.util.TokenBucket;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图片理解服务（Image understanding service）
+ * 并发调用 OCR / Vision LLM 理解图片含义，按端点令牌桶限流，并按图片内容哈希缓存结果
+ * （Runs OCR / Vision LLM on images concurrently, rate-limited per endpoint with a token bucket,
+ * and caches results by image content hash）
+ *
+ * 相同的 Logo、重复出现的图片在整个知识库中只识别一次；并发的相同图片共享同一次调用
+ * （Identical logos and repeated images are analyzed once across the whole corpus; concurrent
+ * duplicates share a single call）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+public class ImageUnderstandingService implements AutoCloseable {
+
+    private static final int DEFAULT_CONCURRENCY = 4;
+    private static final double DEFAULT_REQUESTS_PER_SECOND = 2.0;
+    private static final int DEFAULT_BURST = 4;
+    private static final int DEFAULT_CACHE_MAX_SIZE = 5000;
+
+    private final SmartImageExtractor smartImageExtractor;
+    private final ExecutorService executor;
+    private final double requestsPerSecond;
+    private final int burst;
+    private final Map<String, TokenBucket> rateLimiters = new ConcurrentHashMap<>();
+    private final AsyncCache<String, String> results;
+
+    private final AtomicLong analyzedCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public ImageUnderstandingService(SmartImageExtractor smartImageExtractor) {
+        this(smartImageExtractor, DEFAULT_CONCURRENCY, DEFAULT_REQUESTS_PER_SECOND, DEFAULT_BURST, DEFAULT_CACHE_MAX_SIZE);
+    }
+
+    /**
+     * @param smartImageExtractor 智能图片提取器（Smart image extractor）
+     * @param concurrency 并发线程数（Number of worker threads）
+     * @param requestsPerSecond 每个端点每秒请求数，0 表示不限流（Requests per second per endpoint, 0 disables limiting）
+     * @param burst 令牌桶容量（Token bucket capacity）
+     * @param cacheMaxSize 结果缓存容量（Result cache capacity）
+     */
+    public ImageUnderstandingService(SmartImageExtractor smartImageExtractor,
+                                     int concurrency,
+                                     double requestsPerSecond,
+                                     int burst,
+                                     int cacheMaxSize) {
+        this.smartImageExtractor = smartImageExtractor;
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.results = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, cacheMaxSize))
+                .buildAsync();
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "ImageUnderstanding-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        log.info(I18N.get("log.image.understanding.init", Math.max(1, concurrency), requestsPerSecond, this.burst));
+    }
+
+    /**
+     * 理解一批图片，将结果写入 {@link ExtractedImage#setAiDescription}，全部完成后返回
+     * （Understand a batch of images, writing results to {@link ExtractedImage#setAiDescription}; returns when all are done）
+     *
+     * @param images 待理解的图片（Images to understand）
+     */
+    public void understand(List<ExtractedImage> images) {
+        if (images == null || images.isEmpty()) {
+            return;
+        }
+
+        ImageContentExtractorStrategy strategy = smartImageExtractor.getActiveStrategy();
+
+        // 本地策略（如占位符）开销很小，且结果与图片名相关，直接顺序执行
+        // (Local strategies such as the placeholder are cheap and name-dependent, so run them inline)
+        if (strategy == null || !strategy.isRemote()) {
+            for (ExtractedImage image : images) {
+                applyResult(image, extractLocally(image));
+            }
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        TokenBucket limiter = requestsPerSecond > 0
+                ? rateLimiters.computeIfAbsent(strategy.getEndpointKey(), key -> new TokenBucket(requestsPerSecond, burst))
+                : null;
+
+        List<CompletableFuture<String>> futures = new ArrayList<>(images.size());
+        for (ExtractedImage image : images) {
+            futures.add(submit(strategy, limiter, image));
+        }
+
+        for (int i = 0; i < images.size(); i++) {
+            ExtractedImage image = images.get(i);
+            try {
+                applyResult(image, futures.get(i).join());
+            } catch (CompletionException e) {
+                failedCount.incrementAndGet();
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn(I18N.get("log.image.ai_analysis_failed", image.getDisplayName(), cause.getMessage()));
+                applyResult(image, I18N.get("log.imageproc.extract_error", image.getDisplayName()));
+            }
+        }
+
+        log.info(I18N.get("log.image.understanding.batch_done", images.size(),
+                System.currentTimeMillis() - start, cacheHitCount.get(), analyzedCount.get()));
+    }
+
+    /**
+     * 提交单张图片；相同内容复用缓存或进行中的调用，失败结果不缓存
+     * （Submit one image; identical content reuses the cached or in-flight call, failures are not cached）
+     */
+    private CompletableFuture<String> submit(ImageContentExtractorStrategy strategy, TokenBucket limiter, ExtractedImage image) {
+        String key = strategy.getEndpointKey() + ":" + contentHash(image.getData());
+        boolean[] computed = {false};
+        CompletableFuture<String> future = results.get(key, (k, cacheExecutor) -> {
+            computed[0] = true;
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (limiter != null) {
+                        limiter.acquire();
+                    }
+                    String result = strategy.analyze(image.getData(), image.getDisplayName());
+                    analyzedCount.incrementAndGet();
+                    return result;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        });
+        if (!computed[0]) {
+            cacheHitCount.incrementAndGet();
+            log.debug(I18N.get("log.image.understanding.cache_hit", image.getDisplayName()));
+        }
+        return future;
+    }
+
+    private String extractLocally(ExtractedImage image) {
+        try {
+            return smartImageExtractor.extractContent(new ByteArrayInputStream(image.getData()), image.getDisplayName());
+        } catch (Exception e) {
+            log.warn(I18N.get("log.image.ai_analysis_failed", image.getDisplayName(), e.getMessage()));
+            return null;
+        }
+    }
+
+    private void applyResult(ExtractedImage image, String content) {
+        if (content != null && !content.trim().isEmpty()) {
+            image.setAiDescription(content);
+            log.debug(I18N.get("log.image.ai_analysis_complete", image.getDisplayName(), content.length()));
+        }
+    }
+
+    /**
+     * 计算图片内容哈希（Compute image content hash）
+     */
+    static String contentHash(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 实际调用识别服务的次数（Number of actual recognition calls）
+     */
+    public long getAnalyzedCount() {
+        return analyzedCount.get();
+    }
+
+    /**
+     * 命中结果缓存或复用进行中调用的次数（Number of cache hits, including shared in-flight calls）
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    /**
+     * 识别失败的次数（Number of failed recognitions）
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
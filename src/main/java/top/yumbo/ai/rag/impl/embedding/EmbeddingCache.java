@@ -0,0 +1,362 @@
+package top.yumbo.ai.rag.impl.embedding;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.rag.i18n.I18N;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 持久化向量缓存（Persistent embedding cache）
+ * 以（模型标识，块内容哈希）为键保存块向量，重建知识库时内容未变的块直接读取缓存，不再做模型推理
+ * （Keeps chunk vectors keyed by (model id, chunk content hash), so rebuilding the knowledge base reads the
+ * vectors of unchanged chunks from the cache instead of running the model again）
+ *
+ * 每个模型一个文件，定长记录通过内存映射分段读写，进程重启后只需扫描键即可恢复索引；
+ * 超过最大条目数时淘汰最久未使用的条目并复用其位置，文件大小因此有上限
+ * （One file per model; fixed-size records are read and written through memory-mapped segments, and a
+ * restart only scans the keys to rebuild the index. Beyond the maximum entry count the least recently used
+ * entry is evicted and its slot reused, which bounds the file size）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+public class EmbeddingCache implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_ENTRIES = 200_000;
+
+    private static final int MAGIC = 0x454D4243;  // "EMBC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 256;
+    private static final int KEY_SIZE = 16;
+    private static final int SEGMENT_RECORDS = 4096;
+
+    private final Path directory;
+    private final int maxEntries;
+    // 打开失败的模型映射为 null，不再重试（Models that failed to open map to null and are not retried）
+    private final Map<String, ModelStore> stores = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param directory  缓存目录（Cache directory）
+     * @param maxEntries 每个模型最多缓存的向量数（Maximum number of vectors cached per model）
+     */
+    public EmbeddingCache(Path directory, int maxEntries) throws IOException {
+        this.directory = directory;
+        this.maxEntries = Math.max(1, maxEntries);
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * 读取缓存的向量，未命中时调用嵌入函数并写入缓存
+     * （Return the cached vector, or compute it with the embedder and cache it on a miss）
+     *
+     * @param modelId   模型标识（Model id）
+     * @param dimension 向量维度（Vector dimension）
+     * @param content   块内容（Chunk content）
+     * @param embedder  嵌入函数，在锁外执行（Embedding function, run outside the lock）
+     */
+    public float[] getOrCompute(String modelId, int dimension, String content, Function<String, float[]> embedder) {
+        float[] cached = get(modelId, dimension, content);
+        if (cached != null) {
+            return cached;
+        }
+        float[] vector = embedder.apply(content);
+        put(modelId, dimension, content, vector);
+        return vector;
+    }
+
+    /**
+     * 读取缓存的向量（Read a cached vector）
+     *
+     * @return 向量，未命中时为 null（The vector, or null on a miss）
+     */
+    public synchronized float[] get(String modelId, int dimension, String content) {
+        ModelStore store = store(modelId, dimension);
+        if (store == null) {
+            return null;
+        }
+        float[] vector = store.get(key(modelId, content));
+        (vector != null ? hits : misses).incrementAndGet();
+        return vector;
+    }
+
+    /**
+     * 写入向量；维度不符或全零的向量（模型推理失败时的返回值）不缓存
+     * （Store a vector; vectors of the wrong dimension, or all zeros as returned when inference fails, are not cached）
+     */
+    public synchronized void put(String modelId, int dimension, String content, float[] vector) {
+        if (vector == null || vector.length != dimension || isZero(vector)) {
+            return;
+        }
+        ModelStore store = store(modelId, dimension);
+        if (store != null && store.put(key(modelId, content), vector)) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * 当前统计（Current statistics）
+     */
+    public synchronized Stats getStats() {
+        long entries = 0;
+        for (ModelStore store : stores.values()) {
+            if (store != null) {
+                entries += store.size();
+            }
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), entries);
+    }
+
+    /**
+     * 将映射的内容写回磁盘（Force the mapped contents to disk）
+     */
+    public synchronized void flush() {
+        for (ModelStore store : stores.values()) {
+            if (store != null) {
+                store.flush();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (ModelStore store : stores.values()) {
+            if (store != null) {
+                store.close();
+            }
+        }
+        stores.clear();
+    }
+
+    private ModelStore store(String modelId, int dimension) {
+        if (stores.containsKey(modelId)) {
+            ModelStore store = stores.get(modelId);
+            return store != null && store.dimension == dimension ? store : null;
+        }
+        ModelStore store = null;
+        try {
+            store = new ModelStore(directory.resolve(fileName(modelId)), modelId, dimension, maxEntries);
+            log.info(I18N.get("log.storage.embedding_cache_opened", modelId, store.size(), dimension));
+        } catch (IOException e) {
+            log.warn(I18N.get("log.storage.embedding_cache_failed", modelId, e.getMessage()));
+        }
+        stores.put(modelId, store);
+        return store;
+    }
+
+    private static String fileName(String modelId) {
+        return HexFormat.of().formatHex(sha256(modelId.getBytes(StandardCharsets.UTF_8)), 0, 8) + ".vec";
+    }
+
+    private static Key key(String modelId, String content) {
+        byte[] digest = sha256((modelId + '\u0000' + content).getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        return new Key(buffer.getLong(), buffer.getLong());
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isZero(float[] vector) {
+        for (float v : vector) {
+            if (v != 0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 缓存统计（Cache statistics）
+     *
+     * @param hits      命中次数（Hits）
+     * @param misses    未命中次数（Misses）
+     * @param evictions 淘汰次数（Evictions）
+     * @param entries   当前缓存的向量数（Vectors currently cached）
+     */
+    public record Stats(long hits, long misses, long evictions, long entries) {
+
+        /**
+         * 相对于较早统计的增量，条目数取当前值（Delta since an earlier snapshot; entries keep the current value）
+         */
+        public Stats since(Stats earlier) {
+            return new Stats(hits - earlier.hits, misses - earlier.misses, evictions - earlier.evictions, entries);
+        }
+    }
+
+    /**
+     * 内容哈希的前 128 位（First 128 bits of the content hash）
+     */
+    private record Key(long high, long low) {
+    }
+
+    /**
+     * 单个模型的缓存文件（Cache file of one model）
+     * 布局：256 字节文件头（魔数、版本、维度、已用记录数、模型标识），之后是定长记录（16 字节键 + 维度个 float）
+     * （Layout: a 256-byte header (magic, version, dimension, used record count, model id) followed by
+     * fixed-size records of a 16-byte key and dimension floats）
+     */
+    private static class ModelStore {
+        private final Path file;
+        private final int dimension;
+        private final int maxEntries;
+        private final int recordSize;
+        private final FileChannel channel;
+        private final MappedByteBuffer header;
+        private final List<MappedByteBuffer> segments = new ArrayList<>();
+        // 访问顺序的索引，队首是最久未使用的条目（Access-ordered index; the head is the least recently used entry）
+        private final LinkedHashMap<Key, Integer> index = new LinkedHashMap<>(16, 0.75f, true);
+        private int usedSlots;
+
+        ModelStore(Path file, String modelId, int dimension, int maxEntries) throws IOException {
+            this.file = file;
+            this.dimension = dimension;
+            this.maxEntries = maxEntries;
+            this.recordSize = KEY_SIZE + dimension * Float.BYTES;
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            byte[] id = headerModelId(modelId);
+            boolean existing = channel.size() >= HEADER_SIZE;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+            if (existing && matches(id)) {
+                usedSlots = header.getInt(12);
+                for (int slot = 0; slot < usedSlots; slot++) {
+                    ByteBuffer segment = segment(slot);
+                    int offset = offset(slot);
+                    index.put(new Key(segment.getLong(offset), segment.getLong(offset + 8)), slot);
+                }
+            } else {
+                if (existing) {
+                    log.warn(I18N.get("log.storage.embedding_cache_reset", file.getFileName(), modelId));
+                    channel.truncate(HEADER_SIZE);
+                }
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putInt(8, dimension);
+                header.putInt(12, 0);
+                header.putShort(16, (short) id.length);
+                header.put(18, id);
+                usedSlots = 0;
+            }
+        }
+
+        float[] get(Key key) {
+            Integer slot = index.get(key);
+            if (slot == null) {
+                return null;
+            }
+            float[] vector = new float[dimension];
+            segment(slot).slice(offset(slot) + KEY_SIZE, dimension * Float.BYTES).asFloatBuffer().get(vector);
+            return vector;
+        }
+
+        /**
+         * @return 是否淘汰了一个条目（Whether an entry was evicted）
+         */
+        boolean put(Key key, float[] vector) {
+            if (index.containsKey(key)) {
+                return false;
+            }
+            boolean evicted = false;
+            int slot;
+            if (index.size() >= maxEntries) {
+                Iterator<Map.Entry<Key, Integer>> eldest = index.entrySet().iterator();
+                slot = eldest.next().getValue();
+                eldest.remove();
+                evicted = true;
+            } else {
+                slot = usedSlots;
+            }
+
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            segment.putLong(offset, key.high());
+            segment.putLong(offset + 8, key.low());
+            segment.slice(offset + KEY_SIZE, dimension * Float.BYTES).asFloatBuffer().put(vector);
+            index.put(key, slot);
+
+            // 记录写完后再更新已用记录数（Bump the used count only after the record is written）
+            if (slot == usedSlots) {
+                usedSlots++;
+                header.putInt(12, usedSlots);
+            }
+            return evicted;
+        }
+
+        int size() {
+            return index.size();
+        }
+
+        void flush() {
+            header.force();
+            segments.forEach(MappedByteBuffer::force);
+        }
+
+        void close() {
+            flush();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn(I18N.get("log.storage.embedding_cache_failed", file.getFileName(), e.getMessage()));
+            }
+        }
+
+        private boolean matches(byte[] id) {
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != dimension
+                    || header.getShort(16) != id.length) {
+                return false;
+            }
+            byte[] stored = new byte[id.length];
+            header.get(18, stored);
+            return Arrays.equals(stored, id);
+        }
+
+        /**
+         * 按需映射记录所在的分段，映射时文件自动扩展（Map the segment holding a slot on demand; mapping extends the file）
+         */
+        private MappedByteBuffer segment(int slot) {
+            int number = slot / SEGMENT_RECORDS;
+            while (segments.size() <= number) {
+                long position = HEADER_SIZE + (long) segments.size() * SEGMENT_RECORDS * recordSize;
+                try {
+                    segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, (long) SEGMENT_RECORDS * recordSize));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return segments.get(number);
+        }
+
+        private int offset(int slot) {
+            return (slot % SEGMENT_RECORDS) * recordSize;
+        }
+
+        private static byte[] headerModelId(String modelId) {
+            byte[] id = modelId.getBytes(StandardCharsets.UTF_8);
+            return id.length <= HEADER_SIZE - 18 ? id : Arrays.copyOf(id, HEADER_SIZE - 18);
+        }
+    }
+}
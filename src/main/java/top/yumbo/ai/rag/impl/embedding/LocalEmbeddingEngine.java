@@ -42,6 +42,12 @@ public class LocalEmbeddingEngine implements AutoCloseable {
      */
     @Getter
     private final String modelName;
+    /**
+     * -- GETTER --
+     * 获取模型标识（模型名、模型文件大小和最大序列长度），用于向量缓存的键
+     */
+    @Getter
+    private final String modelId;
     private final int maxSequenceLength;
 
     // 常量
@@ -132,6 +138,8 @@ public class LocalEmbeddingEngine implements AutoCloseable {
         Path finalPath = Paths.get(actualModelPath);
         this.modelName = finalPath.getParent() != null ?
                 finalPath.getParent().getFileName().toString() : "unknown";
+        // 同名目录下换了模型文件或截断长度时，向量也会不同
+        this.modelId = modelName + ":" + Files.size(finalPath) + ":" + maxSequenceLength;
 
         // 初始化 ONNX Runtime 环境
         this.env = OrtEnvironment.getEnvironment();
@@ -1,114 +1,174 @@
 package top.yumbo.ai.rag.impl.parser;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.ContentHandlerDecorator;
 import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
-import top.yumbo.ai.rag.impl.parser.image.SmartImageExtractor;
+import top.yumbo.ai.rag.i18n.I18N;
+import top.yumbo.ai.rag.image.extractor.ExtractedImage;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * 增强的内容处理器，用于提取嵌入图片中的文字
+ * 单遍解析的内容处理器：在输出文本的同时收集嵌入图片及其字符位置
+ * （Single-pass content handler: collects embedded images and their character offsets while text is written）
  *
- * 在解析文档时，会拦截嵌入的图片资源，使用OCR提取文字内容
+ * 使用方式：包裹在 BodyContentHandler 内部、文本输出处理器外部，并通过 {@link #register(ParseContext)}
+ * 注册为嵌入文档提取器。这样统计的偏移与最终文本一致，图片无需再次打开文件提取
+ * （Usage: wrap it inside BodyContentHandler and around the text writer, and register it as the embedded
+ * document extractor via {@link #register(ParseContext)}. Offsets then match the final text, and images
+ * do not have to be extracted by re-opening the file）
+ *
+ * 图片位置：Office 文档先在正文中输出 {@code <img src="embedded:image1.png">}，图片数据在文末才到达，
+ * 因此按资源名回填正文中的位置；其它格式（如 PDF）图片内联到达，取当前偏移
+ * （Positions: Office documents emit {@code <img src="embedded:image1.png">} in the body and the image
+ * bytes only at the end, so the body offset is looked up by resource name; other formats such as PDF
+ * deliver images inline and use the current offset）
  *
  * @author AI Reviewer Team
  * @since 2025-11-23
  */
 @Slf4j
-public class EmbeddedImageExtractingHandler extends ContentHandlerDecorator {
+public class EmbeddedImageExtractingHandler extends ContentHandlerDecorator implements EmbeddedDocumentExtractor {
+
+    /**
+     * 跳过过小的图片（图标、项目符号等）（Skip tiny images such as icons and bullets）
+     */
+    private static final int MIN_IMAGE_BYTES = 1024;
+
+    private static final String EMBEDDED_PREFIX = "embedded:";
 
-    private final SmartImageExtractor imageExtractor;
-    private final StringBuilder content;
+    private final EmbeddedDocumentExtractor delegate;
+    private final Map<String, Integer> imageElementOffsets = new HashMap<>();
+    private final List<ExtractedImage> images = new ArrayList<>();
+    private int offset = 0;
     private int imageCounter = 0;
 
-    public EmbeddedImageExtractingHandler(org.xml.sax.ContentHandler handler, SmartImageExtractor imageExtractor) {
+    /**
+     * @param handler 文本输出处理器（Text output handler）
+     * @param context 解析上下文，非图片的嵌入文档仍按默认方式解析（Parse context; non-image embedded documents are parsed as usual）
+     */
+    public EmbeddedImageExtractingHandler(ContentHandler handler, ParseContext context) {
         super(handler);
-        this.imageExtractor = imageExtractor;
-        this.content = new StringBuilder();
+        this.delegate = new ParsingEmbeddedDocumentExtractor(context);
+    }
+
+    /**
+     * 注册为解析上下文的嵌入文档提取器（Register as the embedded document extractor of the parse context）
+     */
+    public void register(ParseContext context) {
+        context.set(EmbeddedDocumentExtractor.class, this);
     }
 
     @Override
     public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
-        // 检测图片元素
-        if ("img".equalsIgnoreCase(localName) || "image".equalsIgnoreCase(localName)) {
-            imageCounter++;
-            log.debug("检测到图片元素: {}", localName);
+        // 记录图片元素在正文中的位置（Record the body offset of image elements）
+        if ("img".equalsIgnoreCase(localName) && atts != null) {
+            String src = atts.getValue("src");
+            if (src != null && src.startsWith(EMBEDDED_PREFIX)) {
+                imageElementOffsets.putIfAbsent(src.substring(EMBEDDED_PREFIX.length()), offset);
+            }
         }
         super.startElement(uri, localName, qName, atts);
     }
 
-    /**
-     * 处理嵌入资源
-     */
-    public void handleEmbeddedResource(InputStream stream, Metadata metadata, ParseContext context) {
-        try {
-            String contentType = metadata.get(Metadata.CONTENT_TYPE);
-            String resourceName = metadata.get("resourceName");
-
-            // 检查是否是图片
-            if (contentType != null && contentType.startsWith("image/")) {
-                imageCounter++;
-
-                log.info("处理嵌入图片 #{}: {} ({})", imageCounter, resourceName, contentType);
-
-                // 读取图片数据
-                byte[] imageData = readAllBytes(stream);
-
-                if (imageData.length > 0) {
-                    // 使用智能提取器处理图片
-                    String extractedText = imageExtractor.extractContent(
-                        new ByteArrayInputStream(imageData),
-                        resourceName != null ? resourceName : "image_" + imageCounter
-                    );
-
-                    if (extractedText != null && !extractedText.trim().isEmpty()) {
-                        // 将提取的文本添加到内容中
-                        content.append("\n").append(extractedText).append("\n");
-
-                        // 也发送到内容处理器
-                        char[] chars = extractedText.toCharArray();
-                        super.characters(chars, 0, chars.length);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.error("处理嵌入图片失败", e);
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        super.characters(ch, start, length);
+        offset += length;
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        super.ignorableWhitespace(ch, start, length);
+        offset += length;
+    }
+
+    @Override
+    public boolean shouldParseEmbedded(Metadata metadata) {
+        return isImage(metadata) || delegate.shouldParseEmbedded(metadata);
+    }
+
+    @Override
+    public void parseEmbedded(InputStream stream, ContentHandler handler, Metadata metadata, boolean outputHtml)
+            throws SAXException, IOException {
+        if (!isImage(metadata)) {
+            delegate.parseEmbedded(stream, handler, metadata, outputHtml);
+            return;
+        }
+
+        String resourceName = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
+        byte[] data = stream.readAllBytes();
+        if (data.length < MIN_IMAGE_BYTES) {
+            return;
         }
+
+        imageCounter++;
+        Integer elementOffset = resourceName != null ? imageElementOffsets.get(resourceName) : null;
+        int position = elementOffset != null ? elementOffset : offset;
+
+        images.add(ExtractedImage.builder()
+                .data(data)
+                .format(formatOf(metadata.get(Metadata.CONTENT_TYPE)))
+                .originalName(resourceName)
+                .position(imageCounter)
+                .charPositionInDocument(position)
+                .fileSize(data.length)
+                .build());
+
+        log.debug(I18N.get("log.tika.embedded_image_found", imageCounter, resourceName, position, data.length / 1024));
     }
 
-    /**
-     * 读取所有字节
-     */
-    private byte[] readAllBytes(InputStream stream) throws IOException {
-        java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream();
-        int nRead;
-        byte[] data = new byte[16384];
+    private boolean isImage(Metadata metadata) {
+        String contentType = metadata.get(Metadata.CONTENT_TYPE);
+        return contentType != null && contentType.startsWith("image/");
+    }
 
-        while ((nRead = stream.read(data, 0, data.length)) != -1) {
-            buffer.write(data, 0, nRead);
+    private String formatOf(String contentType) {
+        String subtype = contentType.substring("image/".length());
+        int paramStart = subtype.indexOf(';');
+        if (paramStart >= 0) {
+            subtype = subtype.substring(0, paramStart);
         }
+        return switch (subtype.trim()) {
+            case "jpeg", "pjpeg" -> "jpg";
+            case "x-emf", "emf" -> "emf";
+            case "x-wmf", "wmf" -> "wmf";
+            case "svg+xml" -> "svg";
+            default -> subtype.trim();
+        };
+    }
 
-        return buffer.toByteArray();
+    /**
+     * 获取收集到的图片，按到达顺序（Get the collected images, in arrival order）
+     */
+    public List<ExtractedImage> getImages() {
+        return Collections.unmodifiableList(images);
     }
 
     /**
-     * 获取提取的内容
+     * 获取已输出的文本长度（Get the length of text written so far）
      */
-    public String getExtractedContent() {
-        return content.toString();
+    public int getOffset() {
+        return offset;
     }
 
     /**
-     * 获取图片计数
+     * 获取图片计数（Get image count）
      */
     public int getImageCount() {
         return imageCounter;
     }
 }
-
@@ -1,22 +1,29 @@
 package top.yumbo.ai.rag.impl.parser;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tika.Tika;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.WriteLimitReachedException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.pdf.PDFParserConfig;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.WriteOutContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import top.yumbo.ai.rag.core.DocumentParser;
 import top.yumbo.ai.rag.i18n.I18N;
+import top.yumbo.ai.rag.image.extractor.ExtractedImage;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -101,8 +108,21 @@ public class TikaDocumentParser implements DocumentParser {
                              top.yumbo.ai.rag.impl.parser.image.SmartImageExtractor imageExtractor,
                              top.yumbo.ai.rag.spring.boot.service.SlideContentCacheService cacheService,
                              top.yumbo.ai.rag.image.ImageStorageService imageStorageService) {
+        this(new AutoDetectParser(), maxContentLength, extractImageMetadata, includeImagePlaceholders,
+                visionBatchSize, imageExtractor, cacheService, imageStorageService);
+    }
+
+    /**
+     * 指定底层 Tika 解析器，供测试替换（With an explicit Tika parser, so tests can substitute it）
+     */
+    TikaDocumentParser(Parser parser, int maxContentLength, boolean extractImageMetadata,
+                       boolean includeImagePlaceholders,
+                       int visionBatchSize,
+                       top.yumbo.ai.rag.impl.parser.image.SmartImageExtractor imageExtractor,
+                       top.yumbo.ai.rag.spring.boot.service.SlideContentCacheService cacheService,
+                       top.yumbo.ai.rag.image.ImageStorageService imageStorageService) {
         this.tika = new Tika();
-        this.parser = new AutoDetectParser();
+        this.parser = parser;
         this.maxContentLength = maxContentLength;
         this.extractImageMetadata = extractImageMetadata;
         this.includeImagePlaceholders = includeImagePlaceholders;
@@ -221,6 +241,99 @@ public class TikaDocumentParser implements DocumentParser {
         }
     }
 
+    /**
+     * 单遍解析：一次流式解析同时得到文本和带字符位置的嵌入图片
+     * （Single-pass parse: one streaming parse yields both the text and the embedded images with character offsets）
+     *
+     * 与 {@link #parse(File)} 不同，这里不会在解析阶段识别图片内容，也不走 Office 专用提取器，
+     * 图片交由下游统一分析和保存，文件只解压和解析一次
+     * （Unlike {@link #parse(File)}, images are not recognized during parsing and the Office-specific
+     * extractor is not used; images are analyzed and saved downstream, so the file is decompressed and parsed once）
+     *
+     * @param file 文档文件（Document file）
+     * @return 解析结果；失败时文本为空（Parse result; text is empty on failure）
+     */
+    public ParsedDocument parseWithImages(File file) {
+        if (file == null || !file.exists()) {
+            log.warn(I18N.get("log.tika.file_not_exists", String.valueOf(file)));
+            return new ParsedDocument("", List.of());
+        }
+
+        Metadata metadata = new Metadata();
+        metadata.set("resourceName", file.getName());
+
+        // 偏移统计位于正文过滤之后、文本输出之前，保证与最终文本一致
+        // (Offsets are counted after the body filter and before the text writer so they match the final text)
+        WriteOutContentHandler textHandler = new WriteOutContentHandler(maxContentLength);
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+        PDFParserConfig pdfConfig = new PDFParserConfig();
+        pdfConfig.setExtractInlineImages(true);
+        context.set(PDFParserConfig.class, pdfConfig);
+
+        EmbeddedImageExtractingHandler imageHandler = new EmbeddedImageExtractingHandler(textHandler, context);
+        imageHandler.register(context);
+
+        try (InputStream stream = Files.newInputStream(file.toPath())) {
+            parser.parse(stream, new BodyContentHandler(imageHandler), metadata, context);
+        } catch (IOException | TikaException | SAXException e) {
+            // 超出长度限制时保留已解析的部分；PDF 等解析器会把它包装在 TikaException/SAXException 中
+            // (Keep the parsed part when the length limit is reached; parsers such as PDF wrap it in TikaException/SAXException)
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                log.error(I18N.get("log.tika.parse_failed", file.getAbsolutePath()), e);
+                return new ParsedDocument("", List.of());
+            }
+            log.warn(I18N.get("log.tika.write_limit_reached", file.getName(), maxContentLength));
+        }
+
+        String text = textHandler.toString();
+        List<ExtractedImage> images = imageHandler.getImages();
+        log.info(I18N.get("log.tika.single_pass_done", file.getName(), text.length(), images.size()));
+        return new ParsedDocument(text, images);
+    }
+
+    /**
+     * 流式解析：文本边解析边写入 {@code out}，不在内存中拼接整篇文本，也不受最大内容长度限制
+     * （Streaming parse: text is written to {@code out} while parsing, never assembled in memory and not
+     * subject to the max content length）
+     *
+     * 嵌入图片不会被收集（图片数据会随文档大小增长），需要图片理解的文档请使用 {@link #parseWithImages(File)}
+     * （Embedded images are not collected, since their bytes grow with the document; use
+     * {@link #parseWithImages(File)} when images must be understood）
+     *
+     * @param file 文档文件（Document file）
+     * @param out  文本输出，例如流式分块器（Text sink, e.g. a streaming chunker）
+     * @return 是否解析成功（Whether parsing succeeded）
+     * @throws IOException 写入 {@code out} 失败（Writing to {@code out} failed）
+     */
+    public boolean parseStreaming(File file, Writer out) throws IOException {
+        if (file == null || !file.exists()) {
+            log.warn(I18N.get("log.tika.file_not_exists", String.valueOf(file)));
+            return false;
+        }
+
+        Metadata metadata = new Metadata();
+        metadata.set("resourceName", file.getName());
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+
+        try (InputStream stream = Files.newInputStream(file.toPath())) {
+            parser.parse(stream, new BodyContentHandler(out), metadata, context);
+            out.flush();
+            return true;
+        } catch (SAXException e) {
+            // 输出端的异常（如索引失败）原样抛出（Failures of the sink, such as indexing errors, are rethrown as-is）
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            log.error(I18N.get("log.tika.parse_failed", file.getAbsolutePath()), e);
+            return false;
+        } catch (TikaException e) {
+            log.error(I18N.get("log.tika.parse_failed", file.getAbsolutePath()), e);
+            return false;
+        }
+    }
+
     /**
      * 增强的解析方法，支持图片元数据提取
      */
@@ -404,4 +517,22 @@ public class TikaDocumentParser implements DocumentParser {
     public String detectMimeType(String filename) {
         return tika.detect(filename);
     }
+
+    /**
+     * 单遍解析结果（Single-pass parse result）
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ParsedDocument {
+
+        /**
+         * 文档文本（Document text）
+         */
+        private final String text;
+
+        /**
+         * 嵌入图片，字符位置对应 {@link #text}（Embedded images, with character offsets into {@link #text}）
+         */
+        private final List<ExtractedImage> images;
+    }
 }
@@ -1,5 +1,6 @@
 package top.yumbo.ai.rag.impl.parser.image;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 
@@ -42,5 +43,30 @@ public interface ImageContentExtractorStrategy {
      * 是否可用
      */
     boolean isAvailable();
-}
 
+    /**
+     * 是否调用远程服务（需要限流，结果可按图片内容缓存）
+     */
+    default boolean isRemote() {
+        return false;
+    }
+
+    /**
+     * 限流键，同一端点的调用共享一个令牌桶
+     */
+    default String getEndpointKey() {
+        return getStrategyName();
+    }
+
+    /**
+     * 从图片数据提取文本内容，失败时抛出异常而不是返回错误文本
+     * 便于调用方区分失败结果，不将其缓存
+     *
+     * @param imageData 图片数据
+     * @param imageName 图片名称（用于日志）
+     * @return 提取的文本内容
+     */
+    default String analyze(byte[] imageData, String imageName) throws Exception {
+        return extractContent(new ByteArrayInputStream(imageData), imageName);
+    }
+}
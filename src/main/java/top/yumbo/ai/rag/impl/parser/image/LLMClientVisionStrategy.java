@@ -135,6 +135,29 @@ public class LLMClientVisionStrategy implements ImageContentExtractorStrategy {
         }
     }
 
+    @Override
+    public String analyze(byte[] imageData, String imageName) throws Exception {
+        if (!available) {
+            throw new IllegalStateException(String.format("[图片: %s - LLM Vision不可用]", imageName));
+        }
+
+        String imageUrl = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(imageData);
+        String result = llmClient.generateWithImage(buildPrompt(), imageUrl, null);
+
+        log.info("LLM Vision 提取内容 [{}]: {} 字符", imageName, result.length());
+        return result;
+    }
+
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    @Override
+    public String getEndpointKey() {
+        return "llm-client:" + llmClient.getModelName();
+    }
+
     /**
      * 构建图片识别提示词
      */
@@ -335,6 +335,31 @@ public class VisionLLMStrategy implements ImageContentExtractorStrategy {
         }
     }
 
+    @Override
+    public String analyze(byte[] imageData, String imageName) throws Exception {
+        if (!available) {
+            throw new IllegalStateException(I18N.get("vision_llm.error.unavailable", imageName));
+        }
+        if (!isSupportedImageFormat(imageName)) {
+            throw new IllegalArgumentException(I18N.get("vision_llm.error.unsupported_format",
+                imageName, getFileExtension(imageName)));
+        }
+
+        String result = callVisionAPI(Base64.getEncoder().encodeToString(imageData), imageName);
+        log.info(I18N.get("vision_llm.log.content_extracted", imageName, result.length()));
+        return result;
+    }
+
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    @Override
+    public String getEndpointKey() {
+        return apiEndpoint;
+    }
+
     /**
      * 批量提取多张图片内容（Batch extract content from multiple images）
      * 适用于 PPT 等场景，一次处理多张图片以减少 API 调用次数
@@ -24,6 +24,7 @@ public class DocumentChunker {
     private final boolean smartSplit;
     private final int maxContentLength;
     private final int maxChunks;
+    private final boolean contentDefined;
 
     /**
      * 默认分块配置（Default chunking configuration）
@@ -44,11 +45,21 @@ public class DocumentChunker {
     }
 
     public DocumentChunker(int chunkSize, int chunkOverlap, boolean smartSplit, int maxContentLength, int maxChunks) {
+        this(chunkSize, chunkOverlap, smartSplit, maxContentLength, maxChunks, false);
+    }
+
+    /**
+     * @param contentDefined 是否使用内容定义的边界，见 {@link ContentDefinedBoundary}
+     *                       （Whether to use content-defined boundaries, see {@link ContentDefinedBoundary}）
+     */
+    public DocumentChunker(int chunkSize, int chunkOverlap, boolean smartSplit, int maxContentLength, int maxChunks,
+                           boolean contentDefined) {
         this.chunkSize = chunkSize;
         this.chunkOverlap = chunkOverlap;
         this.smartSplit = smartSplit;
         this.maxContentLength = maxContentLength;
         this.maxChunks = maxChunks;
+        this.contentDefined = contentDefined;
 
         if (chunkOverlap >= chunkSize) {
             throw new IllegalArgumentException("Chunk overlap must be less than chunk size");
@@ -83,8 +94,14 @@ public class DocumentChunker {
         while (start < content.length()) {
             int end = Math.min(start + chunkSize, content.length());
 
-            // 智能分割：尝试在句子边界处分割
-            if (smartSplit && end < content.length()) {
+            // 内容定义的边界：小改动不会移动其后的边界（Content-defined boundary: a small edit does not shift later boundaries）
+            int contentCut = contentDefined && end < content.length()
+                ? ContentDefinedBoundary.find(content, start, content.length(), chunkSize, chunkOverlap, smartSplit, 100)
+                : -1;
+            if (contentCut > start) {
+                end = contentCut;
+            } else if (smartSplit && end < content.length()) {
+                // 智能分割：尝试在句子边界处分割
                 int adjustedEnd = findSentenceBoundary(content, start, end);
                 if (adjustedEnd > start) {
                     end = adjustedEnd;
@@ -102,6 +119,11 @@ public class DocumentChunker {
             Document chunk = createChunk(document, chunkContent, chunkIndex, start, end);
             chunks.add(chunk);
 
+            // 已到文档末尾的块不再生成只含重叠部分的尾块（No overlap-only tail chunks after the one that reaches the end）
+            if (end >= content.length()) {
+                break;
+            }
+
             // 下一个块的起始位置（带重叠）
             int nextStart = end - chunkOverlap;
 
@@ -255,6 +277,7 @@ public class DocumentChunker {
         private boolean smartSplit = true;
         private int maxContentLength = DEFAULT_MAX_CONTENT_LENGTH;
         private int maxChunks = DEFAULT_MAX_CHUNKS;
+        private boolean contentDefined = false;
 
         public Builder chunkSize(int chunkSize) {
             this.chunkSize = chunkSize;
@@ -281,8 +304,13 @@ public class DocumentChunker {
             return this;
         }
 
+        public Builder contentDefined(boolean contentDefined) {
+            this.contentDefined = contentDefined;
+            return this;
+        }
+
         public DocumentChunker build() {
-            return new DocumentChunker(chunkSize, chunkOverlap, smartSplit, maxContentLength, maxChunks);
+            return new DocumentChunker(chunkSize, chunkOverlap, smartSplit, maxContentLength, maxChunks, contentDefined);
         }
     }
 
@@ -1,5 +1,7 @@
 package top.yumbo.ai.rag.optimization;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -8,15 +10,16 @@ import top.yumbo.ai.rag.chunking.ChunkingStrategy;
 import top.yumbo.ai.rag.chunking.DocumentChunk;
 import top.yumbo.ai.rag.chunking.DocumentChunker;
 import top.yumbo.ai.rag.chunking.DocumentChunkerFactory;
-import top.yumbo.ai.rag.chunking.storage.ChunkStorageService;
+import top.yumbo.ai.rag.chunking.storage.ChunkIndex;
+import top.yumbo.ai.rag.chunking.storage.ChunkIndex.ChunkIndexEntry;
 import top.yumbo.ai.rag.i18n.I18N;
 import top.yumbo.ai.rag.model.Document;
 import top.yumbo.ai.rag.spring.boot.llm.LLMClient;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 智能上下文构建器（Smart context builder）
@@ -33,6 +36,7 @@ import java.util.stream.Collectors;
  * 版本历史：
  * v1.0 (2025-11-22) - 初始版本（Initial version）
  * v1.1 (2025-11-26) - 添加可配置切分器支持（Added configurable chunker support）
+ * v1.2 (2025-12-20) - 使用入库时建立的块索引，查询时不再重新切分和写盘（Use the ingest-time chunk index, no query-time re-chunking or disk writes）
  *
  * @author AI Reviewer Team
  * @since 2025-11-22
@@ -46,21 +50,25 @@ public class SmartContextBuilder {
     private static final int KEYWORD_WINDOW_SIZE = 500;          // 关键词搜索窗口
     private static final int SENTENCE_BOUNDARY_SEARCH = 100;     // 句子边界搜索范围
     private static final int CHUNK_OVERLAP = 100;                // 分块重叠大小，保证上下文连贯
+    private static final int TRANSIENT_CHUNK_CACHE_SIZE = 500;   // 未入索引文档的内存切分缓存
 
     private final int maxContextLength;
     private final int maxDocLength;
     private final boolean preserveFullContent;  // 是否保留完整内容
     private final DocumentChunker chunker;       // 文档切分器（新增）
-    private ChunkStorageService chunkStorageService;  // 文档块存储服务
-    private String currentDocumentId;            // 当前处理的文档ID
+    private final ChunkIndex chunkIndex;         // 入库时建立的块索引
+    // 未入索引文档的切分结果，只保存在内存中（Chunks of documents missing from the index, memory only）
+    private final Cache<String, List<ChunkIndexEntry>> transientChunks = Caffeine.newBuilder()
+        .maximumSize(TRANSIENT_CHUNK_CACHE_SIZE)
+        .build();
 
     /**
      * Spring 自动装配构造函数
      */
     @Autowired
     public SmartContextBuilder(
-            @Autowired(required = false) ChunkStorageService chunkStorageService) {
-        this(DEFAULT_MAX_CONTEXT_LENGTH, DEFAULT_MAX_DOC_LENGTH, true, null, null, null, chunkStorageService);
+            @Autowired(required = false) ChunkIndex chunkIndex) {
+        this(DEFAULT_MAX_CONTEXT_LENGTH, DEFAULT_MAX_DOC_LENGTH, true, null, null, null, chunkIndex);
     }
 
     public SmartContextBuilder() {
@@ -95,18 +103,18 @@ public class SmartContextBuilder {
     }
 
     /**
-     * 完整构造函数（含存储服务）
+     * 完整构造函数（含块索引）
      */
     public SmartContextBuilder(int maxContextLength, int maxDocLength,
                               boolean preserveFullContent,
                               ChunkingConfig chunkingConfig,
                               ChunkingStrategy chunkingStrategy,
                               LLMClient llmClient,
-                              top.yumbo.ai.rag.chunking.storage.ChunkStorageService chunkStorageService) {
+                              ChunkIndex chunkIndex) {
         this.maxContextLength = maxContextLength;
         this.maxDocLength = maxDocLength;
         this.preserveFullContent = preserveFullContent;
-        this.chunkStorageService = chunkStorageService;
+        this.chunkIndex = chunkIndex;
 
         // 创建文档切分器
         if (chunkingConfig != null && chunkingStrategy != null) {
@@ -114,7 +122,7 @@ public class SmartContextBuilder {
                 chunkingStrategy, chunkingConfig, llmClient
             );
             log.info(I18N.get("log.optimization.context.initialized_with_chunker",
-                chunkingStrategy, maxContextLength, maxDocLength, chunkStorageService != null ? "enabled" : "disabled"));
+                chunkingStrategy, maxContextLength, maxDocLength, chunkIndex != null ? "enabled" : "disabled"));
         } else {
             this.chunker = null;
             log.info(I18N.get("log.optimization.context.initialized",
@@ -123,10 +131,41 @@ public class SmartContextBuilder {
     }
 
     /**
-     * 设置当前文档ID（用于保存切分块）
+     * 入库时为文档建立块索引（不依赖查询，结果可被所有问题复用）
+     *
+     * @param document 已入库的文档（需要内容哈希）
+     * @return 写入的块数量；未配置切分器或索引时为 0
      */
-    public void setCurrentDocumentId(String documentId) {
-        this.currentDocumentId = documentId;
+    public int indexChunks(Document document) {
+        if (chunker == null || chunkIndex == null
+                || document.getContentHash() == null || document.getContent() == null) {
+            return 0;
+        }
+        if (chunkIndex.get(document.getContentHash()).isPresent()) {
+            return 0;
+        }
+        List<DocumentChunk> chunks = chunker.chunk(document.getContent());
+        return chunkIndex.put(document.getContentHash(), document.getContent(), chunks).size();
+    }
+
+    /**
+     * 文档删除或被新版本替换时移除其块索引
+     *
+     * @param contentHash 已删除文档的内容哈希，为空时忽略
+     */
+    public void removeChunks(String contentHash) {
+        if (chunkIndex != null && contentHash != null) {
+            chunkIndex.remove(contentHash);
+        }
+    }
+
+    /**
+     * 知识库整体重建时清空块索引
+     */
+    public void clearChunks() {
+        if (chunkIndex != null) {
+            chunkIndex.clear();
+        }
     }
 
     /**
@@ -160,7 +199,7 @@ public class SmartContextBuilder {
             // 提取最相关的片段
             String relevantPart = extractRelevantPart(
                 query,
-                doc.getContent(),
+                doc,
                 allowedLength
             );
 
@@ -192,7 +231,8 @@ public class SmartContextBuilder {
      * 1. 使用新的可配置切分器（如果已配置）
      * 2. 使用原有的智能分块逻辑（向后兼容）
      */
-    private String extractRelevantPart(String query, String content, int maxLength) {
+    private String extractRelevantPart(String query, Document doc, int maxLength) {
+        String content = doc.getContent();
         if (content == null || content.isEmpty()) {
             return "";
         }
@@ -204,7 +244,7 @@ public class SmartContextBuilder {
 
         // 优先使用新的切分器
         if (chunker != null) {
-            return extractWithChunker(query, content, maxLength);
+            return extractWithChunker(query, doc, maxLength);
         }
 
         // 降级到原有逻辑（向后兼容）
@@ -216,36 +256,27 @@ public class SmartContextBuilder {
     }
 
     /**
-     * 使用配置的切分器提取内容（新增）
+     * 使用切分结果提取内容
+     *
+     * 块来自入库时建立的索引（按偏移截取），只对这些块按查询打分
      */
-    private String extractWithChunker(String query, String content, int maxLength) {
+    private String extractWithChunker(String query, Document doc, int maxLength) {
+        String content = doc.getContent();
         try {
-            // 使用切分器切分文档
-            List<DocumentChunk> chunks = chunker.chunk(content, query);
+            List<ChunkIndexEntry> chunks = resolveChunks(doc);
 
             if (chunks.isEmpty()) {
                 log.warn("Chunker returned no chunks, using fallback");
                 return extractWithChunking(query, content, maxLength);
             }
 
-            // 保存切分块到文件系统
-            if (chunkStorageService != null && currentDocumentId != null) {
-                try {
-                    List<top.yumbo.ai.rag.chunking.storage.ChunkStorageInfo> savedChunks =
-                        chunkStorageService.saveChunks(currentDocumentId, chunks);
-                    log.info("✅ Saved {} chunks for document: {}", savedChunks.size(), currentDocumentId);
-                } catch (Exception e) {
-                    log.warn("Failed to save chunks for document: {}", currentDocumentId, e);
-                }
-            }
-
             // 选择最相关的块
-            List<DocumentChunk> selectedChunks = selectBestChunks(chunks, maxLength);
+            List<ChunkIndexEntry> selectedChunks = selectBestChunks(chunks, content, extractKeywords(query), maxLength);
 
             // 合并块内容
             StringBuilder result = new StringBuilder();
             for (int i = 0; i < selectedChunks.size(); i++) {
-                DocumentChunk chunk = selectedChunks.get(i);
+                ChunkIndexEntry chunk = selectedChunks.get(i);
 
                 if (i > 0) {
                     result.append("\n...\n");
@@ -256,10 +287,10 @@ public class SmartContextBuilder {
                     result.append("[").append(chunk.getTitle()).append("]\n");
                 }
 
-                result.append(chunk.getContent());
+                result.append(content.substring(chunk.getStartPosition(), chunk.getEndPosition()).trim());
             }
 
-            log.debug("Extracted with chunker: {} chunks, {} chars from {} chars",
+            log.debug("Extracted with chunk index: {} chunks, {} chars from {} chars",
                 selectedChunks.size(), result.length(), content.length());
 
             return result.toString();
@@ -271,20 +302,41 @@ public class SmartContextBuilder {
     }
 
     /**
-     * 选择最相关的文档块（新增）
+     * 获取文档的块：优先使用块索引，缺失时切分一次并仅缓存在内存中
+     */
+    private List<ChunkIndexEntry> resolveChunks(Document doc) {
+        String contentHash = doc.getContentHash();
+        if (contentHash == null) {
+            return ChunkIndex.toEntries("transient", doc.getContent(), chunker.chunk(doc.getContent()));
+        }
+
+        if (chunkIndex != null) {
+            List<ChunkIndexEntry> indexed = chunkIndex.get(contentHash).orElse(null);
+            if (indexed != null) {
+                return indexed;
+            }
+        }
+
+        return transientChunks.get(contentHash,
+            hash -> ChunkIndex.toEntries(hash, doc.getContent(), chunker.chunk(doc.getContent())));
+    }
+
+    /**
+     * 选择最相关的文档块
      *
      * 策略：
      * 1. 如果块总大小 <= maxLength，返回所有块
-     * 2. 否则，按相关性排序，选择最相关的块直到达到 maxLength
+     * 2. 否则按查询关键词命中数排序（同分时命中密度高、位置靠前的优先），贪心选择直到达到 maxLength
      */
-    private List<DocumentChunk> selectBestChunks(List<DocumentChunk> chunks, int maxLength) {
+    private List<ChunkIndexEntry> selectBestChunks(List<ChunkIndexEntry> chunks, String content,
+                                                   String[] keywords, int maxLength) {
         if (chunks.isEmpty()) {
             return chunks;
         }
 
         // 计算总大小
         int totalSize = chunks.stream()
-            .mapToInt(DocumentChunk::getLength)
+            .mapToInt(ChunkIndexEntry::getLength)
             .sum();
 
         // 如果总大小不超过限制，返回所有块
@@ -292,49 +344,52 @@ public class SmartContextBuilder {
             return chunks;
         }
 
-        // 按块的元数据优先级排序（包含关键词的块优先）
-        List<DocumentChunk> sortedChunks = chunks.stream()
-            .sorted((c1, c2) -> {
-                // 优先选择有关键词标记的块
-                boolean c1HasKeyword = c1.getMetadata() != null &&
-                                      c1.getMetadata().contains("keyword");
-                boolean c2HasKeyword = c2.getMetadata() != null &&
-                                      c2.getMetadata().contains("keyword");
-
-                if (c1HasKeyword && !c2HasKeyword) return -1;
-                if (!c1HasKeyword && c2HasKeyword) return 1;
-
-                // 其次按位置（前面的块优先）
-                return Integer.compare(c1.getIndex(), c2.getIndex());
-            })
-            .collect(Collectors.toList());
+        // 只对索引中的块打分
+        List<ScoredChunk> scored = new ArrayList<>(chunks.size());
+        for (ChunkIndexEntry chunk : chunks) {
+            String text = content.substring(chunk.getStartPosition(), chunk.getEndPosition()).toLowerCase();
+            int hits = 0;
+            for (String keyword : keywords) {
+                hits += countOccurrences(text, keyword);
+            }
+            scored.add(new ScoredChunk(chunk, hits, (double) hits / Math.max(1, chunk.getTokenCount())));
+        }
+        scored.sort(Comparator.comparingInt(ScoredChunk::hits).reversed()
+            .thenComparing(Comparator.comparingDouble(ScoredChunk::density).reversed())
+            .thenComparingInt(sc -> sc.chunk().getChunkIndex()));
 
         // 贪心选择块直到达到 maxLength
-        List<DocumentChunk> selected = new java.util.ArrayList<>();
+        List<ChunkIndexEntry> selected = new ArrayList<>();
         int currentLength = 0;
 
-        for (DocumentChunk chunk : sortedChunks) {
-            int chunkLength = chunk.getLength();
+        for (ScoredChunk candidate : scored) {
+            int chunkLength = candidate.chunk().getLength();
 
             // 如果添加这个块会超出限制
             if (currentLength + chunkLength > maxLength) {
                 // 如果还没选择任何块，至少选择第一个块（截断）
                 if (selected.isEmpty()) {
-                    selected.add(chunk);
+                    selected.add(candidate.chunk());
                 }
                 break;
             }
 
-            selected.add(chunk);
+            selected.add(candidate.chunk());
             currentLength += chunkLength;
         }
 
         // 按原始顺序排序
-        selected.sort(Comparator.comparingInt(DocumentChunk::getIndex));
+        selected.sort(Comparator.comparingInt(ChunkIndexEntry::getChunkIndex));
 
         return selected;
     }
 
+    /**
+     * 带查询得分的块
+     */
+    private record ScoredChunk(ChunkIndexEntry chunk, int hits, double density) {
+    }
+
     /**
      * 智能分块策略 - 保留所有内容
      * 将长文档分成多个语义完整的块，每个块优先包含关键词
@@ -0,0 +1,211 @@
+package top.yumbo.ai.rag.optimization;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * 流式文档分块器（Streaming document chunker）
+ * 以 {@link Writer} 的形式接收文本，凑满一个块（外加句子边界的前瞻）就立即交给监听器，
+ * 内存中只保留当前窗口，峰值占用与块大小成正比，而不是与文档大小成正比
+ * （Receives text as a {@link Writer} and hands each chunk to the listener as soon as it is complete,
+ * plus the look-ahead needed for sentence boundaries; only the current window is kept in memory, so peak
+ * usage is proportional to the chunk size rather than the document size）
+ *
+ * 切分规则与 {@link DocumentChunker} 一致：固定大小或内容定义的边界、带重叠、优先在句子边界处切分
+ * （Uses the same rules as {@link DocumentChunker}: fixed size or content-defined boundaries, with overlap,
+ * preferring sentence boundaries）
+ *
+ * 可以直接作为 Tika 文本输出的目标，也可以通过 {@link #chunk(Reader)} 读取任意字符流
+ * （Can be the text sink of a Tika parse directly, or read any character stream via {@link #chunk(Reader)}）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+public class StreamingDocumentChunker extends Writer {
+
+    /**
+     * 在预期结束位置之后查找句子结束符的最大距离（Maximum look-ahead for a sentence ending after the preferred end）
+     */
+    private static final int LOOKAHEAD = 100;
+
+    private static final char[] SENTENCE_ENDINGS = {'.', '。', '!', '！', '?', '？', '\n'};
+
+    private final int chunkSize;
+    private final int chunkOverlap;
+    private final boolean smartSplit;
+    private final boolean contentDefined;
+    private final ChunkListener listener;
+
+    // 当前窗口，window[0] 对应文档中的 windowStart（Current window; window[0] is at windowStart in the document）
+    private final StringBuilder window;
+    private long windowStart = 0;
+    private int chunkCount = 0;
+    private boolean closed = false;
+
+    public StreamingDocumentChunker(int chunkSize, int chunkOverlap, boolean smartSplit, ChunkListener listener) {
+        this(chunkSize, chunkOverlap, smartSplit, false, listener);
+    }
+
+    /**
+     * @param contentDefined 是否使用内容定义的边界，见 {@link ContentDefinedBoundary}
+     *                       （Whether to use content-defined boundaries, see {@link ContentDefinedBoundary}）
+     */
+    public StreamingDocumentChunker(int chunkSize, int chunkOverlap, boolean smartSplit, boolean contentDefined,
+                                    ChunkListener listener) {
+        if (chunkOverlap >= chunkSize) {
+            throw new IllegalArgumentException("Chunk overlap must be less than chunk size");
+        }
+        this.chunkSize = chunkSize;
+        this.chunkOverlap = chunkOverlap;
+        this.smartSplit = smartSplit;
+        this.contentDefined = contentDefined;
+        this.listener = listener;
+        this.window = new StringBuilder(chunkSize + LOOKAHEAD);
+    }
+
+    /**
+     * 读取整个字符流并分块，结束时关闭分块器（不关闭 reader）
+     * （Read the whole character stream and chunk it, then close the chunker; the reader is left open）
+     *
+     * @return 产生的块数（Number of chunks emitted）
+     */
+    public int chunk(Reader reader) throws IOException {
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            write(buffer, 0, read);
+        }
+        close();
+        return chunkCount;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Chunker is closed");
+        }
+        window.append(cbuf, off, len);
+        // 窗口中已有完整的块及其前瞻（The window holds a full chunk plus its look-ahead）
+        while (window.length() >= chunkSize + LOOKAHEAD) {
+            emitNext(false);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // 块只在边界确定后才输出（Chunks are only emitted once their boundary is known）
+    }
+
+    /**
+     * 输出剩余内容（Emit whatever is left）
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        while (window.length() > 0) {
+            emitNext(true);
+        }
+    }
+
+    /**
+     * 从窗口开头切出一个块（Cut one chunk from the start of the window）
+     */
+    private void emitNext(boolean endOfInput) throws IOException {
+        int available = window.length();
+        int end = Math.min(chunkSize, available);
+
+        // 窗口中已有块长加前瞻，与整篇分块得到相同的内容定义边界
+        // (The window holds a chunk plus its look-ahead, so content-defined cuts match whole-document chunking)
+        int contentCut = contentDefined && end < available
+                ? ContentDefinedBoundary.find(window, 0, available, chunkSize, chunkOverlap, smartSplit, LOOKAHEAD)
+                : -1;
+        if (contentCut > 0) {
+            end = contentCut;
+        } else if (smartSplit && end < available) {
+            int adjusted = findSentenceBoundary(end);
+            if (adjusted > 0) {
+                end = adjusted;
+            }
+        }
+
+        String content = window.substring(0, end).trim();
+        boolean reachesEnd = endOfInput && end == available;
+
+        int advance;
+        if (content.isEmpty()) {
+            advance = end;
+        } else {
+            listener.onChunk(chunkCount++, windowStart, windowStart + end, content);
+            // 已到文档末尾的块不再生成重叠的尾块（No overlapping tail chunks after the one that reaches the end）
+            advance = reachesEnd ? end : Math.max(1, end - chunkOverlap);
+        }
+
+        window.delete(0, advance);
+        windowStart += advance;
+    }
+
+    /**
+     * 在窗口内查找句子边界，规则同 {@link DocumentChunker}
+     * （Find a sentence boundary inside the window, same rules as {@link DocumentChunker}）
+     */
+    private int findSentenceBoundary(int preferredEnd) {
+        int searchEnd = Math.min(preferredEnd + LOOKAHEAD, window.length());
+        for (int i = preferredEnd; i < searchEnd; i++) {
+            if (isSentenceEnding(window.charAt(i))) {
+                return i + 1;
+            }
+        }
+
+        int searchStart = Math.max(preferredEnd - chunkSize / 2, 0);
+        for (int i = preferredEnd - 1; i >= searchStart; i--) {
+            if (isSentenceEnding(window.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return preferredEnd;
+    }
+
+    private boolean isSentenceEnding(char c) {
+        for (char ending : SENTENCE_ENDINGS) {
+            if (c == ending) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 已输出的块数（Number of chunks emitted so far）
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * 已接收的字符数（Number of characters received so far）
+     */
+    public long getCharCount() {
+        return windowStart + window.length();
+    }
+
+    /**
+     * 块监听器（Chunk listener）
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+
+        /**
+         * 一个块已完成（A chunk is complete）
+         *
+         * @param index   块序号，从 0 开始（Chunk index, starting at 0）
+         * @param start   在文档中的起始字符位置（Start offset in the document）
+         * @param end     在文档中的结束字符位置（End offset in the document, exclusive）
+         * @param content 去除首尾空白的块内容（Chunk content, trimmed）
+         */
+        void onChunk(int index, long start, long end, String content) throws IOException;
+    }
+}
@@ -2,7 +2,9 @@ package top.yumbo.ai.rag.ppl;
 
 import lombok.Data;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.DoubleAdder;
 
 /**
@@ -82,6 +84,129 @@ public class PPLMetrics {
      */
     private final AtomicLong totalTokens = new AtomicLong(0);
 
+    // Rerank 统计 (Rerank statistics)
+    /**
+     * 最近 Rerank 延迟样本窗口大小 (Window size of recent rerank latency samples)
+     */
+    private static final int RERANK_WINDOW = 256;
+
+    /**
+     * Rerank 次数 (Rerank count)
+     */
+    private final AtomicLong rerankCalls = new AtomicLong(0);
+
+    /**
+     * 时间预算耗尽的 Rerank 次数 (Rerank count that ran out of time budget)
+     */
+    private final AtomicLong rerankBudgetExceeded = new AtomicLong(0);
+
+    /**
+     * 已打分的候选总数 (Total scored candidates)
+     */
+    private final AtomicLong rerankScoredCandidates = new AtomicLong(0);
+
+    /**
+     * 因预算耗尽保持原顺序的候选总数 (Total candidates kept in original order because the budget ran out)
+     */
+    private final AtomicLong rerankUnscoredCandidates = new AtomicLong(0);
+
+    /**
+     * Rerank 总延迟（毫秒）(Total rerank latency in milliseconds)
+     */
+    private final AtomicLong rerankTotalLatencyMs = new AtomicLong(0);
+
+    /**
+     * Rerank 最大延迟（毫秒）(Max rerank latency in milliseconds)
+     */
+    private final AtomicLong rerankMaxLatencyMs = new AtomicLong(0);
+
+    /**
+     * 最近 Rerank 延迟样本（环形缓冲）(Recent rerank latency samples, ring buffer)
+     */
+    private final AtomicLongArray rerankLatencyWindow = new AtomicLongArray(RERANK_WINDOW);
+
+    /**
+     * 记录一次 Rerank (Record one rerank)
+     *
+     * @param latencyMs 延迟时间（毫秒）(Latency time in milliseconds)
+     * @param scored 已打分的候选数 (Scored candidate count)
+     * @param unscored 未打分、保持原顺序的候选数 (Unscored candidates kept in original order)
+     */
+    public void recordRerank(long latencyMs, int scored, int unscored) {
+        long call = rerankCalls.getAndIncrement();
+        rerankLatencyWindow.set((int) (call % RERANK_WINDOW), latencyMs);
+        rerankTotalLatencyMs.addAndGet(latencyMs);
+        rerankMaxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+        rerankScoredCandidates.addAndGet(scored);
+        rerankUnscoredCandidates.addAndGet(unscored);
+        if (unscored > 0) {
+            rerankBudgetExceeded.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取 Rerank 平均延迟 (Get average rerank latency)
+     */
+    public double getRerankAvgLatencyMs() {
+        long calls = rerankCalls.get();
+        return calls > 0 ? (double) rerankTotalLatencyMs.get() / calls : 0.0;
+    }
+
+    /**
+     * 获取最近窗口内的 Rerank 延迟分位数 (Get rerank latency percentile over the recent window)
+     *
+     * @param percentile 分位数，范围 (0, 100] (Percentile, range (0, 100])
+     * @return 延迟（毫秒）(Latency in milliseconds)
+     */
+    public long getRerankLatencyPercentile(double percentile) {
+        int size = (int) Math.min(rerankCalls.get(), RERANK_WINDOW);
+        if (size == 0) {
+            return 0;
+        }
+        long[] samples = new long[size];
+        for (int i = 0; i < size; i++) {
+            samples[i] = rerankLatencyWindow.get(i);
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return samples[Math.max(0, Math.min(index, size - 1))];
+    }
+
+    /**
+     * 获取 Rerank 次数
+     */
+    public long getRerankCalls() {
+        return rerankCalls.get();
+    }
+
+    /**
+     * 获取时间预算耗尽的 Rerank 次数
+     */
+    public long getRerankBudgetExceeded() {
+        return rerankBudgetExceeded.get();
+    }
+
+    /**
+     * 获取 Rerank 最大延迟
+     */
+    public long getRerankMaxLatencyMs() {
+        return rerankMaxLatencyMs.get();
+    }
+
+    /**
+     * 获取已打分的候选总数
+     */
+    public long getRerankScoredCandidates() {
+        return rerankScoredCandidates.get();
+    }
+
+    /**
+     * 获取未打分的候选总数
+     */
+    public long getRerankUnscoredCandidates() {
+        return rerankUnscoredCandidates.get();
+    }
+
     /**
      * 记录一次成功调用 (Record a successful call)
      * 
@@ -181,6 +306,15 @@ public class PPLMetrics {
         cacheMisses.set(0);
         totalCost.reset();
         totalTokens.set(0);
+        rerankCalls.set(0);
+        rerankBudgetExceeded.set(0);
+        rerankScoredCandidates.set(0);
+        rerankUnscoredCandidates.set(0);
+        rerankTotalLatencyMs.set(0);
+        rerankMaxLatencyMs.set(0);
+        for (int i = 0; i < RERANK_WINDOW; i++) {
+            rerankLatencyWindow.set(i, 0);
+        }
     }
 
     /**
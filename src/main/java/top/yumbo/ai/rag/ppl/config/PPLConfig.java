@@ -97,6 +97,12 @@ public class PPLConfig {
          */
         private int maxBatchSize = 8;
 
+        /**
+         * 单次批处理的最大 Token 数（含填充），用于限制 logits 内存
+         * Max padded tokens per batch, bounds the logits memory of one session run
+         */
+        private int maxBatchTokens = 1024;
+
         /**
          * 是否启用缓存
          */
@@ -53,13 +53,23 @@ public class RerankConfig {
     private boolean async = true;
 
     /**
-     * Rerank 超时时间（毫秒）
-     * Rerank timeout time (milliseconds)
-     * 防止 Rerank 耗时过长影响用户体验
-     * Prevent Rerank from taking too long and affecting user experience
+     * Rerank 超时时间（毫秒），即单次请求的时间预算
+     * Rerank timeout time (milliseconds), i.e. the per-request time budget
+     * 防止 Rerank 耗时过长影响用户体验；预算用完时未打分的候选保持原始混合检索顺序
+     * Prevent Rerank from taking too long and affecting user experience;
+     * candidates not scored when the budget runs out keep their original hybrid order
      */
     private int timeout = 5000;
 
+    /**
+     * Rerank 推理线程池大小（并发打分的批次数）
+     * Size of the rerank inference pool (number of batches scored concurrently)
+     *
+     * 建议值：1 - 4，过大会与检索、向量推理争抢 CPU
+     * Recommended values: 1 - 4, larger values compete with retrieval and embedding for CPU
+     */
+    private int parallelism = 2;
+
     /**
      * 文档内容截断长度（字符数）
      * Document content truncation length (character count)
@@ -85,6 +95,9 @@ public class RerankConfig {
         if (timeout <= 0) {
             throw new IllegalArgumentException("timeout must be positive");
         }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
         if (contentTruncateLength <= 0) {
             throw new IllegalArgumentException("contentTruncateLength must be positive");
         }
@@ -23,6 +23,8 @@ import jakarta.annotation.PreDestroy;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -54,6 +56,9 @@ public class PPLOnnxService implements PPLService {
     // PPL 缓存
     private Cache<String, Double> pplCache;
 
+    // Rerank 推理线程池（有界）(Bounded rerank inference pool)
+    private ThreadPoolExecutor rerankExecutor;
+
     // 模型配置（从模型输入推断）(Model config inferred from model inputs)
     private int numLayers = 0;           // transformer 层数 (number of transformer layers)
     private int numHeads = 0;            // 注意力头数 (number of attention heads)
@@ -65,6 +70,19 @@ public class PPLOnnxService implements PPLService {
         this.metrics = new PPLMetrics();
     }
 
+    /**
+     * 使用已加载的会话和分词器构建服务，不读取模型文件、不启用 PPL 缓存（供测试使用）
+     * (Build the service from an already loaded session and tokenizer, without reading model files
+     * or enabling the PPL cache; used by tests)
+     */
+    PPLOnnxService(PPLConfig config, OrtEnvironment env, OrtSession session, HuggingFaceTokenizer tokenizer) {
+        this(config);
+        this.env = env;
+        this.session = session;
+        this.tokenizer = tokenizer;
+        this.rerankExecutor = createRerankExecutor();
+    }
+
     @PostConstruct
     public void init() {
         log.info(I18N.get("ppl_onnx.log.init_start"));
@@ -104,6 +122,11 @@ public class PPLOnnxService implements PPLService {
                         onnxConfig.getCacheSize(), onnxConfig.getCacheTtl()));
             }
 
+            // 5. 初始化 Rerank 推理线程池 (Initialize rerank inference pool)
+            if (this.rerankExecutor == null) {
+                this.rerankExecutor = createRerankExecutor();
+            }
+
             log.info(I18N.get("ppl_onnx.log.init_success"));
 
         } catch (Exception e) {
@@ -112,6 +135,27 @@ public class PPLOnnxService implements PPLService {
         }
     }
 
+    /**
+     * 创建有界的 Rerank 推理线程池，队列满时拒绝提交
+     * (Create the bounded rerank inference pool, rejecting submissions when the queue is full)
+     */
+    private ThreadPoolExecutor createRerankExecutor() {
+        int parallelism = Math.max(1, config.getReranking().getParallelism());
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                parallelism, parallelism,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(parallelism * 16),
+                r -> {
+                    Thread thread = new Thread(r, "PPLRerank-" + threadCounter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * 打印模型输入输出信息，用于诊断
      * (Print model input/output info for diagnosis)
@@ -193,46 +237,158 @@ public class PPLOnnxService implements PPLService {
         if (text == null || text.trim().isEmpty()) {
             return Double.MAX_VALUE;
         }
+        return calculatePerplexityBatch(Collections.singletonList(text)).get(0);
+    }
 
-        // 检查缓存 (Check cache)
-        if (pplCache != null) {
-            Double cached = pplCache.getIfPresent(text);
-            if (cached != null) {
-                metrics.recordCacheHit();
-                return cached;
+    /**
+     * 批量计算困惑度（按长度分桶 + 填充 + 注意力掩码）
+     * (Batch perplexity calculation with length bucketing, padding and attention masks)
+     *
+     * 缓存按单条文本命中；未命中的文本去重后按 Token 长度排序分桶，
+     * 每个桶右侧填充到桶内最长长度，一次 session.run 计算整桶
+     * (Cache is consulted per text; misses are de-duplicated, sorted by token length and bucketed,
+     * each bucket is right-padded to its longest row and scored with a single session run)
+     *
+     * @param texts 文本列表 (list of texts)
+     * @return 与输入顺序一致的困惑度列表 (perplexities in input order)
+     * @throws PPLException 计算失败时抛出 (thrown when calculation fails)
+     */
+    public List<Double> calculatePerplexityBatch(List<String> texts) throws PPLException {
+        Double[] results = new Double[texts.size()];
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+
+        // 1. 空文本与缓存命中直接返回 (Blank texts and cache hits are resolved directly)
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.trim().isEmpty()) {
+                results[i] = Double.MAX_VALUE;
+                continue;
             }
-            metrics.recordCacheMiss();
+            if (pplCache != null) {
+                Double cached = pplCache.getIfPresent(text);
+                if (cached != null) {
+                    metrics.recordCacheHit();
+                    results[i] = cached;
+                    continue;
+                }
+                metrics.recordCacheMiss();
+            }
+            pending.computeIfAbsent(text, k -> new ArrayList<>()).add(i);
         }
 
-        long startTime = System.currentTimeMillis();
-        List<OnnxTensor> tensorsToClose = new ArrayList<>();
+        if (!pending.isEmpty()) {
+            // 2. Tokenize 并按长度分桶 (Tokenize and bucket by length)
+            List<TokenizedText> tokenized = new ArrayList<>(pending.size());
+            for (String text : pending.keySet()) {
+                Encoding encoding = tokenizer.encode(text);
+                tokenized.add(new TokenizedText(text, encoding.getIds()));
+            }
 
-        try {
-            // 1. Tokenize - 将文本转换为 Token IDs (Convert text to Token IDs)
-            Encoding encoding = tokenizer.encode(text);
-            long[] inputIds = encoding.getIds();
-            long[] attentionMask = encoding.getAttentionMask();
+            for (List<TokenizedText> bucket : bucketByLength(tokenized)) {
+                double[] ppls = runBatch(bucket);
+                for (int row = 0; row < bucket.size(); row++) {
+                    String text = bucket.get(row).text;
+                    if (pplCache != null) {
+                        pplCache.put(text, ppls[row]);
+                    }
+                    for (int index : pending.get(text)) {
+                        results[index] = ppls[row];
+                    }
+                }
+            }
+        }
 
-            if (inputIds.length == 0) {
-                return Double.MAX_VALUE;
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 覆盖默认的逐条实现，走批量推理
+     * (Override the default one-by-one implementation with batched inference)
+     */
+    @Override
+    public Map<String, Double> batchCalculatePerplexity(List<String> texts) {
+        Map<String, Double> results = new HashMap<>();
+        try {
+            List<Double> ppls = calculatePerplexityBatch(texts);
+            for (int i = 0; i < texts.size(); i++) {
+                results.put(texts.get(i), ppls.get(i));
+            }
+        } catch (PPLException e) {
+            // 失败时返回最大值 (Return maximum value on failure)
+            for (String text : texts) {
+                results.put(text, Double.MAX_VALUE);
             }
+        }
+        return results;
+    }
 
-            // 2. 准备 ONNX 输入 (Prepare ONNX inputs)
-            Map<String, OnnxTensor> inputs = new HashMap<>();
-            int seqLen = inputIds.length;
+    /**
+     * 按 Token 长度分桶
+     * (Bucket tokenized texts by length)
+     *
+     * 排序后相邻文本长度接近，填充浪费小；桶大小受 maxBatchSize 和 maxBatchTokens 限制
+     * (Sorting keeps neighbouring lengths close so padding waste is small;
+     * bucket size is bounded by maxBatchSize and maxBatchTokens)
+     */
+    private List<List<TokenizedText>> bucketByLength(List<TokenizedText> tokenized) {
+        PPLConfig.OnnxConfig onnxConfig = config.getOnnx();
+        int maxBatchSize = Math.max(1, onnxConfig.getMaxBatchSize());
+        int maxBatchTokens = Math.max(1, onnxConfig.getMaxBatchTokens());
+
+        List<TokenizedText> sorted = new ArrayList<>(tokenized);
+        sorted.sort(Comparator.comparingInt(t -> t.ids.length));
+
+        List<List<TokenizedText>> buckets = new ArrayList<>();
+        List<TokenizedText> current = new ArrayList<>();
+        for (TokenizedText item : sorted) {
+            // 升序排列，当前文本即为加入后的桶内最长长度 (Ascending order: this item is the new longest row)
+            int paddedTokens = (current.size() + 1) * item.ids.length;
+            if (!current.isEmpty() && (current.size() >= maxBatchSize || paddedTokens > maxBatchTokens)) {
+                buckets.add(current);
+                current = new ArrayList<>();
+            }
+            current.add(item);
+        }
+        if (!current.isEmpty()) {
+            buckets.add(current);
+        }
+        return buckets;
+    }
 
-            // 将 inputIds 转换为 [1, seq_len] 的张量 (Convert to [1, seq_len] tensor)
-            long[][] inputIdsArray = new long[1][seqLen];
-            inputIdsArray[0] = inputIds;
+    /**
+     * 对一个桶执行一次推理，返回每行的困惑度
+     * (Run one inference for a bucket and return per-row perplexity)
+     *
+     * 采用右侧填充：因果注意力下真实 Token 的 logits 不受其后填充位置影响
+     * (Right padding: with causal attention, logits of real tokens are unaffected by trailing padding)
+     */
+    private double[] runBatch(List<TokenizedText> bucket) throws PPLException {
+        long startTime = System.currentTimeMillis();
+        List<OnnxTensor> tensorsToClose = new ArrayList<>();
+        int batchSize = bucket.size();
+        double[] ppls = new double[batchSize];
 
-            long[][] attentionMaskArray = new long[1][seqLen];
-            attentionMaskArray[0] = attentionMask;
+        try {
+            int seqLen = 0;
+            for (TokenizedText item : bucket) {
+                seqLen = Math.max(seqLen, item.ids.length);
+            }
+            if (seqLen == 0) {
+                Arrays.fill(ppls, Double.MAX_VALUE);
+                return ppls;
+            }
 
-            // 生成 position_ids [1, seq_len]，值为 0, 1, 2, ..., seq_len-1
-            // (Generate position_ids [1, seq_len], values are 0, 1, 2, ..., seq_len-1)
-            long[][] positionIdsArray = new long[1][seqLen];
-            for (int i = 0; i < seqLen; i++) {
-                positionIdsArray[0][i] = i;
+            // 1. 构建填充后的 [batch, seq_len] 输入 (Build padded [batch, seq_len] inputs)
+            long[][] inputIdsArray = new long[batchSize][seqLen];
+            long[][] attentionMaskArray = new long[batchSize][seqLen];
+            long[][] positionIdsArray = new long[batchSize][seqLen];
+            for (int row = 0; row < batchSize; row++) {
+                long[] ids = bucket.get(row).ids;
+                System.arraycopy(ids, 0, inputIdsArray[row], 0, ids.length);
+                for (int i = 0; i < ids.length; i++) {
+                    attentionMaskArray[row][i] = 1;
+                    positionIdsArray[row][i] = i;
+                }
             }
 
             OnnxTensor inputIdsTensor = OnnxTensor.createTensor(env, inputIdsArray);
@@ -243,79 +399,88 @@ public class PPLOnnxService implements PPLService {
             tensorsToClose.add(attentionMaskTensor);
             tensorsToClose.add(positionIdsTensor);
 
+            Map<String, OnnxTensor> inputs = new HashMap<>();
             inputs.put("input_ids", inputIdsTensor);
             inputs.put("attention_mask", attentionMaskTensor);
             inputs.put("position_ids", positionIdsTensor);
 
-            // 3. 如果模型使用 KV Cache，添加空的 past_key_values
+            // 2. 如果模型使用 KV Cache，添加空的 past_key_values
             // (If model uses KV Cache, add empty past_key_values)
             if (useKVCache) {
-                addEmptyKVCache(inputs, tensorsToClose);
+                addEmptyKVCache(inputs, tensorsToClose, batchSize);
             }
 
             // 3. 模型推理 (Model inference)
             try (OrtSession.Result results = session.run(inputs)) {
-                // 获取 logits（模型输出）(Get logits - model output)
-                OnnxValue logitsValue = results.get(0);
-                float[][][] logits = (float[][][]) logitsValue.getValue();
-
-                // 4. 计算困惑度 (Calculate perplexity)
-                double totalLoss = 0.0;
-                int validTokens = 0;
-
-                // 对每个位置计算 cross-entropy loss (Calculate cross-entropy loss for each position)
-                for (int i = 0; i < inputIds.length - 1; i++) {
-                    int targetId = (int) inputIds[i + 1];
-                    float[] probs = logits[0][i];
-
-                    // Softmax 归一化 (Softmax normalization)
-                    float maxLogit = Float.NEGATIVE_INFINITY;
-                    for (float logit : probs) {
-                        maxLogit = Math.max(maxLogit, logit);
-                    }
-
-                    double sumExp = 0.0;
-                    for (float logit : probs) {
-                        sumExp += Math.exp(logit - maxLogit);
-                    }
-
-                    double logProb = probs[targetId] - maxLogit - Math.log(sumExp);
-                    totalLoss -= logProb;  // 等价于 += -logProb (equivalent to += -logProb)
-                    validTokens++;
-                }
+                // logits 形状 [batch, seq_len, vocab]，按扁平缓冲区读取避免嵌套数组拷贝
+                // (logits shape [batch, seq_len, vocab], read as a flat buffer to avoid nested array copies)
+                OnnxTensor logitsTensor = (OnnxTensor) results.get(0);
+                long[] shape = logitsTensor.getInfo().getShape();
+                int vocabSize = (int) shape[2];
+                java.nio.FloatBuffer logits = logitsTensor.getFloatBuffer();
+
+                // 4. 逐行计算困惑度，仅统计真实 Token (Per-row perplexity over real tokens only)
+                for (int row = 0; row < batchSize; row++) {
+                    long[] ids = bucket.get(row).ids;
+                    double totalLoss = 0.0;
+                    int validTokens = 0;
+
+                    for (int i = 0; i < ids.length - 1; i++) {
+                        int targetId = (int) ids[i + 1];
+                        int offset = (row * seqLen + i) * vocabSize;
+
+                        // Softmax 归一化 (Softmax normalization)
+                        float maxLogit = Float.NEGATIVE_INFINITY;
+                        for (int v = 0; v < vocabSize; v++) {
+                            maxLogit = Math.max(maxLogit, logits.get(offset + v));
+                        }
 
-                // PPL = exp(average loss)
-                double ppl = validTokens > 0 ? Math.exp(totalLoss / validTokens) : Double.MAX_VALUE;
+                        double sumExp = 0.0;
+                        for (int v = 0; v < vocabSize; v++) {
+                            sumExp += Math.exp(logits.get(offset + v) - maxLogit);
+                        }
 
-                // 清理资源 (Clean up resources)
-                for (OnnxTensor tensor : tensorsToClose) {
-                    try {
-                        tensor.close();
-                    } catch (Exception ignored) {}
-                }
+                        double logProb = logits.get(offset + targetId) - maxLogit - Math.log(sumExp);
+                        totalLoss -= logProb;  // 等价于 += -logProb (equivalent to += -logProb)
+                        validTokens++;
+                    }
 
-                // 缓存结果 (Cache result)
-                if (pplCache != null) {
-                    pplCache.put(text, ppl);
+                    // PPL = exp(average loss)
+                    ppls[row] = validTokens > 0 ? Math.exp(totalLoss / validTokens) : Double.MAX_VALUE;
                 }
-
-                metrics.recordSuccess(System.currentTimeMillis() - startTime);
-                return ppl;
             }
 
+            metrics.recordSuccess(System.currentTimeMillis() - startTime);
+            return ppls;
+
         } catch (Exception e) {
-            // 确保清理资源 (Ensure cleanup)
+            metrics.recordFailure(System.currentTimeMillis() - startTime);
+            String sample = bucket.get(0).text;
+            log.error(I18N.get("ppl_onnx.log.calc_ppl_failed",
+                    sample.substring(0, Math.min(50, sample.length()))), e);
+            throw new PPLException(PPLProviderType.ONNX,
+                    I18N.get("ppl_onnx.error.calc_ppl_failed"), e);
+        } finally {
+            // 清理资源 (Clean up resources)
             for (OnnxTensor tensor : tensorsToClose) {
                 try {
                     tensor.close();
                 } catch (Exception ignored) {}
             }
+        }
+    }
 
-            metrics.recordFailure(System.currentTimeMillis() - startTime);
-            log.error(I18N.get("ppl_onnx.log.calc_ppl_failed",
-                    text.substring(0, Math.min(50, text.length()))), e);
-            throw new PPLException(PPLProviderType.ONNX,
-                    I18N.get("ppl_onnx.error.calc_ppl_failed"), e);
+    /**
+     * 已分词的文本
+     * (Tokenized text)
+     */
+    private static class TokenizedText {
+        final String text;  // 原文 (original text)
+        final long[] ids;   // Token IDs
+
+        TokenizedText(String text, long[] ids) {
+            this.text = text;
+            this.ids = ids;
         }
     }
 
@@ -331,9 +496,10 @@ public class PPLOnnxService implements PPLService {
      *
      * @param inputs 输入映射 (input map)
      * @param tensorsToClose 需要清理的张量列表 (list of tensors to close)
+     * @param batchSize 批大小 (batch size)
      */
-    private void addEmptyKVCache(Map<String, OnnxTensor> inputs, List<OnnxTensor> tensorsToClose)
-            throws OrtException {
+    private void addEmptyKVCache(Map<String, OnnxTensor> inputs, List<OnnxTensor> tensorsToClose,
+                                 int batchSize) throws OrtException {
         // 为每一层创建空的 key 和 value 张量
         // (Create empty key and value tensors for each layer)
         for (int layer = 0; layer < numLayers; layer++) {
@@ -341,9 +507,9 @@ public class PPLOnnxService implements PPLService {
             String valueName = "past_key_values." + layer + ".value";
 
             // 使用 DirectFloatBuffer 创建零维度张量
-            // 形状: [batch=1, num_heads, seq_len=0, head_dim]
-            // 总元素数: 1 * num_heads * 0 * head_dim = 0
-            long[] shape = new long[]{1, numHeads, 0, headDim};
+            // 形状: [batch, num_heads, seq_len=0, head_dim]
+            // 总元素数: batch * num_heads * 0 * head_dim = 0
+            long[] shape = new long[]{batchSize, numHeads, 0, headDim};
 
             // 创建直接缓冲区（容量为 0）
             java.nio.FloatBuffer emptyBuffer = java.nio.ByteBuffer
@@ -405,11 +571,19 @@ public class PPLOnnxService implements PPLService {
                 coarseChunks.add(sentences);
             }
 
-            // 3. 对每个粗块进行 PPL 精细切分
+            // 3. 一次批量计算全部句子的 PPL（粗块重叠的句子只计算一次）
+            // (Batch-score every sentence once; sentences shared by overlapping coarse chunks are scored once)
+            Map<String, Double> pplBySentence = new HashMap<>();
+            List<Double> sentencePpls = calculatePerplexityBatch(sentences);
+            for (int i = 0; i < sentences.size(); i++) {
+                pplBySentence.put(sentences.get(i), sentencePpls.get(i));
+            }
+
+            // 4. 对每个粗块进行 PPL 精细切分
             // (Fine-chunk each coarse chunk using PPL)
             int chunkIndex = 0;
             for (List<String> coarseChunk : coarseChunks) {
-                List<DocumentChunk> fineChunks = pplBasedChunk(coarseChunk, config);
+                List<DocumentChunk> fineChunks = pplBasedChunk(coarseChunk, config, pplBySentence);
 
                 // 设置索引 (Set index)
                 for (DocumentChunk chunk : fineChunks) {
@@ -663,10 +837,12 @@ public class PPLOnnxService implements PPLService {
      *
      * @param sentences 句子列表 (list of sentences)
      * @param config 分块配置 (chunk configuration)
+     * @param pplBySentence 预先批量计算的句子 PPL (sentence PPL precomputed in batch)
      * @return 文档块列表 (list of document chunks)
      * @throws PPLException PPL计算异常 (PPL计算异常)
      */
-    private List<DocumentChunk> pplBasedChunk(List<String> sentences, ChunkConfig config) throws PPLException {
+    private List<DocumentChunk> pplBasedChunk(List<String> sentences, ChunkConfig config,
+                                              Map<String, Double> pplBySentence) throws PPLException {
         List<DocumentChunk> chunks = new ArrayList<>();
 
         if (sentences.isEmpty()) {
@@ -680,11 +856,20 @@ public class PPLOnnxService implements PPLService {
             log.debug(I18N.get("log.onnx.detected_image_positions", imagePositions.size()));
         }
 
-        // 计算每个句子的 PPL
-        List<Double> pplScores = new ArrayList<>();
+        // 取每个句子的 PPL（缺失时补一次批量计算）
+        List<String> missing = sentences.stream()
+                .filter(sentence -> !pplBySentence.containsKey(sentence))
+                .distinct()
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            List<Double> missingPpls = calculatePerplexityBatch(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                pplBySentence.put(missing.get(i), missingPpls.get(i));
+            }
+        }
+        List<Double> pplScores = new ArrayList<>(sentences.size());
         for (String sentence : sentences) {
-            double ppl = calculatePerplexity(sentence);
-            pplScores.add(ppl);
+            pplScores.add(pplBySentence.get(sentence));
         }
 
         // 找到 PPL 突变点（考虑图片位置）
@@ -846,6 +1031,12 @@ public class PPLOnnxService implements PPLService {
      * 使用困惑度对候选文档重新排序，PPL 越低的文档排名越靠前
      * (Rerank candidate documents using perplexity, lower PPL ranks higher)
      *
+     * 前 K 个候选按原始顺序切成批次，在有界推理线程池中并发打分，整体受 timeout 时间预算约束；
+     * 预算用完时未完成打分的候选保持原始混合检索位置，只有已打分的候选在它们占据的位置之间重排
+     * (The top-K candidates are split into batches in original order and scored concurrently on a bounded
+     * inference pool under the timeout budget; when the budget runs out, unscored candidates keep their
+     * original hybrid positions and only scored candidates are reordered among the slots they occupy)
+     *
      * @param question 用户问题 (user question)
      * @param candidates 候选文档列表 (list of candidate documents)
      * @param config 重排序配置 (rerank configuration)
@@ -859,6 +1050,9 @@ public class PPLOnnxService implements PPLService {
         }
 
         long startTime = System.currentTimeMillis();
+        long deadline = startTime + config.getTimeout();
+        List<Future<List<Double>>> futures = new ArrayList<>();
+        boolean interrupted = false;
 
         try {
             // 1. 选择前 K 个文档进行重排序 (Select top K documents for reranking)
@@ -866,19 +1060,70 @@ public class PPLOnnxService implements PPLService {
             List<Document> toRerank = candidates.subList(0, topK);
             List<Document> remaining = candidates.subList(topK, candidates.size());
 
-            // 2. 计算每个文档的 PPL 分数 (Calculate PPL score for each document)
-            List<DocumentWithScore> scoredDocs = new ArrayList<>();
-
+            // 2. 截断内容以控制成本 (Truncate content to control cost)
+            List<String> contents = new ArrayList<>(topK);
             for (Document doc : toRerank) {
-                String content = doc.getContent();
-
-                // 截断内容以控制成本 (Truncate content to control cost)
+                String content = doc.getContent() != null ? doc.getContent() : "";
                 if (content.length() > config.getContentTruncateLength()) {
                     content = content.substring(0, config.getContentTruncateLength());
                 }
+                contents.add(content);
+            }
+
+            // 3. 按原始顺序切批，提交到推理线程池 (Split into batches in original order and submit to the pool)
+            int parallelism = Math.max(1, config.getParallelism());
+            int batchSize = Math.max(1, Math.min(this.config.getOnnx().getMaxBatchSize(),
+                    (topK + parallelism - 1) / parallelism));
+            for (int from = 0; from < topK; from += batchSize) {
+                List<String> batch = contents.subList(from, Math.min(from + batchSize, topK));
+                try {
+                    futures.add(rerankExecutor.submit(() -> calculatePerplexityBatch(batch)));
+                } catch (RejectedExecutionException e) {
+                    // 线程池已满：该批次不打分，保持原顺序 (Pool saturated: batch stays unscored in original order)
+                    futures.add(null);
+                }
+            }
+
+            // 4. 在时间预算内收集结果 (Collect results within the time budget)
+            Double[] ppls = new Double[topK];
+            for (int b = 0; b < futures.size() && !interrupted; b++) {
+                Future<List<Double>> future = futures.get(b);
+                if (future == null) {
+                    continue;
+                }
+                long waitMs = deadline - System.currentTimeMillis();
+                try {
+                    List<Double> batchPpls = waitMs > 0
+                            ? future.get(waitMs, TimeUnit.MILLISECONDS)
+                            : (future.isDone() ? future.get() : null);
+                    if (batchPpls == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < batchPpls.size(); i++) {
+                        ppls[b * batchSize + i] = batchPpls.get(i);
+                    }
+                } catch (TimeoutException e) {
+                    // 预算耗尽，后续批次仍可能已完成，继续收集已完成的 (Budget exhausted, still collect completed batches)
+                } catch (InterruptedException e) {
+                    // 调用线程被中断：恢复中断标志，停止等待，已打分的批次照常重排
+                    // (Caller interrupted: restore the flag, stop waiting and rerank the batches scored so far)
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    log.warn(I18N.get("ppl_onnx.log.rerank_batch_failed", b, e.getCause().getMessage()));
+                }
+            }
 
-                // 计算 PPL (Calculate PPL)
-                double ppl = calculatePerplexity(content);
+            // 5. 计算已打分文档的混合分数 (Calculate hybrid score for scored documents)
+            List<Integer> scoredSlots = new ArrayList<>();
+            List<DocumentWithScore> scoredDocs = new ArrayList<>();
+
+            for (int i = 0; i < topK; i++) {
+                if (ppls[i] == null) {
+                    continue;
+                }
+                Document doc = toRerank.get(i);
+                double ppl = ppls[i];
 
                 // PPL 转换为分数：分数越高越好，PPL 越低越好
                 // (Convert PPL to score: higher score is better, lower PPL is better)
@@ -901,25 +1146,42 @@ public class PPLOnnxService implements PPLService {
                     String.format("%.3f", pplScore),
                     String.format("%.3f", finalScore)));
 
+                scoredSlots.add(i);
                 scoredDocs.add(new DocumentWithScore(doc, finalScore));
             }
 
-            // 3. 重新排序 (Re-sort)
+            // 6. 已打分文档在其占据的位置间重排，未打分文档保持原位
+            // (Scored documents are reordered among their own slots, unscored ones keep their positions)
             scoredDocs.sort((a, b) -> Double.compare(b.score, a.score));
-
-            // 4. 合并结果 (Merge results)
-            List<Document> reranked = scoredDocs.stream()
-                    .map(ds -> ds.document)
-                    .collect(Collectors.toList());
+            List<Document> reranked = new ArrayList<>(toRerank);
+            for (int i = 0; i < scoredSlots.size(); i++) {
+                reranked.set(scoredSlots.get(i), scoredDocs.get(i).document);
+            }
             reranked.addAll(remaining);
 
-            metrics.recordSuccess(System.currentTimeMillis() - startTime);
+            long elapsed = System.currentTimeMillis() - startTime;
+            int unscored = topK - scoredDocs.size();
+            if (unscored > 0) {
+                log.info(I18N.get("ppl_onnx.log.rerank_budget_exceeded",
+                        config.getTimeout(), scoredDocs.size(), unscored));
+            }
+            metrics.recordRerank(elapsed, scoredDocs.size(), unscored);
+            metrics.recordSuccess(elapsed);
             return reranked;
 
         } catch (Exception e) {
             metrics.recordFailure(System.currentTimeMillis() - startTime);
             throw new PPLException(PPLProviderType.ONNX,
                     I18N.get("ppl_onnx.error.rerank_failed"), e);
+        } finally {
+            // 未开始的批次直接取消；已在运行的批次完成后仍会写入缓存，调用线程被中断时一并中断
+            // (Cancel batches that have not started; running ones still populate the cache when done,
+            // unless the caller was interrupted, in which case they are interrupted too)
+            for (Future<List<Double>> future : futures) {
+                if (future != null && !future.isDone()) {
+                    future.cancel(interrupted);
+                }
+            }
         }
     }
 
@@ -1010,6 +1272,11 @@ public class PPLOnnxService implements PPLService {
                 log.info(I18N.get("ppl_onnx.log.tokenizer_closed"));
             }
 
+            // 关闭 Rerank 推理线程池 (Shut down rerank inference pool)
+            if (rerankExecutor != null) {
+                rerankExecutor.shutdownNow();
+            }
+
             // 清理缓存 (Clear cache)
             if (pplCache != null) {
                 pplCache.invalidateAll();
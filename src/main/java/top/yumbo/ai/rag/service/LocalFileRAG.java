@@ -167,6 +167,15 @@ public class LocalFileRAG implements Closeable {
         return document;
     }
 
+    /**
+     * 获取所有文档ID
+     *
+     * @return 存储中的全部文档ID
+     */
+    public List<String> getAllDocumentIds() {
+        return storageEngine.getAllDocumentIds();
+    }
+
     /**
      * 更新文档
      *
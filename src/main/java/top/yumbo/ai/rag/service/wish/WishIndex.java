@@ -0,0 +1,534 @@
+package top.yumbo.ai.rag.service.wish;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import top.yumbo.ai.rag.i18n.I18N;
+import top.yumbo.ai.rag.model.wish.Wish;
+import top.yumbo.ai.rag.model.wish.WishComment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 愿望单专用索引（Dedicated wish index）
+ *
+ * <p>
+ * 愿望和评论各自作为一条 Lucene 文档，状态、分类为带 SortedDocValues 的关键词字段，
+ * 投票数、评论数、点赞数和创建时间为数值 DocValues 字段。列表的过滤、排序、计数、分面统计和翻页都在索引内完成，
+ * 只为当前页读取存储的 JSON
+ * (Each wish and each comment is one Lucene document. Status and category are keyword fields with sorted doc
+ * values; votes, comment count, like count and created time are numeric doc values. Listing filters, sorts,
+ * counts, facets and pages inside the index and only reads the stored JSON of the current page)
+ * </p>
+ *
+ * <p>
+ * 翻页支持 search-after 游标：游标编码上一页最后一条的排序值，深翻页不需要收集前面所有页
+ * (Paging supports search-after cursors that encode the sort values of the last hit, so deep pages do not
+ * collect all previous pages)
+ * </p>
+ *
+ * <p>
+ * 写入走近实时搜索：更新后由后台线程重新打开读取器，写入方只等到自己的修改可见，并发写入共享同一次刷新；
+ * 提交（fsync）按固定间隔和关闭时进行。索引可由 RAG 中的愿望文档重建，进程崩溃最多丢失最后一个提交间隔的索引写入
+ * (Writes use near-real-time search: a background thread reopens the reader after updates, a writer only waits
+ * until its own change is visible, and concurrent writers share one refresh. Commits (fsync) happen on a fixed
+ * interval and on close. The index can be rebuilt from the wish documents in RAG, so a crash loses at most the
+ * index writes of the last commit interval)
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+public class WishIndex implements Closeable {
+
+    public static final String SORT_VOTE_COUNT = "voteCount";
+    public static final String SORT_CREATED_AT = "createdAt";
+
+    private static final String FIELD_KIND = "kind";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_WISH_ID = "wishId";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_CATEGORY = "category";
+    private static final String FIELD_VOTE_COUNT = "voteCount";
+    private static final String FIELD_COMMENT_COUNT = "commentCount";
+    private static final String FIELD_LIKE_COUNT = "likeCount";
+    private static final String FIELD_CREATED_AT = "createdAt";
+    private static final String FIELD_TEXT = "text";
+    private static final String FIELD_JSON = "json";
+
+    private static final String KIND_WISH = "wish";
+    private static final String KIND_COMMENT = "comment";
+
+    // 提交数据中的导入完成标记 (Import-done marker in the commit user data)
+    private static final String COMMIT_IMPORTED = "imported";
+
+    // 读取器最大/最小陈旧时间：无人等待时每秒刷新，有写入等待时立即刷新
+    // (Max/min reader staleness: refresh every second when nobody waits, immediately when a writer waits)
+    private static final double MAX_STALE_SECONDS = 1.0;
+    private static final double MIN_STALE_SECONDS = 0.0;
+    private static final long COMMIT_INTERVAL_SECONDS = 5;
+
+    // 每页上限；更深的翻页走游标 (Page size cap; deeper paging goes through cursors)
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final Directory directory;
+    private final StandardAnalyzer analyzer;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    private final ScheduledExecutorService committer;
+    private final ObjectMapper objectMapper;
+
+    public WishIndex(Path indexPath) throws IOException {
+        this.directory = FSDirectory.open(indexPath);
+        this.analyzer = new StandardAnalyzer();
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+        this.reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager,
+                MAX_STALE_SECONDS, MIN_STALE_SECONDS);
+        this.reopenThread.setName("wish-index-reopen");
+        this.reopenThread.setDaemon(true);
+        this.reopenThread.start();
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wish-index-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.committer.scheduleWithFixedDelay(this::commitQuietly,
+                COMMIT_INTERVAL_SECONDS, COMMIT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        log.info(I18N.get("wish.index.init", indexPath, countWishes()));
+    }
+
+    // ==================== 写入 (Writes) ====================
+
+    /**
+     * 写入或覆盖愿望（Insert or replace a wish）
+     */
+    public void upsertWish(Wish wish) throws IOException {
+        write(new Term(FIELD_ID, wish.getId()), wishDocument(wish));
+    }
+
+    /**
+     * 写入或覆盖评论（Insert or replace a comment）
+     */
+    public void upsertComment(String wishId, WishComment comment) throws IOException {
+        write(new Term(FIELD_ID, comment.getId()), commentDocument(wishId, comment));
+    }
+
+    /**
+     * 批量导入后统一提交，并在提交数据中记录导入已完成（Bulk import with a single commit that marks the import as done）
+     */
+    public void importAll(Collection<Wish> wishes, Map<String, List<WishComment>> commentsByWish) throws IOException {
+        for (Wish wish : wishes) {
+            writer.updateDocument(new Term(FIELD_ID, wish.getId()), wishDocument(wish));
+        }
+        for (Map.Entry<String, List<WishComment>> entry : commentsByWish.entrySet()) {
+            for (WishComment comment : entry.getValue()) {
+                writer.updateDocument(new Term(FIELD_ID, comment.getId()), commentDocument(entry.getKey(), comment));
+            }
+        }
+        writer.setLiveCommitData(Map.of(COMMIT_IMPORTED, Boolean.TRUE.toString()).entrySet());
+        writer.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    /**
+     * 是否已从文档管理系统导入过（索引目录丢失后为 false）
+     * (Whether the import from the document store has run; false again once the index directory is lost)
+     */
+    public boolean isImported() {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (COMMIT_IMPORTED.equals(entry.getKey())) {
+                    return Boolean.parseBoolean(entry.getValue());
+                }
+            }
+        }
+        return false;
+    }
+
+    // ==================== 查询 (Reads) ====================
+
+    /**
+     * 愿望数（Number of wishes）
+     */
+    public int countWishes() throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return searcher.count(kindQuery(KIND_WISH));
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 按 ID 读取愿望（Read a wish by id）
+     */
+    public Wish getWish(String id) throws IOException {
+        return findOne(KIND_WISH, id, Wish.class);
+    }
+
+    /**
+     * 愿望列表，过滤、排序、计数与分面统计都在索引内完成
+     * (Wish listing; filtering, sorting, counting and facets are done in the index)
+     *
+     * @param status   状态过滤，null 表示不过滤（Status filter, null for any）
+     * @param category 分类过滤，null 表示不过滤（Category filter, null for any）
+     * @param keyword  标题和描述中的关键词（Keyword in title and description）
+     * @param sortBy   {@link #SORT_VOTE_COUNT} 或 {@link #SORT_CREATED_AT}（默认）
+     * @param page     页码，提供游标时忽略；超出结果范围时返回空页（Page number, ignored when a cursor is given; an empty
+     *                 page past the end of the results）
+     * @param size     每页大小，限制在 1 到 {@link #MAX_PAGE_SIZE}（Page size, clamped to 1..{@link #MAX_PAGE_SIZE}）
+     * @param cursor   上一页返回的游标（Cursor returned by the previous page）
+     */
+    public WishPage listWishes(String status, String category, String keyword, String sortBy,
+                               int page, int size, String cursor) throws IOException {
+        Query base = baseQuery(keyword);
+        Query filtered = withFilters(base, status, category);
+        Sort sort = wishSort(sortBy);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top;
+            int skip;
+            if (cursor != null && !cursor.isEmpty()) {
+                top = searcher.searchAfter(decodeCursor(cursor, sortBy, searcher.getIndexReader().maxDoc()), filtered, pageSize, sort);
+                skip = 0;
+            } else {
+                // 按 long 计算偏移并以文档数封顶，避免大页码溢出 (Offset in long, capped at the doc count so large pages cannot overflow)
+                int maxDoc = Math.max(1, searcher.getIndexReader().maxDoc());
+                skip = (int) Math.min((long) Math.max(0, page) * pageSize, maxDoc);
+                top = searcher.search(filtered, (int) Math.min((long) skip + pageSize, maxDoc), sort);
+            }
+
+            StoredFields storedFields = searcher.storedFields();
+            List<Wish> wishes = new ArrayList<>(pageSize);
+            ScoreDoc last = null;
+            for (int i = skip; i < top.scoreDocs.length; i++) {
+                last = top.scoreDocs[i];
+                wishes.add(readJson(storedFields, last.doc, Wish.class));
+            }
+
+            WishPage result = new WishPage();
+            result.setWishes(wishes);
+            result.setTotal(searcher.count(filtered));
+            result.setNextCursor(wishes.size() == pageSize ? encodeCursor((FieldDoc) last) : null);
+            // 分面统计忽略自身维度的过滤，便于切换选项（Each facet ignores its own filter so options stay visible）
+            result.setStatusCounts(facetCounts(searcher, withFilters(base, null, category), FIELD_STATUS));
+            result.setCategoryCounts(facetCounts(searcher, withFilters(base, status, null), FIELD_CATEGORY));
+            return result;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 愿望的全部评论，按创建时间升序（All comments of a wish, oldest first）
+     */
+    public List<WishComment> getComments(String wishId) throws IOException {
+        Query query = new BooleanQuery.Builder()
+                .add(kindQuery(KIND_COMMENT), BooleanClause.Occur.FILTER)
+                .add(new TermQuery(new Term(FIELD_WISH_ID, wishId)), BooleanClause.Occur.FILTER)
+                .build();
+        Sort sort = new Sort(new SortField(FIELD_CREATED_AT, SortField.Type.LONG), new SortField(FIELD_ID, SortField.Type.STRING));
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            int count = searcher.count(query);
+            if (count == 0) {
+                return new ArrayList<>();
+            }
+            TopFieldDocs top = searcher.search(query, count, sort);
+            StoredFields storedFields = searcher.storedFields();
+            List<WishComment> comments = new ArrayList<>(top.scoreDocs.length);
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                comments.add(readJson(storedFields, scoreDoc.doc, WishComment.class));
+            }
+            return comments;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 按 ID 读取评论（Read a comment by id）
+     */
+    public WishComment getComment(String commentId) throws IOException {
+        return findOne(KIND_COMMENT, commentId, WishComment.class);
+    }
+
+    /**
+     * 评论所属愿望 ID（Id of the wish a comment belongs to）
+     */
+    public String getCommentWishId(String commentId) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(idQuery(KIND_COMMENT, commentId), 1);
+            if (top.scoreDocs.length == 0) {
+                return null;
+            }
+            return searcher.storedFields().document(top.scoreDocs[0].doc, Set.of(FIELD_WISH_ID)).get(FIELD_WISH_ID);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 提交尚未持久化的写入（Commit writes that are not yet durable）
+     */
+    public void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        committer.shutdown();
+        try {
+            committer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        reopenThread.close();
+        searcherManager.close();
+        if (writer.isOpen()) {
+            writer.commit();
+            writer.close();
+        }
+        directory.close();
+    }
+
+    // ==================== 私有辅助方法 (Private helper methods) ====================
+
+    /**
+     * 写入后等到自己的修改对读取可见，不提交（Write, then wait until the change is visible to reads; no commit）
+     */
+    private void write(Term idTerm, Document doc) throws IOException {
+        long generation = writer.updateDocument(idTerm, doc);
+        try {
+            reopenThread.waitForGeneration(generation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (Exception e) {
+            log.warn(I18N.get("wish.index.commit_failed", e.getMessage()), e);
+        }
+    }
+
+    private Document wishDocument(Wish wish) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_KIND, KIND_WISH, Field.Store.NO));
+        addKeyword(doc, FIELD_ID, wish.getId());
+        addKeyword(doc, FIELD_STATUS, wish.getStatus());
+        addKeyword(doc, FIELD_CATEGORY, wish.getCategory());
+        doc.add(new NumericDocValuesField(FIELD_VOTE_COUNT, valueOf(wish.getVoteCount())));
+        doc.add(new NumericDocValuesField(FIELD_COMMENT_COUNT, valueOf(wish.getCommentCount())));
+        doc.add(new NumericDocValuesField(FIELD_CREATED_AT, epochMillis(wish.getCreatedAt())));
+        doc.add(new TextField(FIELD_TEXT, Objects.toString(wish.getTitle(), "") + " "
+                + Objects.toString(wish.getDescription(), ""), Field.Store.NO));
+        doc.add(new StoredField(FIELD_JSON, objectMapper.writeValueAsBytes(wish)));
+        return doc;
+    }
+
+    private Document commentDocument(String wishId, WishComment comment) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_KIND, KIND_COMMENT, Field.Store.NO));
+        addKeyword(doc, FIELD_ID, comment.getId());
+        doc.add(new StringField(FIELD_WISH_ID, wishId, Field.Store.YES));
+        doc.add(new NumericDocValuesField(FIELD_LIKE_COUNT, valueOf(comment.getLikeCount())));
+        doc.add(new NumericDocValuesField(FIELD_CREATED_AT, epochMillis(comment.getCreatedAt())));
+        // 回复列表在读取时重建，不存储（Replies are rebuilt on read, not stored）
+        List<WishComment> replies = comment.getReplies();
+        comment.setReplies(new ArrayList<>());
+        try {
+            doc.add(new StoredField(FIELD_JSON, objectMapper.writeValueAsBytes(comment)));
+        } finally {
+            comment.setReplies(replies);
+        }
+        return doc;
+    }
+
+    private static void addKeyword(Document doc, String field, String value) {
+        String v = value != null ? value : "";
+        doc.add(new StringField(field, v, Field.Store.NO));
+        doc.add(new SortedDocValuesField(field, new BytesRef(v)));
+    }
+
+    private <T> T findOne(String kind, String id, Class<T> type) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(idQuery(kind, id), 1);
+            return top.scoreDocs.length == 0 ? null : readJson(searcher.storedFields(), top.scoreDocs[0].doc, type);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private <T> T readJson(StoredFields storedFields, int doc, Class<T> type) throws IOException {
+        BytesRef json = storedFields.document(doc, Set.of(FIELD_JSON)).getBinaryValue(FIELD_JSON);
+        return objectMapper.readValue(json.bytes, json.offset, json.length, type);
+    }
+
+    private static Query kindQuery(String kind) {
+        return new TermQuery(new Term(FIELD_KIND, kind));
+    }
+
+    private static Query idQuery(String kind, String id) {
+        return new BooleanQuery.Builder()
+                .add(kindQuery(kind), BooleanClause.Occur.FILTER)
+                .add(new TermQuery(new Term(FIELD_ID, id)), BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    private Query baseQuery(String keyword) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(kindQuery(KIND_WISH), BooleanClause.Occur.FILTER);
+        if (keyword != null && !keyword.isBlank()) {
+            try {
+                builder.add(new QueryParser(FIELD_TEXT, analyzer).parse(QueryParser.escape(keyword.trim())),
+                        BooleanClause.Occur.FILTER);
+            } catch (ParseException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Query withFilters(Query base, String status, String category) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().add(base, BooleanClause.Occur.FILTER);
+        if (status != null) {
+            builder.add(new TermQuery(new Term(FIELD_STATUS, status)), BooleanClause.Occur.FILTER);
+        }
+        if (category != null) {
+            builder.add(new TermQuery(new Term(FIELD_CATEGORY, category)), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    private static Sort wishSort(String sortBy) {
+        SortField createdAt = new SortField(FIELD_CREATED_AT, SortField.Type.LONG, true);
+        SortField id = new SortField(FIELD_ID, SortField.Type.STRING);
+        if (SORT_VOTE_COUNT.equals(sortBy)) {
+            return new Sort(new SortField(FIELD_VOTE_COUNT, SortField.Type.LONG, true), createdAt, id);
+        }
+        // 默认按创建时间倒序 (Default: created time descending)
+        return new Sort(createdAt, id);
+    }
+
+    /**
+     * 按 SortedDocValues 序号计数（Count by sorted doc values ordinal）
+     */
+    private static Map<String, Long> facetCounts(IndexSearcher searcher, Query query, String field) throws IOException {
+        Map<String, Long> counts = new TreeMap<>();
+        Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+            SortedDocValues values = DocValues.getSorted(leaf.reader(), field);
+            long[] ordCounts = new long[values.getValueCount()];
+            Scorer scorer = weight.scorer(leaf);
+            if (scorer == null) {
+                continue;
+            }
+            DocIdSetIterator it = scorer.iterator();
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+                if ((liveDocs == null || liveDocs.get(doc)) && values.advanceExact(doc)) {
+                    ordCounts[values.ordValue()]++;
+                }
+            }
+            for (int ord = 0; ord < ordCounts.length; ord++) {
+                if (ordCounts[ord] > 0) {
+                    counts.merge(values.lookupOrd(ord).utf8ToString(), ordCounts[ord], Long::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static String encodeCursor(FieldDoc last) {
+        StringBuilder cursor = new StringBuilder();
+        for (Object field : last.fields) {
+            if (!cursor.isEmpty()) {
+                cursor.append('\n');
+            }
+            cursor.append(field instanceof BytesRef bytes ? bytes.utf8ToString() : String.valueOf(field));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static FieldDoc decodeCursor(String cursor, String sortBy, int maxDoc) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        int expected = SORT_VOTE_COUNT.equals(sortBy) ? 3 : 2;
+        if (parts.length != expected) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        Object[] fields = new Object[expected];
+        for (int i = 0; i < expected - 1; i++) {
+            fields[i] = Long.parseLong(parts[i]);
+        }
+        fields[expected - 1] = new BytesRef(parts[expected - 1]);
+        // 排序以唯一 ID 收尾，只有游标对应的那条会与之全等；doc 取最大值使它不被当作"之后"的结果
+        // (The sort ends with the unique id, so only the cursor's own hit ties on every field; the largest doc
+        // keeps that hit from counting as "after")
+        return new FieldDoc(Math.max(0, maxDoc - 1), Float.NaN, fields);
+    }
+
+    private static long valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+
+    /**
+     * 一页愿望及其分面统计（One page of wishes with facet counts）
+     */
+    @Data
+    public static class WishPage {
+        private List<Wish> wishes;
+        private long total;
+        private String nextCursor;
+        private Map<String, Long> statusCounts;
+        private Map<String, Long> categoryCounts;
+    }
+}
@@ -1,6 +1,8 @@
 package top.yumbo.ai.rag.service.wish;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import top.yumbo.ai.rag.i18n.I18N;
@@ -26,6 +28,12 @@ import java.util.stream.Collectors;
  * 所有愿望数据存储为 JSON 文档，利用现有的文档管理和 RAG 检索功能
  * (All wish data stored as JSON documents, utilizing existing document management and RAG retrieval)
  *
+ * 列表、排行榜和评论读写走 {@link WishIndex}，在索引内过滤、排序和分页；
+ * 愿望文档（含评论）仍是数据源，索引丢失时由 {@link #initIndex()} 从中重建
+ * (Listing, ranking and comments go through {@link WishIndex}, which filters, sorts and pages in the index; the
+ * wish documents, comments included, remain the source of truth and {@link #initIndex()} rebuilds a lost index
+ * from them)
+ *
  * @author AI Reviewer Team
  * @since 2025-12-12
  */
@@ -34,14 +42,62 @@ import java.util.stream.Collectors;
 public class WishService {
 
     private final SimpleRAGService ragService;
+    private final WishIndex wishIndex;
     private final ObjectMapper objectMapper;
 
     // 文档类型标识 (Document type identifier)
     private static final String DOC_TYPE_WISH = "wish";
 
-    public WishService(SimpleRAGService ragService) {
+    public WishService(SimpleRAGService ragService, WishIndex wishIndex) {
         this.ragService = ragService;
+        this.wishIndex = wishIndex;
         this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    /**
+     * 愿望索引尚未导入时，从文档管理系统导入已有愿望及其评论
+     * (When the wish index has not been imported yet, import existing wishes and their comments from the document
+     * store)
+     *
+     * 早期版本的愿望文档没有设置分类，只在元数据中标记类型，因此遍历全部文档按元数据 type 识别；
+     * 导入完成后索引记录标记，之后启动不再遍历
+     * (Wish documents written by earlier versions carry no category, only the metadata type, so all documents are
+     * scanned and recognised by the metadata type; the index records a marker once imported, so later starts skip
+     * the scan)
+     */
+    @PostConstruct
+    public void initIndex() {
+        try {
+            if (wishIndex.isImported()) {
+                return;
+            }
+            List<Wish> wishes = new ArrayList<>();
+            Map<String, List<WishComment>> comments = new HashMap<>();
+            for (String docId : ragService.getRag().getAllDocumentIds()) {
+                Document doc = ragService.getRag().getDocument(docId);
+                if (doc == null || doc.getMetadata() == null || !DOC_TYPE_WISH.equals(doc.getMetadata().get("type"))) {
+                    continue;
+                }
+                Wish wish = documentToWish(doc);
+                if (wish == null) {
+                    continue;
+                }
+                wishes.add(wish);
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> commentsData = (List<Map<String, Object>>) doc.getMetadata().get("comments");
+                if (commentsData != null) {
+                    comments.put(wish.getId(), commentsData.stream()
+                        .map(this::mapToComment)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()));
+                }
+            }
+            wishIndex.importAll(wishes, comments);
+            log.info(I18N.get("wish.index.imported", wishes.size()));
+        } catch (Exception e) {
+            log.warn(I18N.get("wish.index.import_failed", e.getMessage()), e);
+        }
     }
 
     /**
@@ -72,6 +128,7 @@ public class WishService {
             Document doc = new Document();
             doc.setId(wish.getId());
             doc.setTitle(wish.getTitle());
+            doc.setCategory(DOC_TYPE_WISH);
             doc.setContent(wishJson); // 完整的 JSON 作为内容
 
             // 设置元数据 (Set metadata)
@@ -79,8 +136,9 @@ public class WishService {
             metadata.put("searchableContent", wish.getTitle() + " " + wish.getDescription());
             doc.setMetadata(metadata);
 
-            // 索引到文档管理系统 (Index to document management system)
+            // 索引到文档管理系统和愿望索引 (Index to document management system and wish index)
             ragService.getRag().index(doc);
+            wishIndex.upsertWish(wish);
 
             log.info(I18N.get("wish.submit.success"), wish.getId());
             return toDTO(wish);
@@ -104,49 +162,38 @@ public class WishService {
      */
     public Map<String, Object> getWishes(String status, String category, String sortBy,
                                          String keyword, int page, int size) {
+        return getWishes(status, category, sortBy, keyword, page, size, null);
+    }
+
+    /**
+     * 获取愿望列表，支持 search-after 游标 (Get wish list with a search-after cursor)
+     *
+     * @param cursor 上一页返回的 nextCursor，为空时按页码翻页 (nextCursor of the previous page; page number is used when empty)
+     */
+    public Map<String, Object> getWishes(String status, String category, String sortBy,
+                                         String keyword, int page, int size, String cursor) {
         log.info(I18N.get("wish.list.loading"), status, category);
 
         try {
-            // 构建查询条件 (Build query condition)
-            String query = buildQuery(status, category, keyword);
-
-            // 使用 RAG 检索 (Use RAG retrieval)
-            List<Document> documents = ragService.search(query, 1000); // 先获取较多结果
-
-            // 过滤并转换为 Wish 对象 (Filter and convert to Wish objects)
-            List<Wish> wishes = documents.stream()
-                .filter(doc -> {
-                    Object type = doc.getMetadata().get("type");
-                    return DOC_TYPE_WISH.equals(type);
-                })
-                .map(this::documentToWish)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-            // 额外过滤 (Additional filtering)
-            wishes = filterWishes(wishes, status, category);
-
-            // 排序 (Sort)
-            sortWishes(wishes, sortBy);
-
-            // 分页 (Pagination)
-            int total = wishes.size();
-            int start = page * size;
-            int end = Math.min(start + size, total);
-            List<Wish> pageWishes = wishes.subList(Math.min(start, total), end);
+            WishIndex.WishPage wishPage = wishIndex.listWishes(status, category, keyword, sortBy, page, size, cursor);
 
             // 转换为 DTO (Convert to DTO)
-            List<WishDTO> wishDTOs = pageWishes.stream()
+            List<WishDTO> wishDTOs = wishPage.getWishes().stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
 
             // 构建分页结果 (Build page result)
+            long total = wishPage.getTotal();
             Map<String, Object> result = new HashMap<>();
             result.put("content", wishDTOs);
             result.put("totalElements", total);
             result.put("totalPages", (total + size - 1) / size);
             result.put("currentPage", page);
             result.put("pageSize", size);
+            result.put("nextCursor", wishPage.getNextCursor());
+            result.put("facets", Map.of(
+                "status", wishPage.getStatusCounts(),
+                "category", wishPage.getCategoryCounts()));
 
             log.info(I18N.get("wish.list.success"), total);
             return result;
@@ -316,15 +363,8 @@ public class WishService {
             comment.setContent(request.getContent());
             comment.setCreatedAt(LocalDateTime.now());
 
-            // 评论存储在 wish 的 metadata 中 (Store comments in wish metadata)
-            Map<String, Object> metadata = doc.getMetadata();
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> comments = (List<Map<String, Object>>) metadata.get("comments");
-            if (comments == null) {
-                comments = new ArrayList<>();
-                metadata.put("comments", comments);
-            }
-            comments.add(commentToMap(comment));
+            // 评论作为独立文档存储在愿望索引中 (Store the comment as its own document in the wish index)
+            wishIndex.upsertComment(wishId, comment);
 
             // 更新评论数 (Update comment count)
             wish.setCommentCount(wish.getCommentCount() + 1);
@@ -352,28 +392,19 @@ public class WishService {
         log.info(I18N.get("wish.comment.get_start"), wishId);
 
         try {
-            // 获取愿望文档 (Get wish document)
-            Document doc = ragService.getDocument(wishId);
-            if (doc == null) {
+            // 检查愿望是否存在 (Check the wish exists)
+            if (wishIndex.getWish(wishId) == null) {
                 throw new RuntimeException(I18N.get("wish.not_found", wishId));
             }
 
-            // 从 metadata 读取评论 (Read comments from metadata)
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> commentsData =
-                (List<Map<String, Object>>) doc.getMetadata().get("comments");
+            // 从愿望索引读取评论 (Read comments from the wish index)
+            List<WishComment> comments = wishIndex.getComments(wishId);
 
-            if (commentsData == null || commentsData.isEmpty()) {
+            if (comments.isEmpty()) {
                 log.info(I18N.get("wish.comment.empty"), wishId);
                 return new ArrayList<>();
             }
 
-            // 转换为 WishComment 对象列表 (Convert to WishComment objects)
-            List<WishComment> comments = commentsData.stream()
-                .map(this::mapToComment)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
             // 构建评论树 (Build comment tree)
             List<CommentDTO> commentTree = buildCommentTree(comments);
 
@@ -397,40 +428,13 @@ public class WishService {
         log.info(I18N.get("wish.comment.like_start"), commentId, userId);
 
         try {
-            // 查找包含该评论的所有愿望 (Find all wishes containing the comment)
-            List<Document> allWishes = ragService.search("type:wish", 1000);
-
-            Document targetWishDoc = null;
-            WishComment targetComment = null;
-
-            // 遍历所有愿望，查找评论 (Iterate all wishes to find the comment)
-            for (Document doc : allWishes) {
-                if (!DOC_TYPE_WISH.equals(doc.getMetadata().get("type"))) {
-                    continue;
-                }
-
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> commentsData =
-                    (List<Map<String, Object>>) doc.getMetadata().get("comments");
-
-                if (commentsData != null) {
-                    for (Map<String, Object> commentData : commentsData) {
-                        if (commentId.equals(commentData.get("id"))) {
-                            targetWishDoc = doc;
-                            targetComment = mapToComment(commentData);
-                            break;
-                        }
-                    }
-                }
-
-                if (targetComment != null) {
-                    break;
-                }
-            }
+            // 按评论 ID 直接定位 (Look up the comment by id)
+            WishComment targetComment = wishIndex.getComment(commentId);
+            String wishId = targetComment != null ? wishIndex.getCommentWishId(commentId) : null;
 
             Map<String, Object> result = new HashMap<>();
 
-            if (targetComment == null || targetWishDoc == null) {
+            if (targetComment == null || wishId == null) {
                 result.put("success", false);
                 result.put("message", I18N.get("wish.comment.not_found", commentId));
                 return result;
@@ -453,21 +457,9 @@ public class WishService {
                 result.put("message", I18N.get("wish.comment.liked"));
             }
 
-            // 更新文档 (Update document)
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> commentsData =
-                (List<Map<String, Object>>) targetWishDoc.getMetadata().get("comments");
-
-            // 找到并更新评论 (Find and update the comment)
-            for (int i = 0; i < commentsData.size(); i++) {
-                if (commentId.equals(commentsData.get(i).get("id"))) {
-                    commentsData.set(i, commentToMap(targetComment));
-                    break;
-                }
-            }
-
-            // 重新索引文档 (Re-index document)
-            Wish wish = documentToWish(targetWishDoc);
+            // 更新评论文档，并写回愿望文档中的评论 (Update the comment document and the comments kept in the wish document)
+            wishIndex.upsertComment(wishId, targetComment);
+            Wish wish = wishIndex.getWish(wishId);
             if (wish != null) {
                 wish.setUpdatedAt(LocalDateTime.now());
                 updateWishDocument(wish);
@@ -499,17 +491,9 @@ public class WishService {
         log.info(I18N.get("wish.ranking.loading"), limit);
 
         try {
-            // 获取所有愿望 (Get all wishes)
-            List<Document> documents = ragService.search("type:wish", 1000);
-
-            // 转换并排序 (Convert and sort)
-            List<Wish> wishes = documents.stream()
-                .filter(doc -> DOC_TYPE_WISH.equals(doc.getMetadata().get("type")))
-                .map(this::documentToWish)
-                .filter(Objects::nonNull)
-                .sorted((w1, w2) -> w2.getVoteCount().compareTo(w1.getVoteCount()))
-                .limit(limit)
-                .collect(Collectors.toList());
+            // 在索引内按投票数排序取前 N 条 (Top N by vote count from the index)
+            List<Wish> wishes = wishIndex.listWishes(null, null, null, WishIndex.SORT_VOTE_COUNT, 0, limit, null)
+                .getWishes();
 
             List<WishDTO> result = wishes.stream()
                 .map(this::toDTO)
@@ -526,43 +510,6 @@ public class WishService {
 
     // ==================== 私有辅助方法 (Private helper methods) ====================
 
-    /**
-     * 构建查询语句 (Build query)
-     */
-    private String buildQuery(String status, String category, String keyword) {
-        StringBuilder query = new StringBuilder("type:wish");
-
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            query.append(" ").append(keyword);
-        }
-
-        return query.toString();
-    }
-
-    /**
-     * 过滤愿望 (Filter wishes)
-     */
-    private List<Wish> filterWishes(List<Wish> wishes, String status, String category) {
-        return wishes.stream()
-            .filter(wish -> status == null || status.equals(wish.getStatus()))
-            .filter(wish -> category == null || category.equals(wish.getCategory()))
-            .collect(Collectors.toList());
-    }
-
-    /**
-     * 排序愿望 (Sort wishes)
-     */
-    private void sortWishes(List<Wish> wishes, String sortBy) {
-        if ("voteCount".equals(sortBy)) {
-            wishes.sort((w1, w2) -> w2.getVoteCount().compareTo(w1.getVoteCount()));
-        } else if ("createdAt".equals(sortBy)) {
-            wishes.sort((w1, w2) -> w2.getCreatedAt().compareTo(w1.getCreatedAt()));
-        } else {
-            // 默认按创建时间倒序 (Default: sort by created time descending)
-            wishes.sort((w1, w2) -> w2.getCreatedAt().compareTo(w1.getCreatedAt()));
-        }
-    }
-
     /**
      * 文档转 Wish 对象 (Document to Wish)
      */
@@ -576,7 +523,8 @@ public class WishService {
     }
 
     /**
-     * 更新愿望文档 (Update wish document)
+     * 更新愿望文档，评论一并写入元数据，使文档可独立重建索引
+     * (Update wish document; comments go into its metadata so the index can be rebuilt from documents alone)
      */
     private void updateWishDocument(Wish wish) throws Exception {
         String wishJson = objectMapper.writeValueAsString(wish);
@@ -584,10 +532,16 @@ public class WishService {
         Document doc = new Document();
         doc.setId(wish.getId());
         doc.setTitle(wish.getTitle());
+        doc.setCategory(DOC_TYPE_WISH);
         doc.setContent(wishJson);
-        doc.setMetadata(wish.toMetadata());
+        Map<String, Object> metadata = wish.toMetadata();
+        metadata.put("comments", wishIndex.getComments(wish.getId()).stream()
+            .map(this::commentToMap)
+            .collect(Collectors.toList()));
+        doc.setMetadata(metadata);
 
         ragService.getRag().index(doc); // 重新索引 (Re-index)
+        wishIndex.upsertWish(wish);
     }
 
     /**
@@ -633,7 +587,7 @@ public class WishService {
     }
 
     /**
-     * Comment 转 Map
+     * Comment 转 Map (Comment to Map)
      */
     private Map<String, Object> commentToMap(WishComment comment) {
         Map<String, Object> map = new HashMap<>();
@@ -644,7 +598,7 @@ public class WishService {
         map.put("content", comment.getContent());
         map.put("likeCount", comment.getLikeCount());
         map.put("likedBy", new ArrayList<>(comment.getLikedBy()));
-        map.put("createdAt", comment.getCreatedAt().toString());
+        map.put("createdAt", comment.getCreatedAt() != null ? comment.getCreatedAt().toString() : null);
         return map;
     }
 
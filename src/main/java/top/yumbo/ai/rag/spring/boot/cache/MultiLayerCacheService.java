@@ -5,21 +5,28 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
 import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService;
 import top.yumbo.ai.rag.spring.boot.streaming.model.HOPEAnswer;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * 多层缓存服务
  * (Multi-layer Cache Service)
  *
- * 四层缓存架构：
+ * 五层缓存架构：
  * L1 - HOPE 答案缓存（最快，1000条，1小时）
  * L2 - 概念单元缓存（快，5000条，2小时）
  * L3 - LLM 答案缓存（中，500条，30分钟）
  * L4 - 检索结果缓存（慢，2000条，1小时）
+ * L5 - 语义答案缓存（按问题向量近邻匹配，引用文档未变更才命中）
  *
  * @author AI Reviewer Team
  * @since 2025-12-09
@@ -42,10 +49,20 @@ public class MultiLayerCacheService {
     // L4: 检索结果缓存
     private final Cache<String, RetrievalResult> retrievalResultCache;
 
+    // L5: 语义答案缓存
+    private final Cache<String, SemanticAnswer> semanticAnswerCache;
+    private final KnowledgeQAProperties.SemanticAnswerCacheConfig semanticConfig;
+    private final AtomicLong semanticHits = new AtomicLong();
+    private final AtomicLong semanticMisses = new AtomicLong();
+
     @Autowired
     public MultiLayerCacheService(
-            @Autowired(required = false) PerformanceMonitoringService monitoringService) {
+            @Autowired(required = false) PerformanceMonitoringService monitoringService,
+            @Autowired(required = false) KnowledgeQAProperties properties) {
         this.monitoringService = monitoringService;
+        this.semanticConfig = properties != null
+            ? properties.getCache().getSemanticAnswer()
+            : new KnowledgeQAProperties.SemanticAnswerCacheConfig();
 
         // 初始化 L1 缓存
         this.hopeAnswerCache = Caffeine.newBuilder()
@@ -75,7 +92,14 @@ public class MultiLayerCacheService {
             .recordStats()
             .build();
 
-        log.info("多层缓存服务已初始化: L1(HOPE)=1000, L2(Concept)=5000, L3(LLM)=500, L4(Retrieval)=2000");
+        // 初始化 L5 缓存（过期时间即最大答案年龄）
+        this.semanticAnswerCache = Caffeine.newBuilder()
+            .maximumSize(semanticConfig.getMaxSize())
+            .expireAfterWrite(Duration.ofMinutes(semanticConfig.getMaxAgeMinutes()))
+            .build();
+
+        log.info("多层缓存服务已初始化: L1(HOPE)=1000, L2(Concept)=5000, L3(LLM)=500, L4(Retrieval)=2000, L5(Semantic)={}",
+            semanticConfig.isEnabled() ? semanticConfig.getMaxSize() : 0);
     }
 
     // ==================== L1: HOPE 答案缓存 ====================
@@ -196,6 +220,139 @@ public class MultiLayerCacheService {
         log.debug("L4 缓存已更新: {}", query);
     }
 
+    // ==================== L5: 语义答案缓存 ====================
+
+    /**
+     * 是否启用语义答案缓存
+     */
+    public boolean isSemanticAnswerEnabled() {
+        return semanticConfig.isEnabled();
+    }
+
+    /**
+     * 获取语义答案
+     *
+     * 在缓存中查找与问题向量最相近的问题，相似度须不低于阈值、年龄不超过上限，
+     * 且其引用的每个文档当前的内容哈希与缓存时一致，否则视为未命中并淘汰该条目
+     *
+     * @param questionEmbedding 问题向量
+     * @param contentHashResolver 文档ID -> 当前内容哈希（文档不存在时返回 null）
+     */
+    public Optional<SemanticAnswer> getSemanticAnswer(float[] questionEmbedding,
+                                                      Function<String, String> contentHashResolver) {
+        if (!semanticConfig.isEnabled() || questionEmbedding == null) {
+            return Optional.empty();
+        }
+
+        float[] query = normalize(questionEmbedding);
+        long maxAgeMillis = Duration.ofMinutes(semanticConfig.getMaxAgeMinutes()).toMillis();
+        long now = System.currentTimeMillis();
+
+        SemanticAnswer best = null;
+        double bestSimilarity = semanticConfig.getSimilarityThreshold();
+        for (SemanticAnswer candidate : semanticAnswerCache.asMap().values()) {
+            if (now - candidate.getTimestamp() > maxAgeMillis
+                    || candidate.getEmbedding().length != query.length) {
+                continue;
+            }
+            double similarity = dot(query, candidate.getEmbedding());
+            if (similarity >= bestSimilarity) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+
+        if (best != null && !citedDocumentsUnchanged(best, contentHashResolver)) {
+            semanticAnswerCache.invalidate(normalizeKey(best.getQuestion()));
+            log.debug("L5 缓存失效（引用文档已变更）: {}", best.getQuestion());
+            best = null;
+        }
+
+        boolean hit = best != null;
+        (hit ? semanticHits : semanticMisses).incrementAndGet();
+        if (monitoringService != null) {
+            monitoringService.recordCacheAccess("L5_SEMANTIC", hit);
+        }
+
+        if (hit) {
+            log.debug("L5 缓存命中: {} (similarity={})", best.getQuestion(), String.format("%.3f", bestSimilarity));
+        }
+
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * 缓存语义答案
+     *
+     * 引用文档缺少内容哈希时无法校验，不缓存
+     *
+     * @param question 问题
+     * @param questionEmbedding 问题向量
+     * @param answer 答案
+     * @param sources 答案来源
+     * @param citedDocumentHashes 引用文档ID -> 内容哈希
+     */
+    public void putSemanticAnswer(String question, float[] questionEmbedding, String answer,
+                                  List<String> sources, Map<String, String> citedDocumentHashes) {
+        if (!semanticConfig.isEnabled() || questionEmbedding == null || answer == null) {
+            return;
+        }
+        if (citedDocumentHashes.values().stream().anyMatch(Objects::isNull)) {
+            log.debug("L5 缓存跳过（引用文档缺少内容哈希）: {}", question);
+            return;
+        }
+
+        SemanticAnswer entry = SemanticAnswer.builder()
+            .question(question)
+            .embedding(normalize(questionEmbedding))
+            .answer(answer)
+            .sources(List.copyOf(sources))
+            .citedDocumentHashes(Map.copyOf(citedDocumentHashes))
+            .timestamp(System.currentTimeMillis())
+            .build();
+        semanticAnswerCache.put(normalizeKey(question), entry);
+        log.debug("L5 缓存已更新: {}", question);
+    }
+
+    private boolean citedDocumentsUnchanged(SemanticAnswer entry, Function<String, String> contentHashResolver) {
+        try {
+            for (Map.Entry<String, String> cited : entry.getCitedDocumentHashes().entrySet()) {
+                if (!cited.getValue().equals(contentHashResolver.apply(cited.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("L5 引用文档校验失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
     // ==================== 缓存管理 ====================
 
     /**
@@ -206,6 +363,7 @@ public class MultiLayerCacheService {
         conceptUnitCache.invalidateAll();
         llmAnswerCache.invalidateAll();
         retrievalResultCache.invalidateAll();
+        semanticAnswerCache.invalidateAll();
         log.info("所有缓存已清空");
     }
 
@@ -230,6 +388,10 @@ public class MultiLayerCacheService {
                 retrievalResultCache.invalidateAll();
                 log.info("L4 缓存已清空");
                 break;
+            case 5:
+                semanticAnswerCache.invalidateAll();
+                log.info("L5 缓存已清空");
+                break;
             default:
                 log.warn("无效的缓存层: {}", layer);
         }
@@ -253,6 +415,10 @@ public class MultiLayerCacheService {
         stats.setL4Size(retrievalResultCache.estimatedSize());
         stats.setL4HitRate(retrievalResultCache.stats().hitRate());
 
+        long semanticRequests = semanticHits.get() + semanticMisses.get();
+        stats.setL5Size(semanticAnswerCache.estimatedSize());
+        stats.setL5HitRate(semanticRequests == 0 ? 0.0 : (double) semanticHits.get() / semanticRequests);
+
         return stats;
     }
 
@@ -292,6 +458,20 @@ public class MultiLayerCacheService {
         private long timestamp;
     }
 
+    /**
+     * 语义答案
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class SemanticAnswer {
+        private String question;
+        private float[] embedding;
+        private String answer;
+        private java.util.List<String> sources;
+        private java.util.Map<String, String> citedDocumentHashes;
+        private long timestamp;
+    }
+
     /**
      * 缓存统计
      */
@@ -305,6 +485,8 @@ public class MultiLayerCacheService {
         private double l3HitRate;
         private long l4Size;
         private double l4HitRate;
+        private long l5Size;
+        private double l5HitRate;
     }
 }
 
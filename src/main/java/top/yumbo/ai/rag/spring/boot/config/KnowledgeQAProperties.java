@@ -65,6 +65,11 @@ public class KnowledgeQAProperties {
      */
     private CacheConfig cache = new CacheConfig();
 
+    /**
+     * 请求追踪配置
+     */
+    private TracingConfig tracing = new TracingConfig();
+
     /**
      * 知识库配置 (Knowledge Base Configuration)
      */
@@ -97,6 +102,48 @@ public class KnowledgeQAProperties {
          * (Controls whether to enable knowledge base caching)
          */
         private boolean enableCache = true;
+
+        /**
+         * 上传入库任务配置 (Upload ingestion job configuration)
+         */
+        private IngestionConfig ingestion = new IngestionConfig();
+
+        /**
+         * 源目录监听配置 (Source folder watch configuration)
+         */
+        private WatchConfig watch = new WatchConfig();
+    }
+
+    /**
+     * 源目录监听配置 (Source folder watch configuration)
+     * 监听源目录的文件变更并逐个增量索引，替代定期全量扫描
+     * (Watches the source folder and indexes changed files one by one instead of periodic full rescans)
+     */
+    @Data
+    public static class WatchConfig {
+        /**
+         * 是否启用 (Whether enabled)
+         */
+        private boolean enabled = false;
+
+        /**
+         * 去抖时间（毫秒），文件静默这么久后才入库 (Debounce interval in ms; a file is ingested once quiet this long)
+         */
+        private long debounceMs = 2000;
+    }
+
+    /**
+     * 上传入库任务配置 (Upload ingestion job configuration)
+     * 上传后的文件由后台任务逐个解析索引，任务持久化在存储目录的 ingestion-jobs.db 中
+     * (Uploaded files are parsed and indexed one by one by background jobs persisted in ingestion-jobs.db
+     * under the storage path)
+     */
+    @Data
+    public static class IngestionConfig {
+        /**
+         * 并行入库的工作线程数 (Number of worker threads ingesting files in parallel)
+         */
+        private int workers = 2;
     }
 
     /**
@@ -194,6 +241,29 @@ public class KnowledgeQAProperties {
          * 范围: 0.0 - 1.0
          */
         private double vectorWeight = 0.7;
+
+        /**
+         * 块向量持久化缓存 (Persistent chunk embedding cache)
+         * 以（模型，块内容哈希）为键，重建时内容未变的块不再做模型推理
+         * (Keyed by (model, chunk content hash); rebuilds skip inference for unchanged chunks)
+         */
+        private EmbeddingCacheConfig embeddingCache = new EmbeddingCacheConfig();
+    }
+
+    /**
+     * 块向量缓存配置 (Embedding cache configuration)
+     */
+    @Data
+    public static class EmbeddingCacheConfig {
+        /**
+         * 是否启用 (Whether enabled)
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个模型最多缓存的向量数，超出时淘汰最久未使用的 (Maximum vectors cached per model; least recently used are evicted)
+         */
+        private int maxEntries = 200000;
     }
 
     @Data
@@ -287,6 +357,11 @@ public class KnowledgeQAProperties {
          */
         private top.yumbo.ai.rag.chunking.ChunkingConfig chunking = new top.yumbo.ai.rag.chunking.ChunkingConfig();
 
+        /**
+         * Mock 模式的延迟模拟（provider=mock 时生效，用于离线压测）
+         */
+        private MockLlmConfig mock = new MockLlmConfig();
+
         /**
          * Prompt 模板
          * 支持两个占位符：
@@ -352,6 +427,12 @@ public class KnowledgeQAProperties {
          */
         private int chunkOverlap = 400;
 
+        /**
+         * 是否使用内容定义的分块边界（滚动哈希）
+         * 开启后文档中的小改动只影响附近的一两个块，增量重建时其余块沿用上次的向量
+         */
+        private boolean contentDefinedChunking = true;
+
         /**
          * 是否启用并行处理
          */
@@ -382,6 +463,16 @@ public class KnowledgeQAProperties {
          */
         private int maxIndexContentLength = 50000;
 
+        /**
+         * 流式索引阈值（MB），文件达到此大小时边解析边分块、边向量化，不再整体读入内存
+         * <p>
+         * 流式索引不受 maxIndexContentLength 截断，峰值内存只与块大小有关；
+         * 代价是使用固定大小分块（不走 PPL/LLM 切分），也不分析嵌入图片
+         * <p>
+         * 0 表示关闭
+         */
+        private int streamingThresholdMb = 50;
+
         /**
          * 问答时文档切分最大内容长度（字符数）
          * 在切分文档时，如果内容超过此长度会被截断
@@ -435,6 +526,60 @@ public class KnowledgeQAProperties {
          * Vision LLM 配置 (Vision LLM configuration)
          */
         private VisionLlmConfig visionLlm = new VisionLlmConfig();
+
+        /**
+         * 图片理解并发与限流配置 (Image understanding concurrency and rate limit configuration)
+         */
+        private ImageUnderstandingConfig understanding = new ImageUnderstandingConfig();
+
+        /**
+         * 图片存储去重配置 (Image storage dedup configuration)
+         */
+        private ImageStorageConfig storage = new ImageStorageConfig();
+    }
+
+    /**
+     * 图片存储去重配置（Image storage dedup configuration）
+     */
+    @Data
+    public static class ImageStorageConfig {
+        /**
+         * 是否按感知哈希合并近似重复的图片（精确相同的图片总是只存一份）
+         * (Whether to merge near-duplicate images by perceptual hash; identical images are always stored once)
+         */
+        private boolean perceptualDedup = false;
+
+        /**
+         * 视为近似重复的最大汉明距离（64 位哈希）(Max Hamming distance of the 64-bit hash treated as near-duplicate)
+         */
+        private int perceptualMaxDistance = 4;
+    }
+
+    /**
+     * 图片理解并发与限流配置（Image understanding concurrency and rate limit configuration）
+     */
+    @Data
+    public static class ImageUnderstandingConfig {
+        /**
+         * 并发处理图片的线程数 (Number of threads analyzing images concurrently)
+         */
+        private int concurrency = 4;
+
+        /**
+         * 每个 Vision 端点每秒允许的请求数，0 表示不限流
+         * (Requests per second allowed per Vision endpoint, 0 disables rate limiting)
+         */
+        private double requestsPerSecond = 2.0;
+
+        /**
+         * 令牌桶容量，允许的突发请求数 (Token bucket capacity, i.e. allowed burst)
+         */
+        private int burst = 4;
+
+        /**
+         * 按图片内容哈希缓存的结果数量 (Number of results cached by image content hash)
+         */
+        private int cacheMaxSize = 5000;
     }
 
 
@@ -699,5 +844,112 @@ public class KnowledgeQAProperties {
          * (Query expansion cache TTL in minutes)
          */
         private int queryExpansionTtlMinutes = 60;
+
+        /**
+         * 语义答案缓存配置
+         * (Semantic answer cache configuration)
+         */
+        private SemanticAnswerCacheConfig semanticAnswer = new SemanticAnswerCacheConfig();
+    }
+
+    /**
+     * 语义答案缓存配置（Semantic answer cache configuration）
+     * <p>
+     * 以问题向量为键，复述的问题也能命中已有答案
+     * (Keyed by question embedding, so paraphrased questions can reuse an existing answer)
+     */
+    @Data
+    public static class SemanticAnswerCacheConfig {
+        /**
+         * 是否启用
+         * (Whether enabled)
+         */
+        private boolean enabled = true;
+
+        /**
+         * 命中所需的最小余弦相似度
+         * (Minimum cosine similarity for a hit)
+         */
+        private double similarityThreshold = 0.92;
+
+        /**
+         * 答案最大缓存时长（分钟）
+         * (Maximum answer age in minutes)
+         */
+        private int maxAgeMinutes = 30;
+
+        /**
+         * 最大缓存条数
+         * (Maximum number of cached answers)
+         */
+        private int maxSize = 500;
+    }
+
+    /**
+     * 请求追踪配置（Request tracing configuration）
+     * <p>
+     * 每次问答记录一棵阶段 span 树，保存在有界环形缓冲中，慢请求单独保留
+     * (Each Q&A request records a span tree of its stages, kept in a bounded ring buffer; slow requests are kept
+     * separately)
+     */
+    @Data
+    public static class TracingConfig {
+        /**
+         * 是否启用
+         * (Whether enabled)
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最近追踪的保留条数
+         * (Number of recent traces kept)
+         */
+        private int capacity = 200;
+
+        /**
+         * 最近追踪的采样率（0-1），慢请求不受采样影响
+         * (Sample rate for recent traces, 0-1; slow requests are always kept)
+         */
+        private double sampleRate = 1.0;
+
+        /**
+         * 慢请求阈值（毫秒）
+         * (Slow request threshold in milliseconds)
+         */
+        private long slowThresholdMs = 5000;
+
+        /**
+         * 慢请求追踪的保留条数
+         * (Number of slow traces kept)
+         */
+        private int slowCapacity = 100;
+    }
+
+    /**
+     * Mock LLM 延迟配置（Mock LLM latency configuration）
+     * <p>
+     * 以 5 个字符为一个流式片段（token）模拟首 token 延迟和生成速率，离线压测时替代真实 LLM
+     * (Simulates first-token delay and generation rate with 5-character stream chunks as tokens, standing in for a
+     * real LLM during offline load tests)
+     */
+    @Data
+    public static class MockLlmConfig {
+        /**
+         * 首个 token 前的延迟（毫秒）
+         * (Delay before the first token in milliseconds)
+         */
+        private long firstTokenDelayMs = 0;
+
+        /**
+         * 每秒生成的 token 数
+         * (Tokens generated per second)
+         */
+        private double tokensPerSecond = 20;
+
+        /**
+         * 同步 generate 是否也按上述速率阻塞
+         * (Whether the blocking generate call also waits for the simulated latency)
+         */
+        private boolean blockingLatency = false;
     }
 }
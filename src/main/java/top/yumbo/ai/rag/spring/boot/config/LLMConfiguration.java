@@ -10,6 +10,8 @@ import top.yumbo.ai.rag.spring.boot.llm.LLMClient;
 import top.yumbo.ai.rag.spring.boot.llm.MockLLMClient;
 import top.yumbo.ai.rag.spring.boot.llm.OpenAILLMClient;
 
+import java.time.Duration;
+
 /**
  * LLM 客户端配置（LLM client configuration）
  * <p>
@@ -93,7 +95,9 @@ public class LLMConfiguration {
         log.info(I18N.get("log.llm.mock_hint"));
         log.info(I18N.get("log.llm.mock_provider"));
         log.info(I18N.get("log.llm.mock_apikey"));
-        return new MockLLMClient();
+        KnowledgeQAProperties.MockLlmConfig mock = properties.getLlm().getMock();
+        return new MockLLMClient(Duration.ofMillis(mock.getFirstTokenDelayMs()),
+                mock.getTokensPerSecond(), mock.isBlockingLatency());
     }
 
     /**
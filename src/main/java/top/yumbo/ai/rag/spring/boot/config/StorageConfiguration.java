@@ -1,14 +1,20 @@
 package top.yumbo.ai.rag.spring.boot.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import top.yumbo.ai.rag.chunking.storage.ChunkIndex;
 import top.yumbo.ai.rag.chunking.storage.ChunkStorageService;
 import top.yumbo.ai.rag.i18n.I18N;
 import top.yumbo.ai.rag.image.DocumentImageExtractionService;
 import top.yumbo.ai.rag.image.ImageStorageService;
+import top.yumbo.ai.rag.image.ImageUnderstandingService;
 import top.yumbo.ai.rag.image.analyzer.AIImageAnalyzer;
+import top.yumbo.ai.rag.impl.embedding.EmbeddingCache;
+import top.yumbo.ai.rag.service.wish.WishIndex;
 import top.yumbo.ai.rag.spring.boot.llm.LLMClient;
+import top.yumbo.ai.rag.spring.boot.service.ingestion.IngestionJobStore;
 
 /**
  * 存储配置类（Storage configuration class）
@@ -31,14 +37,57 @@ public class StorageConfiguration {
         return new ChunkStorageService(storagePath);
     }
 
+    /**
+     * 文档块偏移索引（Chunk offset index）
+     */
+    @Bean(destroyMethod = "close")
+    public ChunkIndex chunkIndex(KnowledgeQAProperties properties) throws java.io.IOException {
+        java.nio.file.Path storagePath = java.nio.file.Paths.get(properties.getKnowledgeBase().getStoragePath());
+        java.nio.file.Files.createDirectories(storagePath);
+        return new ChunkIndex(storagePath.resolve("chunk-index.db").toString());
+    }
+
+    /**
+     * 上传入库任务存储（Upload ingestion job store）
+     */
+    @Bean(destroyMethod = "close")
+    public IngestionJobStore ingestionJobStore(KnowledgeQAProperties properties) throws java.io.IOException {
+        java.nio.file.Path storagePath = java.nio.file.Paths.get(properties.getKnowledgeBase().getStoragePath());
+        java.nio.file.Files.createDirectories(storagePath);
+        return new IngestionJobStore(storagePath.resolve("ingestion-jobs.db").toString());
+    }
+
+    /**
+     * 愿望单索引（Wish index）
+     */
+    @Bean(destroyMethod = "close")
+    public WishIndex wishIndex(KnowledgeQAProperties properties) throws java.io.IOException {
+        java.nio.file.Path indexPath = java.nio.file.Paths.get(properties.getKnowledgeBase().getStoragePath(), "wish-index");
+        java.nio.file.Files.createDirectories(indexPath);
+        return new WishIndex(indexPath);
+    }
+
+    /**
+     * 块向量持久化缓存（Persistent chunk embedding cache）
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "knowledge.qa.vector-search.embedding-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public EmbeddingCache embeddingCache(KnowledgeQAProperties properties) throws java.io.IOException {
+        java.nio.file.Path cachePath = java.nio.file.Paths.get(properties.getKnowledgeBase().getStoragePath(), "embedding-cache");
+        int maxEntries = properties.getVectorSearch().getEmbeddingCache().getMaxEntries();
+        log.info(I18N.get("log.storage.embedding_cache_init", cachePath, maxEntries));
+        return new EmbeddingCache(cachePath, maxEntries);
+    }
+
     /**
      * 图片存储服务（Image storage service）
      */
     @Bean
     public ImageStorageService imageStorageService(KnowledgeQAProperties properties) {
         String storagePath = properties.getKnowledgeBase().getStoragePath();
+        KnowledgeQAProperties.ImageStorageConfig config = properties.getImageProcessing().getStorage();
         log.info(I18N.get("log.storage.image_storage_init", storagePath));
-        return new ImageStorageService(storagePath);
+        return new ImageStorageService(storagePath, config.isPerceptualDedup(), config.getPerceptualMaxDistance());
     }
 
     /**
@@ -53,6 +102,23 @@ public class StorageConfiguration {
         return new AIImageAnalyzer(llmClient, enabled, model);
     }
 
+    /**
+     * 图片理解服务（Image understanding service）
+     */
+    @Bean(destroyMethod = "close")
+    public ImageUnderstandingService imageUnderstandingService(
+            top.yumbo.ai.rag.impl.parser.image.SmartImageExtractor smartImageExtractor,
+            KnowledgeQAProperties properties) {
+        KnowledgeQAProperties.ImageUnderstandingConfig config = properties.getImageProcessing().getUnderstanding();
+        return new ImageUnderstandingService(
+                smartImageExtractor,
+                config.getConcurrency(),
+                config.getRequestsPerSecond(),
+                config.getBurst(),
+                config.getCacheMaxSize()
+        );
+    }
+
     /**
      * 文档图片提取服务（Document image extraction service）
      */
@@ -61,6 +127,7 @@ public class StorageConfiguration {
             ImageStorageService imageStorageService,
             AIImageAnalyzer aiImageAnalyzer,
             top.yumbo.ai.rag.impl.parser.image.SmartImageExtractor smartImageExtractor,
+            ImageUnderstandingService imageUnderstandingService,
             KnowledgeQAProperties properties) {
 
         boolean aiAnalysisEnabled = properties.getLlm().getChunking().getAiChunking().isEnabled();
@@ -70,7 +137,8 @@ public class StorageConfiguration {
                 imageStorageService,
                 aiImageAnalyzer,
                 aiAnalysisEnabled,
-                smartImageExtractor  // 传入 SmartImageExtractor，用于图片内容理解
+                smartImageExtractor,  // 传入 SmartImageExtractor，用于图片内容理解
+                imageUnderstandingService
         );
     }
 }
@@ -15,6 +15,8 @@ import org.springframework.web.multipart.MultipartFile;
 import top.yumbo.ai.rag.i18n.I18N;
 import top.yumbo.ai.rag.spring.boot.service.DocumentManagementService;
 import top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService;
+import top.yumbo.ai.rag.spring.boot.service.ingestion.IngestionJob;
+import top.yumbo.ai.rag.spring.boot.service.ingestion.IngestionJobService;
 
 import java.io.*;
 import java.net.URLEncoder;
@@ -40,15 +42,18 @@ public class DocumentManagementController {
 
     private final DocumentManagementService documentService;
     private final KnowledgeQAService qaService;
+    private final IngestionJobService ingestionJobService;
 
     @Value("${knowledge.qa.knowledge-base.auto-index-after-upload:false}")
     private boolean autoIndexAfterUpload;
 
     public DocumentManagementController(
             DocumentManagementService documentService,
-            @Autowired(required = false) top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService qaService) {
+            @Autowired(required = false) top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService qaService,
+            @Autowired(required = false) IngestionJobService ingestionJobService) {
         this.documentService = documentService;
         this.qaService = qaService;
+        this.ingestionJobService = ingestionJobService;
     }
 
     /**
@@ -80,23 +85,11 @@ public class DocumentManagementController {
 
             log.info(I18N.get("document_management.log.upload_success", file.getOriginalFilename()));
 
-            // 自动触发增量索引
-            if (autoIndexAfterUpload && qaService != null) {
-                try {
-                    log.info(I18N.get("document_management.log.auto_index_trigger"));
-                    // 异步触发，不阻塞返回
-                    new Thread(() -> {
-                        try {
-                            qaService.incrementalIndexKnowledgeBase();
-                            log.info(I18N.get("document_management.log.auto_index_success"));
-                        } catch (Exception e) {
-                            log.warn(I18N.get("document_management.log.auto_index_failed", e.getMessage()));
-                        }
-                    }).start();
-                    response.setAutoIndexTriggered(true);
-                } catch (Exception e) {
-                    log.warn(I18N.get("document_management.log.trigger_auto_index_failed", e.getMessage()));
-                }
+            // 自动入库：提交后台任务，立即返回任务ID / Auto ingestion: queue a background job and return its ID
+            String jobId = submitIngestionJob(result);
+            if (jobId != null) {
+                response.setJobId(jobId);
+                response.setAutoIndexTriggered(true);
             }
 
             return response;
@@ -127,9 +120,14 @@ public class DocumentManagementController {
         for (MultipartFile file : files) {
             try {
                 if (!file.isEmpty()) {
-                    documentService.uploadDocument(file);
+                    String savedName = documentService.uploadDocument(file);
                     successCount++;
                     response.getSuccessFiles().add(file.getOriginalFilename());
+
+                    String jobId = submitIngestionJob(savedName);
+                    if (jobId != null) {
+                        response.getJobIds().add(jobId);
+                    }
                 }
             } catch (Exception e) {
                 log.error(I18N.get("document_management.log.file_upload_failed", file.getOriginalFilename()), e);
@@ -145,6 +143,49 @@ public class DocumentManagementController {
         return response;
     }
 
+    /**
+     * 查询入库任务 / Get ingestion job status
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<IngestionJob> getIngestionJob(@PathVariable String jobId) {
+        if (ingestionJobService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ingestionJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 最近的入库任务 / Recent ingestion jobs
+     */
+    @GetMapping("/jobs")
+    public List<IngestionJob> listIngestionJobs(@RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (ingestionJobService == null) {
+            return List.of();
+        }
+        return ingestionJobService.listJobs(limit);
+    }
+
+    /**
+     * 为已保存的文件提交入库任务 / Queue an ingestion job for a saved file
+     *
+     * @return 任务ID；未开启自动入库或提交失败时为 null / Job ID, or null if auto ingestion is off or submission failed
+     */
+    private String submitIngestionJob(String savedFileName) {
+        if (!autoIndexAfterUpload || ingestionJobService == null) {
+            return null;
+        }
+        try {
+            IngestionJob job = ingestionJobService.submit(documentService.getDocumentPath(savedFileName));
+            log.info(I18N.get("document_management.log.ingestion_queued", savedFileName, job.getJobId()));
+            return job.getJobId();
+        } catch (Exception e) {
+            log.warn(I18N.get("document_management.log.trigger_auto_index_failed", e.getMessage()));
+            return null;
+        }
+    }
+
     /**
      * 获取文档列表（支持分页、排序、高级搜索）/ Get document list (support pagination, sorting, advanced search)
      *
@@ -624,6 +665,7 @@ public class DocumentManagementController {
         private long fileSize;
         private String documentId;
         private boolean autoIndexTriggered;  // 是否自动触发了索引
+        private String jobId;                // 入库任务ID，用于查询进度
     }
 
     @Data
@@ -634,6 +676,7 @@ public class DocumentManagementController {
         private String message;
         private List<String> successFiles = new java.util.ArrayList<>();
         private List<String> failedFiles = new java.util.ArrayList<>();
+        private List<String> jobIds = new java.util.ArrayList<>();  // 入库任务ID
     }
 
     @Data
@@ -53,12 +53,13 @@ public class WishController {
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
 
         log.info(I18N.get("wish.list.request"), status, category, sortBy);
 
         try {
-            Map<String, Object> result = wishService.getWishes(status, category, sortBy, keyword, page, size);
+            Map<String, Object> result = wishService.getWishes(status, category, sortBy, keyword, page, size, cursor);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             log.error(I18N.get("wish.list.error"), e);
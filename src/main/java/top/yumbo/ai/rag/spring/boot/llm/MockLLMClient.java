@@ -19,21 +19,51 @@ import java.util.List;
 @Slf4j
 public class MockLLMClient implements LLMClient {
 
+    // 每个流式片段的字符数 / Characters per stream chunk
+    private static final int CHUNK_SIZE = 5;
+
+    private final Duration firstTokenDelay;
+    private final Duration tokenInterval;
+    private final boolean blockingLatency;
+
     public MockLLMClient() {
+        this(Duration.ZERO, 20, false);  // 每 50ms 一个片段 / One chunk every 50ms
+    }
+
+    /**
+     * 可配置延迟的 Mock 客户端，用于离线压测 / Mock client with configurable latency for offline load tests
+     *
+     * @param firstTokenDelay 首个片段前的延迟 / Delay before the first chunk
+     * @param tokensPerSecond 每秒片段数 / Chunks per second
+     * @param blockingLatency 同步 generate 是否也等待模拟延迟 / Whether blocking generate waits as well
+     */
+    public MockLLMClient(Duration firstTokenDelay, double tokensPerSecond, boolean blockingLatency) {
+        this.firstTokenDelay = firstTokenDelay;
+        this.tokenInterval = Duration.ofNanos((long) (1_000_000_000L / Math.max(tokensPerSecond, 0.001)));
+        this.blockingLatency = blockingLatency;
         log.info(I18N.get("llm.log.mock_init"));
     }
 
     @Override
     public String generate(String prompt) {
         log.debug(I18N.get("llm.log.mock_request", prompt.length()));
-        return generateMockResponse(prompt);
+        String response = generateMockResponse(prompt);
+        if (blockingLatency) {
+            long chunks = (response.length() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            try {
+                Thread.sleep(firstTokenDelay.plus(tokenInterval.multipliedBy(chunks)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return response;
     }
 
     /**
      * 生成模拟回答 / Generate mock response
      */
     private String generateMockResponse(String prompt) {
-        log.info(I18N.get("llm.log.mock_response"));
+        log.debug(I18N.get("llm.log.mock_response"));
 
         // 根据 prompt 的内容返回不同的模拟回答 / Return different mock responses based on prompt content
         String lowerPrompt = prompt.toLowerCase();
@@ -70,17 +100,17 @@ public class MockLLMClient implements LLMClient {
         // 将完整回答分割成多个块，模拟流式输出
         // Split full response into chunks to simulate streaming
         List<String> chunks = new ArrayList<>();
-        int chunkSize = 5; // 每次发送5个字符
 
-        for (int i = 0; i < fullResponse.length(); i += chunkSize) {
-            int end = Math.min(i + chunkSize, fullResponse.length());
+        for (int i = 0; i < fullResponse.length(); i += CHUNK_SIZE) {
+            int end = Math.min(i + CHUNK_SIZE, fullResponse.length());
             chunks.add(fullResponse.substring(i, end));
         }
 
         // 使用 Flux.fromIterable + delayElements 实现流式输出，避免阻塞
         // Use Flux.fromIterable + delayElements for streaming output without blocking
-        return Flux.fromIterable(chunks)
-                .delayElements(Duration.ofMillis(50)); // 每个块延迟 50ms
+        Flux<String> stream = Flux.fromIterable(chunks)
+                .delayElements(tokenInterval);
+        return firstTokenDelay.isZero() ? stream : stream.delaySubscription(firstTokenDelay);
     }
 
     /**
@@ -4,19 +4,22 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import top.yumbo.ai.rag.i18n.I18N;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * OpenAI LLM 客户端 / OpenAI LLM Client
@@ -38,6 +41,7 @@ public class OpenAILLMClient implements LLMClient {
     private final String model;
     private final String apiUrl;
     private final OkHttpClient httpClient;
+    private final WebClient streamingClient;
     private final ObjectMapper objectMapper;
 
     // 可配置参数 / Configurable parameters
@@ -48,6 +52,8 @@ public class OpenAILLMClient implements LLMClient {
     private static final String DEFAULT_API_URL = "https://api.openai.com/v1/chat/completions";
     private static final int DEFAULT_TIMEOUT = 60;
     private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_EVENT_TYPE =
+        new ParameterizedTypeReference<>() {};
 
     // 默认参数 / Default parameters
     private static final double DEFAULT_TEMPERATURE = 0.7;
@@ -86,6 +92,14 @@ public class OpenAILLMClient implements LLMClient {
             .writeTimeout(DEFAULT_TIMEOUT, TimeUnit.SECONDS)
             .build();
 
+        // 流式接口使用非阻塞的 WebClient（JDK HttpClient 连接器），不为每个流占用线程
+        // (Streaming uses a non-blocking WebClient on the JDK HttpClient connector, no thread is pinned per stream)
+        this.streamingClient = WebClient.builder()
+            .clientConnector(new JdkClientHttpConnector(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(DEFAULT_TIMEOUT))
+                .build()))
+            .build();
+
         this.objectMapper = new ObjectMapper();
 
         log.info(I18N.get("llm.log.openai_init"));
@@ -395,139 +409,130 @@ public class OpenAILLMClient implements LLMClient {
         return generateStream(prompt, null);
     }
 
+    /**
+     * 流式生成 / Streaming generation
+     *
+     * 基于 WebClient 的非阻塞 SSE 读取：按下游需求拉取数据（背压），取消订阅时关闭底层请求，
+     * 两个事件之间超过 DEFAULT_TIMEOUT 秒视为读超时
+     * (Non-blocking SSE reading on WebClient: data is pulled on downstream demand (backpressure),
+     * cancelling the subscription closes the underlying request, and more than DEFAULT_TIMEOUT seconds
+     * between two events is treated as a read timeout)
+     */
     @Override
     public Flux<String> generateStream(String prompt, String systemPrompt) {
-        return Flux.create(sink -> {
+        return Flux.defer(() -> {
+            log.debug(I18N.get("llm.log.openai_streaming_start") + ": prompt length={}", prompt.length());
+
+            // 构建请求消息
+            List<Map<String, String>> messages = buildMessages(systemPrompt, prompt);
+
+            // 构建请求体（启用流式）
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("model", model);
+            requestBody.put("messages", messages);
+            requestBody.put("temperature", temperature);
+            requestBody.put("max_tokens", maxTokens);
+            requestBody.put("stream", true);  // ✅ 启用流式
+
+            String jsonBody;
             try {
-                log.debug(I18N.get("llm.log.openai_streaming_start") + ": prompt length={}", prompt.length());
-
-                // 构建请求消息
-                List<Map<String, String>> messages = buildMessages(systemPrompt, prompt);
-
-                // 构建请求体（启用流式）
-                Map<String, Object> requestBody = new HashMap<>();
-                requestBody.put("model", model);
-                requestBody.put("messages", messages);
-                requestBody.put("temperature", temperature);
-                requestBody.put("max_tokens", maxTokens);
-                requestBody.put("stream", true);  // ✅ 启用流式
-
-                String jsonBody = objectMapper.writeValueAsString(requestBody);
-
-                Request request = new Request.Builder()
-                    .url(apiUrl)
-                    .post(RequestBody.create(jsonBody, JSON))
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Accept", "text/event-stream")  // ✅ SSE
-                    .build();
-
-                // 发送请求并处理流式响应
-                Call call = httpClient.newCall(request);
-                AtomicBoolean completed = new AtomicBoolean(false);
-
-                // 处理取消订阅
-                sink.onCancel(() -> {
-                    log.debug(I18N.get("llm.log.openai_streaming_cancelled"));
-                    call.cancel();
-                    completed.set(true);
-                });
-
-                Response response = call.execute();
-
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "No response body";
-                    log.error(I18N.get("llm.log.openai_error", response.code(), errorBody));
-                    sink.error(new IOException(I18N.get("llm.error.openai_http_error", response.code(), errorBody)));
-                    response.close();
-                    return;
-                }
+                jsonBody = objectMapper.writeValueAsString(requestBody);
+            } catch (IOException e) {
+                return Flux.error(e);
+            }
 
-                // 读取 SSE 流
-                ResponseBody responseBody = response.body();
-                if (responseBody == null) {
-                    sink.error(new IOException("Empty response body"));
-                    response.close();
-                    return;
-                }
+            AtomicInteger totalLength = new AtomicInteger();
+
+            return streamingClient.post()
+                .uri(apiUrl)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")  // ✅ SSE
+                .bodyValue(jsonBody)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(String.class)
+                    .defaultIfEmpty("No response body")
+                    .map(errorBody -> {
+                        log.error(I18N.get("llm.log.openai_error", response.statusCode().value(), errorBody));
+                        return new IOException(I18N.get("llm.error.openai_http_error",
+                            response.statusCode().value(), errorBody));
+                    }))
+                .bodyToFlux(SSE_EVENT_TYPE)
+                .timeout(Duration.ofSeconds(DEFAULT_TIMEOUT))
+                .map(this::parseStreamEvent)
+                // OpenAI 使用 [DONE] 或 finish_reason 标记结束
+                .takeUntil(StreamDelta::finished)
+                .map(StreamDelta::content)
+                .filter(chunk -> !chunk.isEmpty())
+                .doOnNext(chunk -> totalLength.addAndGet(chunk.length()))
+                .doOnComplete(() -> log.info(I18N.get("llm.log.openai_streaming_done") + ": totalLength={}",
+                    totalLength.get()))
+                .doOnCancel(() -> log.debug(I18N.get("llm.log.openai_streaming_cancelled")))
+                .doOnError(e -> log.error(I18N.get("llm.log.openai_streaming_failed") + ": {}", e.getMessage()));
+        });
+    }
 
-                try (InputStream inputStream = responseBody.byteStream();
-                     BufferedReader reader = new BufferedReader(
-                         new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-
-                    String line;
-                    StringBuilder currentChunk = new StringBuilder();
-
-                    while ((line = reader.readLine()) != null && !completed.get()) {
-                        // SSE 格式：data: {...}
-                        if (line.startsWith("data: ")) {
-                            String data = line.substring(6).trim();
-
-                            // OpenAI 使用 [DONE] 标记结束
-                            if ("[DONE]".equals(data)) {
-                                log.debug(I18N.get("llm.log.openai_streaming_completed"));
-                                break;
-                            }
-
-                            try {
-                                // 解析 JSON
-                                JsonNode root = objectMapper.readTree(data);
-                                JsonNode choices = root.get("choices");
-
-                                if (choices != null && choices.isArray() && choices.size() > 0) {
-                                    JsonNode firstChoice = choices.get(0);
-                                    JsonNode delta = firstChoice.get("delta");
-
-                                    if (delta != null) {
-                                        JsonNode content = delta.get("content");
-                                        if (content != null && !content.isNull()) {
-                                            String chunk = content.asText();
-                                            if (!chunk.isEmpty()) {
-                                                // ✅ 实时发送每个文本块
-                                                sink.next(chunk);
-                                                currentChunk.append(chunk);
-                                            }
-                                        }
-                                    }
-
-                                    // 检查是否完成
-                                    JsonNode finishReason = firstChoice.get("finish_reason");
-                                    if (finishReason != null && !finishReason.isNull()) {
-                                        String reason = finishReason.asText();
-                                        if ("stop".equals(reason) || "length".equals(reason)) {
-                                            log.debug(I18N.get("llm.log.openai_streaming_finished") +
-                                                ": reason={}, totalLength={}", reason, currentChunk.length());
-                                            break;
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                log.warn(I18N.get("llm.log.openai_streaming_parse_failed") + ": {}", e.getMessage());
-                                // 继续处理下一行
-                            }
-                        }
-                    }
-
-                    if (!completed.get()) {
-                        sink.complete();
-                        log.info(I18N.get("llm.log.openai_streaming_done") + ": totalLength={}",
-                            currentChunk.length());
-                    }
-
-                } catch (IOException e) {
-                    if (!completed.get()) {
-                        log.error(I18N.get("llm.log.openai_streaming_read_failed") + ": {}", e.getMessage());
-                        sink.error(e);
-                    }
-                } finally {
-                    response.close();
+    /**
+     * 解析单个 SSE 事件 / Parse a single SSE event
+     *
+     * SSE 格式：data: {...}
+     */
+    private StreamDelta parseStreamEvent(ServerSentEvent<String> event) {
+        String data = event.data();
+        if (data == null || data.isBlank()) {
+            return StreamDelta.EMPTY;
+        }
+
+        data = data.trim();
+        if ("[DONE]".equals(data)) {
+            log.debug(I18N.get("llm.log.openai_streaming_completed"));
+            return StreamDelta.DONE;
+        }
+
+        try {
+            JsonNode root = objectMapper.readTree(data);
+            JsonNode choices = root.get("choices");
+            if (choices == null || !choices.isArray() || choices.size() == 0) {
+                return StreamDelta.EMPTY;
+            }
+
+            JsonNode firstChoice = choices.get(0);
+            String chunk = "";
+            JsonNode delta = firstChoice.get("delta");
+            if (delta != null) {
+                JsonNode content = delta.get("content");
+                if (content != null && !content.isNull()) {
+                    chunk = content.asText();
                 }
+            }
 
-            } catch (Exception e) {
-                log.error(I18N.get("llm.log.openai_streaming_failed") + ": {}", e.getMessage(), e);
-                sink.error(new RuntimeException(I18N.get("llm.log.openai_streaming_failed") + ": " + e.getMessage(), e));
+            // 检查是否完成
+            boolean finished = false;
+            JsonNode finishReason = firstChoice.get("finish_reason");
+            if (finishReason != null && !finishReason.isNull()) {
+                String reason = finishReason.asText();
+                if ("stop".equals(reason) || "length".equals(reason)) {
+                    log.debug(I18N.get("llm.log.openai_streaming_finished") + ": reason={}", reason);
+                    finished = true;
+                }
             }
-        });
+
+            return new StreamDelta(chunk, finished);
+        } catch (Exception e) {
+            log.warn(I18N.get("llm.log.openai_streaming_parse_failed") + ": {}", e.getMessage());
+            // 继续处理下一个事件
+            return StreamDelta.EMPTY;
+        }
     }
-}
 
+    /**
+     * 流式增量 / Streaming delta
+     *
+     * @param content 文本块 / Text chunk
+     * @param finished 是否为最后一个事件 / Whether this is the last event
+     */
+    private record StreamDelta(String content, boolean finished) {
+        static final StreamDelta EMPTY = new StreamDelta("", false);
+        static final StreamDelta DONE = new StreamDelta("", true);
+    }
+}
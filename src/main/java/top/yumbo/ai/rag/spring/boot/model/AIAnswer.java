@@ -45,6 +45,9 @@ public class AIAnswer {
     private String strategyUsed;     // 使用的策略：DIRECT_ANSWER/TEMPLATE_ANSWER/REFERENCE_ANSWER/FULL_RAG
     private double hopeConfidence;   // HOPE 查询置信度
 
+    // 处理失败时为 true，answer 为错误说明 / True when processing failed; answer then holds the error message
+    private boolean error;
+
     public AIAnswer(String answer, List<String> sources, long responseTimeMs) {
         this(answer, sources, responseTimeMs, Collections.emptyList(), Collections.emptyList(),
              Collections.emptyList(), 0, false);
@@ -71,5 +74,17 @@ public class AIAnswer {
         this.hasMoreDocuments = hasMoreDocuments;
     }
 
+    /**
+     * 处理失败的答案 / Answer for a failed request
+     *
+     * @param message        错误说明 / Error message shown as the answer
+     * @param sources        来源 / Sources
+     * @param responseTimeMs 耗时 / Response time
+     */
+    public static AIAnswer failed(String message, List<String> sources, long responseTimeMs) {
+        AIAnswer answer = new AIAnswer(message, sources, responseTimeMs);
+        answer.setError(true);
+        return answer;
+    }
 
 }
@@ -61,6 +61,26 @@ public class BuildResult {
      */
     private long peakMemoryMB = 0;
 
+    /**
+     * 本次构建中向量缓存命中数（无需模型推理的块）/ Embedding cache hits in this build (chunks that skipped inference)
+     */
+    private long embeddingCacheHits = 0;
+
+    /**
+     * 本次构建中向量缓存未命中数 / Embedding cache misses in this build
+     */
+    private long embeddingCacheMisses = 0;
+
+    /**
+     * 本次构建中被淘汰的缓存向量数 / Cached vectors evicted in this build
+     */
+    private long embeddingCacheEvictions = 0;
+
+    /**
+     * 构建结束时缓存的向量数 / Vectors cached when the build finished
+     */
+    private long embeddingCacheEntries = 0;
+
     /**
      * 是否成功
      */
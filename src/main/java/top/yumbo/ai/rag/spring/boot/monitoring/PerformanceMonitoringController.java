@@ -26,10 +26,13 @@ import java.util.Map;
 public class PerformanceMonitoringController {
 
     private final PerformanceMonitoringService monitoringService;
+    private final RequestTracer requestTracer;
 
     @Autowired
-    public PerformanceMonitoringController(PerformanceMonitoringService monitoringService) {
+    public PerformanceMonitoringController(PerformanceMonitoringService monitoringService,
+                                           RequestTracer requestTracer) {
         this.monitoringService = monitoringService;
+        this.requestTracer = requestTracer;
     }
 
     /**
@@ -101,6 +104,99 @@ public class PerformanceMonitoringController {
         }
     }
 
+    /**
+     * 获取问答各阶段耗时分布（p50/p95/p99）
+     *
+     * GET /api/monitoring/latency?window=5m
+     *
+     * @param window 统计窗口：1m / 5m / 15m / all
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<?> getStageLatencies(
+            @RequestParam(defaultValue = "5m") String window) {
+        try {
+            Map<PerformanceMonitoringService.Stage, PerformanceMonitoringService.StageLatency> latencies =
+                monitoringService.getStageLatencies(window);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("window", window);
+            response.put("stages", latencies);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("获取阶段耗时失败", e);
+            return ResponseEntity.ok(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取最近的请求追踪（阶段 span 树）
+     *
+     * GET /api/monitoring/traces?limit=20
+     */
+    @GetMapping("/traces")
+    public ResponseEntity<?> getRecentTraces(
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<RequestTrace> traces = requestTracer.getRecentTraces(limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("count", traces.size());
+            response.put("traces", traces);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("获取请求追踪失败", e);
+            return ResponseEntity.ok(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取最近的慢请求追踪
+     *
+     * GET /api/monitoring/traces/slow?limit=20
+     */
+    @GetMapping("/traces/slow")
+    public ResponseEntity<?> getSlowTraces(
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<RequestTrace> traces = requestTracer.getSlowTraces(limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("count", traces.size());
+            response.put("traces", traces);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("获取慢请求追踪失败", e);
+            return ResponseEntity.ok(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * 按 ID 获取请求追踪
+     *
+     * GET /api/monitoring/traces/{traceId}
+     */
+    @GetMapping("/traces/{traceId}")
+    public ResponseEntity<?> getTrace(@PathVariable String traceId) {
+        RequestTrace trace = requestTracer.findTrace(traceId);
+        if (trace == null) {
+            return ResponseEntity.ok(createErrorResponse("追踪不存在或已被覆盖: " + traceId));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("trace", trace);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 获取缓存统计
      *
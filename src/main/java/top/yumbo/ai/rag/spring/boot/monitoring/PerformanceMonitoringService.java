@@ -4,11 +4,15 @@ import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import top.yumbo.ai.rag.util.LatencyHistogram;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -20,6 +24,12 @@ import java.util.concurrent.atomic.AtomicLong;
  * - LLM 流式性能
  * - 缓存命中率
  * - 会话完成率
+ * - 问答各阶段耗时分布（分类、HOPE、关键词检索、向量化、向量检索、重排、上下文构建、LLM 首字与总耗时）
+ *
+ * 耗时记录到无锁直方图，记录路径不加锁也不分配；每 10 秒保存一次累计快照，
+ * 窗口分位数由当前快照减去窗口起点的快照得到
+ * (Latencies go into lock-free histograms, so recording neither locks nor allocates. A cumulative snapshot is
+ * kept every 10 seconds, and windowed percentiles are the current snapshot minus the one at the window start)
  *
  * @author AI Reviewer Team
  * @since 2025-12-09
@@ -32,13 +42,17 @@ public class PerformanceMonitoringService {
     private final AtomicLong hopeQueryCount = new AtomicLong(0);
     private final AtomicLong hopeQueryTotalTime = new AtomicLong(0);
     private final AtomicLong hopeHitCount = new AtomicLong(0);
-    private final List<Long> hopeQueryTimes = Collections.synchronizedList(new ArrayList<>());
 
     // LLM 流式统计
     private final AtomicLong llmStreamCount = new AtomicLong(0);
     private final AtomicLong llmStreamTotalTime = new AtomicLong(0);
     private final AtomicLong llmStreamSuccessCount = new AtomicLong(0);
-    private final List<Long> llmStreamTimes = Collections.synchronizedList(new ArrayList<>());
+
+    // 各阶段耗时直方图，单位微秒，构建后不再修改 (Per-stage histograms in microseconds, fixed after construction)
+    private final Map<Stage, LatencyHistogram> stageHistograms = new EnumMap<>(Stage.class);
+
+    // 累计快照，用于计算窗口分位数 (Cumulative snapshots for windowed percentiles)
+    private final Deque<WindowMark> windowMarks = new ArrayDeque<>();
 
     // 缓存统计
     private final Map<String, CacheStats> cacheStatsMap = new ConcurrentHashMap<>();
@@ -53,6 +67,59 @@ public class PerformanceMonitoringService {
     private final List<PerformanceSnapshot> recentSnapshots =
         Collections.synchronizedList(new ArrayList<>());
 
+    // 窗口快照间隔与保留时长 (Window mark interval and retention)
+    private static final long MARK_INTERVAL_MS = 10_000;
+    private static final long MARK_RETENTION_MS = 15 * 60_000;
+
+    /**
+     * 支持的统计窗口 (Supported statistics windows)
+     */
+    public static final Map<String, Long> WINDOWS = Map.of(
+        "1m", 60_000L,
+        "5m", 5 * 60_000L,
+        "15m", 15 * 60_000L);
+
+    public PerformanceMonitoringService() {
+        for (Stage stage : Stage.values()) {
+            stageHistograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     * (Record the duration of one stage)
+     *
+     * @param stage 阶段 (Stage)
+     * @param durationNanos 耗时（纳秒），通常为两次 System.nanoTime() 之差 (Duration in nanoseconds)
+     */
+    public void recordStage(Stage stage, long durationNanos) {
+        stageHistograms.get(stage).record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    /**
+     * 为 LLM 流计时：订阅时开始，首个片段记为首字耗时，结束时记为总耗时
+     * (Time an LLM stream from subscription: the first chunk is the first-token latency, termination the total)
+     *
+     * @param stream LLM 流 (LLM stream)
+     * @return 计时后的流 (Timed stream)
+     */
+    public <T> Flux<T> timeLlmStream(Flux<T> stream) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean();
+            return stream
+                .doOnNext(chunk -> {
+                    if (firstToken.compareAndSet(false, true)) {
+                        recordStage(Stage.LLM_FIRST_TOKEN, System.nanoTime() - start);
+                    }
+                })
+                .doOnComplete(() -> recordLlmStream(
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), true))
+                .doOnError(error -> recordLlmStream(
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), false));
+        });
+    }
+
     /**
      * 记录 HOPE 查询
      * (Record HOPE query)
@@ -66,14 +133,7 @@ public class PerformanceMonitoringService {
         if (hit) {
             hopeHitCount.incrementAndGet();
         }
-
-        synchronized (hopeQueryTimes) {
-            hopeQueryTimes.add(durationMs);
-            // 保留最近1000条记录
-            if (hopeQueryTimes.size() > 1000) {
-                hopeQueryTimes.remove(0);
-            }
-        }
+        recordStage(Stage.HOPE, TimeUnit.MILLISECONDS.toNanos(durationMs));
 
         log.debug("HOPE 查询记录: {}ms, hit={}", durationMs, hit);
     }
@@ -91,13 +151,7 @@ public class PerformanceMonitoringService {
         if (success) {
             llmStreamSuccessCount.incrementAndGet();
         }
-
-        synchronized (llmStreamTimes) {
-            llmStreamTimes.add(durationMs);
-            if (llmStreamTimes.size() > 1000) {
-                llmStreamTimes.remove(0);
-            }
-        }
+        recordStage(Stage.LLM_TOTAL, TimeUnit.MILLISECONDS.toNanos(durationMs));
 
         log.debug("LLM 流式记录: {}ms, success={}", durationMs, success);
     }
@@ -155,14 +209,11 @@ public class PerformanceMonitoringService {
         metrics.setHitRate(count > 0 ? (double) hits / count : 0.0);
         metrics.setAverageTimeMs(count > 0 ? (double) totalTime / count : 0.0);
 
-        // 计算 P95 和 P99
-        if (!hopeQueryTimes.isEmpty()) {
-            List<Long> sorted = new ArrayList<>(hopeQueryTimes);
-            Collections.sort(sorted);
-            int size = sorted.size();
-            metrics.setP95TimeMs(sorted.get((int) (size * 0.95)));
-            metrics.setP99TimeMs(sorted.get((int) (size * 0.99)));
-        }
+        // 最近 5 分钟的分位数 (Percentiles over the last 5 minutes)
+        LatencyHistogram.Snapshot window = windowSnapshot(Stage.HOPE, WINDOWS.get("5m"));
+        metrics.setP50TimeMs(TimeUnit.MICROSECONDS.toMillis(window.percentile(0.50)));
+        metrics.setP95TimeMs(TimeUnit.MICROSECONDS.toMillis(window.percentile(0.95)));
+        metrics.setP99TimeMs(TimeUnit.MICROSECONDS.toMillis(window.percentile(0.99)));
 
         return metrics;
     }
@@ -182,18 +233,82 @@ public class PerformanceMonitoringService {
         metrics.setSuccessRate(count > 0 ? (double) successCount / count : 0.0);
         metrics.setAverageTimeMs(count > 0 ? (double) totalTime / count : 0.0);
 
-        // 计算 P95 和 P99
-        if (!llmStreamTimes.isEmpty()) {
-            List<Long> sorted = new ArrayList<>(llmStreamTimes);
-            Collections.sort(sorted);
-            int size = sorted.size();
-            metrics.setP95TimeMs(sorted.get((int) (size * 0.95)));
-            metrics.setP99TimeMs(sorted.get((int) (size * 0.99)));
-        }
+        // 最近 5 分钟的分位数 (Percentiles over the last 5 minutes)
+        LatencyHistogram.Snapshot window = windowSnapshot(Stage.LLM_TOTAL, WINDOWS.get("5m"));
+        metrics.setP50TimeMs(TimeUnit.MICROSECONDS.toMillis(window.percentile(0.50)));
+        metrics.setP95TimeMs(TimeUnit.MICROSECONDS.toMillis(window.percentile(0.95)));
+        metrics.setP99TimeMs(TimeUnit.MICROSECONDS.toMillis(window.percentile(0.99)));
 
         return metrics;
     }
 
+    /**
+     * 获取各阶段耗时分布
+     * (Get per-stage latency distributions)
+     *
+     * @param window 统计窗口：1m / 5m / 15m，或 all 表示启动以来 (Window: 1m / 5m / 15m, or all since startup)
+     * @return 阶段 -> 耗时分布 (Stage -> latency distribution)
+     */
+    public Map<Stage, StageLatency> getStageLatencies(String window) {
+        Long windowMs = WINDOWS.get(window);
+        if (windowMs == null && !"all".equals(window)) {
+            throw new IllegalArgumentException("Unknown window: " + window + ", expected one of "
+                + new TreeSet<>(WINDOWS.keySet()) + " or all");
+        }
+
+        Map<Stage, StageLatency> latencies = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram.Snapshot snapshot = windowMs == null
+                ? stageHistograms.get(stage).snapshot()
+                : windowSnapshot(stage, windowMs);
+            latencies.put(stage, StageLatency.of(snapshot));
+        }
+        return latencies;
+    }
+
+    /**
+     * 当前累计快照减去窗口起点的快照；启动不足一个窗口时从最早的快照算起
+     * (Current cumulative snapshot minus the one at the window start; before a full window has passed,
+     * counts from the earliest mark)
+     */
+    private LatencyHistogram.Snapshot windowSnapshot(Stage stage, long windowMs) {
+        LatencyHistogram.Snapshot current = stageHistograms.get(stage).snapshot();
+        WindowMark baseline = baselineMark(System.currentTimeMillis() - windowMs);
+        return baseline != null ? current.minus(baseline.snapshots().get(stage)) : current;
+    }
+
+    /**
+     * 不早于窗口起点的最早快照 (Earliest mark taken at or after the window start)
+     */
+    private WindowMark baselineMark(long windowStartMs) {
+        synchronized (windowMarks) {
+            for (WindowMark mark : windowMarks) {
+                if (mark.timestampMs() >= windowStartMs) {
+                    return mark;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 定期保存累计快照（每 10 秒）
+     * (Keep a cumulative snapshot periodically)
+     */
+    @Scheduled(fixedRate = MARK_INTERVAL_MS)
+    public void markWindow() {
+        Map<Stage, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(Stage.class);
+        stageHistograms.forEach((stage, histogram) -> snapshots.put(stage, histogram.snapshot()));
+        long now = System.currentTimeMillis();
+
+        synchronized (windowMarks) {
+            windowMarks.addLast(new WindowMark(now, snapshots));
+            while (!windowMarks.isEmpty() && windowMarks.peekFirst().timestampMs() < now - MARK_RETENTION_MS) {
+                windowMarks.removeFirst();
+            }
+        }
+    }
+
     /**
      * 获取缓存统计
      * (Get cache statistics)
@@ -233,6 +348,7 @@ public class PerformanceMonitoringService {
         dashboard.setLlmMetrics(getLlmMetrics());
         dashboard.setCacheStats(getCacheStats());
         dashboard.setSessionMetrics(getSessionMetrics());
+        dashboard.setStageLatencies(getStageLatencies("5m"));
         return dashboard;
     }
 
@@ -282,12 +398,15 @@ public class PerformanceMonitoringService {
         hopeQueryCount.set(0);
         hopeQueryTotalTime.set(0);
         hopeHitCount.set(0);
-        hopeQueryTimes.clear();
 
         llmStreamCount.set(0);
         llmStreamTotalTime.set(0);
         llmStreamSuccessCount.set(0);
-        llmStreamTimes.clear();
+
+        stageHistograms.values().forEach(LatencyHistogram::reset);
+        synchronized (windowMarks) {
+            windowMarks.clear();
+        }
 
         cacheStatsMap.clear();
 
@@ -303,12 +422,52 @@ public class PerformanceMonitoringService {
 
     // ==================== 内部数据类 ====================
 
+    /**
+     * 问答流水线阶段 (Q&A pipeline stage)
+     */
+    public enum Stage {
+        CLASSIFY,
+        HOPE,
+        KEYWORD_SEARCH,
+        EMBED,
+        VECTOR_SEARCH,
+        RERANK,
+        CONTEXT_BUILD,
+        LLM_FIRST_TOKEN,
+        LLM_TOTAL
+    }
+
+    private record WindowMark(long timestampMs, Map<Stage, LatencyHistogram.Snapshot> snapshots) {
+    }
+
+    @Data
+    public static class StageLatency {
+        private long count;
+        private double meanMs;
+        private double p50Ms;
+        private double p95Ms;
+        private double p99Ms;
+        private double maxMs;
+
+        public static StageLatency of(LatencyHistogram.Snapshot snapshot) {
+            StageLatency latency = new StageLatency();
+            latency.setCount(snapshot.count());
+            latency.setMeanMs(snapshot.mean() / 1000.0);
+            latency.setP50Ms(snapshot.percentile(0.50) / 1000.0);
+            latency.setP95Ms(snapshot.percentile(0.95) / 1000.0);
+            latency.setP99Ms(snapshot.percentile(0.99) / 1000.0);
+            latency.setMaxMs(snapshot.max() / 1000.0);
+            return latency;
+        }
+    }
+
     @Data
     public static class HopeMetrics {
         private long queryCount;
         private long hitCount;
         private double hitRate;
         private double averageTimeMs;
+        private long p50TimeMs;
         private long p95TimeMs;
         private long p99TimeMs;
     }
@@ -319,6 +478,7 @@ public class PerformanceMonitoringService {
         private long successCount;
         private double successRate;
         private double averageTimeMs;
+        private long p50TimeMs;
         private long p95TimeMs;
         private long p99TimeMs;
     }
@@ -367,6 +527,7 @@ public class PerformanceMonitoringService {
         private LlmMetrics llmMetrics;
         private Map<String, CacheStats> cacheStats;
         private SessionMetrics sessionMetrics;
+        private Map<Stage, StageLatency> stageLatencies;
     }
 
     @Data
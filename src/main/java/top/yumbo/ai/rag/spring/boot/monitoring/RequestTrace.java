@@ -0,0 +1,175 @@
+package top.yumbo.ai.rag.spring.boot.monitoring;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单次请求的阶段追踪（Per-request stage trace）
+ *
+ * <p>
+ * 一次问答是一棵 span 树，每个 span 记录相对请求开始的纳秒偏移、耗时和属性（文档数、缓存命中、片段数等）；
+ * 当前线程的活动 span 保存在 ThreadLocal 中，检索等深层代码无需传参即可调用 {@link #span(String)} 挂上子节点
+ * (A Q&A request is a span tree. Each span records its nanosecond offset from the request start, its duration
+ * and attributes such as document counts, cache hits or chunk counts. The active span of the current thread
+ * lives in a ThreadLocal, so deep code such as retrieval can attach children via {@link #span(String)} without
+ * passing the trace around)
+ * </p>
+ *
+ * <p>
+ * 没有活动追踪时所有操作都是空操作；跨线程继续的阶段（如 LLM 流）用 {@link #asyncSpan(String)} 创建，
+ * 在任意线程调用 {@link Span#end()} 结束
+ * (Without an active trace every call is a no-op. Stages that continue on other threads, such as the LLM stream,
+ * are created with {@link #asyncSpan(String)} and ended from any thread via {@link Span#end()})
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Getter
+public class RequestTrace {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final String traceId;
+    private final String operation;
+    private final long startEpochMs;
+    private final Span root;
+    @Getter(AccessLevel.NONE)
+    private final long startNanos;
+
+    RequestTrace(String traceId, String operation) {
+        this.traceId = traceId;
+        this.operation = operation;
+        this.startEpochMs = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.root = new Span(this, null, operation);
+    }
+
+    /**
+     * 请求耗时（毫秒），未结束时为 -1（Request duration in milliseconds, -1 while running）
+     */
+    public double getDurationMs() {
+        return root.getDurationMs();
+    }
+
+    /**
+     * 在当前 span 下开启子 span 并设为当前，关闭时恢复父 span
+     * (Open a child of the current span and make it current; closing restores the parent)
+     */
+    public static Span span(String name) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return Span.NOOP;
+        }
+        Span child = parent.child(name);
+        CURRENT.set(child);
+        return child;
+    }
+
+    /**
+     * 在当前 span 下开启子 span，但不设为当前，可在其他线程结束
+     * (Open a child of the current span without making it current, so another thread can end it)
+     */
+    public static Span asyncSpan(String name) {
+        Span parent = CURRENT.get();
+        return parent != null ? parent.child(name) : Span.NOOP;
+    }
+
+    /**
+     * 当前线程的活动 span，没有时返回空操作 span（The current thread's active span, or a no-op span）
+     */
+    public static Span current() {
+        Span span = CURRENT.get();
+        return span != null ? span : Span.NOOP;
+    }
+
+    void activate() {
+        CURRENT.set(root);
+    }
+
+    /**
+     * 当前线程不再属于本追踪，之后由其他线程结束（Detach the current thread; another thread finishes the trace）
+     */
+    public void detach() {
+        Span span = CURRENT.get();
+        if (span != null && span.trace == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * 追踪中的一个阶段（One stage of a trace）
+     */
+    @Getter
+    public static class Span implements AutoCloseable {
+
+        static final Span NOOP = new Span(null, null, "noop");
+
+        @Getter(AccessLevel.NONE)
+        private final RequestTrace trace;
+        @Getter(AccessLevel.NONE)
+        private final Span parent;
+        private final String name;
+        private final long offsetNanos;
+        private volatile long durationNanos = -1;
+        private final Map<String, Object> attributes = Collections.synchronizedMap(new LinkedHashMap<>());
+        private final List<Span> children = Collections.synchronizedList(new ArrayList<>());
+
+        private Span(RequestTrace trace, Span parent, String name) {
+            this.trace = trace;
+            this.parent = parent;
+            this.name = name;
+            this.offsetNanos = trace != null ? System.nanoTime() - trace.startNanos : 0;
+        }
+
+        private Span child(String childName) {
+            Span child = new Span(trace, this, childName);
+            children.add(child);
+            return child;
+        }
+
+        /**
+         * 添加属性（Add an attribute）
+         */
+        public Span attr(String key, Object value) {
+            if (trace != null) {
+                attributes.put(key, value);
+            }
+            return this;
+        }
+
+        /**
+         * 结束计时，重复调用只保留第一次（Stop the clock; only the first call counts）
+         */
+        public void end() {
+            if (trace != null && durationNanos < 0) {
+                durationNanos = System.nanoTime() - trace.startNanos - offsetNanos;
+            }
+        }
+
+        public double getDurationMs() {
+            return durationNanos < 0 ? -1 : durationNanos / 1_000_000.0;
+        }
+
+        /**
+         * 结束并把当前 span 恢复为父 span（End and restore the parent as the current span）
+         */
+        @Override
+        public void close() {
+            end();
+            if (trace != null && CURRENT.get() == this) {
+                if (parent != null) {
+                    CURRENT.set(parent);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package top.yumbo.ai.rag.spring.boot.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 请求追踪服务（Request tracer）
+ *
+ * <p>
+ * 开启和结束 {@link RequestTrace}，把结束的追踪写入两个有界环形缓冲：最近追踪按采样率写入，
+ * 超过慢请求阈值的追踪总是写入慢请求缓冲。写入只是一次原子自增加数组赋值，不加锁
+ * (Starts and finishes {@link RequestTrace}s and writes finished traces into two bounded ring buffers: recent
+ * traces are written at the sample rate, traces over the slow threshold always go to the slow buffer. A write is
+ * one atomic increment plus an array store, without locking)
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class RequestTracer {
+
+    private final KnowledgeQAProperties.TracingConfig config;
+    private final Ring recent;
+    private final Ring slow;
+
+    @Autowired
+    public RequestTracer(KnowledgeQAProperties properties) {
+        this(properties.getTracing());
+    }
+
+    RequestTracer(KnowledgeQAProperties.TracingConfig config) {
+        this.config = config;
+        this.recent = new Ring(config.getCapacity());
+        this.slow = new Ring(config.getSlowCapacity());
+    }
+
+    /**
+     * 开启追踪并设为当前线程的活动追踪，未启用时返回 null
+     * (Start a trace and make it active on the current thread; returns null when disabled)
+     *
+     * @param operation 操作名，如 ask / ask_stream（Operation name such as ask / ask_stream）
+     */
+    public RequestTrace start(String operation) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        RequestTrace trace = new RequestTrace(UUID.randomUUID().toString(), operation);
+        trace.activate();
+        return trace;
+    }
+
+    /**
+     * 结束追踪并写入缓冲，可在任意线程调用，null 时忽略
+     * (Finish a trace and store it; callable from any thread, ignores null)
+     */
+    public void finish(RequestTrace trace) {
+        if (trace == null) {
+            return;
+        }
+        trace.getRoot().close();
+        trace.detach();
+
+        double durationMs = trace.getDurationMs();
+        if (durationMs >= config.getSlowThresholdMs()) {
+            slow.add(trace);
+            log.warn("慢请求: {} 耗时 {}ms, traceId={}", trace.getOperation(),
+                    String.format("%.1f", durationMs), trace.getTraceId());
+        }
+        double sampleRate = config.getSampleRate();
+        if (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            recent.add(trace);
+        }
+    }
+
+    /**
+     * 最近的追踪，新的在前（Recent traces, newest first）
+     */
+    public List<RequestTrace> getRecentTraces(int limit) {
+        return recent.latest(limit);
+    }
+
+    /**
+     * 最近的慢请求追踪，新的在前（Recent slow traces, newest first）
+     */
+    public List<RequestTrace> getSlowTraces(int limit) {
+        return slow.latest(limit);
+    }
+
+    /**
+     * 按 ID 查找仍在缓冲中的追踪（Find a trace still held in a buffer by id）
+     */
+    public RequestTrace findTrace(String traceId) {
+        RequestTrace trace = recent.find(traceId);
+        return trace != null ? trace : slow.find(traceId);
+    }
+
+    /**
+     * 固定容量的覆盖式环形缓冲（Fixed-capacity overwriting ring buffer）
+     */
+    private static final class Ring {
+        private final AtomicReferenceArray<RequestTrace> slots;
+        private final AtomicLong cursor = new AtomicLong();
+
+        Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+        }
+
+        void add(RequestTrace trace) {
+            long index = cursor.getAndIncrement();
+            slots.set((int) (index % slots.length()), trace);
+        }
+
+        List<RequestTrace> latest(int limit) {
+            long end = cursor.get();
+            long available = Math.min(end, slots.length());
+            int count = (int) Math.min(Math.max(0, limit), available);
+            List<RequestTrace> result = new ArrayList<>(count);
+            for (long i = end - 1; i >= end - available && result.size() < count; i--) {
+                RequestTrace trace = slots.get((int) (i % slots.length()));
+                if (trace != null) {
+                    result.add(trace);
+                }
+            }
+            return result;
+        }
+
+        RequestTrace find(String traceId) {
+            for (int i = 0; i < slots.length(); i++) {
+                RequestTrace trace = slots.get(i);
+                if (trace != null && trace.getTraceId().equals(traceId)) {
+                    return trace;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import top.yumbo.ai.rag.chunking.DocumentChunk;
 import top.yumbo.ai.rag.chunking.strategy.ChunkingStrategy;
 import top.yumbo.ai.rag.i18n.I18N;
 import top.yumbo.ai.rag.image.ImageInfo;
+import top.yumbo.ai.rag.image.extractor.ExtractedImage;
 import top.yumbo.ai.rag.model.Document;
 import top.yumbo.ai.rag.ppl.PPLException;
 import top.yumbo.ai.rag.ppl.PPLServiceFacade;
@@ -109,6 +110,44 @@ public class DocumentPreprocessingService {
         return originalContent;
     }
 
+    /**
+     * 预处理单遍解析的结果：图片已随文本一起提取，只做分析、保存和原位插入
+     * Preprocess a single-pass parse result: images were extracted together with the text,
+     * so they are only analyzed, saved and inserted in place without re-opening the file
+     *
+     * @param file 文档文件
+     * @param originalContent 解析得到的文本内容
+     * @param images 解析时收集的图片（字符位置对应 originalContent）
+     * @return 增强后的内容（包含图片文本化信息）
+     */
+    public String preprocessDocument(File file, String originalContent, List<ExtractedImage> images) {
+        if (originalContent == null || originalContent.trim().isEmpty()) {
+            return originalContent;
+        }
+        if (imageExtractionService == null || images == null || images.isEmpty()) {
+            return originalContent;
+        }
+
+        try {
+            log.info("🖼️ Analyzing {} images from single-pass parse of: {}", images.size(), file.getName());
+
+            List<ImageInfo> savedImages = imageExtractionService.analyzeAndSaveImages(
+                images, file.getName(), file.getName(), originalContent);
+
+            if (!savedImages.isEmpty()) {
+                String enhancedContent = insertImageTextAtOriginalPositions(
+                    originalContent, savedImages, file.getName());
+
+                log.info("✅ Image information inserted at original positions");
+                return enhancedContent;
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Image extraction failed for {}: {}", file.getName(), e.getMessage());
+        }
+
+        return originalContent;
+    }
+
     /**
      * 将图片文本插入到原始位置
      * Insert image text at original positions
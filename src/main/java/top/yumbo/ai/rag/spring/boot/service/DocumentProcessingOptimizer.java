@@ -103,6 +103,7 @@ public class DocumentProcessingOptimizer {
             .chunkSize(properties.getDocument().getChunkSize())
             .chunkOverlap(properties.getDocument().getChunkOverlap())
             .smartSplit(true)
+            .contentDefined(properties.getDocument().isContentDefinedChunking())
             .maxContentLength(properties.getDocument().getMaxChunkContentLength())
             .maxChunks(properties.getDocument().getMaxChunksPerDocument())
             .build();
@@ -1,6 +1,7 @@
 package top.yumbo.ai.rag.spring.boot.service;
 
 import com.alibaba.fastjson2.JSON;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -10,13 +11,19 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 文件追踪服务
  * 用于记录已索引的文件及其最后修改时间，支持增量索引
  *
+ * 追踪信息保存在 SQLite（file-tracking.db）中，保存时只写入上次保存后变化的条目；
+ * 旧版 .file_tracking.json 会在首次初始化时导入
+ *
  * @author AI Reviewer Team
  * @since 2025-11-23
  */
@@ -24,34 +31,79 @@ import java.util.Map;
 @Service
 public class FileTrackingService {
 
-    private static final String TRACKING_FILE = ".file_tracking.json";
-    private final Map<String, FileInfo> fileTracking = new HashMap<>();
-    private String trackingFilePath;
+    private static final String LEGACY_TRACKING_FILE = ".file_tracking.json";
+    private static final String TRACKING_DB = "file-tracking.db";
+
+    private final Map<String, FileInfo> fileTracking = new ConcurrentHashMap<>();
+    // 上次保存后变化的条目
+    private final Map<String, FileInfo> pendingUpserts = new ConcurrentHashMap<>();
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    private FileTrackingStore store;
+    private volatile String trackingFilePath;
+    private String legacyTrackingFilePath;
 
     /**
-     * 初始化文件追踪
+     * 初始化文件追踪；同一存储路径重复初始化时直接复用内存中的追踪信息
      *
      * @param storagePath 知识库存储路径
      */
-    public void initialize(String storagePath) {
-        this.trackingFilePath = storagePath + File.separator + TRACKING_FILE;
-        loadTracking();
+    public synchronized void initialize(String storagePath) {
+        String dbPath = storagePath + File.separator + TRACKING_DB;
+        if (store != null && dbPath.equals(trackingFilePath)) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(Paths.get(storagePath));
+        } catch (Exception e) {
+            log.warn(I18N.get("log.filetracking.load_failed", e.getMessage()));
+        }
+
+        if (store != null) {
+            store.close();
+        }
+        store = new FileTrackingStore(dbPath);
+        trackingFilePath = dbPath;
+        legacyTrackingFilePath = storagePath + File.separator + LEGACY_TRACKING_FILE;
+
+        fileTracking.clear();
+        pendingUpserts.clear();
+        pendingDeletes.clear();
+        fileTracking.putAll(store.loadAll());
+
+        if (fileTracking.isEmpty()) {
+            migrateLegacyTracking();
+        }
+        log.info(I18N.get("log.filetracking.loaded", fileTracking.size()));
     }
 
     /**
-     * 加载追踪信息
+     * 尚未初始化时初始化（单文件入库可能早于任何一次批量构建）
+     *
+     * @param storagePath 知识库存储路径
      */
-    private void loadTracking() {
+    public synchronized void initializeIfNeeded(String storagePath) {
+        if (trackingFilePath == null) {
+            initialize(storagePath);
+        }
+    }
+
+    /**
+     * 导入旧版 JSON 追踪文件
+     */
+    private void migrateLegacyTracking() {
         try {
-            Path path = Paths.get(trackingFilePath);
-            if (Files.exists(path)) {
-                String content = Files.readString(path);
-                Map<String, FileInfo> loaded = JSON.parseObject(content,
-                    new com.alibaba.fastjson2.TypeReference<Map<String, FileInfo>>() {});
-                if (loaded != null) {
-                    fileTracking.putAll(loaded);
-                    log.info(I18N.get("log.filetracking.loaded", fileTracking.size()));
-                }
+            Path path = Paths.get(legacyTrackingFilePath);
+            if (!Files.exists(path)) {
+                return;
+            }
+            Map<String, FileInfo> loaded = JSON.parseObject(Files.readString(path),
+                new com.alibaba.fastjson2.TypeReference<Map<String, FileInfo>>() {});
+            if (loaded != null && !loaded.isEmpty()) {
+                fileTracking.putAll(loaded);
+                store.apply(loaded.values(), List.of());
+                log.info(I18N.get("log.filetracking.migrated", loaded.size(), trackingFilePath));
             }
         } catch (Exception e) {
             log.warn(I18N.get("log.filetracking.load_failed", e.getMessage()));
@@ -59,16 +111,36 @@ public class FileTrackingService {
     }
 
     /**
-     * 保存追踪信息
+     * 保存追踪信息（只写入上次保存后变化的条目）
      */
-    public void saveTracking() {
+    public synchronized void saveTracking() {
+        if (store == null) {
+            return;
+        }
+
+        List<FileInfo> upserts = new ArrayList<>();
+        for (String key : pendingUpserts.keySet()) {
+            FileInfo info = pendingUpserts.remove(key);
+            if (info != null) {
+                upserts.add(info);
+            }
+        }
+        List<String> deletes = new ArrayList<>();
+        for (String key : pendingDeletes) {
+            if (pendingDeletes.remove(key)) {
+                deletes.add(key);
+            }
+        }
+
         try {
-            Path path = Paths.get(trackingFilePath);
-            Files.createDirectories(path.getParent());
-            String content = JSON.toJSONString(fileTracking);
-            Files.writeString(path, content);
-            log.debug(I18N.get("log.filetracking.saved", fileTracking.size()));
+            store.apply(upserts, deletes);
+            log.debug(I18N.get("log.filetracking.saved", upserts.size() + deletes.size()));
         } catch (Exception e) {
+            // 写入失败时保留待保存条目，下次重试
+            for (FileInfo info : upserts) {
+                pendingUpserts.putIfAbsent(info.getFilePath(), info);
+            }
+            pendingDeletes.addAll(deletes);
             log.error(I18N.get("log.filetracking.save_failed", e.getMessage()), e);
         }
     }
@@ -122,12 +194,81 @@ public class FileTrackingService {
             .anyMatch(info -> fileName.equals(info.getFileName()));
     }
 
+    /**
+     * 获取文件上次索引生成的文档ID
+     *
+     * @param file 文件对象
+     * @return 文档ID列表；未追踪或未记录时为空
+     */
+    public List<String> getDocumentIds(File file) {
+        FileInfo info = fileTracking.get(file.getAbsolutePath());
+        return info == null || info.getDocumentIds() == null ? List.of() : List.copyOf(info.getDocumentIds());
+    }
+
+    /**
+     * 获取目录下所有已追踪的文件
+     *
+     * @param dir 目录
+     * @return 已追踪的文件
+     */
+    public List<File> getTrackedFilesUnder(Path dir) {
+        String prefix = dir.toAbsolutePath().toString() + File.separator;
+        List<File> files = new ArrayList<>();
+        for (String path : fileTracking.keySet()) {
+            if (path.startsWith(prefix)) {
+                files.add(new File(path));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 获取文件上次索引的块哈希到文档ID的映射，相同内容的块按出现顺序排列
+     *
+     * @param file 文件对象
+     * @return 块哈希 -> 文档ID；未记录块哈希时为空
+     */
+    public Map<String, java.util.Deque<String>> getChunkDocumentIds(File file) {
+        Map<String, java.util.Deque<String>> chunks = new java.util.HashMap<>();
+        FileInfo info = fileTracking.get(file.getAbsolutePath());
+        if (info == null || info.getChunkHashes() == null || info.getDocumentIds() == null
+                || info.getChunkHashes().size() != info.getDocumentIds().size()) {
+            return chunks;
+        }
+        for (int i = 0; i < info.getChunkHashes().size(); i++) {
+            chunks.computeIfAbsent(info.getChunkHashes().get(i), k -> new java.util.ArrayDeque<>())
+                .add(info.getDocumentIds().get(i));
+        }
+        return chunks;
+    }
+
     /**
      * 标记文件已索引
      *
      * @param file 文件对象
      */
     public void markAsIndexed(File file) {
+        markAsIndexed(file, null, null);
+    }
+
+    /**
+     * 标记文件已索引，并记录生成的文档ID（用于文件修改或删除时移除旧文档）
+     *
+     * @param file        文件对象
+     * @param documentIds 生成的文档ID
+     */
+    public void markAsIndexed(File file, List<String> documentIds) {
+        markAsIndexed(file, documentIds, null);
+    }
+
+    /**
+     * 标记文件已索引，并记录每个文档（块）的ID和内容哈希（用于修改后只重建变化的块）
+     *
+     * @param file        文件对象
+     * @param documentIds 生成的文档ID
+     * @param chunkHashes 与文档ID一一对应的块内容哈希
+     */
+    public void markAsIndexed(File file, List<String> documentIds, List<String> chunkHashes) {
         try {
             String absolutePath = file.getAbsolutePath();
             FileInfo info = new FileInfo();
@@ -136,8 +277,12 @@ public class FileTrackingService {
             info.lastModified = file.lastModified();
             info.fileSize = file.length();
             info.indexedAt = System.currentTimeMillis();
+            info.documentIds = documentIds != null ? new ArrayList<>(documentIds) : new ArrayList<>();
+            info.chunkHashes = chunkHashes != null ? new ArrayList<>(chunkHashes) : new ArrayList<>();
 
             fileTracking.put(absolutePath, info);
+            pendingDeletes.remove(absolutePath);
+            pendingUpserts.put(absolutePath, info);
         } catch (Exception e) {
             log.warn(I18N.get("log.filetracking.mark_failed", file.getName()), e);
         }
@@ -149,17 +294,26 @@ public class FileTrackingService {
      * @param file 文件对象
      */
     public void removeTracking(File file) {
-        fileTracking.remove(file.getAbsolutePath());
+        String absolutePath = file.getAbsolutePath();
+        fileTracking.remove(absolutePath);
+        pendingUpserts.remove(absolutePath);
+        pendingDeletes.add(absolutePath);
     }
 
     /**
      * 清空所有追踪信息
      */
-    public void clearAll() {
+    public synchronized void clearAll() {
         fileTracking.clear();
+        pendingUpserts.clear();
+        pendingDeletes.clear();
+        if (store != null) {
+            store.clear();
+        }
         try {
-            Path path = Paths.get(trackingFilePath);
-            Files.deleteIfExists(path);
+            if (legacyTrackingFilePath != null) {
+                Files.deleteIfExists(Paths.get(legacyTrackingFilePath));
+            }
             log.info(I18N.get("log.filetracking.cleared"));
         } catch (Exception e) {
             log.warn(I18N.get("log.filetracking.clear_failed", e.getMessage()), e);
@@ -176,6 +330,19 @@ public class FileTrackingService {
         return stats;
     }
 
+    /**
+     * 保存未写入的条目并关闭存储
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (store != null) {
+            saveTracking();
+            store.close();
+            store = null;
+            trackingFilePath = null;
+        }
+    }
+
     /**
      * 文件信息
      */
@@ -186,6 +353,8 @@ public class FileTrackingService {
         private long lastModified;
         private long fileSize;
         private long indexedAt;
+        private List<String> documentIds = new ArrayList<>();
+        private List<String> chunkHashes = new ArrayList<>();
     }
 
     /**
@@ -0,0 +1,186 @@
+package top.yumbo.ai.rag.spring.boot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.rag.i18n.I18N;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * 文件追踪存储（File tracking store）
+ * 以 SQLite 按行保存文件追踪信息，每次只写入变化的条目，替代整体重写 JSON 文件
+ * （Keeps file tracking rows in SQLite and writes only the entries that changed, instead of rewriting a JSON file）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+public class FileTrackingStore implements AutoCloseable {
+
+    private static final String CREATE_TRACKING_TABLE = """
+            CREATE TABLE IF NOT EXISTS file_tracking (
+                file_path TEXT PRIMARY KEY,
+                file_name TEXT NOT NULL,
+                last_modified INTEGER NOT NULL,
+                file_size INTEGER NOT NULL,
+                indexed_at INTEGER NOT NULL,
+                document_ids TEXT,
+                chunk_hashes TEXT
+            )
+            """;
+
+    private final String dbPath;
+    private Connection connection;
+
+    public FileTrackingStore(String dbPath) {
+        this.dbPath = dbPath;
+        initialize();
+    }
+
+    /**
+     * 初始化数据库（Initialize database）
+     */
+    private void initialize() {
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("PRAGMA synchronous=NORMAL");
+                stmt.execute(CREATE_TRACKING_TABLE);
+                addColumnIfMissing(stmt, "chunk_hashes", "TEXT");
+            }
+        } catch (SQLException e) {
+            log.error(I18N.get("log.filetracking.store_init_failed", dbPath), e);
+            throw new RuntimeException(I18N.get("log.filetracking.store_init_failed", dbPath), e);
+        }
+    }
+
+    /**
+     * 为旧库补充新增列（Add a column introduced after the table was created）
+     */
+    private void addColumnIfMissing(Statement stmt, String column, String type) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(file_tracking)")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        stmt.execute("ALTER TABLE file_tracking ADD COLUMN " + column + " " + type);
+    }
+
+    /**
+     * 加载全部追踪信息（Load all tracking entries）
+     */
+    public synchronized Map<String, FileTrackingService.FileInfo> loadAll() {
+        Map<String, FileTrackingService.FileInfo> entries = new HashMap<>();
+        String sql = "SELECT file_path, file_name, last_modified, file_size, indexed_at, document_ids, chunk_hashes FROM file_tracking";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                FileTrackingService.FileInfo info = new FileTrackingService.FileInfo();
+                info.setFilePath(rs.getString("file_path"));
+                info.setFileName(rs.getString("file_name"));
+                info.setLastModified(rs.getLong("last_modified"));
+                info.setFileSize(rs.getLong("file_size"));
+                info.setIndexedAt(rs.getLong("indexed_at"));
+                info.setDocumentIds(splitIds(rs.getString("document_ids")));
+                info.setChunkHashes(splitIds(rs.getString("chunk_hashes")));
+                entries.put(info.getFilePath(), info);
+            }
+        } catch (SQLException e) {
+            log.warn(I18N.get("log.filetracking.load_failed", e.getMessage()), e);
+        }
+        return entries;
+    }
+
+    /**
+     * 在一个事务中写入变化的条目（Write changed entries in one transaction）
+     *
+     * @param upserts 新增或更新的条目（Entries added or updated）
+     * @param deletes 删除的文件路径（File paths removed）
+     */
+    public synchronized void apply(Collection<FileTrackingService.FileInfo> upserts, Collection<String> deletes) {
+        if (upserts.isEmpty() && deletes.isEmpty()) {
+            return;
+        }
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement upsert = connection.prepareStatement("""
+                         INSERT OR REPLACE INTO file_tracking
+                         (file_path, file_name, last_modified, file_size, indexed_at, document_ids, chunk_hashes)
+                         VALUES (?, ?, ?, ?, ?, ?, ?)
+                         """);
+                 PreparedStatement delete = connection.prepareStatement(
+                         "DELETE FROM file_tracking WHERE file_path = ?")) {
+                for (FileTrackingService.FileInfo info : upserts) {
+                    upsert.setString(1, info.getFilePath());
+                    upsert.setString(2, info.getFileName());
+                    upsert.setLong(3, info.getLastModified());
+                    upsert.setLong(4, info.getFileSize());
+                    upsert.setLong(5, info.getIndexedAt());
+                    upsert.setString(6, joinIds(info.getDocumentIds()));
+                    upsert.setString(7, joinIds(info.getChunkHashes()));
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+
+                for (String path : deletes) {
+                    delete.setString(1, path);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // 回滚失败时保留原始异常（Keep the original exception if rollback fails）
+            }
+            throw new RuntimeException(I18N.get("log.filetracking.save_failed", e.getMessage()), e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.warn(I18N.get("log.filetracking.save_failed", e.getMessage()), e);
+            }
+        }
+    }
+
+    /**
+     * 删除全部条目（Delete all entries）
+     */
+    public synchronized void clear() {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DELETE FROM file_tracking");
+        } catch (SQLException e) {
+            log.warn(I18N.get("log.filetracking.clear_failed", e.getMessage()), e);
+        }
+    }
+
+    public String getDbPath() {
+        return dbPath;
+    }
+
+    private static String joinIds(List<String> ids) {
+        return ids == null || ids.isEmpty() ? null : String.join(",", ids);
+    }
+
+    private static List<String> splitIds(String ids) {
+        return ids == null || ids.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(ids.split(",")));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn(I18N.get("log.filetracking.store_close_failed", dbPath), e);
+            }
+            connection = null;
+        }
+    }
+}
@@ -5,6 +5,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import top.yumbo.ai.rag.service.LocalFileRAG;
 import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService.Stage;
+import top.yumbo.ai.rag.spring.boot.monitoring.RequestTrace;
 import top.yumbo.ai.rag.impl.embedding.LocalEmbeddingEngine;
 import top.yumbo.ai.rag.impl.index.SimpleVectorIndexEngine;
 import top.yumbo.ai.rag.model.Document;
@@ -36,18 +39,21 @@ public class HybridSearchService {
     private final QueryExpansionService queryExpansionService;
     private final DocumentWeightService documentWeightService;
     private final SearchCacheService searchCacheService;
+    private final PerformanceMonitoringService monitoringService;
 
     @Autowired
     public HybridSearchService(KnowledgeQAProperties properties,
                                SearchConfigService configService,
                                @Autowired(required = false) QueryExpansionService queryExpansionService,
                                @Autowired(required = false) DocumentWeightService documentWeightService,
-                               @Autowired(required = false) SearchCacheService searchCacheService) {
+                               @Autowired(required = false) SearchCacheService searchCacheService,
+                               @Autowired(required = false) PerformanceMonitoringService monitoringService) {
         this.properties = properties;
         this.configService = configService;
         this.queryExpansionService = queryExpansionService;
         this.documentWeightService = documentWeightService;
         this.searchCacheService = searchCacheService;
+        this.monitoringService = monitoringService;
     }
 
     /**
@@ -63,12 +69,30 @@ public class HybridSearchService {
     public List<Document> hybridSearch(String question, LocalFileRAG rag,
                                       LocalEmbeddingEngine embeddingEngine,
                                       SimpleVectorIndexEngine vectorIndexEngine) {
+        return hybridSearch(question, rag, embeddingEngine, vectorIndexEngine, null);
+    }
+
+    /**
+     * 混合检索，复用调用方已算好的问题向量
+     * (Hybrid search reusing the question vector the caller has already computed)
+     *
+     * @param queryVector 问题向量，为 null 时由嵌入引擎计算（Question vector; computed by the embedding engine when null）
+     */
+    public List<Document> hybridSearch(String question, LocalFileRAG rag,
+                                      LocalEmbeddingEngine embeddingEngine,
+                                      SimpleVectorIndexEngine vectorIndexEngine,
+                                      float[] queryVector) {
         // 使用缓存包装检索逻辑 (Wrap search logic with cache)
         if (searchCacheService != null) {
-            return searchCacheService.getCachedOrSearch(question,
-                () -> doHybridSearch(question, rag, embeddingEngine, vectorIndexEngine));
+            boolean[] searched = new boolean[1];
+            List<Document> documents = searchCacheService.getCachedOrSearch(question, () -> {
+                searched[0] = true;
+                return doHybridSearch(question, rag, embeddingEngine, vectorIndexEngine, queryVector);
+            });
+            RequestTrace.current().attr("searchCacheHit", !searched[0]);
+            return documents;
         }
-        return doHybridSearch(question, rag, embeddingEngine, vectorIndexEngine);
+        return doHybridSearch(question, rag, embeddingEngine, vectorIndexEngine, queryVector);
     }
 
     /**
@@ -77,7 +101,8 @@ public class HybridSearchService {
      */
     private List<Document> doHybridSearch(String question, LocalFileRAG rag,
                                           LocalEmbeddingEngine embeddingEngine,
-                                          SimpleVectorIndexEngine vectorIndexEngine) {
+                                          SimpleVectorIndexEngine vectorIndexEngine,
+                                          float[] precomputedVector) {
         try {
             long startTime = System.currentTimeMillis();
 
@@ -91,10 +116,16 @@ public class HybridSearchService {
             log.info(I18N.get("log.hybrid.extract_keywords", keywords));
 
             int luceneLimit = configService.getLuceneTopK();
-            SearchResult luceneResult = rag.search(Query.builder()
-                .queryText(keywords)
-                .limit(luceneLimit)
-                .build());
+            long keywordStart = System.nanoTime();
+            SearchResult luceneResult;
+            try (RequestTrace.Span span = RequestTrace.span("keyword_search")) {
+                luceneResult = rag.search(Query.builder()
+                    .queryText(keywords)
+                    .limit(luceneLimit)
+                    .build());
+                span.attr("hits", luceneResult.getDocuments().size());
+            }
+            recordStage(Stage.KEYWORD_SEARCH, keywordStart);
 
             log.info(I18N.get("log.hybrid.lucene_found", luceneResult.getDocuments().size(), luceneResult.getTotalHits(), luceneLimit));
 
@@ -114,12 +145,24 @@ public class HybridSearchService {
             }
 
             // 2. 向量检索（语义精排）(Step 2: Vector search for semantic refinement)
-            float[] queryVector = embeddingEngine.embed(question);
+            float[] queryVector = precomputedVector;
+            if (queryVector == null) {
+                long embedStart = System.nanoTime();
+                try (RequestTrace.Span span = RequestTrace.span("embed")) {
+                    queryVector = embeddingEngine.embed(question);
+                }
+                recordStage(Stage.EMBED, embedStart);
+            }
             float threshold = properties.getVectorSearch().getSimilarityThreshold();
             int vectorLimit = configService.getVectorTopK();
 
-            List<SimpleVectorIndexEngine.VectorSearchResult> vectorResults =
-                vectorIndexEngine.search(queryVector, vectorLimit, threshold);
+            long vectorStart = System.nanoTime();
+            List<SimpleVectorIndexEngine.VectorSearchResult> vectorResults;
+            try (RequestTrace.Span span = RequestTrace.span("vector_search")) {
+                vectorResults = vectorIndexEngine.search(queryVector, vectorLimit, threshold);
+                span.attr("hits", vectorResults.size());
+            }
+            recordStage(Stage.VECTOR_SEARCH, vectorStart);
 
             log.info(I18N.get("log.hybrid.vector_found", vectorResults.size(), vectorLimit));
 
@@ -135,28 +178,14 @@ public class HybridSearchService {
             }
 
             // 3. 混合评分：融合两种检索结果
-            Map<String, Double> hybridScores = new HashMap<>();
-
             // 从配置获取权重（Lucene and vector weights from configuration）
             double luceneWeight = properties.getVectorSearch().getLuceneWeight();
             double vectorWeight = properties.getVectorSearch().getVectorWeight();
 
-            // Lucene 结果（使用配置的权重）
             List<Document> luceneDocs = luceneResult.getDocuments().stream()
                 .map(ScoredDocument::getDocument)
                 .toList();
-            for (int i = 0; i < luceneDocs.size(); i++) {
-                String docId = luceneDocs.get(i).getId();
-                double normalizedScore = 1.0 - (i * 1.0 / luceneDocs.size());
-                hybridScores.put(docId, luceneWeight * normalizedScore);
-            }
-
-            // 向量结果（使用配置的权重）
-            for (SimpleVectorIndexEngine.VectorSearchResult result : vectorResults) {
-                String docId = result.getDocId();
-                double currentScore = hybridScores.getOrDefault(docId, 0.0);
-                hybridScores.put(docId, currentScore + vectorWeight * result.getSimilarity());
-            }
+            Map<String, Double> hybridScores = fuseScores(luceneDocs, vectorResults, luceneWeight, vectorWeight);
 
             // 3.5 应用文档反馈权重（如果启用）
             // (Apply document feedback weights if enabled)
@@ -282,6 +311,36 @@ public class HybridSearchService {
         }
     }
 
+    /**
+     * 融合两路检索分数（Fuse the scores of both retrieval legs）
+     * <p>
+     * Lucene 结果按排名归一化到 (0, 1]，向量结果取相似度，各自乘以权重后按文档累加
+     * (Lucene results are normalized by rank into (0, 1], vector results use their similarity; each is multiplied
+     * by its weight and summed per document)
+     *
+     * @return 文档ID -> 混合分数（Document ID -> hybrid score）
+     */
+    static Map<String, Double> fuseScores(List<Document> luceneDocs,
+                                          List<SimpleVectorIndexEngine.VectorSearchResult> vectorResults,
+                                          double luceneWeight, double vectorWeight) {
+        Map<String, Double> hybridScores = new HashMap<>();
+
+        // Lucene 结果（使用配置的权重）
+        for (int i = 0; i < luceneDocs.size(); i++) {
+            String docId = luceneDocs.get(i).getId();
+            double normalizedScore = 1.0 - (i * 1.0 / luceneDocs.size());
+            hybridScores.put(docId, luceneWeight * normalizedScore);
+        }
+
+        // 向量结果（使用配置的权重）
+        for (SimpleVectorIndexEngine.VectorSearchResult result : vectorResults) {
+            String docId = result.getDocId();
+            double currentScore = hybridScores.getOrDefault(docId, 0.0);
+            hybridScores.put(docId, currentScore + vectorWeight * result.getSimilarity());
+        }
+        return hybridScores;
+    }
+
     /**
      * 纯关键词检索（回退模式）（Pure keyword search (fallback mode)）
      */
@@ -289,10 +348,16 @@ public class HybridSearchService {
         String keywords = extractKeywords(question);
         log.info(I18N.get("log.hybrid.keyword_search", keywords));
 
-        SearchResult result = rag.search(Query.builder()
-            .queryText(keywords)
-            .limit(configService.getHybridTopK())
-            .build());
+        long keywordStart = System.nanoTime();
+        SearchResult result;
+        try (RequestTrace.Span span = RequestTrace.span("keyword_search")) {
+            result = rag.search(Query.builder()
+                .queryText(keywords)
+                .limit(configService.getHybridTopK())
+                .build());
+            span.attr("hits", result.getDocuments().size());
+        }
+        recordStage(Stage.KEYWORD_SEARCH, keywordStart);
 
         log.info(I18N.get("log.hybrid.found_docs", result.getDocuments().size()));
         return result.getDocuments().stream()
@@ -300,6 +365,12 @@ public class HybridSearchService {
             .collect(Collectors.toList());
     }
 
+    private void recordStage(Stage stage, long startNanos) {
+        if (monitoringService != null) {
+            monitoringService.recordStage(stage, System.nanoTime() - startNanos);
+        }
+    }
+
     /**
      * 回退到关键词检索（Fallback to keyword search）
      */
@@ -1,14 +1,22 @@
 package top.yumbo.ai.rag.spring.boot.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import top.yumbo.ai.rag.chunking.ChunkingStrategy;
+import top.yumbo.ai.rag.chunking.storage.ChunkIndex;
 import top.yumbo.ai.rag.service.LocalFileRAG;
 import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
+import top.yumbo.ai.rag.impl.embedding.EmbeddingCache;
 import top.yumbo.ai.rag.impl.embedding.LocalEmbeddingEngine;
 import top.yumbo.ai.rag.impl.index.SimpleVectorIndexEngine;
 import top.yumbo.ai.rag.impl.parser.TikaDocumentParser;
+import top.yumbo.ai.rag.impl.storage.SHA256DocumentHasher;
 import top.yumbo.ai.rag.model.Document;
 import top.yumbo.ai.rag.optimization.DocumentChunker;
+import top.yumbo.ai.rag.optimization.SmartContextBuilder;
+import top.yumbo.ai.rag.optimization.StreamingDocumentChunker;
+import top.yumbo.ai.rag.spring.boot.llm.LLMClient;
 import top.yumbo.ai.rag.spring.boot.model.BuildResult;
 import top.yumbo.ai.rag.i18n.I18N;
 
@@ -23,6 +31,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 /**
  * 知识库构建服务（Knowledge base construction service）
@@ -35,6 +44,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Service
 public class KnowledgeBaseService {
 
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final SHA256DocumentHasher CHUNK_HASHER = new SHA256DocumentHasher();
+    private static final String CHUNK_HASH_KEY = "chunkHash";
+    // 随块位置变化的元数据（Metadata that changes with a chunk's position）
+    private static final List<String> CHUNK_POSITION_KEYS = List.of("chunkIndex", "chunkStart", "chunkEnd");
+
     private final KnowledgeQAProperties properties;
     private final TikaDocumentParser documentParser;
     private final DocumentChunker documentChunker;
@@ -45,6 +60,9 @@ public class KnowledgeBaseService {
     private final DocumentPreprocessingService preprocessingService;  // 文档预处理服务（Document preprocessing service）
     private final top.yumbo.ai.rag.ppl.config.PPLConfig pplConfig;  // PPL 配置（PPL configuration）
     private final top.yumbo.ai.rag.chunking.storage.ChunkStorageService chunkStorageService;  // Chunk 存储服务（Chunk storage service）
+    private final SmartContextBuilder contextChunkIndexer;  // 入库时建立上下文块索引（Builds the context chunk index at ingest time）
+    private final EmbeddingCache embeddingCache;  // 块向量持久化缓存，可为空（Persistent chunk embedding cache, may be null）
+    private final Object[] fileLocks = java.util.stream.IntStream.range(0, 64).mapToObj(i -> new Object()).toArray();  // 单文件入库的分段锁（Striped locks for single-file ingestion）
 
     public KnowledgeBaseService(KnowledgeQAProperties properties,
                                 DocumentProcessingOptimizer optimizer,
@@ -54,7 +72,10 @@ public class KnowledgeBaseService {
                                 SlideContentCacheService slideContentCacheService,
                                 DocumentPreprocessingService preprocessingService,
                                 top.yumbo.ai.rag.ppl.config.PPLConfig pplConfig,
-                                top.yumbo.ai.rag.chunking.storage.ChunkStorageService chunkStorageService) {  // 新增 ChunkStorageService 参数
+                                top.yumbo.ai.rag.chunking.storage.ChunkStorageService chunkStorageService,  // 新增 ChunkStorageService 参数
+                                @Autowired(required = false) ChunkIndex chunkIndex,
+                                @Autowired(required = false) LLMClient llmClient,
+                                @Autowired(required = false) EmbeddingCache embeddingCache) {
         this.properties = properties;
         this.optimizer = optimizer;
         this.fileTrackingService = fileTrackingService;
@@ -63,6 +84,7 @@ public class KnowledgeBaseService {
         this.preprocessingService = preprocessingService;
         this.chunkStorageService = chunkStorageService;  // 初始化 Chunk 存储服务
         this.pplConfig = pplConfig;  // 初始化 PPL 配置
+        this.embeddingCache = embeddingCache;
 
         // 获取批量大小配置
         int visionBatchSize = properties.getImageProcessing().getVisionLlm().getBatch().getSize();
@@ -82,6 +104,18 @@ public class KnowledgeBaseService {
             imageStorageService // image storage service
         );
         this.documentChunker = optimizer.createChunker();
+
+        // 与问答时的上下文构建器使用相同的切分策略（Same chunking strategy as the query-time context builder）
+        this.contextChunkIndexer = chunkIndex != null
+            ? new SmartContextBuilder(
+                properties.getLlm().getMaxContextLength(),
+                properties.getLlm().getMaxDocLength(),
+                true,
+                properties.getLlm().getChunking(),
+                ChunkingStrategy.fromString(properties.getLlm().getChunkingStrategy()),
+                llmClient,
+                chunkIndex)
+            : null;
     }
 
     /**
@@ -100,6 +134,7 @@ public class KnowledgeBaseService {
         BuildResult result = new BuildResult();
 
         long startTime = System.currentTimeMillis();
+        EmbeddingCache.Stats cacheBefore = embeddingCacheStats();
 
         try {
             // 1. 初始化文件追踪（Initialize file tracking）
@@ -216,8 +251,8 @@ public class KnowledgeBaseService {
                     File file = filesToUpdate.get(i);
 
                     try {
-                        // 处理文档（Process document）
-                        List<Document> docs = processDocumentOptimized(
+                        // 处理文档，修改过的文件只重建变化的块（Process document; a modified file only rebuilds changed chunks）
+                        List<Document> docs = reindexChangedChunks(
                             file, rag, embeddingEngine, vectorIndexEngine);
 
                         if (docs != null && !docs.isEmpty()) {
@@ -225,7 +260,7 @@ public class KnowledgeBaseService {
                             successCount++;
 
                             // 标记文件已索引（Mark file as indexed）
-                            fileTrackingService.markAsIndexed(file);
+                            fileTrackingService.markAsIndexed(file, documentIds(docs), chunkHashes(docs));
 
                             // 估算内存使用（Estimate memory usage）
                             long estimatedMemory = docs.stream()
@@ -268,6 +303,7 @@ public class KnowledgeBaseService {
             result.setFailedCount(failedCount);
             result.setTotalDocuments((int) rag.getStatistics().getDocumentCount());
             result.setBuildTimeMs(System.currentTimeMillis() - startTime);
+            recordEmbeddingCacheStats(result, cacheBefore);
 
             // 8. 关闭资源（包括 RAG 实例）（Close resources (including RAG instance)）
             // 必须关闭以释放 Lucene 写锁，否则后续实例无法获取锁（Must close to release Lucene write lock, otherwise subsequent instances cannot acquire lock）
@@ -305,6 +341,7 @@ public class KnowledgeBaseService {
             new BuildResult();
 
         long startTime = System.currentTimeMillis();
+        EmbeddingCache.Stats cacheBefore = embeddingCacheStats();
 
         try {
             // 1. 扫描文件（Scan files）
@@ -347,6 +384,9 @@ public class KnowledgeBaseService {
                 log.info(I18N.get("log.kb.rebuild_prepare"));
                 // 清空知识库（Clear knowledge base）
                 rag.deleteAllDocuments();
+                if (contextChunkIndexer != null) {
+                    contextChunkIndexer.clearChunks();
+                }
                 log.info(I18N.get("log.kb.old_kb_cleared"));
 
                 // 清空文件追踪信息（Clear file tracking information）
@@ -406,6 +446,10 @@ public class KnowledgeBaseService {
                 // 标记文件已索引（Mark files as indexed）
                 if (rebuild) {
                     for (File file : files) {
+                        // 已在并行处理中记录（含文档ID）的文件不再覆盖（Keep entries already recorded, with document IDs, by the parallel pass）
+                        if (!fileTrackingService.needsUpdate(file)) {
+                            continue;
+                        }
                         fileTrackingService.markAsIndexed(file);
                     }
                 }
@@ -429,7 +473,7 @@ public class KnowledgeBaseService {
 
                             // 标记文件已索引（用于增量索引）（Mark file as indexed (for incremental indexing)）
                             if (rebuild) {
-                                fileTrackingService.markAsIndexed(file);
+                                fileTrackingService.markAsIndexed(file, documentIds(docs), chunkHashes(docs));
                             }
 
                             // 估算内存使用（Estimate memory usage）
@@ -475,6 +519,7 @@ public class KnowledgeBaseService {
             result.setFailedCount(failedCount);
             result.setTotalDocuments((int) rag.getStatistics().getDocumentCount());
             result.setBuildTimeMs(processEndTime - processStartTime);
+            recordEmbeddingCacheStats(result, cacheBefore);
 
             // 获取峰值内存使用（Get peak memory usage）
             long usedMemory = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
@@ -540,6 +585,7 @@ public class KnowledgeBaseService {
             new BuildResult();
 
         long startTime = System.currentTimeMillis();
+        EmbeddingCache.Stats cacheBefore = embeddingCacheStats();
 
         try {
             // 1. 初始化文件追踪（Initialize file tracking）
@@ -621,8 +667,8 @@ public class KnowledgeBaseService {
                 File file = filesToUpdate.get(i);
 
                 try {
-                    // 处理文档（Process document）
-                    List<Document> docs = processDocumentOptimized(
+                    // 处理文档，修改过的文件只重建变化的块（Process document; a modified file only rebuilds changed chunks）
+                    List<Document> docs = reindexChangedChunks(
                         file, rag, embeddingEngine, vectorIndexEngine);
 
                     if (docs != null && !docs.isEmpty()) {
@@ -630,7 +676,7 @@ public class KnowledgeBaseService {
                         successCount++;
 
                         // 标记为已索引（Mark as indexed）
-                        fileTrackingService.markAsIndexed(file);
+                        fileTrackingService.markAsIndexed(file, documentIds(docs), chunkHashes(docs));
 
                         // 估算内存使用（Estimate memory usage）
                         long estimatedMemory = docs.stream()
@@ -677,6 +723,7 @@ public class KnowledgeBaseService {
             result.setFailedCount(failedCount);
             result.setTotalDocuments((int) rag.getStatistics().getDocumentCount());
             result.setBuildTimeMs(processEndTime - startTime);
+            recordEmbeddingCacheStats(result, cacheBefore);
 
             // 获取峰值内存使用（Get peak memory usage）
             long usedMemory = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
@@ -820,7 +867,7 @@ public class KnowledgeBaseService {
     /**
      * 判断是否支持的文件格式 / Check if file format is supported
      */
-    private boolean isSupportedFile(File file) {
+    public boolean isSupportedFile(File file) {
         String fileName = file.getName().toLowerCase();
         List<String> supportedFormats = properties.getDocument().getSupportedFormats();
 
@@ -877,7 +924,7 @@ public class KnowledgeBaseService {
                                 successCount.incrementAndGet();
 
                                 // 标记文件已索引（Mark file as indexed）
-                                fileTrackingService.markAsIndexed(file);
+                                fileTrackingService.markAsIndexed(file, documentIds(docs), chunkHashes(docs));
                             }
 
                         } catch (Exception e) {
@@ -946,19 +993,43 @@ public class KnowledgeBaseService {
     private List<Document> processDocumentOptimized(File file, LocalFileRAG rag,
                                                      LocalEmbeddingEngine embeddingEngine,
                                                      SimpleVectorIndexEngine vectorIndexEngine) {
+        return processDocumentOptimized(file, rag, embeddingEngine, vectorIndexEngine, new HashMap<>());
+    }
+
+    /**
+     * 处理单个文档，内容未变的块沿用上次的文档，不再重新索引和向量化
+     * （Process single document; chunks whose content is unchanged keep their previous document and are
+     * neither re-indexed nor re-embedded）
+     *
+     * @param previousChunks 上次索引的块哈希 -> 文档ID，沿用的ID会从中取走，剩下的即为已消失的块
+     *                       （Chunk hash -> document IDs from the last indexing; reused IDs are taken out, so what
+     *                       remains are the chunks that disappeared）
+     */
+    private List<Document> processDocumentOptimized(File file, LocalFileRAG rag,
+                                                     LocalEmbeddingEngine embeddingEngine,
+                                                     SimpleVectorIndexEngine vectorIndexEngine,
+                                                     Map<String, Deque<String>> previousChunks) {
 
         log.info(I18N.get("log.kb.processing_file", file.getName(), file.length() / 1024));
         List<Document> createdDocuments = new ArrayList<>();
 
         try {
+            // 0. 大文件流式处理，不受内容长度截断（Large files are streamed and never truncated）
+            int streamingThresholdMb = properties.getDocument().getStreamingThresholdMb();
+            if (streamingThresholdMb > 0 && file.length() >= streamingThresholdMb * 1024L * 1024L
+                    && optimizer.checkFileSize(file.length())) {
+                return processDocumentStreaming(file, rag, embeddingEngine, vectorIndexEngine, previousChunks);
+            }
+
             // 1. 检查文件大小（Check file size）
             if (!optimizer.checkFileSize(file.length())) {
                 log.warn(I18N.get("log.kb.file_too_large", file.length() / 1024 / 1024, properties.getDocument().getMaxFileSizeMb()));
                 return createdDocuments;
             }
 
-            // 2. 解析文档内容（Parse document content）
-            String content = documentParser.parse(file);
+            // 2. 单遍解析文档内容和嵌入图片（Parse document content and embedded images in a single pass）
+            TikaDocumentParser.ParsedDocument parsed = documentParser.parseWithImages(file);
+            String content = parsed.getText();
 
             if (content == null || content.trim().isEmpty()) {
                 log.warn(I18N.get("log.kb.content_empty"));
@@ -983,7 +1054,7 @@ public class KnowledgeBaseService {
             if (preprocessingService != null) {
                 try {
                     log.info(I18N.get("log.kb.preprocess_start"));
-                    content = preprocessingService.preprocessDocument(file, content);
+                    content = preprocessingService.preprocessDocument(file, content, parsed.getImages());
                     log.info(I18N.get("log.kb.preprocess_complete", content.length()));
                 } catch (Exception e) {
                     log.warn(I18N.get("log.kb.preprocess_failed", e.getMessage()));
@@ -1065,19 +1136,7 @@ public class KnowledgeBaseService {
 
             // 6. 索引文档（Index documents）
             for (Document doc : documentsToIndex) {
-                String docId = rag.index(doc);
-                doc.setId(docId);
-                createdDocuments.add(doc);
-
-                // 7. 生成向量索引（如果启用）（Generate vector index if enabled）
-                if (embeddingEngine != null && vectorIndexEngine != null) {
-                    try {
-                        float[] vector = embeddingEngine.embed(doc.getContent());
-                        vectorIndexEngine.addDocument(docId, vector);
-                    } catch (Exception e) {
-                        log.debug(I18N.get("log.kb.vector_generation_failed", e.getMessage()));
-                    }
-                }
+                createdDocuments.add(indexChunk(doc, rag, embeddingEngine, vectorIndexEngine, previousChunks));
             }
 
             log.info(I18N.get("log.kb.indexing_complete", createdDocuments.size()));
@@ -1090,6 +1149,179 @@ public class KnowledgeBaseService {
         }
     }
 
+    /**
+     * 生成块向量，先查持久化缓存，内容未变的块不再做模型推理
+     * （Embed a chunk, consulting the persistent cache first so unchanged chunks skip inference）
+     */
+    private float[] embed(LocalEmbeddingEngine embeddingEngine, String content) {
+        if (embeddingCache == null) {
+            return embeddingEngine.embed(content);
+        }
+        return embeddingCache.getOrCompute(embeddingEngine.getModelId(), embeddingEngine.getEmbeddingDim(),
+                content, embeddingEngine::embed);
+    }
+
+    private EmbeddingCache.Stats embeddingCacheStats() {
+        return embeddingCache != null ? embeddingCache.getStats() : null;
+    }
+
+    /**
+     * 记录本次构建的向量缓存统计，并将缓存写回磁盘（Record this build's embedding cache statistics and flush the cache）
+     */
+    private void recordEmbeddingCacheStats(BuildResult result, EmbeddingCache.Stats before) {
+        if (embeddingCache == null || before == null) {
+            return;
+        }
+        embeddingCache.flush();
+        EmbeddingCache.Stats stats = embeddingCache.getStats().since(before);
+        result.setEmbeddingCacheHits(stats.hits());
+        result.setEmbeddingCacheMisses(stats.misses());
+        result.setEmbeddingCacheEvictions(stats.evictions());
+        result.setEmbeddingCacheEntries(stats.entries());
+        log.info(I18N.get("log.kb.embedding_cache_stats", stats.hits(), stats.misses(), stats.evictions(), stats.entries()));
+    }
+
+    /**
+     * 索引单个文档（块）：写入知识库、建立上下文块索引并生成向量；内容未变的块沿用上次的文档和向量，
+     * 位置变化时只刷新其标题和位置元数据
+     * （Index one document/chunk: store it, build the context chunk index and embed it; unchanged chunks keep
+     * the previously indexed document and vector, and only their title and position metadata are refreshed when
+     * they moved）
+     */
+    private Document indexChunk(Document doc, LocalFileRAG rag,
+                                LocalEmbeddingEngine embeddingEngine,
+                                SimpleVectorIndexEngine vectorIndexEngine,
+                                Map<String, Deque<String>> previousChunks) {
+        // 内容未变的块沿用上次的文档（Unchanged chunks keep the previously indexed document）
+        Deque<String> unchanged = previousChunks.get(chunkHash(doc.getContent()));
+        String previousId = unchanged != null ? unchanged.poll() : null;
+        if (previousId != null) {
+            doc.setId(previousId);
+            refreshChunkPosition(doc, rag);
+            return doc;
+        }
+
+        // 新块由存储分配ID：分块器按位置生成的ID在块增减后会与沿用的块冲突
+        // (New chunks get their ID from storage: the chunker's positional IDs collide with reused chunks once chunks are added or removed)
+        doc.setId(null);
+        String docId = rag.index(doc);
+        doc.setId(docId);
+
+        // 6.5 建立上下文块索引，问答时无需重新切分（Build the context chunk index so queries never re-chunk）
+        if (contextChunkIndexer != null) {
+            try {
+                contextChunkIndexer.indexChunks(doc);
+            } catch (Exception e) {
+                log.warn(I18N.get("log.kb.chunk_index_failed", doc.getTitle(), e.getMessage()));
+            }
+        }
+
+        // 7. 生成向量索引（如果启用）（Generate vector index if enabled）
+        if (embeddingEngine != null && vectorIndexEngine != null) {
+            try {
+                float[] vector = embed(embeddingEngine, doc.getContent());
+                vectorIndexEngine.addDocument(docId, vector);
+            } catch (Exception e) {
+                log.debug(I18N.get("log.kb.vector_generation_failed", e.getMessage()));
+            }
+        }
+        return doc;
+    }
+
+    /**
+     * 前面的块增删后，沿用块的序号、偏移和标题随之变化：重写存储的文档，内容未变，向量和块索引保持不动
+     * （Once chunks in front were added or removed, a reused chunk's index, offsets and title change: rewrite the
+     * stored document; the content is the same, so its vector and chunk index stay as they are）
+     */
+    private void refreshChunkPosition(Document doc, LocalFileRAG rag) {
+        Document stored = rag.getDocument(doc.getId());
+        if (stored == null || !chunkPositionChanged(stored, doc)) {
+            return;
+        }
+        rag.updateDocument(doc.getId(), doc);
+    }
+
+    private static boolean chunkPositionChanged(Document stored, Document current) {
+        if (!Objects.equals(stored.getTitle(), current.getTitle())) {
+            return true;
+        }
+        Map<String, Object> before = stored.getMetadata() != null ? stored.getMetadata() : Map.of();
+        Map<String, Object> after = current.getMetadata() != null ? current.getMetadata() : Map.of();
+        for (String key : CHUNK_POSITION_KEYS) {
+            // 存储反序列化后的数值类型可能不同，按字符串比较（Stored numbers may come back as another type, compare as text）
+            if (!String.valueOf(before.get(key)).equals(String.valueOf(after.get(key)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 流式处理大文件：边解析边分块，每个块立即索引和向量化，整篇文本从不驻留内存
+     * （Process a large file as a stream: chunks are cut while parsing and indexed and embedded immediately,
+     * so the full text is never held in memory）
+     *
+     * 返回的文档只保留ID和块哈希，不含内容，调用方据此记录文件追踪
+     * （The returned documents keep only the ID and chunk hash, without content, which is all file tracking needs）
+     */
+    private List<Document> processDocumentStreaming(File file, LocalFileRAG rag,
+                                                    LocalEmbeddingEngine embeddingEngine,
+                                                    SimpleVectorIndexEngine vectorIndexEngine,
+                                                    Map<String, Deque<String>> previousChunks) throws IOException {
+        log.info(I18N.get("log.kb.streaming_start", file.getName(), file.length() / 1024 / 1024));
+        List<Document> createdDocuments = new ArrayList<>();
+        Map<String, Object> fileMetadata = buildMetadata(file);
+        KnowledgeQAProperties.DocumentConfig config = properties.getDocument();
+
+        StreamingDocumentChunker chunker = new StreamingDocumentChunker(
+            config.getChunkSize(), config.getChunkOverlap(), true, config.isContentDefinedChunking(),
+            (index, start, end, content) -> {
+                Map<String, Object> metadata = new HashMap<>(fileMetadata);
+                metadata.put("chunkIndex", index);
+                metadata.put("chunkStart", start);
+                metadata.put("chunkEnd", end);
+                metadata.put("isChunk", true);
+                String title = file.getName() + " (Part " + (index + 1) + ")";
+
+                Document chunk = indexChunk(Document.builder()
+                        .title(title)
+                        .content(content)
+                        .metadata(metadata)
+                        .build(), rag, embeddingEngine, vectorIndexEngine, previousChunks);
+
+                if (chunkStorageService != null) {
+                    try {
+                        chunkStorageService.saveChunk(file.getName(), top.yumbo.ai.rag.chunking.DocumentChunk.builder()
+                                .index(index + 1)
+                                .title(title)
+                                .content(content)
+                                .build());
+                    } catch (IOException e) {
+                        log.warn(I18N.get("log.kb.save_chunks_failed", file.getName(), e.getMessage()));
+                    }
+                }
+
+                // 只保留追踪所需的ID和哈希（Keep only the ID and hash that tracking needs）
+                Map<String, Object> stubMetadata = new HashMap<>();
+                stubMetadata.put(CHUNK_HASH_KEY, chunkHash(content));
+                createdDocuments.add(Document.builder()
+                        .id(chunk.getId())
+                        .title(title)
+                        .content("")
+                        .metadata(stubMetadata)
+                        .build());
+            });
+
+        try (chunker) {
+            if (!documentParser.parseStreaming(file, chunker)) {
+                return createdDocuments;
+            }
+        }
+
+        log.info(I18N.get("log.kb.streaming_complete", file.getName(), createdDocuments.size(), chunker.getCharCount()));
+        return createdDocuments;
+    }
+
     /**
      * 构建文档元数据
      */
@@ -1113,6 +1345,192 @@ public class KnowledgeBaseService {
         return lastDot > 0 ? fileName.substring(lastDot + 1).toLowerCase() : "";
     }
 
+    /**
+     * 将单个文件索引到已打开的知识库（Index a single file into an already open knowledge base）
+     * 供上传入库任务使用，可与其它文件并行调用；已索引且未修改的文件直接跳过
+     * （Used by upload ingestion jobs and safe to call for several files in parallel; files already indexed
+     * and unchanged are skipped）
+     *
+     * @param file              文件（File）
+     * @param rag               在线知识库实例（Live knowledge base instance）
+     * @param embeddingEngine   嵌入引擎，可为空（Embedding engine, may be null）
+     * @param vectorIndexEngine 向量索引，可为空（Vector index, may be null）
+     * @return 生成的文档（块）数量（Number of documents/chunks created）
+     */
+    public int indexFile(File file, LocalFileRAG rag,
+                         LocalEmbeddingEngine embeddingEngine,
+                         SimpleVectorIndexEngine vectorIndexEngine) throws IOException {
+        fileTrackingService.initializeIfNeeded(properties.getKnowledgeBase().getStoragePath());
+
+        // 同一文件可能同时来自上传和目录监听，按路径串行，避免重复索引
+        // (The same file may arrive from both an upload and the folder watcher; serialize per path to avoid double indexing)
+        synchronized (fileLock(file)) {
+            if (!fileTrackingService.needsUpdate(file)) {
+                log.info(I18N.get("log.kb.file_already_indexed", file.getName()));
+                return 0;
+            }
+
+            log.info(I18N.get("log.kb.index_single_file", file.getName()));
+            // 文件修改后只重建变化的块，并移除消失的块，避免新旧内容并存（Rebuild only the changed chunks of a modified file and drop the ones that disappeared, so old and new content do not coexist）
+            List<Document> docs = reindexChangedChunks(file, rag, embeddingEngine, vectorIndexEngine);
+
+            rag.commit();
+            if (vectorIndexEngine != null) {
+                vectorIndexEngine.saveIndex();
+            }
+
+            fileTrackingService.markAsIndexed(file, documentIds(docs), chunkHashes(docs));
+            fileTrackingService.saveTracking();
+            log.info(I18N.get("log.kb.file_indexed", file.getName()));
+            return docs.size();
+        }
+    }
+
+    /**
+     * 从已打开的知识库中移除已删除文件的文档（Remove the documents of a deleted file from an already open knowledge base）
+     *
+     * @param file              已删除的文件（Deleted file）
+     * @param rag               在线知识库实例（Live knowledge base instance）
+     * @param vectorIndexEngine 向量索引，可为空（Vector index, may be null）
+     * @return 移除的文档数量（Number of documents removed）
+     */
+    public int removeFile(File file, LocalFileRAG rag, SimpleVectorIndexEngine vectorIndexEngine) throws IOException {
+        fileTrackingService.initializeIfNeeded(properties.getKnowledgeBase().getStoragePath());
+        if (!fileTrackingService.isIndexed(file.getAbsolutePath())) {
+            return 0;
+        }
+
+        int removed = removeIndexedDocuments(file, rag, vectorIndexEngine);
+        rag.commit();
+        if (vectorIndexEngine != null) {
+            vectorIndexEngine.saveIndex();
+        }
+        if (chunkStorageService != null) {
+            try {
+                chunkStorageService.deleteChunks(file.getName());
+            } catch (IOException e) {
+                log.warn(I18N.get("log.kb.save_chunks_failed", file.getName(), e.getMessage()));
+            }
+        }
+        if (imageExtractionService != null && imageExtractionService.getStorageService() != null) {
+            // 图片以文件名为文档ID存储（Images are stored under the file name as document ID）
+            try {
+                imageExtractionService.getStorageService().deleteImages(file.getName());
+            } catch (IOException e) {
+                log.warn(I18N.get("log.image.delete_failed", file.getName()), e);
+            }
+        }
+
+        fileTrackingService.removeTracking(file);
+        fileTrackingService.saveTracking();
+        log.info(I18N.get("log.kb.file_removed", file.getName(), removed));
+        return removed;
+    }
+
+    /**
+     * 重新索引修改过的文件：按块内容哈希与上次的结果比对，只索引新增或变化的块，并删除已消失的块
+     * （Re-index a modified file: chunks are compared with the last run by content hash, only added or changed
+     * chunks are indexed and the ones that disappeared are deleted）
+     *
+     * 没有块哈希记录的文件（旧版本索引）退回为整体删除后重建
+     * （Files tracked without chunk hashes, i.e. indexed by an older version, fall back to a full delete and rebuild）
+     */
+    private List<Document> reindexChangedChunks(File file, LocalFileRAG rag,
+                                                LocalEmbeddingEngine embeddingEngine,
+                                                SimpleVectorIndexEngine vectorIndexEngine) {
+        Map<String, Deque<String>> previousChunks = fileTrackingService.getChunkDocumentIds(file);
+        if (previousChunks.isEmpty()) {
+            removeIndexedDocuments(file, rag, vectorIndexEngine);
+            return processDocumentOptimized(file, rag, embeddingEngine, vectorIndexEngine);
+        }
+
+        int previousCount = previousChunks.values().stream().mapToInt(Deque::size).sum();
+        List<Document> docs = processDocumentOptimized(file, rag, embeddingEngine, vectorIndexEngine, previousChunks);
+
+        // 剩下的都是已消失的块；存储按内容去重，新块可能拿到相同ID，这些不能删
+        // (Whatever is left disappeared; storage dedups by content, so a new chunk may have received the same ID and must be kept)
+        Set<String> keep = new HashSet<>(documentIds(docs));
+        int stale = 0;
+        for (Deque<String> ids : previousChunks.values()) {
+            for (String docId : ids) {
+                if (keep.contains(docId)) {
+                    continue;
+                }
+                deleteIndexedDocument(docId, rag, vectorIndexEngine);
+                stale++;
+            }
+        }
+
+        int unchanged = previousCount - stale;
+        log.info(I18N.get("log.kb.chunk_diff", file.getName(), unchanged, docs.size() - unchanged, stale));
+        return docs;
+    }
+
+    /**
+     * 删除文件上次索引生成的文档（Delete the documents created when the file was last indexed）
+     */
+    private int removeIndexedDocuments(File file, LocalFileRAG rag, SimpleVectorIndexEngine vectorIndexEngine) {
+        int removed = 0;
+        for (String docId : fileTrackingService.getDocumentIds(file)) {
+            if (deleteIndexedDocument(docId, rag, vectorIndexEngine)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 删除一个文档及其向量和上下文块索引（Delete one document together with its vector and context chunk index）
+     *
+     * @return 知识库中是否存在并已删除（Whether the document existed and was deleted）
+     */
+    private boolean deleteIndexedDocument(String docId, LocalFileRAG rag, SimpleVectorIndexEngine vectorIndexEngine) {
+        // 块索引按内容哈希存储，需在删除前取出（The chunk index is keyed by content hash, so read it before deleting）
+        Document existing = contextChunkIndexer != null ? rag.getDocument(docId) : null;
+        boolean deleted = rag.deleteDocument(docId);
+        if (vectorIndexEngine != null) {
+            vectorIndexEngine.deleteDocument(docId);
+        }
+        if (existing != null) {
+            contextChunkIndexer.removeChunks(existing.getContentHash());
+        }
+        return deleted;
+    }
+
+    private Object fileLock(File file) {
+        return fileLocks[Math.floorMod(file.getAbsolutePath().hashCode(), fileLocks.length)];
+    }
+
+    /**
+     * 块内容哈希，忽略空白差异（Chunk content hash, insensitive to whitespace differences）
+     */
+    static String chunkHash(String content) {
+        String normalized = content == null ? "" : WHITESPACE.matcher(content).replaceAll(" ").trim();
+        return CHUNK_HASHER.computeHash(normalized);
+    }
+
+    private static List<String> chunkHashes(List<Document> docs) {
+        List<String> hashes = new ArrayList<>(docs.size());
+        for (Document doc : docs) {
+            if (doc.getId() != null) {
+                // 流式处理返回的文档不含内容，只带哈希（Documents returned by streaming carry only the hash）
+                Object hash = doc.getMetadata(CHUNK_HASH_KEY);
+                hashes.add(hash != null ? hash.toString() : chunkHash(doc.getContent()));
+            }
+        }
+        return hashes;
+    }
+
+    private static List<String> documentIds(List<Document> docs) {
+        List<String> ids = new ArrayList<>(docs.size());
+        for (Document doc : docs) {
+            if (doc.getId() != null) {
+                ids.add(doc.getId());
+            }
+        }
+        return ids;
+    }
+
     /**
      * 增量索引单个文件（用于问答归档）（Incremental index single file (for Q&A archiving)）
      *
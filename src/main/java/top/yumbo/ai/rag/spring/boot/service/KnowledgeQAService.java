@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import top.yumbo.ai.rag.chunking.ChunkingStrategy;
 import top.yumbo.ai.rag.chunking.storage.ChunkStorageInfo;
+import top.yumbo.ai.rag.chunking.storage.ChunkIndex;
 import top.yumbo.ai.rag.chunking.storage.ChunkStorageService;
 import top.yumbo.ai.rag.feedback.QARecord;
 import top.yumbo.ai.rag.feedback.QARecordService;
@@ -19,10 +20,16 @@ import top.yumbo.ai.rag.model.Query;
 import top.yumbo.ai.rag.model.ScoredDocument;
 import top.yumbo.ai.rag.ppl.PPLServiceFacade;
 import top.yumbo.ai.rag.ppl.config.PPLConfig;
+import top.yumbo.ai.rag.spring.boot.cache.MultiLayerCacheService;
 import top.yumbo.ai.rag.service.LocalFileRAG;
 import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
 import top.yumbo.ai.rag.spring.boot.model.AIAnswer;
 import top.yumbo.ai.rag.spring.boot.model.BuildResult;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService.Stage;
+import top.yumbo.ai.rag.spring.boot.monitoring.RequestTrace;
+import top.yumbo.ai.rag.spring.boot.monitoring.RequestTracer;
+import top.yumbo.ai.rag.spring.boot.service.ingestion.IngestionJob;
 import top.yumbo.ai.rag.spring.boot.llm.LLMClient;
 import top.yumbo.ai.rag.impl.embedding.LocalEmbeddingEngine;
 import top.yumbo.ai.rag.impl.index.SimpleVectorIndexEngine;
@@ -41,6 +48,7 @@ import top.yumbo.ai.rag.hope.monitor.HOPEMonitorService;
 import top.yumbo.ai.rag.hope.integration.HOPELLMIntegrationConfig;
 import top.yumbo.ai.rag.hope.integration.HOPEEnhancedLLMClient;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -48,7 +56,13 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -78,6 +92,10 @@ public class KnowledgeQAService {
     private final HOPEKnowledgeManager hopeManager;  // HOPE 知识管理器
     private final HOPEMonitorService hopeMonitor;    // HOPE 监控服务
     private final HOPELLMIntegrationConfig hopeLLMConfig;  // HOPE LLM 集成配置
+    private final MultiLayerCacheService cacheService;     // 多层缓存（语义答案缓存）
+    private final ChunkIndex chunkIndex;                   // 入库时建立的上下文块索引
+    private final PerformanceMonitoringService monitoringService; // 各阶段耗时统计
+    private final RequestTracer requestTracer;                    // 单次请求阶段追踪
 
     private LocalFileRAG rag;
     private LocalEmbeddingEngine embeddingEngine;
@@ -92,6 +110,11 @@ public class KnowledgeQAService {
     @Getter
     private volatile boolean isIndexing = false;
 
+    // 索引锁：单文件入库共享读锁并行执行，全量/增量重建独占写锁（会关闭并重建 RAG 实例）
+    // (Index lock: single-file ingestion shares the read lock, full/incremental rebuilds take the write lock
+    // because they close and recreate the RAG instance)
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+
     public KnowledgeQAService(KnowledgeQAProperties properties,
                               KnowledgeBaseService knowledgeBaseService,
                               HybridSearchService hybridSearchService,
@@ -107,7 +130,11 @@ public class KnowledgeQAService {
                               @Autowired(required = false) SearchStrategyDispatcher searchStrategyDispatcher,
                               @Autowired(required = false) HOPEKnowledgeManager hopeManager,
                               @Autowired(required = false) HOPEMonitorService hopeMonitor,
-                              @Autowired(required = false) HOPELLMIntegrationConfig hopeLLMConfig) {
+                              @Autowired(required = false) HOPELLMIntegrationConfig hopeLLMConfig,
+                              @Autowired(required = false) MultiLayerCacheService cacheService,
+                              @Autowired(required = false) ChunkIndex chunkIndex,
+                              @Autowired(required = false) PerformanceMonitoringService monitoringService,
+                              @Autowired(required = false) RequestTracer requestTracer) {
         this.properties = properties;
         this.knowledgeBaseService = knowledgeBaseService;
         this.hybridSearchService = hybridSearchService;
@@ -125,6 +152,10 @@ public class KnowledgeQAService {
         this.hopeManager = hopeManager;
         this.hopeMonitor = hopeMonitor;
         this.hopeLLMConfig = hopeLLMConfig;
+        this.cacheService = cacheService;
+        this.chunkIndex = chunkIndex;
+        this.monitoringService = monitoringService;
+        this.requestTracer = requestTracer;
     }
 
     /**
@@ -299,7 +330,7 @@ public class KnowledgeQAService {
         String strategyName = properties.getLlm().getChunkingStrategy();
         ChunkingStrategy strategy = ChunkingStrategy.fromString(strategyName);
 
-        // 初始化智能上下文构建器（使用新的构造函数，包含存储服务）/ Initialize smart context builder (using new constructor with storage service)
+        // 初始化智能上下文构建器（使用入库时建立的块索引）/ Initialize smart context builder (using the ingest-time chunk index)
         contextBuilder = new SmartContextBuilder(
                 properties.getLlm().getMaxContextLength(),
                 properties.getLlm().getMaxDocLength(),
@@ -307,7 +338,7 @@ public class KnowledgeQAService {
                 properties.getLlm().getChunking(),
                 strategy,
                 llmClient,
-                chunkStorageService  // 传递块存储服务 / Pass chunk storage service
+                chunkIndex  // 传递块索引 / Pass chunk index
         );
 
         log.info(I18N.get("knowledge_qa_service.log.smart_context_initialized",
@@ -397,15 +428,10 @@ public class KnowledgeQAService {
         } catch (Exception e) {
             log.error("❌ Direct LLM processing failed", e);
             long totalTime = System.currentTimeMillis() - startTime;
-            return new AIAnswer(
+            return AIAnswer.failed(
                     I18N.get("knowledge_qa_service.answer_generation_failed", e.getMessage()),
                     Collections.singletonList("Direct LLM"),
-                    totalTime,
-                    Collections.emptyList(),
-                    Collections.emptyList(),
-                    Collections.emptyList(),
-                    0,
-                    false
+                    totalTime
             );
         }
     }
@@ -421,7 +447,8 @@ public class KnowledgeQAService {
      */
     public Flux<String> askDirectLLMStream(String question) {
         if (llmClient == null) {
-            return Flux.just(I18N.get("log.kqa.system_not_initialized"));
+            String message = I18N.get("log.kqa.system_not_initialized");
+            return failedStream(message, new IllegalStateException(message));
         }
 
         try {
@@ -434,7 +461,7 @@ public class KnowledgeQAService {
 
         } catch (Exception e) {
             log.error("❌ Direct LLM streaming failed", e);
-            return Flux.just(I18N.get("knowledge_qa_service.answer_generation_failed", e.getMessage()));
+            return failedStream(I18N.get("knowledge_qa_service.answer_generation_failed", e.getMessage()), e);
         }
     }
 
@@ -461,6 +488,7 @@ public class KnowledgeQAService {
         }
 
         long startTime = System.currentTimeMillis();
+        RequestTrace trace = startTrace("ask");
 
         try {
             log.info(I18N.get("knowledge_qa_service.question_separator"));
@@ -469,9 +497,12 @@ public class KnowledgeQAService {
 
             // 前置分类：使用 HOPE QuestionClassifier 判断问题类型，避免无意义的文档检索
             // (Pre-classification: Use HOPE QuestionClassifier to determine question type)
+            long classifyStart = System.nanoTime();
             QuestionClassifier hopeClassifier = new QuestionClassifier();
             QuestionClassifier.Classification classification =
                     hopeClassifier.classify(question);
+            recordStage(Stage.CLASSIFY, classifyStart);
+            RequestTrace.current().attr("questionType", classification.getType());
 
             log.info("🔍 问题分类 (Question Classification): type={}, complexity={}, confidence={}, suggestedLayer={}",
                     classification.getType(),
@@ -486,20 +517,37 @@ public class KnowledgeQAService {
                 return askDirectLLM(question);
             }
 
+            // 语义答案缓存：复述的问题直接复用引用文档未变更的答案；带 HOPE 会话的回答依赖会话上下文，不读写缓存
+            // (Semantic answer cache: paraphrased questions reuse answers whose cited documents are unchanged;
+            // answers within a HOPE session depend on the session context and bypass the cache)
+            boolean sessionScoped = hopeSessionId != null && !hopeSessionId.isEmpty();
+            float[] questionEmbedding = embedQuestionForCache(question);
+            if (questionEmbedding != null && !sessionScoped) {
+                Optional<MultiLayerCacheService.SemanticAnswer> cached;
+                try (RequestTrace.Span span = RequestTrace.span("semantic_cache")) {
+                    cached = cacheService.getSemanticAnswer(questionEmbedding, this::currentContentHash);
+                    span.attr("hit", cached.isPresent());
+                }
+                if (cached.isPresent()) {
+                    return answerFromSemanticCache(question, cached.get(), startTime);
+                }
+            }
+
             // 设置 HOPE 会话ID（供 HOPEEnhancedLLMClient 使用）
             // (Set HOPE session ID for HOPEEnhancedLLMClient to use)
-            if (hopeSessionId != null && !hopeSessionId.isEmpty()) {
+            if (sessionScoped) {
                 HOPEEnhancedLLMClient.setSessionId(hopeSessionId);
             }
 
             // 步骤0: 搜索相似问题（在检索文档之前）
             // (Step 0: Search for similar questions before retrieving documents)
             List<SimilarQAService.SimilarQA> similarQuestions = null;
-            try {
+            try (RequestTrace.Span span = RequestTrace.span("similar_qa")) {
                 // 从配置获取相似问题参数 (Get similar QA params from config)
                 int minScore = properties.getSimilarQa().getMinScore();
                 int limit = properties.getSimilarQa().getLimit();
                 similarQuestions = similarQAService.findSimilar(question, minScore, limit);
+                span.attr("found", similarQuestions.size());
                 if (!similarQuestions.isEmpty()) {
                     log.info(I18N.get("knowledge_qa_service.similar_found", similarQuestions.size()));
                 }
@@ -510,32 +558,41 @@ public class KnowledgeQAService {
             // 步骤1: 检索相关文档 / Step 1: Retrieve relevant documents
             List<Document> documents;
 
-            // 优先使用策略调度器（如果可用）/ Prefer strategy dispatcher if available
-            if (searchStrategyDispatcher != null && !searchStrategyDispatcher.getAllStrategies().isEmpty()) {
-                documents = searchWithStrategyDispatcher(question);
-                log.info(I18N.get("knowledge_qa_service.using_strategy_dispatcher"));
-            } else if (embeddingEngine != null && vectorIndexEngine != null) {
-                // 使用混合检索 / Use hybrid search
-                documents = hybridSearchService.hybridSearch(question, rag, embeddingEngine, vectorIndexEngine);
-                log.info(I18N.get("knowledge_qa_service.using_hybrid_search"));
-            } else {
-                // 使用纯关键词检索 / Use pure keyword search
-                documents = hybridSearchService.keywordSearch(question, rag);
-                log.info(I18N.get("knowledge_qa_service.using_keyword_search"));
+            try (RequestTrace.Span span = RequestTrace.span("retrieval")) {
+                // 优先使用策略调度器（如果可用）/ Prefer strategy dispatcher if available
+                if (searchStrategyDispatcher != null && !searchStrategyDispatcher.getAllStrategies().isEmpty()) {
+                    span.attr("mode", "strategy");
+                    documents = searchWithStrategyDispatcher(question);
+                    log.info(I18N.get("knowledge_qa_service.using_strategy_dispatcher"));
+                } else if (embeddingEngine != null && vectorIndexEngine != null) {
+                    // 使用混合检索，复用缓存查询时算好的问题向量 / Use hybrid search, reusing the question vector from the cache lookup
+                    span.attr("mode", "hybrid");
+                    documents = hybridSearchService.hybridSearch(question, rag, embeddingEngine, vectorIndexEngine,
+                            questionEmbedding);
+                    log.info(I18N.get("knowledge_qa_service.using_hybrid_search"));
+                } else {
+                    // 使用纯关键词检索 / Use pure keyword search
+                    span.attr("mode", "keyword");
+                    documents = hybridSearchService.keywordSearch(question, rag);
+                    log.info(I18N.get("knowledge_qa_service.using_keyword_search"));
+                }
+                span.attr("docs", documents.size());
             }
 
             // 步骤1.5: PPL Rerank（如果启用）(Step 1.5: PPL Rerank if enabled)
             if (pplServiceFacade != null && pplConfig != null && pplConfig.getReranking() != null &&
                     pplConfig.getReranking().isEnabled() && !documents.isEmpty()) {
-                try {
+                try (RequestTrace.Span span = RequestTrace.span("rerank")) {
                     log.info(I18N.get("log.ppl.rerank_start", documents.size()));
-                    long rerankStart = System.currentTimeMillis();
+                    long rerankStart = System.nanoTime();
+                    span.attr("candidates", documents.size());
 
                     // PPLServiceFacade.rerank 需要 2 个参数: question, candidates
                     // (config 会自动从 pplConfig 中获取)
                     documents = pplServiceFacade.rerank(question, documents);
 
-                    long rerankTime = System.currentTimeMillis() - rerankStart;
+                    span.attr("docs", documents.size());
+                    long rerankTime = recordStage(Stage.RERANK, rerankStart);
                     log.info(I18N.get("log.ppl.rerank_completed", rerankTime));
                 } catch (Exception e) {
                     log.warn(I18N.get("log.ppl.rerank_failed", e.getMessage()));
@@ -573,13 +630,13 @@ public class KnowledgeQAService {
             }
 
             // 步骤2: 构建智能上下文 / Step 2: Build smart context
-            // 设置当前文档ID（用于保存切分块）/ Set current document ID (for saving chunks)
-            if (!documents.isEmpty() && contextBuilder != null) {
-                String firstDocTitle = documents.get(0).getTitle();
-                contextBuilder.setCurrentDocumentId(firstDocTitle);
+            long contextStart = System.nanoTime();
+            String context;
+            try (RequestTrace.Span span = RequestTrace.span("context_build")) {
+                context = contextBuilder.buildSmartContext(question, documents);
+                span.attr("docs", documents.size()).attr("chars", context.length());
             }
-
-            String context = contextBuilder.buildSmartContext(question, documents);
+            recordStage(Stage.CONTEXT_BUILD, contextStart);
             log.info(I18N.get("knowledge_qa_service.context_stats", contextBuilder.getContextStats(context)));
 
             // 步骤3: 收集可用的图片信息
@@ -587,6 +644,7 @@ public class KnowledgeQAService {
             List<ImageInfo> allImages = new ArrayList<>();
             StringBuilder imageContext = new StringBuilder();
 
+            RequestTrace.Span imageSpan = RequestTrace.span("image_lookup");
             for (top.yumbo.ai.rag.model.Document doc : documents) {
                 try {
                     List<ImageInfo> docImages =
@@ -627,6 +685,7 @@ public class KnowledgeQAService {
                     log.warn(I18N.get("knowledge_qa_service.image_not_found", doc.getTitle()), e);
                 }
             }
+            imageSpan.attr("images", allImages.size()).close();
 
             // 步骤4: 构建增强的 Prompt（包含图片信息和文档说明）
             List<String> usedDocTitles = documents.stream()
@@ -655,7 +714,14 @@ public class KnowledgeQAService {
 
             // 步骤5: 调用 LLM 生成答案 / Step 5: Call LLM to generate answer
             log.debug("🔍 Prompt: {}", prompt);
-            String answer = llmClient.generate(prompt);
+            long llmStart = System.nanoTime();
+            String answer;
+            try (RequestTrace.Span span = RequestTrace.span("llm")) {
+                answer = llmClient.generate(prompt);
+                span.attr("promptChars", prompt.length()).attr("answerChars", answer != null ? answer.length() : 0);
+            }
+            recordStage(Stage.LLM_TOTAL, llmStart);
+            recordHopeLookup();
 
             // 调试：检查answer中的图片引用
             log.debug("🔍 Answer: {}", answer);
@@ -697,6 +763,13 @@ public class KnowledgeQAService {
             // 保存问答记录（用于反馈和优化）/ Save QA record (for feedback and optimization)
             String recordId = saveQARecord(question, answer, sources, usedDocTitles, totalTime);
 
+            // 写入语义答案缓存，记录引用文档的内容哈希 / Cache the answer with cited document content hashes
+            if (questionEmbedding != null && !sessionScoped && !documents.isEmpty()) {
+                Map<String, String> citedHashes = new HashMap<>();
+                documents.forEach(doc -> citedHashes.put(doc.getId(), doc.getContentHash()));
+                cacheService.putSemanticAnswer(question, questionEmbedding, answer, sources, citedHashes);
+            }
+
             AIAnswer aiAnswer = new AIAnswer(
                     answer,
                     sources,
@@ -757,14 +830,110 @@ public class KnowledgeQAService {
             // 清除 HOPE 会话ID
             HOPEEnhancedLLMClient.clearSessionId();
 
-            return new AIAnswer(
+            return AIAnswer.failed(
                     I18N.get("knowledge_qa_service.error_processing", e.getMessage()),
                     List.of(),
                     totalTime
             );
+        } finally {
+            finishTrace(trace);
+        }
+    }
+
+    /**
+     * 记录阶段耗时，监控未启用时只返回耗时
+     * (Record a stage duration; only returns it when monitoring is unavailable)
+     *
+     * @param stage 阶段 (Stage)
+     * @param startNanos 阶段开始时的 System.nanoTime() (System.nanoTime() at stage start)
+     * @return 耗时（毫秒）(Duration in milliseconds)
+     */
+    private long recordStage(Stage stage, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        if (monitoringService != null) {
+            monitoringService.recordStage(stage, elapsed);
+        }
+        return elapsed / 1_000_000;
+    }
+
+    /**
+     * 开启请求追踪，追踪未启用时返回 null
+     * (Start a request trace; returns null when tracing is unavailable)
+     */
+    private RequestTrace startTrace(String operation) {
+        return requestTracer != null ? requestTracer.start(operation) : null;
+    }
+
+    /**
+     * 结束请求追踪并写入追踪缓冲 (Finish a request trace and store it)
+     */
+    private void finishTrace(RequestTrace trace) {
+        if (requestTracer != null) {
+            requestTracer.finish(trace);
+        }
+    }
+
+    /**
+     * 记录本次 LLM 调用中的 HOPE 查询耗时（查询在 HOPEEnhancedLLMClient 内完成）
+     * (Record the HOPE lookup time of this LLM call; the lookup runs inside HOPEEnhancedLLMClient)
+     */
+    private void recordHopeLookup() {
+        if (monitoringService == null || !(llmClient instanceof HOPEEnhancedLLMClient)) {
+            return;
+        }
+        HOPEEnhancedLLMClient.LastQuery lastQuery = HOPEEnhancedLLMClient.getLastQuery();
+        if (lastQuery != null && lastQuery.getHopeQueryMs() >= 0) {
+            monitoringService.recordHopeQuery(lastQuery.getHopeQueryMs(), lastQuery.isDirectAnswer());
+        }
+    }
+
+    /**
+     * 计算用于语义答案缓存的问题向量，缓存不可用时返回 null；混合检索复用该向量
+     * (Embed the question for the semantic answer cache, null when the cache is unavailable; hybrid search reuses it)
+     */
+    private float[] embedQuestionForCache(String question) {
+        if (cacheService == null || !cacheService.isSemanticAnswerEnabled() || embeddingEngine == null) {
+            return null;
+        }
+        try {
+            long embedStart = System.nanoTime();
+            float[] embedding = embeddingEngine.embed(question);
+            recordStage(Stage.EMBED, embedStart);
+            return embedding;
+        } catch (Exception e) {
+            log.warn(I18N.get("knowledge_qa_service.semantic_cache_failed", e.getMessage()));
+            return null;
         }
     }
 
+    /**
+     * 查询文档当前的内容哈希，文档已删除时返回 null
+     * (Look up the current content hash of a document, null if it was deleted)
+     */
+    private String currentContentHash(String docId) {
+        Document document = rag.getDocument(docId);
+        return document != null ? document.getContentHash() : null;
+    }
+
+    /**
+     * 由语义缓存条目构建回答
+     * (Build an answer from a semantic cache entry)
+     */
+    private AIAnswer answerFromSemanticCache(String question, MultiLayerCacheService.SemanticAnswer cached,
+                                             long startTime) {
+        long totalTime = System.currentTimeMillis() - startTime;
+        log.info(I18N.get("knowledge_qa_service.semantic_cache_hit", cached.getQuestion(), totalTime));
+
+        String recordId = saveQARecord(question, cached.getAnswer(), cached.getSources(),
+                cached.getSources(), totalTime);
+
+        AIAnswer aiAnswer = new AIAnswer(cached.getAnswer(), cached.getSources(), totalTime);
+        aiAnswer.setRecordId(recordId);
+        aiAnswer.setStrategyUsed("SEMANTIC_CACHE");
+        aiAnswer.setDirectAnswer(false);
+        return aiAnswer;
+    }
+
     /**
      * 提问 - 流式版本 / Ask question - Streaming version
      * <p>
@@ -777,9 +946,11 @@ public class KnowledgeQAService {
      */
     public Flux<String> askStream(String question, String hopeSessionId) {
         if (rag == null || llmClient == null) {
-            return Flux.just(I18N.get("log.kqa.system_not_initialized"));
+            String message = I18N.get("log.kqa.system_not_initialized");
+            return failedStream(message, new IllegalStateException(message));
         }
 
+        RequestTrace trace = startTrace("ask_stream");
         try {
             log.info(I18N.get("knowledge_qa_service.question_separator"));
             log.info(I18N.get("knowledge_qa_service.question_prompt", question) + " [Streaming Mode]");
@@ -792,19 +963,29 @@ public class KnowledgeQAService {
 
             // 步骤1: 检索相关文档
             List<Document> documents;
-            if (searchStrategyDispatcher != null && !searchStrategyDispatcher.getAllStrategies().isEmpty()) {
-                documents = searchWithStrategyDispatcher(question);
-            } else if (embeddingEngine != null && vectorIndexEngine != null) {
-                documents = hybridSearchService.hybridSearch(question, rag, embeddingEngine, vectorIndexEngine);
-            } else {
-                documents = hybridSearchService.keywordSearch(question, rag);
+            try (RequestTrace.Span span = RequestTrace.span("retrieval")) {
+                if (searchStrategyDispatcher != null && !searchStrategyDispatcher.getAllStrategies().isEmpty()) {
+                    span.attr("mode", "strategy");
+                    documents = searchWithStrategyDispatcher(question);
+                } else if (embeddingEngine != null && vectorIndexEngine != null) {
+                    span.attr("mode", "hybrid");
+                    documents = hybridSearchService.hybridSearch(question, rag, embeddingEngine, vectorIndexEngine);
+                } else {
+                    span.attr("mode", "keyword");
+                    documents = hybridSearchService.keywordSearch(question, rag);
+                }
+                span.attr("docs", documents.size());
             }
 
             // PPL Rerank（如果启用）
             if (pplServiceFacade != null && pplConfig != null && pplConfig.getReranking() != null &&
                     pplConfig.getReranking().isEnabled() && !documents.isEmpty()) {
-                try {
+                try (RequestTrace.Span span = RequestTrace.span("rerank")) {
+                    long rerankStart = System.nanoTime();
+                    span.attr("candidates", documents.size());
                     documents = pplServiceFacade.rerank(question, documents);
+                    span.attr("docs", documents.size());
+                    recordStage(Stage.RERANK, rerankStart);
                 } catch (Exception e) {
                     log.warn(I18N.get("log.ppl.rerank_failed", e.getMessage()));
                 }
@@ -817,17 +998,26 @@ public class KnowledgeQAService {
             }
 
             // 步骤2: 构建上下文
-            String context = contextBuilder != null
-                ? contextBuilder.buildSmartContext(question, documents)
-                : documents.stream()
-                    .map(doc -> doc.getTitle() + ": " + doc.getContent())
-                    .collect(java.util.stream.Collectors.joining("\n\n"));
+            long contextStart = System.nanoTime();
+            String context;
+            try (RequestTrace.Span span = RequestTrace.span("context_build")) {
+                context = contextBuilder != null
+                    ? contextBuilder.buildSmartContext(question, documents)
+                    : documents.stream()
+                        .map(doc -> doc.getTitle() + ": " + doc.getContent())
+                        .collect(java.util.stream.Collectors.joining("\n\n"));
+                span.attr("docs", documents.size()).attr("chars", context.length());
+            }
+            recordStage(Stage.CONTEXT_BUILD, contextStart);
 
             // 步骤3: 收集图片信息
             StringBuilder imageContext = new StringBuilder();
+            RequestTrace.Span imageSpan = RequestTrace.span("image_lookup");
+            int imageCount = 0;
             for (Document doc : documents) {
                 try {
                     List<ImageInfo> docImages = imageStorageService.listImages(doc.getTitle());
+                    imageCount += docImages.size();
                     if (!docImages.isEmpty()) {
                         imageContext.append("\n---\n");
                         imageContext.append("📎 ").append(I18N.get("knowledge_qa_service.doc_images_header",
@@ -846,6 +1036,7 @@ public class KnowledgeQAService {
                     log.warn(I18N.get("knowledge_qa_service.image_not_found", doc.getTitle()), e);
                 }
             }
+            imageSpan.attr("images", imageCount).close();
 
             // 步骤4: 构建 Prompt
             List<String> usedDocTitles = documents.stream()
@@ -865,21 +1056,43 @@ public class KnowledgeQAService {
 
             log.info(I18N.get("knowledge_qa_service.using_docs", usedDocTitles.size()));
 
-            // 步骤5: 流式调用 LLM
+            // 步骤5: 流式调用 LLM，追踪在流结束时完成
+            // (Step 5: Stream from the LLM; the trace finishes when the stream ends)
             Flux<String> answerStream = llmClient.generateStream(prompt);
+            if (monitoringService != null) {
+                answerStream = monitoringService.timeLlmStream(answerStream);
+            }
+            RequestTrace.Span llmSpan = RequestTrace.asyncSpan("llm_stream").attr("promptChars", prompt.length());
+            AtomicInteger chunkCount = new AtomicInteger();
+            if (trace != null) {
+                trace.detach();
+            }
 
             // 清除 HOPE 会话ID
-            return answerStream.doFinally(signalType -> {
-                HOPEEnhancedLLMClient.clearSessionId();
-            });
+            return answerStream
+                    .doOnNext(chunk -> chunkCount.incrementAndGet())
+                    .doFinally(signalType -> {
+                        HOPEEnhancedLLMClient.clearSessionId();
+                        llmSpan.attr("chunks", chunkCount.get()).attr("signal", signalType).end();
+                        finishTrace(trace);
+                    });
 
         } catch (Exception e) {
             log.error("❌ Streaming QA processing failed", e);
             HOPEEnhancedLLMClient.clearSessionId();
-            return Flux.just(I18N.get("knowledge_qa_service.error_processing", e.getMessage()));
+            finishTrace(trace);
+            return failedStream(I18N.get("knowledge_qa_service.error_processing", e.getMessage()), e);
         }
     }
 
+    /**
+     * 失败的流：先发出错误说明供前端显示，再以错误信号结束，调用方可据此识别失败
+     * (A failed stream: emits the error message for display, then ends with an error signal so callers can tell it failed)
+     */
+    private static Flux<String> failedStream(String message, Throwable cause) {
+        return Flux.just(message).concatWith(Flux.error(cause));
+    }
+
     /**
      * 带上下文的问答（供策略层调用）
      * (QA with context - for strategy layer)
@@ -946,7 +1159,7 @@ public class KnowledgeQAService {
         } catch (Exception e) {
             log.error(I18N.get("knowledge_qa_service.log.direct_qa_failed"), e);
             long totalTime = System.currentTimeMillis() - startTime;
-            return new AIAnswer(
+            return AIAnswer.failed(
                     I18N.get("knowledge_qa_service.log.direct_qa_error", e.getMessage()),
                     List.of(),
                     totalTime
@@ -990,12 +1203,9 @@ public class KnowledgeQAService {
                     sessionService.getSessionInfo(sessionId);
 
             // 步骤2: 构建智能上下文 / Step 2: Build smart context
-            if (!documents.isEmpty() && contextBuilder != null) {
-                String firstDocTitle = documents.getFirst().getTitle();
-                contextBuilder.setCurrentDocumentId(firstDocTitle);
-            }
-
+            long contextStart = System.nanoTime();
             String context = contextBuilder.buildSmartContext(question, documents);
+            recordStage(Stage.CONTEXT_BUILD, contextStart);
             log.info(I18N.get("knowledge_qa_service.context_stats", contextBuilder.getContextStats(context)));
 
             // 步骤3: 收集可用的图片信息
@@ -1069,7 +1279,9 @@ public class KnowledgeQAService {
             }
 
             // 步骤5: 调用 LLM 生成答案 / Step 5: Call LLM to generate answer
+            long llmStart = System.nanoTime();
             String answer = llmClient.generate(prompt);
+            recordStage(Stage.LLM_TOTAL, llmStart);
 
             // 步骤6: 提取文档来源 / Step 6: Extract document sources
             List<String> sources = documents.stream()
@@ -1126,7 +1338,7 @@ public class KnowledgeQAService {
         } catch (Exception e) {
             log.error(I18N.get("knowledge_qa_service.qa_with_session_failed"), e);
             long totalTime = System.currentTimeMillis() - startTime;
-            return new AIAnswer(
+            return AIAnswer.failed(
                     I18N.get("knowledge_qa_service.error_processing", e.getMessage()),
                     List.of(),
                     totalTime
@@ -1344,6 +1556,9 @@ public class KnowledgeQAService {
     public synchronized BuildResult rebuildKnowledgeBase() {
         log.info(I18N.get("knowledge_qa_service.rebuild_start"));
 
+        // 等待进行中的单文件入库完成（Wait for in-flight single-file ingestion to finish）
+        indexLock.writeLock().lock();
+
         // 设置索引状态为进行中
         isIndexing = true;
 
@@ -1401,6 +1616,7 @@ public class KnowledgeQAService {
         } finally {
             // 无论成功或失败，都重置索引状态
             isIndexing = false;
+            indexLock.writeLock().unlock();
         }
     }
 
@@ -1411,6 +1627,9 @@ public class KnowledgeQAService {
     public synchronized BuildResult incrementalIndexKnowledgeBase() {
         log.info(I18N.get("knowledge_qa_service.incremental_index_start"));
 
+        // 等待进行中的单文件入库完成（Wait for in-flight single-file ingestion to finish）
+        indexLock.writeLock().lock();
+
         // 设置索引状态为进行中
         isIndexing = true;
 
@@ -1467,6 +1686,48 @@ public class KnowledgeQAService {
         } finally {
             // 无论成功或失败，都重置索引状态
             isIndexing = false;
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 索引单个文件到在线知识库 / Index a single file into the live knowledge base
+     * 与其它单文件入库并行执行，只在全量/增量重建期间等待；已索引且未修改的文件直接跳过
+     * (Runs in parallel with other single-file ingestion and only waits while a full or incremental
+     * rebuild is running; files already indexed and unchanged are skipped)
+     *
+     * @param file     文件 / File
+     * @param progress 阶段与进度回调 / Stage and progress callback
+     * @return 生成的文档（块）数量 / Number of documents (chunks) created
+     */
+    public int indexDocumentFile(File file, BiConsumer<String, Integer> progress) throws IOException {
+        indexLock.readLock().lock();
+        try {
+            if (rag == null) {
+                throw new IllegalStateException(I18N.get("log.kqa.kb_not_initialized"));
+            }
+            progress.accept(IngestionJob.STAGE_INDEXING, 20);
+            return knowledgeBaseService.indexFile(file, rag, embeddingEngine, vectorIndexEngine);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从在线知识库中移除已删除文件的文档 / Remove the documents of a deleted file from the live knowledge base
+     *
+     * @param file 已删除的文件 / Deleted file
+     * @return 移除的文档数量 / Number of documents removed
+     */
+    public int removeDocumentFile(File file) throws IOException {
+        indexLock.readLock().lock();
+        try {
+            if (rag == null) {
+                throw new IllegalStateException(I18N.get("log.kqa.kb_not_initialized"));
+            }
+            return knowledgeBaseService.removeFile(file, rag, vectorIndexEngine);
+        } finally {
+            indexLock.readLock().unlock();
         }
     }
 
@@ -1517,7 +1778,9 @@ public class KnowledgeQAService {
             if (pplServiceFacade != null && pplConfig != null && pplConfig.getReranking() != null &&
                     pplConfig.getReranking().isEnabled() && !documents.isEmpty()) {
                 try {
+                    long rerankStart = System.nanoTime();
                     documents = pplServiceFacade.rerank(question, documents);
+                    recordStage(Stage.RERANK, rerankStart);
                 } catch (Exception e) {
                     log.warn("PPL Rerank failed in streaming: {}", e.getMessage());
                 }
@@ -0,0 +1,94 @@
+package top.yumbo.ai.rag.spring.boot.service.ingestion;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 入库任务（Ingestion job）
+ * 上传后对单个文件进行解析和索引的后台任务，状态持久化在 {@link IngestionJobStore} 中
+ * （Background task that parses and indexes a single uploaded file; its state is persisted in {@link IngestionJobStore}）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionJob {
+
+    public static final String STAGE_QUEUED = "queued";
+    public static final String STAGE_WAITING = "waiting_for_index";
+    public static final String STAGE_INDEXING = "indexing";
+    public static final String STAGE_COMPLETED = "completed";
+    public static final String STAGE_FAILED = "failed";
+    public static final String STAGE_NOT_STARTED = "not_started";
+
+    /**
+     * 任务ID（Job ID）
+     */
+    private String jobId;
+
+    /**
+     * 文件名（File name）
+     */
+    private String fileName;
+
+    /**
+     * 文件完整路径（Absolute file path）
+     */
+    private String filePath;
+
+    /**
+     * 任务状态（Job status）
+     */
+    private Status status;
+
+    /**
+     * 当前阶段（Current stage）
+     */
+    private String stage;
+
+    /**
+     * 进度百分比 0-100（Progress percentage 0-100）
+     */
+    private int progress;
+
+    /**
+     * 生成的文档（块）数量（Number of documents/chunks created）
+     */
+    private int documentCount;
+
+    /**
+     * 执行次数，重启后恢复的任务会大于 1（Number of attempts; greater than 1 for jobs resumed after a restart）
+     */
+    private int attempts;
+
+    /**
+     * 失败原因（Failure reason）
+     */
+    private String error;
+
+    private long createdAt;
+    private long startedAt;
+    private long finishedAt;
+
+    /**
+     * 是否已结束（Whether the job has finished）
+     */
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    /**
+     * 任务状态（Job status）
+     */
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
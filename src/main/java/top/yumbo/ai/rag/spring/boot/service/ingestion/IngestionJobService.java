@@ -0,0 +1,230 @@
+package top.yumbo.ai.rag.spring.boot.service.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import top.yumbo.ai.rag.i18n.I18N;
+import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
+import top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * 入库任务服务（Ingestion job service）
+ * 上传完成后立即返回任务ID，由后台工作线程逐个文件解析并索引；任务状态持久化，重启后继续执行
+ * （Returns a job ID as soon as an upload is saved; background workers parse and index each file independently.
+ * Job state is persisted, so queued and interrupted jobs resume after a restart）
+ *
+ * 每个文件直接写入在线知识库，不再触发全量或增量重建
+ * （Each file is written into the live knowledge base instead of triggering a full or incremental rebuild）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class IngestionJobService implements AutoCloseable {
+
+    private static final int DEFAULT_LIST_LIMIT = 50;
+
+    private final IngestionJobStore store;
+    private final FileIndexer indexer;
+    private final ExecutorService executor;
+    private volatile boolean closing = false;
+
+    @Autowired
+    public IngestionJobService(KnowledgeQAProperties properties,
+                               IngestionJobStore store,
+                               KnowledgeQAService qaService) {
+        this(store, qaService::indexDocumentFile, properties.getKnowledgeBase().getIngestion().getWorkers());
+    }
+
+    /**
+     * @param store   任务存储（Job store）
+     * @param indexer 单文件索引器（Single-file indexer）
+     * @param workers 工作线程数（Number of worker threads）
+     */
+    public IngestionJobService(IngestionJobStore store, FileIndexer indexer, int workers) {
+        this.store = store;
+        this.indexer = indexer;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, workers), r -> {
+            Thread thread = new Thread(r, "Ingestion-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        log.info(I18N.get("log.ingestion.init", Math.max(1, workers)));
+        resumeUnfinished();
+    }
+
+    /**
+     * 提交入库任务，任务写入存储后立即返回（Submit an ingestion job; returns once the job is persisted）
+     *
+     * @param file 已保存的文件（Saved file）
+     * @return 排队中的任务；服务关闭后提交的任务直接记为未启动（The queued job; jobs submitted after shutdown are
+     * recorded as not started）
+     */
+    public IngestionJob submit(Path file) {
+        IngestionJob job = IngestionJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .fileName(file.getFileName().toString())
+                .filePath(file.toAbsolutePath().toString())
+                .status(IngestionJob.Status.QUEUED)
+                .stage(IngestionJob.STAGE_QUEUED)
+                .createdAt(System.currentTimeMillis())
+                .build();
+        store.save(job);
+
+        // 返回快照，任务对象之后只由工作线程修改（Return a snapshot; the job object is only mutated by the worker afterwards）
+        IngestionJob queued = job.toBuilder().build();
+        if (!dispatch(job)) {
+            return job;
+        }
+        log.info(I18N.get("log.ingestion.submitted", job.getJobId(), job.getFileName()));
+        return queued;
+    }
+
+    /**
+     * 查询任务（Get a job）
+     */
+    public Optional<IngestionJob> getJob(String jobId) {
+        return store.findById(jobId);
+    }
+
+    /**
+     * 最近的任务（Recent jobs）
+     */
+    public List<IngestionJob> listJobs(int limit) {
+        return store.findRecent(limit > 0 ? limit : DEFAULT_LIST_LIMIT);
+    }
+
+    /**
+     * 恢复重启前未完成的任务；运行中断的任务重新执行（Resume jobs left unfinished before a restart; interrupted runs start over）
+     */
+    private void resumeUnfinished() {
+        List<IngestionJob> unfinished = store.findUnfinished();
+        if (unfinished.isEmpty()) {
+            return;
+        }
+        for (IngestionJob job : unfinished) {
+            job.setStatus(IngestionJob.Status.QUEUED);
+            job.setStage(IngestionJob.STAGE_QUEUED);
+            job.setProgress(0);
+            store.save(job);
+            dispatch(job);
+        }
+        log.info(I18N.get("log.ingestion.resumed", unfinished.size()));
+    }
+
+    /**
+     * 交给工作线程执行；服务已关闭时不再排队，任务记为未启动而非一直停留在排队状态
+     * （Hand the job to a worker; once the service is closed it is not queued and is recorded as not started
+     * instead of staying queued forever）
+     *
+     * @return 是否已排队（Whether the job was queued）
+     */
+    private boolean dispatch(IngestionJob job) {
+        if (!closing) {
+            try {
+                executor.execute(() -> run(job));
+                return true;
+            } catch (RejectedExecutionException e) {
+                // close() 与检查之间的竞争（Raced with close() after the check）
+            }
+        }
+        job.setStatus(IngestionJob.Status.FAILED);
+        job.setStage(IngestionJob.STAGE_NOT_STARTED);
+        job.setError(I18N.get("log.ingestion.rejected", job.getJobId(), job.getFileName()));
+        job.setFinishedAt(System.currentTimeMillis());
+        store.save(job);
+        log.warn(job.getError());
+        return false;
+    }
+
+    private void run(IngestionJob job) {
+        if (closing) {
+            return;
+        }
+        job.setStatus(IngestionJob.Status.RUNNING);
+        job.setAttempts(job.getAttempts() + 1);
+        job.setStartedAt(System.currentTimeMillis());
+        job.setError(null);
+        updateProgress(job, IngestionJob.STAGE_WAITING, 5);
+
+        try {
+            File file = new File(job.getFilePath());
+            if (!file.isFile()) {
+                throw new IllegalStateException(I18N.get("log.kb.file_not_exists", job.getFilePath()));
+            }
+
+            int documentCount = indexer.index(file, (stage, progress) -> updateProgress(job, stage, progress));
+
+            job.setDocumentCount(documentCount);
+            job.setStatus(IngestionJob.Status.SUCCEEDED);
+            job.setStage(IngestionJob.STAGE_COMPLETED);
+            job.setProgress(100);
+            log.info(I18N.get("log.ingestion.succeeded", job.getJobId(), job.getFileName(), documentCount,
+                    System.currentTimeMillis() - job.getStartedAt()));
+        } catch (Exception e) {
+            job.setStatus(IngestionJob.Status.FAILED);
+            job.setStage(IngestionJob.STAGE_FAILED);
+            job.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            log.error(I18N.get("log.ingestion.failed", job.getJobId(), job.getFileName(), job.getError()), e);
+        }
+
+        job.setFinishedAt(System.currentTimeMillis());
+        store.save(job);
+    }
+
+    private void updateProgress(IngestionJob job, String stage, int progress) {
+        job.setStage(stage);
+        job.setProgress(progress);
+        store.save(job);
+    }
+
+    /**
+     * 停止工作线程；未完成的任务保持排队或运行状态，下次启动时恢复
+     * （Stop the workers; unfinished jobs stay queued or running and are resumed on the next start）
+     */
+    @Override
+    public void close() {
+        closing = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 单文件索引器（Single-file indexer）
+     */
+    @FunctionalInterface
+    public interface FileIndexer {
+
+        /**
+         * 解析并索引一个文件（Parse and index one file）
+         *
+         * @param file     文件（File）
+         * @param progress 阶段与进度回调（Stage and progress callback）
+         * @return 生成的文档（块）数量（Number of documents/chunks created）
+         */
+        int index(File file, BiConsumer<String, Integer> progress) throws Exception;
+    }
+}
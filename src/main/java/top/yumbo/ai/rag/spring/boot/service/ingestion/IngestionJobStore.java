@@ -0,0 +1,181 @@
+package top.yumbo.ai.rag.spring.boot.service.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.rag.i18n.I18N;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 入库任务存储（Ingestion job store）
+ * 基于 SQLite 持久化任务状态，服务重启后未完成的任务可以继续执行
+ * （Persists job state in SQLite so unfinished jobs can be resumed after a restart）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+public class IngestionJobStore implements AutoCloseable {
+
+    private static final String CREATE_JOBS_TABLE = """
+            CREATE TABLE IF NOT EXISTS ingestion_jobs (
+                job_id TEXT PRIMARY KEY,
+                file_name TEXT NOT NULL,
+                file_path TEXT NOT NULL,
+                status TEXT NOT NULL,
+                stage TEXT,
+                progress INTEGER NOT NULL DEFAULT 0,
+                document_count INTEGER NOT NULL DEFAULT 0,
+                attempts INTEGER NOT NULL DEFAULT 0,
+                error TEXT,
+                created_at INTEGER NOT NULL,
+                started_at INTEGER NOT NULL DEFAULT 0,
+                finished_at INTEGER NOT NULL DEFAULT 0
+            )
+            """;
+
+    private static final String CREATE_STATUS_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_ingestion_jobs_status ON ingestion_jobs(status)";
+
+    private static final String SELECT_COLUMNS = """
+            SELECT job_id, file_name, file_path, status, stage, progress, document_count,
+                   attempts, error, created_at, started_at, finished_at
+            FROM ingestion_jobs
+            """;
+
+    private final String dbPath;
+    private Connection connection;
+
+    public IngestionJobStore(String dbPath) {
+        this.dbPath = dbPath;
+        initialize();
+    }
+
+    /**
+     * 初始化数据库（Initialize database）
+     */
+    private void initialize() {
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute(CREATE_JOBS_TABLE);
+                stmt.execute(CREATE_STATUS_INDEX);
+            }
+
+            log.info(I18N.get("log.ingestion.store.initialized", dbPath));
+        } catch (SQLException e) {
+            log.error(I18N.get("log.ingestion.store.init_failed", dbPath), e);
+            throw new RuntimeException(I18N.get("log.ingestion.store.init_failed", dbPath), e);
+        }
+    }
+
+    /**
+     * 保存任务，已存在时覆盖（Save a job, replacing an existing row）
+     */
+    public synchronized void save(IngestionJob job) {
+        String sql = """
+                INSERT OR REPLACE INTO ingestion_jobs
+                (job_id, file_name, file_path, status, stage, progress, document_count,
+                 attempts, error, created_at, started_at, finished_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, job.getJobId());
+            pstmt.setString(2, job.getFileName());
+            pstmt.setString(3, job.getFilePath());
+            pstmt.setString(4, job.getStatus().name());
+            pstmt.setString(5, job.getStage());
+            pstmt.setInt(6, job.getProgress());
+            pstmt.setInt(7, job.getDocumentCount());
+            pstmt.setInt(8, job.getAttempts());
+            pstmt.setString(9, job.getError());
+            pstmt.setLong(10, job.getCreatedAt());
+            pstmt.setLong(11, job.getStartedAt());
+            pstmt.setLong(12, job.getFinishedAt());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            log.error(I18N.get("log.ingestion.store.write_failed", job.getJobId()), e);
+            throw new RuntimeException(I18N.get("log.ingestion.store.write_failed", job.getJobId()), e);
+        }
+    }
+
+    /**
+     * 按ID查找任务（Find a job by ID）
+     */
+    public synchronized Optional<IngestionJob> findById(String jobId) {
+        try (PreparedStatement pstmt = connection.prepareStatement(SELECT_COLUMNS + " WHERE job_id = ?")) {
+            pstmt.setString(1, jobId);
+            List<IngestionJob> jobs = readAll(pstmt);
+            return jobs.isEmpty() ? Optional.empty() : Optional.of(jobs.get(0));
+        } catch (SQLException e) {
+            log.warn(I18N.get("log.ingestion.store.read_failed", e.getMessage()), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 最近的任务，按创建时间倒序（Most recent jobs, newest first）
+     */
+    public synchronized List<IngestionJob> findRecent(int limit) {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                SELECT_COLUMNS + " ORDER BY created_at DESC, rowid DESC LIMIT ?")) {
+            pstmt.setInt(1, limit);
+            return readAll(pstmt);
+        } catch (SQLException e) {
+            log.warn(I18N.get("log.ingestion.store.read_failed", e.getMessage()), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 未完成的任务（排队或运行中），按创建时间排序（Unfinished jobs, queued or running, oldest first）
+     */
+    public synchronized List<IngestionJob> findUnfinished() {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                SELECT_COLUMNS + " WHERE status IN ('QUEUED', 'RUNNING') ORDER BY created_at, rowid")) {
+            return readAll(pstmt);
+        } catch (SQLException e) {
+            log.warn(I18N.get("log.ingestion.store.read_failed", e.getMessage()), e);
+            return new ArrayList<>();
+        }
+    }
+
+    private List<IngestionJob> readAll(PreparedStatement pstmt) throws SQLException {
+        List<IngestionJob> jobs = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                jobs.add(IngestionJob.builder()
+                        .jobId(rs.getString("job_id"))
+                        .fileName(rs.getString("file_name"))
+                        .filePath(rs.getString("file_path"))
+                        .status(IngestionJob.Status.valueOf(rs.getString("status")))
+                        .stage(rs.getString("stage"))
+                        .progress(rs.getInt("progress"))
+                        .documentCount(rs.getInt("document_count"))
+                        .attempts(rs.getInt("attempts"))
+                        .error(rs.getString("error"))
+                        .createdAt(rs.getLong("created_at"))
+                        .startedAt(rs.getLong("started_at"))
+                        .finishedAt(rs.getLong("finished_at"))
+                        .build());
+            }
+        }
+        return jobs;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn(I18N.get("log.ingestion.store.close_failed", dbPath), e);
+            }
+            connection = null;
+        }
+    }
+}
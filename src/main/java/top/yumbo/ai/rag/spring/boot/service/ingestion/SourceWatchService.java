@@ -0,0 +1,119 @@
+package top.yumbo.ai.rag.spring.boot.service.ingestion;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import top.yumbo.ai.rag.i18n.I18N;
+import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
+import top.yumbo.ai.rag.spring.boot.service.FileTrackingService;
+import top.yumbo.ai.rag.spring.boot.service.KnowledgeBaseService;
+import top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 源目录持续增量索引服务（Continuous incremental indexing of the source folder）
+ * 监听文档源目录，变更的文件作为入库任务排队，删除的文件从知识库中移除，无需定期全量扫描
+ * （Watches the document source folder: changed files are queued as ingestion jobs and deleted files are
+ * removed from the knowledge base, so no periodic full rescan is needed）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Slf4j
+@Service
+public class SourceWatchService implements SourceFolderWatcher.Listener {
+
+    private final KnowledgeQAProperties properties;
+    private final KnowledgeQAService qaService;
+    private final KnowledgeBaseService knowledgeBaseService;
+    private final FileTrackingService fileTrackingService;
+    private final IngestionJobService ingestionJobService;
+
+    private SourceFolderWatcher watcher;
+
+    public SourceWatchService(KnowledgeQAProperties properties,
+                              KnowledgeQAService qaService,
+                              KnowledgeBaseService knowledgeBaseService,
+                              FileTrackingService fileTrackingService,
+                              IngestionJobService ingestionJobService) {
+        this.properties = properties;
+        this.qaService = qaService;
+        this.knowledgeBaseService = knowledgeBaseService;
+        this.fileTrackingService = fileTrackingService;
+        this.ingestionJobService = ingestionJobService;
+    }
+
+    /**
+     * 启动完成后开始监听（Start watching once the application is ready）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        KnowledgeQAProperties.WatchConfig config = properties.getKnowledgeBase().getWatch();
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        String sourcePath = properties.getKnowledgeBase().getSourcePath();
+        if (sourcePath.startsWith("classpath:") || !Files.isDirectory(Paths.get(sourcePath))) {
+            log.warn(I18N.get("log.ingestion.watch.unsupported_source", sourcePath));
+            return;
+        }
+
+        try {
+            watcher = new SourceFolderWatcher(Paths.get(sourcePath), config.getDebounceMs(),
+                    path -> knowledgeBaseService.isSupportedFile(path.toFile()), this);
+            watcher.start();
+        } catch (Exception e) {
+            log.error(I18N.get("log.ingestion.watch.start_failed", sourcePath, e.getMessage()), e);
+            watcher = null;
+        }
+    }
+
+    @Override
+    public void onFileChanged(Path file) {
+        if (fileTrackingService.needsUpdate(file.toFile())) {
+            ingestionJobService.submit(file);
+        }
+    }
+
+    @Override
+    public void onFileDeleted(Path path) throws Exception {
+        File file = path.toFile();
+        if (fileTrackingService.isIndexed(file.getAbsolutePath())) {
+            qaService.removeDocumentFile(file);
+            return;
+        }
+
+        // 删除或移出的是目录：移除其下所有已索引文件（A directory was deleted or moved away: remove every indexed file under it）
+        for (File tracked : fileTrackingService.getTrackedFilesUnder(path)) {
+            qaService.removeDocumentFile(tracked);
+        }
+    }
+
+    /**
+     * 事件溢出时回退为一次增量扫描，异步执行以免阻塞事件线程（Fall back to one incremental scan on overflow,
+     * asynchronously so the event thread keeps draining）
+     */
+    @Override
+    public void onOverflow() {
+        CompletableFuture.runAsync(qaService::incrementalIndexKnowledgeBase)
+                .exceptionally(e -> {
+                    log.warn(I18N.get("log.ingestion.watch.listener_failed", e.getMessage()));
+                    return null;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+}
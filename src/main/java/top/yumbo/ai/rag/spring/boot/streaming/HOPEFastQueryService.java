@@ -10,6 +10,8 @@ import top.yumbo.ai.rag.hope.model.FactualKnowledge;
 import top.yumbo.ai.rag.hope.model.RecentQA;
 import top.yumbo.ai.rag.spring.boot.streaming.model.HOPEAnswer;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * HOPE 快速查询服务
@@ -46,8 +48,16 @@ public class HOPEFastQueryService {
         }
 
         long startTime = System.currentTimeMillis();
+        CompletableFuture<OrdinaryLayerService.SimilarMatch> ordinaryLookup = null;
 
         try {
+            // 并行模式下中频层与低频层同时查询，低频层直接回答时不再等待中频层
+            // (In parallel mode the ordinary layer is queried alongside the permanent layer and is not
+            // waited for once the permanent layer answers directly)
+            if (hopeManager.isParallelLookup()) {
+                ordinaryLookup = lookupOrdinaryLayer(question, true);
+            }
+
             // 优先级1：低频层确定性知识（最快，50-100ms）
             // (Priority 1: Permanent layer factual knowledge, fastest)
             HOPEAnswer permanentAnswer = queryPermanentLayer(question);
@@ -59,7 +69,10 @@ public class HOPEFastQueryService {
 
             // 优先级2：中频层近期问答（较快，150-250ms）
             // (Priority 2: Ordinary layer recent Q&A, fast)
-            HOPEAnswer ordinaryAnswer = queryOrdinaryLayer(question);
+            if (ordinaryLookup == null) {
+                ordinaryLookup = lookupOrdinaryLayer(question, false);
+            }
+            HOPEAnswer ordinaryAnswer = queryOrdinaryLayer(ordinaryLookup, startTime);
             if (ordinaryAnswer != null && ordinaryAnswer.getConfidence() >= 0.8) {
                 log.info("⚡ HOPE 中频层相似答案 (HOPE ordinary layer similar answer): {}ms",
                     System.currentTimeMillis() - startTime);
@@ -80,6 +93,10 @@ public class HOPEFastQueryService {
         } catch (Exception e) {
             log.warn("HOPE 快速查询失败 (HOPE fast query failed): {}", e.getMessage());
             return buildEmptyAnswer();
+        } finally {
+            if (ordinaryLookup != null) {
+                ordinaryLookup.cancel(false);
+            }
         }
     }
 
@@ -117,34 +134,56 @@ public class HOPEFastQueryService {
         return null;
     }
 
+    /**
+     * 发起中频层查询（相似度阈值 0.85），不记录访问
+     * (Start the ordinary layer lookup with similarity threshold 0.85, without recording access)
+     *
+     * @param async 是否在查询线程上异步执行 (Whether to run on the lookup threads)
+     */
+    private CompletableFuture<OrdinaryLayerService.SimilarMatch> lookupOrdinaryLayer(String question, boolean async) {
+        OrdinaryLayerService ordinaryLayer = hopeManager.getOrdinaryLayer();
+        if (ordinaryLayer == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Supplier<OrdinaryLayerService.SimilarMatch> lookup = () -> ordinaryLayer.findBestMatch(question, 0.85);
+        if (async) {
+            return hopeManager.lookupAsync(lookup);
+        }
+        try {
+            return CompletableFuture.completedFuture(lookup.get());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * 查询中频层
      * (Query ordinary layer)
      */
-    private HOPEAnswer queryOrdinaryLayer(String question) {
+    private HOPEAnswer queryOrdinaryLayer(CompletableFuture<OrdinaryLayerService.SimilarMatch> lookup, long startTime) {
         try {
-            OrdinaryLayerService ordinaryLayer = hopeManager.getOrdinaryLayer();
-            if (ordinaryLayer == null) {
+            OrdinaryLayerService.SimilarMatch match = lookup.get();
+            if (match == null) {
                 return null;
             }
 
-            long startTime = System.currentTimeMillis();
-
-            // 查找相似问答（相似度阈值 0.85）
-            // (Find similar Q&A with similarity threshold 0.85)
-            RecentQA recentQA = ordinaryLayer.findSimilarQA(question, 0.85);
-
-            if (recentQA != null && recentQA.getRating() >= 4.0) {
+            RecentQA recentQA = match.getQa();
+            if (recentQA.getRating() >= 4.0) {
+                // 答案被采用时才记录访问 (Only record access when the answer is used)
+                recentQA.setSimilarityScore(match.getSimilarity());
+                recentQA.recordAccess();
                 return HOPEAnswer.builder()
                     .answer(recentQA.getAnswer())
                     .confidence(recentQA.getRating() / 5.0)  // 转换为 0-1
                     .source(HOPEAnswer.SourceType.HOPE_ORDINARY)
                     .canDirectAnswer(false)  // 相似度不是100%
                     .responseTime(System.currentTimeMillis() - startTime)
-                    .similarityScore(recentQA.getSimilarityScore())
+                    .similarityScore(match.getSimilarity())
                     .build();
             }
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.debug("查询 HOPE 中频层失败 (Query HOPE ordinary layer failed): {}", e.getMessage());
         }
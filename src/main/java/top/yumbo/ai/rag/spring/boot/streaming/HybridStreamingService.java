@@ -1,12 +1,17 @@
 package top.yumbo.ai.rag.spring.boot.streaming;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import top.yumbo.ai.rag.model.Document;
 import top.yumbo.ai.rag.spring.boot.llm.LLMClient;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService;
 import top.yumbo.ai.rag.spring.boot.streaming.model.HOPEAnswer;
-import top.yumbo.ai.rag.spring.boot.streaming.model.SessionStatus;
 import top.yumbo.ai.rag.spring.boot.streaming.model.StreamingSession;
 import top.yumbo.ai.rag.spring.boot.streaming.model.StreamingResponse;
 import top.yumbo.ai.rag.optimization.SmartContextBuilder;
@@ -38,11 +43,16 @@ public class HybridStreamingService {
     private final StreamingSessionMonitor sessionMonitor;
     private final SmartContextBuilder contextBuilder;
     private final top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService knowledgeQAService;
+    private final PerformanceMonitoringService monitoringService;
 
     // 活跃会话管理
     // (Active session management)
     private final Map<String, StreamingSession> activeSessions = new ConcurrentHashMap<>();
 
+    // 进行中的 LLM 流订阅，客户端断开时取消以释放上游连接
+    // (In-flight LLM stream subscriptions, disposed on client disconnect to release the upstream connection)
+    private final Map<String, Disposable> activeStreams = new ConcurrentHashMap<>();
+
     /**
      * 构造函数
      * (Constructor)
@@ -52,18 +62,21 @@ public class HybridStreamingService {
      * @param sessionMonitor 会话监控器
      * @param contextBuilder 上下文构建器
      * @param knowledgeQAService 知识库问答服务（用于 RAG 检索）
+     * @param monitoringService 性能监控服务（可选）
      */
     public HybridStreamingService(
             HOPEFastQueryService hopeFastQueryService,
             LLMClient llmClient,
             StreamingSessionMonitor sessionMonitor,
             SmartContextBuilder contextBuilder,
-            top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService knowledgeQAService) {
+            top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService knowledgeQAService,
+            @Autowired(required = false) PerformanceMonitoringService monitoringService) {
         this.hopeFastQueryService = hopeFastQueryService;
         this.llmClient = llmClient;
         this.sessionMonitor = sessionMonitor;
         this.contextBuilder = contextBuilder;
         this.knowledgeQAService = knowledgeQAService;
+        this.monitoringService = monitoringService;
 
         log.info("HybridStreamingService initialized (混合流式服务已初始化)");
     }
@@ -87,8 +100,14 @@ public class HybridStreamingService {
         // 1. 快速查询 HOPE（目标 <300ms）
         // (Quick query HOPE, target <300ms)
         CompletableFuture<HOPEAnswer> hopeFuture = CompletableFuture.supplyAsync(() -> {
+            long hopeStart = System.currentTimeMillis();
             try {
-                return hopeFastQueryService.queryFast(question, sessionId);
+                HOPEAnswer answer = hopeFastQueryService.queryFast(question, sessionId);
+                if (monitoringService != null) {
+                    monitoringService.recordHopeQuery(System.currentTimeMillis() - hopeStart,
+                        answer != null && answer.getSource() != HOPEAnswer.SourceType.NONE);
+                }
+                return answer;
             } catch (Exception e) {
                 log.warn("HOPE 快速查询失败 (HOPE fast query failed): {}", e.getMessage());
                 return HOPEAnswer.builder()
@@ -129,35 +148,49 @@ public class HybridStreamingService {
         activeSessions.put(sessionId, session);
         sessionMonitor.registerSession(session);
 
-        // 异步启动流式生成
-        // (Start streaming generation asynchronously)
-        CompletableFuture.runAsync(() -> {
-            try {
-                log.debug("开始 LLM 流式生成 (Starting LLM streaming): sessionId={}, RAG={}", sessionId, useKnowledgeBase);
-
-                String prompt;
-                if (useKnowledgeBase) {
-                    // 使用 RAG 检索上下文
-                    // (Use RAG to retrieve context)
-                    prompt = buildPrompt(question);
-                } else {
-                    // 直接 LLM 模式，不检索文档
-                    // (Direct LLM mode, no document retrieval)
-                    prompt = question;
+        // 异步启动流式生成：检索在弹性线程池中执行，LLM 流本身是非阻塞的
+        // (Start streaming asynchronously: retrieval runs on the bounded elastic scheduler,
+        // the LLM stream itself is non-blocking)
+        log.debug("开始 LLM 流式生成 (Starting LLM streaming): sessionId={}, RAG={}", sessionId, useKnowledgeBase);
+
+        Disposable subscription = Mono.fromCallable(() -> useKnowledgeBase
+                // 使用 RAG 检索上下文；直接 LLM 模式不检索文档
+                // (Use RAG to retrieve context; direct LLM mode skips document retrieval)
+                ? buildPrompt(question)
+                : question)
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(prompt -> monitoringService != null
+                ? monitoringService.timeLlmStream(streamFromLLM(session, prompt))
+                : streamFromLLM(session, prompt))
+            .doFinally(signal -> activeStreams.remove(sessionId))
+            .subscribe(
+                // onNext: 每个文本块到达时
+                // (onNext: when each text chunk arrives)
+                chunk -> {
+                    session.appendChunk(chunk);
+                    session.notifySubscribers(chunk);
+                },
+                // onError: 错误时
+                // (onError: when error occurs)
+                error -> {
+                    log.error("❌ LLM 流式生成错误 (LLM streaming error): sessionId={}, error={}",
+                        sessionId, error.getMessage());
+                    session.markError(error instanceof Exception ?
+                        (Exception) error : new RuntimeException(error));
+                    sessionMonitor.onSessionComplete(sessionId);
+                },
+                // onComplete: 完成时
+                // (onComplete: when completed)
+                () -> {
+                    session.markComplete();
+                    sessionMonitor.onSessionComplete(sessionId);
+                    log.debug("✅ LLM 流式生成完成 (LLM streaming completed): sessionId={}", sessionId);
                 }
+            );
 
-                // 调用 LLM 流式接口
-                // (Call LLM streaming interface)
-                streamFromLLM(session, prompt);
-
-
-            } catch (Exception e) {
-                log.error("LLM 流式生成失败 (LLM streaming failed): sessionId={}, error={}",
-                    sessionId, e.getMessage(), e);
-                session.markError(e);
-                sessionMonitor.onSessionComplete(sessionId);
-            }
-        });
+        if (!subscription.isDisposed()) {
+            activeStreams.put(sessionId, subscription);
+        }
 
         return session;
     }
@@ -179,7 +212,12 @@ public class HybridStreamingService {
             
             // 使用 SmartContextBuilder 构建上下文
             // (Use SmartContextBuilder to build context)
+            long contextStart = System.nanoTime();
             String context = contextBuilder.buildSmartContext(question, documents);
+            if (monitoringService != null) {
+                monitoringService.recordStage(PerformanceMonitoringService.Stage.CONTEXT_BUILD,
+                    System.nanoTime() - contextStart);
+            }
             
             // 构建带上下文的 Prompt
             // (Build prompt with context)
@@ -198,65 +236,36 @@ public class HybridStreamingService {
      * 使用 LLMClient 的 Flux 流式接口（响应式流）
      * (Use LLMClient's Flux streaming interface - Reactive Streams)
      */
-    private void streamFromLLM(StreamingSession session, String prompt) {
+    private Flux<String> streamFromLLM(StreamingSession session, String prompt) {
         // 检查是否支持流式
         // (Check if streaming is supported)
         if (!llmClient.supportsStreaming()) {
             log.warn("⚠️ LLM 客户端不支持流式输出 (LLM client doesn't support streaming): sessionId={}",
                 session.getSessionId());
 
-            // 降级：使用同步方式
-            // (Fallback: use synchronous method)
-            try {
-                String fullAnswer = llmClient.generate(prompt);
-
-                // 一次性发送完整答案
-                // (Send full answer at once)
-                session.appendChunk(fullAnswer);
-                session.notifySubscribers(fullAnswer);
-                session.markComplete();
-                sessionMonitor.onSessionComplete(session.getSessionId());
-
-                log.info("✅ 使用同步方式完成 (Completed with synchronous mode): sessionId={}",
-                    session.getSessionId());
-            } catch (Exception e) {
-                log.error("❌ 同步生成错误 (Synchronous generation error): sessionId={}, error={}",
-                    session.getSessionId(), e.getMessage());
-                session.markError(e);
-                sessionMonitor.onSessionComplete(session.getSessionId());
-            }
-            return;
+            // 降级：使用同步方式，一次性发送完整答案
+            // (Fallback: use synchronous method and send the full answer at once)
+            return Mono.fromCallable(() -> llmClient.generate(prompt))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnSuccess(answer -> log.info("✅ 使用同步方式完成 (Completed with synchronous mode): sessionId={}",
+                    session.getSessionId()))
+                .flux();
         }
 
-
         // 使用 Flux 响应式流接口
         // (Use Flux reactive streaming interface)
-        llmClient.generateStream(prompt)
-            .subscribe(
-                // onNext: 每个文本块到达时
-                // (onNext: when each text chunk arrives)
-                chunk -> {
-                    session.appendChunk(chunk);
-                    session.notifySubscribers(chunk);
-                },
-                // onError: 错误时
-                // (onError: when error occurs)
-                error -> {
-                    log.error("❌ LLM 流式生成错误 (LLM streaming error): sessionId={}, error={}",
-                        session.getSessionId(), error.getMessage());
-                    session.markError(error instanceof Exception ?
-                        (Exception) error : new RuntimeException(error));
-                    sessionMonitor.onSessionComplete(session.getSessionId());
-                },
-                // onComplete: 完成时
-                // (onComplete: when completed)
-                () -> {
-                    session.markComplete();
-                    sessionMonitor.onSessionComplete(session.getSessionId());
-                    log.debug("✅ LLM 流式生成完成 (LLM streaming completed): sessionId={}",
-                        session.getSessionId());
-                }
-            );
+        return llmClient.generateStream(prompt);
+    }
+
+    /**
+     * 取消会话的 LLM 流
+     * (Cancel the LLM stream of a session)
+     */
+    private void cancelStream(String sessionId) {
+        Disposable subscription = activeStreams.remove(sessionId);
+        if (subscription != null) {
+            subscription.dispose();
+        }
     }
 
     /**
@@ -288,24 +297,15 @@ public class HybridStreamingService {
             }
         });
 
-        // 会话完成时关闭 SSE
-        // (Close SSE when session completes)
-        CompletableFuture.runAsync(() -> {
-            while (session.getStatus() == SessionStatus.STREAMING) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-
+        // 会话结束时关闭 SSE（由会话回调，无需轮询状态）
+        // (Close SSE when the session finishes, driven by a session callback instead of status polling)
+        session.onFinish(() -> {
             try {
                 emitter.send(SseEmitter.event()
                     .name("complete")
                     .data("done"));
                 emitter.complete();
-            } catch (IOException e) {
+            } catch (IOException | IllegalStateException e) {
                 log.warn("关闭 SSE 失败 (Failed to close SSE): {}", e.getMessage());
             }
         });
@@ -319,12 +319,14 @@ public class HybridStreamingService {
         emitter.onTimeout(() -> {
             log.warn("SSE 连接超时 (SSE connection timeout): sessionId={}", sessionId);
             sessionMonitor.onClientDisconnect(sessionId, "SSE timeout");
+            cancelStream(sessionId);
         });
 
         emitter.onError(throwable -> {
             log.warn("SSE 连接错误 (SSE connection error): sessionId={}, error={}",
                 sessionId, throwable.getMessage());
             sessionMonitor.onClientDisconnect(sessionId, "SSE error: " + throwable.getMessage());
+            cancelStream(sessionId);
         });
 
         return emitter;
@@ -343,6 +345,7 @@ public class HybridStreamingService {
      * (Remove session)
      */
     public void removeSession(String sessionId) {
+        cancelStream(sessionId);
         activeSessions.remove(sessionId);
     }
 }
@@ -5,8 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 /**
@@ -25,9 +25,10 @@ public class StreamingSession {
     private String sessionId;
     private String question;
     private StringBuilder fullAnswer = new StringBuilder();
-    private List<Consumer<String>> subscribers = new ArrayList<>();
+    private List<Consumer<String>> subscribers = new CopyOnWriteArrayList<>();
+    private List<Runnable> finishListeners = new CopyOnWriteArrayList<>();
 
-    private SessionStatus status = SessionStatus.STREAMING;
+    private volatile SessionStatus status = SessionStatus.STREAMING;
     private LocalDateTime startTime = LocalDateTime.now();
     private LocalDateTime completeTime;
 
@@ -79,6 +80,35 @@ public class StreamingSession {
         subscribers.add(subscriber);
     }
 
+    /**
+     * 添加结束监听器，会话进入完成/中断/错误状态时回调一次；已结束则立即回调
+     * (Add a finish listener, called once when the session completes, is interrupted or fails;
+     * called immediately if the session has already finished)
+     */
+    public void onFinish(Runnable listener) {
+        finishListeners.add(listener);
+        if (status != SessionStatus.STREAMING && finishListeners.remove(listener)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 通知并清空结束监听器
+     * (Notify and drain finish listeners)
+     */
+    private void notifyFinished() {
+        for (Runnable listener : finishListeners) {
+            if (!finishListeners.remove(listener)) {
+                continue;
+            }
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.warn("通知结束监听器失败 (Failed to notify finish listener): {}", e.getMessage());
+            }
+        }
+    }
+
     /**
      * 标记为完成
      * (Mark as completed)
@@ -88,6 +118,7 @@ public class StreamingSession {
         this.completeTime = LocalDateTime.now();
         log.info("✅ 流式会话完成 (Streaming session completed): sessionId={}, duration={}s",
             sessionId, getDurationSeconds());
+        notifyFinished();
     }
 
     /**
@@ -100,6 +131,7 @@ public class StreamingSession {
         this.status = SessionStatus.INTERRUPTED;
         log.warn("⚠️ 流式会话中断 (Streaming session interrupted): sessionId={}, reason={}, progress={}/{}",
             sessionId, reason, chunksReceived, totalChunks);
+        notifyFinished();
     }
 
     /**
@@ -111,6 +143,7 @@ public class StreamingSession {
         this.interruptReason = error.getMessage();
         log.error("❌ 流式会话错误 (Streaming session error): sessionId={}, error={}",
             sessionId, error.getMessage());
+        notifyFinished();
     }
 
     /**
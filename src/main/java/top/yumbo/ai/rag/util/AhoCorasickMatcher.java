@@ -0,0 +1,146 @@
+package top.yumbo.ai.rag.util;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick 多模式匹配器（Aho-Corasick multi-pattern matcher）
+ * 将一组词编译成一个自动机，一次扫描文本即可找出出现的全部词，耗时只与文本长度有关、与词的数量无关；
+ * 按字符匹配，不依赖空格分词，因此适用于中文
+ * （Compiles a set of terms into one automaton that finds every term occurring in a text in a single scan,
+ * in time proportional to the text rather than the number of terms; it matches characters rather than
+ * whitespace-separated words, so it works for Chinese text）
+ *
+ * 实例不可变，可在多个线程间共享（Instances are immutable and safe to share between threads）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+public final class AhoCorasickMatcher {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final List<String> terms;
+    private final Map<String, Integer> ids;
+    // 转移表，键为（状态 << 16 | 字符）（Transitions keyed by (state << 16 | char)）
+    private final Map<Long, Integer> transitions;
+    private final int[] failure;
+    // 每个状态结束的词，已合并失败链上的输出（Terms ending at each state, including those along the failure chain）
+    private final int[][] outputs;
+
+    /**
+     * @param terms 要匹配的词，空串和重复的词会被忽略；词的编号为其首次出现的顺序
+     *              （Terms to match; empty and duplicate terms are ignored, and ids follow first appearance）
+     */
+    public AhoCorasickMatcher(Collection<String> terms) {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (String term : terms) {
+            if (term != null && !term.isEmpty()) {
+                ids.putIfAbsent(term, ids.size());
+            }
+        }
+        this.terms = List.copyOf(ids.keySet());
+        this.ids = ids;
+
+        // 1. 构建字典树（Build the trie）
+        Map<Long, Integer> trie = new HashMap<>();
+        List<StringBuilder> children = new ArrayList<>();
+        List<List<Integer>> own = new ArrayList<>();
+        children.add(new StringBuilder());
+        own.add(new ArrayList<>());
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            int state = 0;
+            for (char c : entry.getKey().toCharArray()) {
+                Integer next = trie.get(key(state, c));
+                if (next == null) {
+                    next = children.size();
+                    trie.put(key(state, c), next);
+                    children.get(state).append(c);
+                    children.add(new StringBuilder());
+                    own.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            own.get(state).add(entry.getValue());
+        }
+
+        // 2. 按层次计算失败指针并合并输出（Compute failure links breadth-first and merge outputs）
+        int stateCount = children.size();
+        this.failure = new int[stateCount];
+        this.outputs = new int[stateCount][];
+        outputs[0] = toArray(own.get(0), NO_OUTPUT);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (char c : children.get(0).toString().toCharArray()) {
+            int child = trie.get(key(0, c));
+            failure[child] = 0;
+            outputs[child] = toArray(own.get(child), NO_OUTPUT);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (char c : children.get(state).toString().toCharArray()) {
+                int child = trie.get(key(state, c));
+                int fallback = failure[state];
+                Integer target;
+                while ((target = trie.get(key(fallback, c))) == null && fallback != 0) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = target != null ? target : 0;
+                outputs[child] = toArray(own.get(child), outputs[failure[child]]);
+                queue.add(child);
+            }
+        }
+        this.transitions = trie;
+    }
+
+    /**
+     * 找出文本中出现的全部词（Find every term that occurs in the text）
+     *
+     * @return 出现的词的编号（Ids of the terms found）
+     */
+    public BitSet match(CharSequence text) {
+        BitSet found = new BitSet(terms.size());
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            Integer next;
+            while ((next = transitions.get(key(state, c))) == null && state != 0) {
+                state = failure[state];
+            }
+            state = next != null ? next : 0;
+            for (int id : outputs[state]) {
+                found.set(id);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 词的编号，不存在时返回 -1（Id of a term, or -1 if it is not in the matcher）
+     */
+    public int indexOf(String term) {
+        return ids.getOrDefault(term, -1);
+    }
+
+    public String term(int id) {
+        return terms.get(id);
+    }
+
+    public int size() {
+        return terms.size();
+    }
+
+    private static long key(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+
+    private static int[] toArray(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] merged = Arrays.copyOf(inherited, inherited.length + own.size());
+        for (int i = 0; i < own.size(); i++) {
+            merged[inherited.length + i] = own.get(i);
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,177 @@
+package top.yumbo.ai.rag.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁对数线性延迟直方图（Lock-free log-linear latency histogram）
+ *
+ * <p>
+ * 每个 2 的幂区间再线性分成 8 个桶，相对误差不超过 12.5%，桶数固定，记录只需一次数组自增；
+ * 记录按线程分散到多个分片，同一分片几乎只有一个线程写入，读取时再把分片合并
+ * （Each power-of-two range is split into 8 linear buckets, so the relative error stays within 12.5% and the
+ * bucket count is fixed; recording is a single array increment. Records are spread over stripes by thread, so
+ * a stripe is almost always written by one thread, and reads merge the stripes）
+ * </p>
+ *
+ * <p>
+ * 单位由调用方决定，通常为微秒；超出范围的值计入最后一个桶
+ * （The unit is up to the caller, usually microseconds; out-of-range values land in the last bucket）
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 最大可区分的值约为 2^40（微秒时约 12 天）（Largest distinguishable value is about 2^40, ~12 days in µs）
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    // 每个分片末尾的两个槽：总和与最大值（The two trailing slots of each stripe: sum and max）
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+
+    private final AtomicLongArray[] stripes;
+    private final int mask;
+
+    public LatencyHistogram() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param stripes 分片数，向上取 2 的幂（Number of stripes, rounded up to a power of two）
+     */
+    public LatencyHistogram(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, Math.min(stripes, 64)) * 2 - 1);
+        this.stripes = new AtomicLongArray[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new AtomicLongArray(BUCKETS + 2);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 记录一个值，负数按 0 计（Record one value; negatives count as 0）
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        AtomicLongArray stripe = stripes[(int) (Thread.currentThread().threadId() & mask)];
+        stripe.incrementAndGet(bucketOf(v));
+        stripe.addAndGet(SUM, v);
+        if (v > stripe.get(MAX)) {
+            stripe.accumulateAndGet(MAX, v, Math::max);
+        }
+    }
+
+    /**
+     * 合并所有分片的当前计数（Merge the current counts of all stripes）
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = stripe.get(i);
+                counts[i] += c;
+                count += c;
+            }
+            sum += stripe.get(SUM);
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return new Snapshot(counts, count, sum, max);
+    }
+
+    /**
+     * 清零；与并发记录重叠的值可能部分保留（Clear; values recorded concurrently may be partially kept）
+     */
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < stripe.length(); i++) {
+                stripe.set(i, 0);
+            }
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 桶内的最大值（Highest value that falls into a bucket）
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * 直方图快照（Histogram snapshot）
+     *
+     * @param counts 各桶计数（Per-bucket counts）
+     * @param count  总次数（Total count）
+     * @param sum    总和（Sum of values）
+     * @param max    最大值；差值快照中为最高非空桶的上界（Max; for a difference, the upper bound of the highest
+     *               non-empty bucket）
+     */
+    public record Snapshot(long[] counts, long count, long sum, long max) {
+
+        /**
+         * 分位数，取所在桶的上界，不超过最大值（Quantile as its bucket's upper bound, capped at the max）
+         *
+         * @param quantile 0 到 1（Between 0 and 1）
+         */
+        public long percentile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        public double mean() {
+            return count > 0 ? (double) sum / count : 0.0;
+        }
+
+        /**
+         * 与更早快照的差值，即两次快照之间的记录（Difference from an earlier snapshot, i.e. the values
+         * recorded in between）
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] diff = new long[counts.length];
+            long total = 0;
+            int highest = -1;
+            for (int i = 0; i < counts.length; i++) {
+                diff[i] = Math.max(0, counts[i] - earlier.counts[i]);
+                total += diff[i];
+                if (diff[i] > 0) {
+                    highest = i;
+                }
+            }
+            long windowMax = highest < 0 ? 0 : Math.min(upperBound(highest), max);
+            return new Snapshot(diff, total, Math.max(0, sum - earlier.sum), windowMax);
+        }
+    }
+}
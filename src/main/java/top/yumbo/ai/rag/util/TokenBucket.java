@@ -0,0 +1,49 @@
+package top.yumbo.ai.rag.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流器（Token bucket rate limiter）
+ * 按速率补充令牌，容量决定允许的突发请求数（Refills at a fixed rate; capacity bounds the burst）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+public final class TokenBucket {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数（Tokens added per second）
+     * @param capacity 令牌桶容量（Bucket capacity）
+     */
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 获取一个令牌，不足时阻塞等待（Take one token, blocking until one is available）
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1e9 * permitsPerSecond);
+                lastRefillNanos = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) / permitsPerSecond * 1e9);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package top.yumbo.ai.rag.behavior;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列式信号存储测试 (Columnar Signal Store Test)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class SignalStoreTest {
+
+    private static BehaviorSignalEvent event(String userId, String answerId, SignalType type, LocalDateTime time) {
+        BehaviorSignalEvent event = new BehaviorSignalEvent(userId, null, answerId, type);
+        event.setTimestamp(time);
+        return event;
+    }
+
+    @Test
+    void testPreAggregatesMatchListAggregation() {
+        SignalCollector collector = new SignalCollector();
+        collector.setUserRole("alice", "expert");
+        collector.collectClickSignal("alice", "a1", "copy");
+        collector.collectTimeSignal("alice", "a1", 90, 60);
+        collector.collectInteractionSignal("bob", "a1", "share", "分享给同事");
+        collector.collectNavigationSignal("bob", "a2", "search_again");
+        collector.collectClickSignal("bob", "a2", "close");
+        collector.collectInteractionSignal("alice", "a2", "report", "wrong");
+
+        SignalStore store = collector.getSignalStore();
+        List<BehaviorSignalEvent> all = new java.util.ArrayList<>(collector.getEvents("a1"));
+        all.addAll(collector.getEvents("a2"));
+        assertEquals(6, all.size());
+
+        SignalAggregator aggregator = new SignalAggregator();
+        Map<String, SignalAggregator.ConceptAggregation> fromList = aggregator.aggregateByConcept(all);
+        Map<String, SignalAggregator.ConceptAggregation> fromStore = aggregator.aggregateByConcept(store);
+        assertEquals(fromList.keySet(), fromStore.keySet());
+        fromList.forEach((answerId, expected) -> {
+            SignalAggregator.ConceptAggregation actual = fromStore.get(answerId);
+            assertEquals(expected.getAverageScore(), actual.getAverageScore(), 1e-6);
+            assertEquals(expected.getPositiveFeedbackCount(), actual.getPositiveFeedbackCount());
+            assertEquals(expected.getNegativeFeedbackCount(), actual.getNegativeFeedbackCount());
+            assertEquals(expected.isProblematic(), actual.isProblematic());
+            assertEquals(expected.getConfidenceIndex(), actual.getConfidenceIndex(), 1e-6);
+        });
+
+        Map<String, SignalAggregator.UserAggregation> usersFromList = aggregator.aggregateByUser(all);
+        Map<String, SignalAggregator.UserAggregation> usersFromStore = aggregator.aggregateByUser(store);
+        usersFromList.forEach((userId, expected) -> {
+            SignalAggregator.UserAggregation actual = usersFromStore.get(userId);
+            assertEquals(expected.getSignalTypeDistribution(), actual.getSignalTypeDistribution());
+            assertEquals(expected.getTendency(), actual.getTendency());
+            assertEquals(expected.getAverageAttitude().getRawScore(), actual.getAverageAttitude().getRawScore(), 1e-6);
+            assertEquals(expected.getAverageAttitude().getConfidence(), actual.getAverageAttitude().getConfidence(), 1e-6);
+        });
+
+        Map<String, SignalAggregator.RoleAggregation> roles = aggregator.aggregateByRole(store);
+        Map<String, SignalAggregator.RoleAggregation> rolesFromList =
+                aggregator.aggregateByRole(all, Map.of("alice", "expert"));
+        assertEquals(rolesFromList.keySet(), roles.keySet());
+        rolesFromList.forEach((role, expected) -> {
+            SignalAggregator.RoleAggregation actual = roles.get(role);
+            assertEquals(expected.getTotalSignalCount(), actual.getTotalSignalCount());
+            assertEquals(expected.getSignalDiversity(), actual.getSignalDiversity());
+            assertEquals(expected.getAverageSignalsPerUser(), actual.getAverageSignalsPerUser(), 1e-6);
+            assertEquals(expected.getAttitudeDistribution(), actual.getAttitudeDistribution());
+        });
+    }
+
+    @Test
+    void testOldestPartitionRollsOffWhenRingWraps() {
+        SignalStore store = new SignalStore(2, 3, Duration.ofHours(1));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 6; i++) {
+            store.append(event("u" + (i / 3), "answer-" + (i / 3), SignalType.COPY_ANSWER, now), "regular");
+        }
+        assertEquals(6, store.size());
+        assertEquals(2, store.answerCount());
+
+        store.append(event("u2", "answer-2", SignalType.REPORT_ERROR, now), "regular");
+
+        assertEquals(4, store.size());
+        assertFalse(store.answerStats().containsKey("answer-0"));
+        assertFalse(store.userStats().containsKey("u0"));
+        assertEquals(3, store.answerStats().get("answer-1").count(SignalType.COPY_ANSWER));
+        assertEquals(1, store.answerStats().get("answer-2").strongNegativeCount());
+        assertEquals(4, store.roleStats().get("regular").count());
+        assertTrue(store.getEvents("answer-0").isEmpty());
+    }
+
+    @Test
+    void testTimeWindowAndRemoval() {
+        SignalStore store = new SignalStore(3, 100, Duration.ofMinutes(10));
+        LocalDateTime start = LocalDateTime.now().minusHours(2);
+        store.append(event("u1", "old", SignalType.SHARE_ANSWER, start), "regular");
+        store.append(event("u1", "kept", SignalType.SHARE_ANSWER, start.plusMinutes(95)), "regular");
+        store.append(event("u1", "kept", SignalType.SCROLL_DOWN, start.plusMinutes(100)), "regular");
+
+        // 超出 3 × 10 分钟窗口的分区在开新分区时滚出 (Partitions older than 3 × 10 minutes roll off)
+        assertEquals(2, store.size());
+        assertFalse(store.answerStats().containsKey("old"));
+
+        assertEquals(2, store.removeAnswer("kept"));
+        assertEquals(0, store.size());
+        assertTrue(store.userStats().isEmpty());
+        assertTrue(store.roleStats().isEmpty());
+    }
+
+    @Test
+    void testInferAttitudeFromStatsUsesPartitionDecay() {
+        SignalStore store = new SignalStore(4, 10, Duration.ofMinutes(30));
+        LocalDateTime now = LocalDateTime.now();
+        List<BehaviorSignalEvent> events = List.of(
+                event("u1", "a1", SignalType.COPY_ANSWER, now.minusMinutes(70)),
+                event("u1", "a1", SignalType.SEARCH_AGAIN, now.minusMinutes(1)),
+                event("u1", "a1", SignalType.READ_TIME_LONG, now));
+        events.forEach(e -> store.append(e, "regular"));
+
+        AttitudeInferenceEngine engine = new AttitudeInferenceEngine();
+        AttitudeScore fromList = engine.inferAttitude(events, new HashMap<>());
+        AttitudeScore fromStats = engine.inferAttitude(store.answerStats().get("a1"), "u1", "a1", new HashMap<>());
+
+        assertEquals(fromList.getRawScore(), fromStats.getRawScore(), 1e-3);
+        assertEquals(fromList.getConfidence(), fromStats.getConfidence(), 1e-9);
+        assertEquals(fromList.getLevel(), fromStats.getLevel());
+        assertNotNull(fromStats.getExplanation());
+    }
+}
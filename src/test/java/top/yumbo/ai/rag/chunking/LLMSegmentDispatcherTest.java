@@ -0,0 +1,83 @@
+package top.yumbo.ai.rag.chunking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LLM 分段调度器测试 (LLM segment dispatcher test)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class LLMSegmentDispatcherTest {
+
+    private LLMSegmentDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void testSegmentsRunConcurrentlyAndKeepOrder() {
+        dispatcher = new LLMSegmentDispatcher("Test", 4, 0);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch allStarted = new CountDownLatch(4);
+
+        List<String> results = dispatcher.dispatch(List.of("a", "b", "c", "d"),
+                (index, segment) -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    // 四段都开始后才继续，只有并发执行才能通过 (Proceed only once all four have started, which requires concurrency)
+                    allStarted.countDown();
+                    assertTrue(allStarted.await(5, TimeUnit.SECONDS), "segments did not run concurrently");
+                    // 后面的段先完成，验证结果仍按原顺序 (Later segments finish first; results must keep input order)
+                    Thread.sleep(150 - index * 50L);
+                    inFlight.decrementAndGet();
+                    return segment.toUpperCase();
+                },
+                (segment, cause) -> fail("unexpected fallback: " + cause));
+
+        assertEquals(List.of("A", "B", "C", "D"), results);
+        assertEquals(4, maxInFlight.get());
+    }
+
+    @Test
+    void testFailedSegmentFallsBackAlone() {
+        dispatcher = new LLMSegmentDispatcher("Test", 2, 0);
+
+        List<String> results = dispatcher.dispatch(List.of("ok-1", "bad", "ok-2"),
+                (index, segment) -> {
+                    if (segment.equals("bad")) {
+                        throw new IllegalStateException("llm timeout");
+                    }
+                    return "llm:" + segment;
+                },
+                (segment, cause) -> "fallback:" + segment + ":" + cause.getMessage());
+
+        assertEquals(List.of("llm:ok-1", "fallback:bad:llm timeout", "llm:ok-2"), results);
+    }
+
+    @Test
+    void testRequestsAreRateLimited() {
+        dispatcher = new LLMSegmentDispatcher("Test", 2, 10);
+
+        long start = System.currentTimeMillis();
+        dispatcher.dispatch(List.of("1", "2", "3", "4", "5", "6"),
+                (index, segment) -> segment,
+                (segment, cause) -> segment);
+        long elapsed = System.currentTimeMillis() - start;
+
+        // 突发 2 个，其余 4 个按 10/s 补充，至少约 400ms (Burst of 2, the other 4 refill at 10/s)
+        assertTrue(elapsed >= 350, "elapsed " + elapsed + "ms");
+    }
+}
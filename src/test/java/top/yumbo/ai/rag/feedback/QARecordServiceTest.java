@@ -0,0 +1,129 @@
+package top.yumbo.ai.rag.feedback;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.yumbo.ai.rag.config.FeedbackConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 问答记录存储服务测试（QA Record Service Test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class QARecordServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private QARecordService service;
+
+    @BeforeEach
+    void setUp() {
+        service = newService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    private QARecordService newService() {
+        return new QARecordService(new FeedbackConfig(), mock(DocumentWeightService.class), tempDir);
+    }
+
+    private QARecord record(String question, LocalDateTime timestamp) {
+        return QARecord.builder()
+                .question(question)
+                .answer("answer")
+                .timestamp(timestamp)
+                .build();
+    }
+
+    @Test
+    void testSaveAndGetRecord() {
+        String id = service.saveRecord(record("什么是RAG？", LocalDateTime.now()));
+
+        Optional<QARecord> found = service.getRecord(id);
+
+        assertTrue(found.isPresent());
+        assertEquals("什么是RAG？", found.get().getQuestion());
+        assertEquals(QARecord.ReviewStatus.PENDING, found.get().getReviewStatus());
+    }
+
+    @Test
+    void testRecentRecordsNewestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        service.saveRecord(record("q1", now.minusDays(2)));
+        service.saveRecord(record("q2", now.minusDays(1)));
+        service.saveRecord(record("q3", now));
+
+        List<QARecord> recent = service.getRecentRecords(2);
+
+        assertEquals(2, recent.size());
+        assertEquals("q3", recent.get(0).getQuestion());
+        assertEquals("q2", recent.get(1).getQuestion());
+    }
+
+    @Test
+    void testFeedbackUpdatesIndexes() {
+        String rated = service.saveRecord(record("总结一下这份文档", LocalDateTime.now()));
+        service.saveRecord(record("unrated", LocalDateTime.now()));
+
+        assertTrue(service.addOverallFeedback(rated, 5, "good"));
+
+        QARecordService.QAStatistics stats = service.getStatistics();
+        assertEquals(2, stats.getTotalRecords());
+        assertEquals(1, stats.getRecordsWithFeedback());
+        assertEquals(5.0, stats.getAverageRating(), 0.001);
+        assertEquals(2, stats.getPendingReview());
+
+        // 只有带反馈的待审核记录才会列出（Only pending records with feedback are listed）
+        List<QARecord> pending = service.getPendingRecords();
+        assertEquals(1, pending.size());
+        assertEquals(rated, pending.get(0).getId());
+
+        List<QARecordService.PromptRecommendation> prompts = service.getTopRatedPrompts("all", 10);
+        assertEquals(1, prompts.size());
+        assertEquals("快速总结", prompts.get(0).getStrategy());
+    }
+
+    @Test
+    void testUpdateUnknownRecord() {
+        QARecord unknown = record("q", LocalDateTime.now());
+        unknown.setId("00000000-0000-0000-0000-000000000000");
+
+        assertFalse(service.updateRecord(unknown));
+    }
+
+    @Test
+    void testLegacyDirectoryMigratedOnce() throws Exception {
+        service.close();
+
+        // 模拟索引出现前写入的旧记录（Simulate a record written before the index existed）
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Path legacyDir = Files.createDirectories(tempDir.resolve("20250101"));
+        QARecord legacy = record("legacy", LocalDateTime.of(2025, 1, 1, 8, 0));
+        legacy.setId("abcdef12-0000-0000-0000-000000000000");
+        legacy.setOverallRating(4);
+        mapper.writeValue(legacyDir.resolve("080000_abcdef12.json").toFile(), legacy);
+
+        Files.deleteIfExists(tempDir.resolve("qa-index.db"));
+        service = newService();
+
+        assertTrue(service.getRecord(legacy.getId()).isPresent());
+        assertEquals(1, service.getStatistics().getTotalRecords());
+    }
+}
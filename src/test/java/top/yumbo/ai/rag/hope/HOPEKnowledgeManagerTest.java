@@ -0,0 +1,94 @@
+package top.yumbo.ai.rag.hope;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.yumbo.ai.rag.hope.layer.HighFrequencyLayerService;
+import top.yumbo.ai.rag.hope.layer.OrdinaryLayerService;
+import top.yumbo.ai.rag.hope.layer.PermanentLayerService;
+import top.yumbo.ai.rag.hope.model.HOPEQueryResult;
+import top.yumbo.ai.rag.hope.model.RecentQA;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HOPE 知识管理器测试 (HOPE knowledge manager test)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class HOPEKnowledgeManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HOPEConfig config;
+    private PermanentLayerService permanentLayer;
+    private OrdinaryLayerService ordinaryLayer;
+    private HOPEKnowledgeManager manager;
+
+    @BeforeEach
+    void setUp() {
+        config = new HOPEConfig();
+        config.getPermanent().setStoragePath(tempDir.resolve("permanent").toString());
+        config.getOrdinary().setStoragePath(tempDir.resolve("ordinary").toString());
+
+        permanentLayer = new PermanentLayerService(config);
+        permanentLayer.init();
+        ordinaryLayer = new OrdinaryLayerService(config, permanentLayer);
+        ordinaryLayer.init();
+        HighFrequencyLayerService highFreqLayer = new HighFrequencyLayerService(config);
+        highFreqLayer.init();
+
+        manager = new HOPEKnowledgeManager(config, permanentLayer, ordinaryLayer, highFreqLayer,
+            new QuestionClassifier(), new ResponseStrategyDecider(config));
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+        ordinaryLayer.shutdown();
+        permanentLayer.shutdown();
+    }
+
+    @Test
+    void testParallelLookupMatchesSequentialLookup() {
+        ordinaryLayer.save("如何配置数据库连接池", "修改 application.yml 中的 hikari 配置", 5);
+        String[] questions = {"这个项目用的是什么框架？", "如何配置数据库连接池", "今天天气怎么样"};
+
+        for (String question : questions) {
+            config.setParallelLookup(false);
+            HOPEQueryResult sequential = manager.smartQuery(question, "session-1");
+            config.setParallelLookup(true);
+            HOPEQueryResult parallel = manager.smartQuery(question, "session-1");
+
+            assertEquals(sequential.getSourceLayer(), parallel.getSourceLayer(), question);
+            assertEquals(sequential.getAnswer(), parallel.getAnswer(), question);
+            assertEquals(sequential.isNeedsLLM(), parallel.isNeedsLLM(), question);
+        }
+    }
+
+    @Test
+    void testPermanentDirectHitDoesNotRecordOrdinaryAccess() {
+        String question = "这个项目用的是什么框架？";
+        ordinaryLayer.save(question, "Spring Boot", 5);
+        RecentQA qa = ordinaryLayer.findBestMatch(question.toLowerCase(), 0.0).getQa();
+        long accessCount = qa.getAccessCount();
+
+        HOPEQueryResult result = manager.smartQuery(question, null);
+
+        assertEquals("permanent", result.getSourceLayer());
+        assertFalse(result.isNeedsLLM());
+        assertEquals(accessCount, qa.getAccessCount());
+
+        // 中频层结果被采用时才记录访问 (Access is recorded once the ordinary result is used)
+        ordinaryLayer.save("如何配置数据库连接池", "修改 hikari 配置", 5);
+        RecentQA used = ordinaryLayer.findBestMatch("如何配置数据库连接池", 0.0).getQa();
+        long before = used.getAccessCount();
+        assertEquals("ordinary", manager.smartQuery("如何配置数据库连接池", null).getSourceLayer());
+        assertEquals(before + 1, used.getAccessCount());
+    }
+}
@@ -0,0 +1,57 @@
+package top.yumbo.ai.rag.hope.integration;
+
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.rag.hope.HOPEKnowledgeManager;
+import top.yumbo.ai.rag.hope.model.HOPEQueryResult;
+import top.yumbo.ai.rag.spring.boot.llm.LLMClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * HOPE 增强客户端测试：最后查询记录 HOPE 查询耗时，供问答链路统计 HOPE 阶段
+ * (HOPE enhanced client test: the last query carries the HOPE lookup time so the QA path can record the HOPE stage)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class HOPEEnhancedLLMClientTest {
+
+    @Test
+    void testLastQueryCarriesHopeLookupTime() {
+        HOPEKnowledgeManager hopeManager = mock(HOPEKnowledgeManager.class);
+        when(hopeManager.isEnabled()).thenReturn(true);
+        when(hopeManager.smartQuery(anyString(), any())).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return HOPEQueryResult.builder().needsLLM(true).build();
+        });
+
+        HOPEEnhancedLLMClient client = new HOPEEnhancedLLMClient(delegate(), hopeManager, null, null);
+        assertEquals("答案", client.generate("问题"));
+
+        HOPEEnhancedLLMClient.LastQuery lastQuery = HOPEEnhancedLLMClient.getLastQuery();
+        assertFalse(lastQuery.isDirectAnswer());
+        assertTrue(lastQuery.getHopeQueryMs() >= 20, "hope " + lastQuery.getHopeQueryMs() + "ms");
+        assertTrue(lastQuery.getHopeQueryMs() <= lastQuery.getResponseTimeMs());
+    }
+
+    @Test
+    void testNoHopeLookupWhenDisabled() {
+        HOPEKnowledgeManager hopeManager = mock(HOPEKnowledgeManager.class);
+        when(hopeManager.isEnabled()).thenReturn(false);
+
+        HOPEEnhancedLLMClient client = new HOPEEnhancedLLMClient(delegate(), hopeManager, null, null);
+        client.generate("问题");
+
+        assertEquals(-1, HOPEEnhancedLLMClient.getLastQuery().getHopeQueryMs());
+    }
+
+    private static LLMClient delegate() {
+        LLMClient delegate = mock(LLMClient.class);
+        when(delegate.generate(anyString())).thenReturn("答案");
+        return delegate;
+    }
+}
@@ -0,0 +1,137 @@
+package top.yumbo.ai.rag.hope.layer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发关键词倒排索引测试 (Concurrent keyword posting index test)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class KeywordPostingIndexTest {
+
+    @Test
+    void testUnionAndIntersect() {
+        KeywordPostingIndex index = new KeywordPostingIndex();
+        index.add("qa_1", new String[]{"Spring", "配置"});
+        index.add("qa_2", new String[]{"spring", "端口"});
+        index.add("qa_3", new String[]{"配置", "端口"});
+
+        assertEquals(List.of("qa_1", "qa_2", "qa_3"), collect(index, true, new String[]{"SPRING", "端口"}, -1));
+        assertEquals(List.of("qa_2"), collect(index, false, new String[]{"spring", "端口"}, -1));
+        assertEquals(List.of(), collect(index, false, new String[]{"spring", "不存在"}, -1));
+
+        // 访问者返回 false 时提前结束 (Stop early once the visitor returns false)
+        assertEquals(List.of("qa_1"), collect(index, true, new String[]{"spring", "端口"}, 1));
+    }
+
+    @Test
+    void testReplaceAndRemove() {
+        KeywordPostingIndex index = new KeywordPostingIndex();
+        index.add("qa_1", new String[]{"旧词"});
+        index.add("qa_1", new String[]{"新词"});
+
+        assertEquals(1, index.size());
+        assertEquals(1, index.keywordCount());
+        assertEquals(List.of(), collect(index, true, new String[]{"旧词"}, -1));
+        assertEquals(List.of("qa_1"), collect(index, true, new String[]{"新词"}, -1));
+
+        int id = index.idOf("qa_1");
+        index.remove("qa_1");
+        assertEquals(-1, index.idOf("qa_1"));
+        assertNull(index.entryId(id));
+        assertEquals(0, index.keywordCount());
+        assertEquals(List.of(), collect(index, true, new String[]{"新词"}, -1));
+    }
+
+    @Test
+    void testRemovedIdsAreReused() {
+        KeywordPostingIndex index = new KeywordPostingIndex();
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 100; i++) {
+                index.add("qa_" + round + "_" + i, new String[]{"共享", "轮" + round});
+            }
+            for (int i = 0; i < 100; i++) {
+                if (round == 49 && i % 2 == 0) {
+                    continue;
+                }
+                index.remove("qa_" + round + "_" + i);
+            }
+        }
+
+        // 5000 次写入后 ID 上界仍是同时存在的条目数峰值 (After 5000 adds the id bound is still the peak number of live entries)
+        assertEquals(100, index.idBound());
+        assertEquals(50, index.size());
+        List<String> shared = collect(index, true, new String[]{"共享"}, -1);
+        assertEquals(50, shared.size());
+        assertTrue(shared.stream().allMatch(id -> id.startsWith("qa_49_")));
+        assertEquals(shared, collect(index, false, new String[]{"共享", "轮49"}, -1));
+    }
+
+    @Test
+    void testReadsDuringConcurrentWrites() throws Exception {
+        KeywordPostingIndex index = new KeywordPostingIndex();
+        int total = 5000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            try {
+                start.await();
+                for (int i = 0; i < total; i++) {
+                    index.add("qa_" + i, new String[]{"共享", "词" + (i % 7)});
+                    if (i % 3 == 0) {
+                        index.remove("qa_" + (i / 2));
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        writer.start();
+        start.countDown();
+
+        while (writer.isAlive()) {
+            try {
+                int[] previous = {-1};
+                index.union(new String[]{"共享", "词1"}, id -> {
+                    // 升序且不重复 (Ascending and without duplicates)
+                    assertTrue(id > previous[0]);
+                    previous[0] = id;
+                    return true;
+                });
+                index.intersect(new String[]{"共享", "词3"}, id -> true);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                break;
+            }
+        }
+        writer.join();
+
+        assertNull(failure.get());
+        List<String> shared = collect(index, true, new String[]{"共享"}, -1);
+        assertEquals(index.size(), shared.size());
+    }
+
+    private static List<String> collect(KeywordPostingIndex index, boolean union, String[] keywords, int limit) {
+        List<String> result = new ArrayList<>();
+        if (union) {
+            index.union(keywords, id -> add(index, result, id, limit));
+        } else {
+            index.intersect(keywords, id -> add(index, result, id, limit));
+        }
+        return result;
+    }
+
+    private static boolean add(KeywordPostingIndex index, List<String> result, int id, int limit) {
+        result.add(index.entryId(id));
+        return limit < 0 || result.size() < limit;
+    }
+}
@@ -0,0 +1,97 @@
+package top.yumbo.ai.rag.hope.layer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.yumbo.ai.rag.hope.HOPEConfig;
+import top.yumbo.ai.rag.hope.model.FactualKnowledge;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 低频层服务测试 (Permanent layer service test)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class PermanentLayerServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PermanentLayerService service;
+
+    @BeforeEach
+    void setUp() {
+        HOPEConfig config = new HOPEConfig();
+        config.getPermanent().setStoragePath(tempDir.toString());
+        service = new PermanentLayerService(config);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testChineseQuestionWithoutSpacesFindsFact() {
+        // 正则分支的字面量都出现时才执行正则 (The regex only runs once all literals of a branch occur)
+        FactualKnowledge fact = service.findDirectAnswer("这个项目用的是什么框架？");
+        assertNotNull(fact);
+        assertEquals("fact_project_framework", fact.getId());
+
+        // 关键词覆盖率达到阈值也能命中 (Keyword coverage above the threshold also hits)
+        service.saveFactualKnowledge(FactualKnowledge.builder()
+            .id("fact_port")
+            .questionPattern(".*默认端口号.*")
+            .keywords(new String[]{"服务", "端口"})
+            .answer("8080")
+            .confidence(1.0)
+            .build());
+        assertEquals("fact_port", service.findDirectAnswer("服务监听在哪个端口").getId());
+        assertNull(service.findDirectAnswer("今天天气怎么样"));
+    }
+
+    @Test
+    void testSkillTemplateMatchesByKeywordInsideSentence() {
+        PermanentLayerService.PermanentQueryResult result = service.query("请帮我归纳这篇文章");
+        assertNotNull(result.getSkillTemplate());
+        assertEquals("skill_doc_summary", result.getSkillTemplate().getId());
+    }
+
+    @Test
+    void testPromotedFactsWithUnanalysableOrInvalidPatterns() {
+        service.saveFactualKnowledge(FactualKnowledge.builder()
+            .id("fact_version")
+            .questionPattern(".*版本(号)?.*")
+            .keywords(new String[]{"不相关"})
+            .answer("2.0.0")
+            .confidence(1.0)
+            .build());
+        service.saveFactualKnowledge(FactualKnowledge.builder()
+            .id("fact_broken")
+            .questionPattern(".*(未闭合.*")
+            .keywords(new String[]{"未闭合"})
+            .answer("broken")
+            .confidence(1.0)
+            .build());
+
+        assertEquals("fact_version", service.findDirectAnswer("当前版本是多少").getId());
+        assertEquals("fact_broken", service.findDirectAnswer("未闭合的括号").getId());
+    }
+
+    @Test
+    void testRequiredLiterals() {
+        assertEquals(List.of(List.of("项目", "什么", "框架"), List.of("技术栈")),
+            CompiledKnowledgeMatcher.requiredLiterals(".*项目.*什么.*框架.*|.*技术栈.*"));
+        assertEquals(List.of(List.of("spring boot 2", "7")),
+            CompiledKnowledgeMatcher.requiredLiterals(".*spring boot 2.7.*"));
+        assertNull(CompiledKnowledgeMatcher.requiredLiterals(".*版本(号)?.*"));
+        assertNull(CompiledKnowledgeMatcher.requiredLiterals(".*|.*总结.*"));
+    }
+}
@@ -0,0 +1,131 @@
+package top.yumbo.ai.rag.hope.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.yumbo.ai.rag.hope.model.RecentQA;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HOPE 知识层预写日志测试 (HOPE layer journal test)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class LayerJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, RecentQA> state = new ConcurrentHashMap<>();
+
+    @Test
+    void testOperationsAreReplayedAfterRestart() throws Exception {
+        LayerJournal<RecentQA> journal = open(1000);
+        journal.load(null);
+        put(journal, qa("qa_1", "问题一"));
+        put(journal, qa("qa_2", "问题二"));
+        state.remove("qa_1");
+        journal.delete("qa_1");
+        journal.flush();
+
+        // 模拟崩溃：不关闭、不写快照 (Simulate a crash: no close, no snapshot)
+        assertFalse(Files.exists(tempDir.resolve("recent_qa.snapshot.json")));
+        Map<String, RecentQA> loaded = open(1000).load(null);
+
+        assertEquals(1, loaded.size());
+        assertEquals("问题二", loaded.get("qa_2").getQuestion());
+    }
+
+    @Test
+    void testCompactionWritesSnapshotAndDropsOldLogs() throws Exception {
+        LayerJournal<RecentQA> journal = open(3);
+        journal.load(null);
+        for (int i = 0; i < 5; i++) {
+            put(journal, qa("qa_" + i, "问题" + i));
+        }
+        journal.flush();
+
+        assertTrue(Files.exists(tempDir.resolve("recent_qa.snapshot.json")));
+        assertFalse(Files.exists(tempDir.resolve("recent_qa.0.log")));
+
+        put(journal, qa("qa_5", "问题5"));
+        journal.flush();
+
+        Map<String, RecentQA> loaded = open(1000).load(null);
+        assertEquals(6, loaded.size());
+    }
+
+    @Test
+    void testTornLineIsDroppedAndLegacyFileMigrated() throws Exception {
+        Files.writeString(tempDir.resolve("recent_qa.json"), "[{\"id\":\"qa_old\",\"question\":\"旧问题\"}]");
+        LayerJournal<RecentQA> journal = open(1000);
+        assertEquals(1, journal.load("recent_qa.json").size());
+        put(journal, qa("qa_new", "新问题"));
+        journal.flush();
+
+        // 崩溃时写了一半的行 (A line half-written by a crash)
+        Files.writeString(tempDir.resolve("recent_qa.0.log"), "{\"op\":\"put\",\"id\":\"qa_torn\"",
+            StandardOpenOption.APPEND);
+
+        LayerJournal<RecentQA> reopened = open(1000);
+        Map<String, RecentQA> loaded = reopened.load("recent_qa.json");
+        assertEquals(2, loaded.size());
+        assertFalse(loaded.containsKey("qa_torn"));
+
+        // 截断后继续追加的操作仍可重放 (Appends after the truncation still replay)
+        state.putAll(loaded);
+        put(reopened, qa("qa_after", "之后的问题"));
+        reopened.flush();
+        assertEquals(3, open(1000).load("recent_qa.json").size());
+    }
+
+    @Test
+    void testCorruptMiddleLineIsSkippedWithoutLosingLaterOperations() throws Exception {
+        LayerJournal<RecentQA> journal = open(1000);
+        journal.load(null);
+        put(journal, qa("qa_1", "问题一"));
+        journal.flush();
+
+        // 中间一行完整但无法解析，例如结构变更后 (A complete but unparseable line, e.g. after a schema change)
+        Files.writeString(tempDir.resolve("recent_qa.0.log"), "{\"op\":\"put\",\"id\":\"qa_bad\",\"value\":{\"id\"::}}\n",
+            StandardOpenOption.APPEND);
+        put(journal, qa("qa_2", "问题二"));
+        journal.flush();
+
+        Map<String, RecentQA> loaded = open(1000).load(null);
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.containsKey("qa_2"));
+        assertFalse(loaded.containsKey("qa_bad"));
+        // 日志未被截断，再次加载结果相同 (The log was not truncated, so a second load sees the same)
+        assertEquals(2, open(1000).load(null).size());
+    }
+
+    @Test
+    void testWritesBeforeLoadFailLoudly() {
+        LayerJournal<RecentQA> journal = open(1000);
+        assertFalse(journal.isOpen());
+        assertThrows(IllegalStateException.class, () -> journal.put(qa("qa_1", "问题一")));
+        journal.close();
+    }
+
+    private LayerJournal<RecentQA> open(int compactThreshold) {
+        return new LayerJournal<>(tempDir, "recent_qa", RecentQA.class, RecentQA::getId,
+            state::values, 60_000, 1000, compactThreshold);
+    }
+
+    private void put(LayerJournal<RecentQA> journal, RecentQA qa) {
+        state.put(qa.getId(), qa);
+        journal.put(qa);
+    }
+
+    private static RecentQA qa(String id, String question) {
+        return RecentQA.builder().id(id).question(question).answer("答案").rating(5).build();
+    }
+}
@@ -0,0 +1,162 @@
+package top.yumbo.ai.rag.image;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片存储服务测试（Image storage service test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class ImageStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testIdenticalImagesStoredOnce() throws Exception {
+        ImageStorageService service = new ImageStorageService(tempDir.toString());
+        byte[] logo = png(Color.RED, "png");
+
+        ImageInfo first = service.saveImage("deck-a.pptx", logo, "logo.png");
+        ImageInfo repeated = service.saveImage("deck-a.pptx", logo, "logo-copy.png");
+        ImageInfo other = service.saveImage("deck-b.pptx", logo, "logo.png");
+
+        // 同一文档内重复图片复用文件名，跨文档共享内容块（Repeats reuse the filename; documents share the blob）
+        assertEquals(first.getFilename(), repeated.getFilename());
+        assertEquals(first.getFilePath(), other.getFilePath());
+        assertEquals(1, countBlobs());
+
+        assertEquals(1, service.listImages("deck-a.pptx").size());
+        assertArrayEquals(logo, service.readImage("deck-b.pptx", other.getFilename()));
+    }
+
+    @Test
+    void testListingSurvivesRestartFromManifest() throws Exception {
+        ImageStorageService service = new ImageStorageService(tempDir.toString());
+        service.saveImage("report.docx", png(Color.RED, "png"), "a.png");
+        service.saveImage("report.docx", png(Color.BLUE, "png"), "b.png");
+
+        List<ImageInfo> images = new ImageStorageService(tempDir.toString()).listImages("report.docx");
+
+        assertEquals(List.of("image_0001.png", "image_0002.png"), images.stream().map(ImageInfo::getFilename).toList());
+        assertEquals("a.png", images.get(0).getOriginalFilename());
+    }
+
+    @Test
+    void testLegacyDirectoryIsIndexed() throws Exception {
+        Path legacyDir = Files.createDirectories(tempDir.resolve("images").resolve("old.pptx"));
+        byte[] data = png(Color.GREEN, "png");
+        Files.write(legacyDir.resolve("image_0001.png"), data);
+
+        ImageStorageService service = new ImageStorageService(tempDir.toString());
+
+        List<ImageInfo> images = service.listImages("old.pptx");
+        assertEquals(1, images.size());
+        assertArrayEquals(data, service.readImage("old.pptx", "image_0001.png"));
+
+        // 新图片追加在旧图片之后（New images are appended after legacy ones）
+        ImageInfo added = service.saveImage("old.pptx", png(Color.BLUE, "png"), "new.png");
+        assertEquals("image_0002.png", added.getFilename());
+    }
+
+    @Test
+    void testPerceptualDedupMergesNearDuplicates() throws Exception {
+        ImageStorageService service = new ImageStorageService(tempDir.toString(), true, 4);
+
+        ImageInfo original = service.saveImage("deck.pptx", png(Color.RED, "png"), "logo.png");
+        byte[] nearDuplicate = png(new Color(250, 5, 5), "png");
+        ImageInfo merged = service.saveImage("deck.pptx", nearDuplicate, "logo-copy.png");
+
+        assertEquals(original.getFilePath(), merged.getFilePath());
+        assertEquals(1, countBlobs());
+        // 清单记录实际保留的内容块大小（The manifest records the size of the blob that was kept）
+        assertEquals(Files.size(Path.of(merged.getFilePath())), merged.getFileSize());
+    }
+
+    @Test
+    void testPerceptualDedupKeepsFormatsApart() throws Exception {
+        ImageStorageService service = new ImageStorageService(tempDir.toString(), true, 4);
+
+        ImageInfo asPng = service.saveImage("deck.pptx", png(Color.RED, "png"), "logo.png");
+        ImageInfo asJpg = service.saveImage("deck.pptx", png(Color.RED, "jpg"), "logo.jpg");
+
+        // 扩展名决定返回的媒体类型，不同格式不合并（The extension decides the served media type, so formats are not merged）
+        assertNotEquals(asPng.getFilePath(), asJpg.getFilePath());
+        assertTrue(asJpg.getFilePath().endsWith(".jpg"));
+        assertEquals(2, countBlobs());
+    }
+
+    @Test
+    void testDeleteImagesClearsIndex() throws Exception {
+        ImageStorageService service = new ImageStorageService(tempDir.toString());
+        service.saveImage("gone.pdf", png(Color.RED, "png"), "a.png");
+
+        service.deleteImages("gone.pdf");
+
+        assertTrue(service.listImages("gone.pdf").isEmpty());
+    }
+
+    @Test
+    void testDeleteReclaimsUnreferencedBlobsOnly() throws Exception {
+        ImageStorageService service = new ImageStorageService(tempDir.toString());
+        byte[] shared = png(Color.RED, "png");
+        service.saveImage("a.pptx", shared, "logo.png");
+        service.saveImage("a.pptx", png(Color.BLUE, "png"), "only-a.png");
+        ImageInfo kept = service.saveImage("b.pptx", shared, "logo.png");
+        assertEquals(2, countBlobs());
+
+        // 共享的内容块仍被 b 引用，a 独有的被回收（The shared blob is still used by b; the one only a used is reclaimed）
+        service.deleteImages("a.pptx");
+        assertEquals(1, countBlobs());
+        assertArrayEquals(shared, service.readImage("b.pptx", kept.getFilename()));
+
+        service.deleteImages("b.pptx");
+        assertEquals(0, countBlobs());
+
+        // 已回收的内容块不再参与近似去重（Reclaimed blobs no longer take part in near-duplicate matching）
+        ImageStorageService dedup = new ImageStorageService(tempDir.toString(), true, 4);
+        dedup.saveImage("c.pptx", shared, "logo.png");
+        dedup.deleteImages("c.pptx");
+        ImageInfo again = dedup.saveImage("d.pptx", png(Color.RED, "jpg"), "logo.jpg");
+        assertTrue(Files.exists(Path.of(again.getFilePath())));
+        assertEquals(1, countBlobs());
+    }
+
+    private long countBlobs() throws Exception {
+        try (Stream<Path> files = Files.walk(tempDir.resolve("images").resolve("_blobs"))) {
+            return files.filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().endsWith(".tsv"))
+                    .count();
+        }
+    }
+
+    /**
+     * 生成带横条纹的图片（Generate an image with a horizontal stripe）
+     */
+    private byte[] png(Color color, String format) throws Exception {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 64, 64);
+        g.setColor(color);
+        g.fillRect(0, 0, 32, 64);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
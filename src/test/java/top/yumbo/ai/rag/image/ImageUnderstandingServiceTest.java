@@ -0,0 +1,134 @@
+package top.yumbo.ai.rag.image;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.rag.image.extractor.ExtractedImage;
+import top.yumbo.ai.rag.impl.parser.image.ImageContentExtractorStrategy;
+import top.yumbo.ai.rag.impl.parser.image.SmartImageExtractor;
+import top.yumbo.ai.rag.util.TokenBucket;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片理解服务测试（Image understanding service test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class ImageUnderstandingServiceTest {
+
+    private ImageUnderstandingService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    void testIdenticalImagesAnalyzedOnce() {
+        CountingRemoteStrategy strategy = new CountingRemoteStrategy();
+        service = new ImageUnderstandingService(new SmartImageExtractor().addStrategy(strategy), 4, 0, 1, 100);
+
+        List<ExtractedImage> images = List.of(image("logo-1.png", 1), image("logo-2.png", 1), image("chart.png", 2));
+        service.understand(images);
+
+        assertEquals(2, strategy.calls.get());
+        assertEquals(images.get(0).getAiDescription(), images.get(1).getAiDescription());
+        assertNotEquals(images.get(0).getAiDescription(), images.get(2).getAiDescription());
+
+        // 后续文档中的相同图片直接命中缓存（The same image in a later document hits the cache）
+        ExtractedImage again = image("logo-3.png", 1);
+        service.understand(List.of(again));
+        assertEquals(2, strategy.calls.get());
+        assertEquals(images.get(0).getAiDescription(), again.getAiDescription());
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        CountingRemoteStrategy strategy = new CountingRemoteStrategy();
+        strategy.failing.set(true);
+        service = new ImageUnderstandingService(new SmartImageExtractor().addStrategy(strategy), 2, 0, 1, 100);
+
+        ExtractedImage first = image("a.png", 7);
+        service.understand(List.of(first));
+        assertEquals(1, service.getFailedCount());
+        assertNotNull(first.getAiDescription());
+
+        strategy.failing.set(false);
+        ExtractedImage second = image("a.png", 7);
+        service.understand(List.of(second));
+        assertEquals("content-7", second.getAiDescription());
+        assertEquals(2, strategy.calls.get());
+    }
+
+    @Test
+    void testTokenBucketLimitsRate() throws Exception {
+        TokenBucket bucket = new TokenBucket(20, 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            bucket.acquire();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // 首个令牌立即可用，其余 4 个按 20/s 补充，至少约 200ms（First token is immediate, the other 4 refill at 20/s）
+        assertTrue(elapsedMs >= 180, "elapsed " + elapsedMs + "ms");
+    }
+
+    private ExtractedImage image(String name, int seed) {
+        byte[] data = new byte[2048];
+        data[0] = (byte) seed;
+        return ExtractedImage.builder().data(data).format("png").originalName(name).build();
+    }
+
+    /**
+     * 模拟远程识别服务，结果只取决于图片内容（Fake remote recognizer whose result depends only on content）
+     */
+    private static class CountingRemoteStrategy implements ImageContentExtractorStrategy {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicBoolean failing = new AtomicBoolean();
+
+        @Override
+        public String analyze(byte[] imageData, String imageName) {
+            calls.incrementAndGet();
+            if (failing.get()) {
+                throw new IllegalStateException("HTTP 429");
+            }
+            return "content-" + imageData[0];
+        }
+
+        @Override
+        public String extractContent(InputStream imageStream, String imageName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String extractContent(File imageFile) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getStrategyName() {
+            return "counting";
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public boolean isRemote() {
+            return true;
+        }
+    }
+}
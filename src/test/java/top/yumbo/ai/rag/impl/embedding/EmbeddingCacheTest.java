@@ -0,0 +1,87 @@
+package top.yumbo.ai.rag.impl.embedding;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 持久化向量缓存测试（Persistent embedding cache test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class EmbeddingCacheTest {
+
+    private static final String MODEL = "bge-base-zh:1024:512";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testVectorsSurviveReopenWithoutRecomputing() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try (EmbeddingCache cache = new EmbeddingCache(tempDir, 100)) {
+            for (int i = 0; i < 5000; i++) {
+                cache.getOrCompute(MODEL, 8, "chunk " + i, content -> vector(calls.incrementAndGet()));
+            }
+        }
+        assertEquals(5000, calls.get());
+
+        try (EmbeddingCache cache = new EmbeddingCache(tempDir, 10000)) {
+            float[] first = cache.getOrCompute(MODEL, 8, "chunk 4999", content -> fail("should be cached"));
+            assertArrayEquals(vector(5000), first);
+
+            EmbeddingCache.Stats stats = cache.getStats();
+            assertEquals(1, stats.hits());
+            assertEquals(0, stats.misses());
+            assertEquals(100, stats.entries());
+        }
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+        try (EmbeddingCache cache = new EmbeddingCache(tempDir, 2)) {
+            cache.put(MODEL, 8, "a", vector(1));
+            cache.put(MODEL, 8, "b", vector(2));
+            assertNotNull(cache.get(MODEL, 8, "a"));
+            cache.put(MODEL, 8, "c", vector(3));
+
+            assertNull(cache.get(MODEL, 8, "b"));
+            assertArrayEquals(vector(1), cache.get(MODEL, 8, "a"));
+            assertArrayEquals(vector(3), cache.get(MODEL, 8, "c"));
+            assertEquals(1, cache.getStats().evictions());
+            assertEquals(2, cache.getStats().entries());
+        }
+    }
+
+    @Test
+    void testModelsAreKeptApartAndFailuresNotCached() throws Exception {
+        try (EmbeddingCache cache = new EmbeddingCache(tempDir, 10)) {
+            cache.put(MODEL, 8, "same text", vector(1));
+            cache.put("other-model:1:512", 8, "same text", vector(2));
+            cache.put(MODEL, 8, "failed", new float[8]);
+
+            assertArrayEquals(vector(1), cache.get(MODEL, 8, "same text"));
+            assertArrayEquals(vector(2), cache.get("other-model:1:512", 8, "same text"));
+            assertNull(cache.get(MODEL, 8, "failed"));
+        }
+
+        // 维度变化的模型文件会被重建（A model file with a different dimension is recreated）
+        try (EmbeddingCache cache = new EmbeddingCache(tempDir, 10)) {
+            assertNull(cache.get(MODEL, 16, "same text"));
+            assertEquals(0, cache.getStats().entries());
+        }
+    }
+
+    private static float[] vector(int seed) {
+        float[] vector = new float[8];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = seed + i / 10f;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,168 @@
+package top.yumbo.ai.rag.impl.parser;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.poi.util.Units;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.apache.poi.xwpf.usermodel.Document;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import top.yumbo.ai.rag.image.extractor.ExtractedImage;
+import top.yumbo.ai.rag.impl.parser.image.SmartImageExtractor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tika 文档解析器测试（Tika document parser test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class TikaDocumentParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final TikaDocumentParser parser = new TikaDocumentParser(
+            10 * 1024 * 1024, true, true, 1, new SmartImageExtractor(), null, null);
+
+    @Test
+    void testSinglePassParseReturnsImagesAtBodyOffset() throws Exception {
+        File docx = tempDir.resolve("with-image.docx").toFile();
+        try (XWPFDocument document = new XWPFDocument();
+             FileOutputStream out = new FileOutputStream(docx)) {
+            document.createParagraph().createRun().setText("第一段：系统架构概述");
+            XWPFRun run = document.createParagraph().createRun();
+            run.addPicture(new ByteArrayInputStream(noisePng()), Document.PICTURE_TYPE_PNG,
+                    "arch.png", Units.toEMU(64), Units.toEMU(64));
+            document.createParagraph().createRun().setText("第二段：部署说明");
+            document.write(out);
+        }
+
+        TikaDocumentParser.ParsedDocument parsed = parser.parseWithImages(docx);
+
+        String text = parsed.getText();
+        assertTrue(text.contains("第一段"));
+        assertTrue(text.contains("第二段"));
+        assertEquals(1, parsed.getImages().size());
+
+        // 图片位置位于两段之间，而不是图片数据到达的文末
+        // (The image sits between the two paragraphs, not at the end where its bytes arrive)
+        ExtractedImage image = parsed.getImages().get(0);
+        int position = image.getCharPositionInDocument();
+        assertTrue(position >= text.indexOf("第一段"));
+        assertTrue(position <= text.indexOf("第二段"));
+        assertEquals("png", image.getFormat());
+        assertTrue(image.getData().length >= 1024);
+    }
+
+    @Test
+    void testSinglePassParseMissingFile() {
+        TikaDocumentParser.ParsedDocument parsed = parser.parseWithImages(tempDir.resolve("missing.docx").toFile());
+
+        assertEquals("", parsed.getText());
+        assertTrue(parsed.getImages().isEmpty());
+    }
+
+    @Test
+    void testWriteLimitKeepsParsedPrefix() throws Exception {
+        File pdf = tempDir.resolve("long.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 0; p < 3; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.newLineAtOffset(50, 700);
+                    content.showText("Page " + p + " deployment guide text that is long enough to pass the limit");
+                    content.endText();
+                }
+            }
+            document.save(pdf);
+        }
+
+        // 超出长度限制时保留已解析的前缀（The parsed prefix survives the length limit）
+        TikaDocumentParser limited = new TikaDocumentParser(100, true, true, 1, new SmartImageExtractor(), null, null);
+        TikaDocumentParser.ParsedDocument parsed = limited.parseWithImages(pdf);
+
+        assertTrue(parsed.getText().contains("Page 0"));
+        assertFalse(parsed.getText().contains("Page 2"));
+        assertTrue(parsed.getText().length() <= 100);
+    }
+
+    @Test
+    void testWrappedWriteLimitKeepsParsedPrefix() throws Exception {
+        File txt = tempDir.resolve("wrapped.txt").toFile();
+        java.nio.file.Files.writeString(txt.toPath(), "unused");
+
+        // 模拟把超限异常包装进 TikaException 的解析器（A parser that wraps the limit exception in a TikaException）
+        Parser wrapping = new AbstractParser() {
+            @Override
+            public Set<MediaType> getSupportedTypes(ParseContext context) {
+                return Set.of(MediaType.TEXT_PLAIN);
+            }
+
+            @Override
+            public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context)
+                    throws TikaException {
+                XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+                try {
+                    xhtml.startDocument();
+                    for (int i = 0; i < 50; i++) {
+                        xhtml.characters("line " + i + " of the manual\n");
+                    }
+                    xhtml.endDocument();
+                } catch (SAXException e) {
+                    throw new TikaException("Unable to extract text", e);
+                }
+            }
+        };
+        TikaDocumentParser limited = new TikaDocumentParser(wrapping, 100, true, true, 1,
+                new SmartImageExtractor(), null, null);
+
+        String text = limited.parseWithImages(txt).getText();
+        assertTrue(text.startsWith("line 0 of the manual"));
+        assertEquals(100, text.length());
+    }
+
+    /**
+     * 生成随机像素的 PNG，保证大小超过小图过滤阈值（Random-pixel PNG, large enough to pass the tiny-image filter）
+     */
+    private byte[] noisePng() throws Exception {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int x = 0; x < 64; x++) {
+            for (int y = 0; y < 64; y++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,74 @@
+package top.yumbo.ai.rag.loadtest;
+
+import lombok.Data;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService.StageLatency;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测结果（Load test result）
+ *
+ * <p>
+ * 以 JSON 写出，便于不同版本之间对比；{@link #compareTo(LoadTestReport)} 给出吞吐和延迟相对基线的变化
+ * (Written as JSON so runs can be compared across versions; {@link #compareTo(LoadTestReport)} reports the change
+ * of throughput and latency against a baseline)
+ * </p>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+@Data
+public class LoadTestReport {
+
+    // 工作负载（Workload）
+    private String mode;
+    private int concurrency;
+    private double targetRate;
+    private long durationMs;
+    private long firstTokenDelayMs;
+    private double tokensPerSecond;
+
+    // 结果（Results）
+    private long completed;
+    private long errors;
+    private double throughput;
+    private StageLatency latency;
+    private StageLatency firstChunk;
+    private Map<String, StageLatency> stages = new LinkedHashMap<>();
+
+    // JVM（GC and threads）
+    private long gcCount;
+    private long gcTimeMs;
+    private int peakThreads;
+    private Map<String, Long> threadStateSamples = new LinkedHashMap<>();
+    private Map<String, Long> blockedOn = new LinkedHashMap<>();
+
+    /**
+     * 与基线对比，每行一个指标（Compare with a baseline, one metric per line）
+     */
+    public List<String> compareTo(LoadTestReport baseline) {
+        List<String> lines = new ArrayList<>();
+        lines.add(line("throughput (req/s)", baseline.throughput, throughput));
+        if (baseline.latency != null && latency != null) {
+            lines.add(line("latency p50 (ms)", baseline.latency.getP50Ms(), latency.getP50Ms()));
+            lines.add(line("latency p95 (ms)", baseline.latency.getP95Ms(), latency.getP95Ms()));
+            lines.add(line("latency p99 (ms)", baseline.latency.getP99Ms(), latency.getP99Ms()));
+        }
+        stages.forEach((stage, current) -> {
+            StageLatency before = baseline.stages.get(stage);
+            if (before != null && before.getCount() > 0 && current.getCount() > 0) {
+                lines.add(line(stage + " p95 (ms)", before.getP95Ms(), current.getP95Ms()));
+            }
+        });
+        lines.add(line("gc time (ms)", baseline.gcTimeMs, gcTimeMs));
+        return lines;
+    }
+
+    private static String line(String metric, double before, double after) {
+        String change = before == 0 ? "n/a" : String.format("%+.1f%%", (after - before) * 100.0 / before);
+        return String.format("%-28s %12.2f -> %12.2f  (%s)", metric, before, after, change);
+    }
+}
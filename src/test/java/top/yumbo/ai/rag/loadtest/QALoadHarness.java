@@ -0,0 +1,434 @@
+package top.yumbo.ai.rag.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import top.yumbo.ai.rag.Application;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService.StageLatency;
+import top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService;
+import top.yumbo.ai.rag.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 离线问答压测工具（Offline QA load-test harness）
+ *
+ * <p>
+ * 以非 Web 模式启动完整应用，LLM 换成可配置首 token 延迟和生成速率的 MockLLMClient，
+ * 按给定并发（闭环）或到达速率（开环）重放问题语料，调用 {@link KnowledgeQAService#ask} 和
+ * SSE 接口背后的 {@link KnowledgeQAService#askStream}。开环模式的延迟从计划到达时刻算起，包含排队时间
+ * (Boots the full application without the web server, swaps the LLM for a MockLLMClient with configurable
+ * first-token delay and token rate, and replays a question corpus at a fixed concurrency (closed loop) or arrival
+ * rate (open loop) against {@link KnowledgeQAService#ask} and {@link KnowledgeQAService#askStream}, the Flux behind
+ * the SSE endpoint. In open-loop mode latency counts from the scheduled arrival, so queueing is included)
+ * </p>
+ *
+ * <p>
+ * 输出吞吐、整体与各阶段延迟分位数、GC 次数与耗时、峰值线程数、线程状态采样和阻塞所在的锁，
+ * 结果写成 JSON，可用 --baseline 与之前的结果对比
+ * (Reports throughput, overall and per-stage latency percentiles, GC count and time, peak threads, thread state
+ * samples and the locks threads block on. Results are written as JSON and can be compared with an earlier run via
+ * --baseline)
+ * </p>
+ *
+ * <pre>
+ * mvn -P loadtest -DskipTests test-compile exec:exec@loadtest \
+ *     -Dloadtest.args="--mode=stream --concurrency=32 --duration=60 --first-token-ms=300 --tokens-per-sec=40"
+ *
+ * --mode=ask|stream|mixed      调用路径（Call path, default ask）
+ * --concurrency=8              工作线程数（Worker threads）
+ * --rate=0                     每秒到达数，0 为闭环（Arrivals per second, 0 = closed loop）
+ * --duration=60 --warmup=10    测量与预热秒数（Measured and warm-up seconds）
+ * --first-token-ms=300         Mock 首 token 延迟（Mock first-token delay）
+ * --tokens-per-sec=40          Mock 生成速率（Mock token rate）
+ * --questions=path             问题语料，每行一个（Question corpus, one per line）
+ * --output=path --baseline=path
+ * 其余 --key=value 参数作为 Spring 配置传入，如 --knowledge.qa.knowledge-base.source-path=...
+ * (Any other --key=value argument is passed to Spring, e.g. --knowledge.qa.knowledge-base.source-path=...)
+ * </pre>
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+public class QALoadHarness {
+
+    private static final List<String> DEFAULT_QUESTIONS = List.of(
+            "如何配置向量检索的相似度阈值？",
+            "What is the default chunk size for documents?",
+            "混合检索中关键词和向量的权重如何设置？",
+            "How does the semantic answer cache decide a hit?",
+            "HOPE 的三层知识结构分别是什么？",
+            "知识库支持哪些文件格式？",
+            "How do I rebuild the knowledge base index?",
+            "文档切分策略有哪些，默认是哪一种？"
+    );
+
+    private static final long SAMPLE_INTERVAL_MS = 100;
+    private static final int TOP_BLOCKED = 10;
+
+    private final Options options;
+    private final List<String> questions;
+    private final KnowledgeQAService qaService;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram firstChunk = new LatencyHistogram();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    QALoadHarness(Options options, List<String> questions, KnowledgeQAService qaService) {
+        this.options = options;
+        this.questions = questions;
+        this.qaService = qaService;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        List<String> questions = loadQuestions(options.questions());
+
+        // 系统属性优先于 application.yml，命令行参数又优先于系统属性
+        // (System properties override application.yml; command-line arguments override both)
+        System.setProperty("knowledge.qa.llm.provider", "mock");
+        System.setProperty("knowledge.qa.llm.mock.first-token-delay-ms", String.valueOf(options.firstTokenDelayMs()));
+        System.setProperty("knowledge.qa.llm.mock.tokens-per-second", String.valueOf(options.tokensPerSecond()));
+        System.setProperty("knowledge.qa.llm.mock.blocking-latency", "true");
+        System.setProperty("logging.level.root", System.getProperty("logging.level.root", "WARN"));
+        System.setProperty("logging.level.top.yumbo", System.getProperty("logging.level.top.yumbo", "WARN"));
+
+        int exitCode = 0;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run(options.springArgs().toArray(String[]::new))) {
+            PerformanceMonitoringService monitoring = context.getBean(PerformanceMonitoringService.class);
+            QALoadHarness harness = new QALoadHarness(options, questions, context.getBean(KnowledgeQAService.class));
+
+            if (!options.warmup().isZero()) {
+                System.out.printf("Warming up for %ds...%n", options.warmup().toSeconds());
+                harness.run(options.warmup());
+            }
+            harness.reset();
+            monitoring.reset();
+
+            System.out.printf("Measuring %s for %ds (concurrency=%d, rate=%s)...%n", options.mode(),
+                    options.duration().toSeconds(), options.concurrency(),
+                    options.rate() > 0 ? options.rate() + "/s" : "closed loop");
+            LoadTestReport report = harness.measure(monitoring);
+            print(report);
+            writeReport(report, options);
+            if (report.getCompleted() == 0) {
+                exitCode = 1;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 1;
+        }
+        // 应用内的调度线程不是守护线程，显式退出（The app's scheduler threads are not daemons, so exit)
+        System.exit(exitCode);
+    }
+
+    /**
+     * 执行测量阶段并汇总结果（Run the measured phase and build the report）
+     */
+    LoadTestReport measure(PerformanceMonitoringService monitoring) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long[] gcBefore = gcTotals();
+        ThreadSampler sampler = new ThreadSampler(threads);
+        sampler.start();
+
+        long start = System.nanoTime();
+        run(options.duration());
+        long elapsedNanos = System.nanoTime() - start;
+
+        sampler.stop();
+        long[] gcAfter = gcTotals();
+
+        LoadTestReport report = new LoadTestReport();
+        report.setMode(options.mode());
+        report.setConcurrency(options.concurrency());
+        report.setTargetRate(options.rate());
+        report.setDurationMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        report.setFirstTokenDelayMs(options.firstTokenDelayMs());
+        report.setTokensPerSecond(options.tokensPerSecond());
+        report.setCompleted(completed.get());
+        report.setErrors(errors.get());
+        report.setThroughput(completed.get() * 1e9 / elapsedNanos);
+        report.setLatency(StageLatency.of(latency.snapshot()));
+        report.setFirstChunk(StageLatency.of(firstChunk.snapshot()));
+        monitoring.getStageLatencies("all").forEach((stage, stageLatency) -> {
+            if (stageLatency.getCount() > 0) {
+                report.getStages().put(stage.name(), stageLatency);
+            }
+        });
+        report.setGcCount(gcAfter[0] - gcBefore[0]);
+        report.setGcTimeMs(gcAfter[1] - gcBefore[1]);
+        report.setPeakThreads(threads.getPeakThreadCount());
+        report.setThreadStateSamples(sampler.states());
+        report.setBlockedOn(sampler.topBlocked(TOP_BLOCKED));
+        return report;
+    }
+
+    /**
+     * 按配置的并发或到达速率施压指定时长（Apply load for the given time at the configured concurrency or rate）
+     */
+    void run(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(options.concurrency(), options.concurrency(),
+                0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), workerFactory());
+        if (options.rate() > 0) {
+            // 开环：按固定间隔到达，池满时排队（Open loop: fixed arrival interval, queued when the pool is busy)
+            long interval = (long) (1e9 / options.rate());
+            for (long next = System.nanoTime(); next < deadline; next += interval) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long scheduled = next;
+                pool.execute(() -> execute(scheduled));
+            }
+        } else {
+            // 闭环：每个工作线程完成一次立即发起下一次（Closed loop: each worker issues the next request at once)
+            for (int i = 0; i < options.concurrency(); i++) {
+                pool.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        execute(System.nanoTime());
+                    }
+                });
+            }
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    void reset() {
+        latency.reset();
+        firstChunk.reset();
+        completed.set(0);
+        errors.set(0);
+    }
+
+    private void execute(long scheduledNanos) {
+        long n = sequence.getAndIncrement();
+        String question = questions.get((int) (n % questions.size()));
+        boolean stream = "stream".equals(options.mode()) || ("mixed".equals(options.mode()) && n % 2 == 1);
+        try {
+            if (stream) {
+                AtomicBoolean first = new AtomicBoolean();
+                qaService.askStream(question, null)
+                        .doOnNext(chunk -> {
+                            if (first.compareAndSet(false, true)) {
+                                firstChunk.record((System.nanoTime() - scheduledNanos) / 1000);
+                            }
+                        })
+                        .blockLast();  // 失败的流以错误信号结束（A failed stream ends with an error signal）
+            } else if (qaService.ask(question).isError()) {
+                // ask 把失败包装成错误答案而不抛异常（ask wraps failures in an error answer instead of throwing）
+                errors.incrementAndGet();
+                return;
+            }
+            latency.record((System.nanoTime() - scheduledNanos) / 1000);
+            completed.incrementAndGet();
+        } catch (Exception e) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private static ThreadFactory workerFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long timeMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            timeMs += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, timeMs};
+    }
+
+    private static List<String> loadQuestions(Path path) throws IOException {
+        if (path == null) {
+            return DEFAULT_QUESTIONS;
+        }
+        List<String> questions = Files.readAllLines(path).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList();
+        return questions.isEmpty() ? DEFAULT_QUESTIONS : questions;
+    }
+
+    private static void print(LoadTestReport report) {
+        System.out.printf("%nCompleted %d requests (%d errors) in %.1fs: %.2f req/s%n", report.getCompleted(),
+                report.getErrors(), report.getDurationMs() / 1000.0, report.getThroughput());
+        System.out.printf("%-16s %8s %10s %10s %10s %10s%n", "stage", "count", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        printRow("request", report.getLatency());
+        if (report.getFirstChunk().getCount() > 0) {
+            printRow("first_chunk", report.getFirstChunk());
+        }
+        report.getStages().forEach(QALoadHarness::printRow);
+        System.out.printf("GC: %d collections, %d ms; peak threads: %d%n", report.getGcCount(),
+                report.getGcTimeMs(), report.getPeakThreads());
+        System.out.println("Thread states: " + report.getThreadStateSamples());
+        report.getBlockedOn().forEach((lock, samples) -> System.out.printf("  blocked %6d x %s%n", samples, lock));
+    }
+
+    private static void printRow(String name, StageLatency latency) {
+        System.out.printf("%-16s %8d %10.2f %10.2f %10.2f %10.2f%n", name, latency.getCount(),
+                latency.getP50Ms(), latency.getP95Ms(), latency.getP99Ms(), latency.getMaxMs());
+    }
+
+    private static void writeReport(LoadTestReport report, Options options) throws IOException {
+        ObjectMapper mapper = new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        Path output = options.output() != null ? options.output() : Path.of("target", "loadtest",
+                "qa-load-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        mapper.writeValue(output.toFile(), report);
+        System.out.println("Results written to " + output);
+
+        if (options.baseline() != null) {
+            LoadTestReport baseline = mapper.readValue(options.baseline().toFile(), LoadTestReport.class);
+            System.out.println("\nCompared with " + options.baseline() + ":");
+            report.compareTo(baseline).forEach(System.out::println);
+        }
+    }
+
+    /**
+     * 定时采样线程状态，统计阻塞在监视器或显式锁上的位置
+     * (Periodically samples thread states and counts where threads block on monitors or explicit locks)
+     */
+    private static final class ThreadSampler {
+        private final ThreadMXBean threads;
+        private final Map<String, Long> states = new TreeMap<>();
+        private final Map<String, Long> blocked = new HashMap<>();
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ThreadSampler(ThreadMXBean threads) {
+            this.threads = threads;
+        }
+
+        void start() {
+            scheduler.scheduleAtFixedRate(this::sample, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+
+        void stop() throws InterruptedException {
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        private void sample() {
+            for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), 16)) {
+                if (info == null) {
+                    continue;
+                }
+                states.merge(info.getThreadState().name(), 1L, Long::sum);
+                String lock = info.getLockName();
+                boolean contended = info.getThreadState() == Thread.State.BLOCKED
+                        || (lock != null && lock.contains(".locks.Reentrant"));
+                if (contended && lock != null) {
+                    blocked.merge(lock.replaceAll("@[0-9a-f]+$", "") + " at " + firstAppFrame(info),
+                            1L, Long::sum);
+                }
+            }
+        }
+
+        private static String firstAppFrame(ThreadInfo info) {
+            for (StackTraceElement frame : info.getStackTrace()) {
+                if (frame.getClassName().startsWith("top.yumbo.")) {
+                    return frame.getClassName() + "." + frame.getMethodName();
+                }
+            }
+            StackTraceElement[] stack = info.getStackTrace();
+            return stack.length > 0 ? stack[0].toString() : "?";
+        }
+
+        Map<String, Long> states() {
+            return new LinkedHashMap<>(states);
+        }
+
+        Map<String, Long> topBlocked(int limit) {
+            Map<String, Long> top = new LinkedHashMap<>();
+            blocked.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(limit)
+                    .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+            return top;
+        }
+    }
+
+    /**
+     * 命令行参数（Command-line options）
+     */
+    record Options(String mode, int concurrency, double rate, Duration duration, Duration warmup,
+                   long firstTokenDelayMs, double tokensPerSecond, Path questions, Path output, Path baseline,
+                   List<String> springArgs) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            List<String> springArgs = new ArrayList<>();
+            Set<String> known = Set.of("mode", "concurrency", "rate", "duration", "warmup", "first-token-ms",
+                    "tokens-per-sec", "questions", "output", "baseline");
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                String key = arg.startsWith("--") && eq > 2 ? arg.substring(2, eq) : null;
+                if (key != null && known.contains(key)) {
+                    values.put(key, arg.substring(eq + 1));
+                } else {
+                    springArgs.add(arg);
+                }
+            }
+            String mode = values.getOrDefault("mode", "ask");
+            if (!Set.of("ask", "stream", "mixed").contains(mode)) {
+                throw new IllegalArgumentException("Unknown mode: " + mode + " (expected ask, stream or mixed)");
+            }
+            return new Options(
+                    mode,
+                    Integer.parseInt(values.getOrDefault("concurrency", "8")),
+                    Double.parseDouble(values.getOrDefault("rate", "0")),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60"))),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "10"))),
+                    Long.parseLong(values.getOrDefault("first-token-ms", "300")),
+                    Double.parseDouble(values.getOrDefault("tokens-per-sec", "40")),
+                    path(values.get("questions")),
+                    path(values.get("output")),
+                    path(values.get("baseline")),
+                    springArgs);
+        }
+
+        private static Path path(String value) {
+            return value == null || value.isBlank() ? null : Path.of(value);
+        }
+    }
+}
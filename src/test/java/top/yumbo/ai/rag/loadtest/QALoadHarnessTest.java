@@ -0,0 +1,71 @@
+package top.yumbo.ai.rag.loadtest;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import top.yumbo.ai.rag.spring.boot.model.AIAnswer;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService;
+import top.yumbo.ai.rag.spring.boot.service.KnowledgeQAService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 压测工具冒烟测试：对桩服务运行，失败的答案和流计入错误
+ * (Load harness smoke test: runs against a stub service and counts failed answers and streams as errors)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class QALoadHarnessTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void testMeasureCountsErrorAnswers() throws Exception {
+        KnowledgeQAService qaService = mock(KnowledgeQAService.class);
+        when(qaService.ask(anyString())).thenAnswer(invocation -> calls.incrementAndGet() % 4 == 0
+            ? AIAnswer.failed("处理失败", List.of(), 1)
+            : new AIAnswer("答案", List.of(), 1));
+
+        // 闭环（Closed loop）
+        LoadTestReport report = harness("ask", 2, 0, qaService).measure(mock(PerformanceMonitoringService.class));
+
+        assertTrue(report.getCompleted() > 0);
+        assertEquals(calls.get(), report.getCompleted() + report.getErrors());
+        assertEquals(calls.get() / 4, report.getErrors());
+        assertEquals(report.getCompleted(), report.getLatency().getCount());
+        assertTrue(report.getThroughput() > 0);
+    }
+
+    @Test
+    void testMeasureCountsFailedStreams() throws Exception {
+        KnowledgeQAService qaService = mock(KnowledgeQAService.class);
+        when(qaService.askStream(anyString(), any())).thenAnswer(invocation -> calls.incrementAndGet() % 4 == 0
+            ? Flux.just("处理失败").concatWith(Flux.error(new IllegalStateException("处理失败")))
+            : Flux.just("答", "案"));
+
+        // 开环：每秒 200 次到达（Open loop: 200 arrivals per second）
+        LoadTestReport report = harness("stream", 2, 200, qaService)
+            .measure(mock(PerformanceMonitoringService.class));
+
+        assertEquals("stream", report.getMode());
+        assertEquals(calls.get(), report.getCompleted() + report.getErrors());
+        assertEquals(calls.get() / 4, report.getErrors());
+        assertEquals(report.getCompleted(), report.getLatency().getCount());
+        // 失败的流也发出了首块（Failed streams also emitted a first chunk）
+        assertEquals(calls.get(), report.getFirstChunk().getCount());
+    }
+
+    private static QALoadHarness harness(String mode, int concurrency, double rate, KnowledgeQAService qaService) {
+        QALoadHarness.Options options = new QALoadHarness.Options(mode, concurrency, rate, Duration.ofMillis(300),
+            Duration.ZERO, 0, 0, null, null, null, List.of());
+        return new QALoadHarness(options, List.of("问题一", "问题二"), qaService);
+    }
+}
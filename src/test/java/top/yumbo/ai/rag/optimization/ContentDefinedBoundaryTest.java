@@ -0,0 +1,118 @@
+package top.yumbo.ai.rag.optimization;
+
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.rag.model.Document;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内容定义分块边界测试（Content-defined chunk boundary test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class ContentDefinedBoundaryTest {
+
+    private static final int CHUNK_SIZE = 2000;
+    private static final int OVERLAP = 400;
+
+    @Test
+    void testEditNearStartKeepsLaterChunks() {
+        String manual = manual(60_000);
+        String paragraph = "新增一段部署说明，".repeat(20) + "请先备份配置文件。";
+        String edited = manual.substring(0, 300) + paragraph + manual.substring(300);
+
+        // 实测：固定大小分块在开头插入一段后没有块可复用，内容定义的边界只有改动附近的块变化
+        // (Measured: after a paragraph is inserted near the start no fixed-size chunk is reusable, while
+        // content-defined boundaries only change the chunks around the edit)
+        double fixedReuse = reuse(chunk(manual, false), chunk(edited, false));
+        double contentDefinedReuse = reuse(chunk(manual, true), chunk(edited, true));
+
+        assertTrue(fixedReuse < 0.2, "fixed-size reuse " + fixedReuse);
+        assertTrue(contentDefinedReuse > 0.9, "content-defined reuse " + contentDefinedReuse);
+    }
+
+    @Test
+    void testChunksStayWithinSizeAndCoverText() {
+        String manual = manual(30_000);
+        List<String> chunks = chunk(manual, true);
+
+        assertTrue(chunks.size() > 10);
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= CHUNK_SIZE + 100, "chunk length " + chunk.length());
+        }
+        assertTrue(manual.startsWith(chunks.get(0)));
+        assertTrue(manual.strip().endsWith(chunks.get(chunks.size() - 1)));
+    }
+
+    @Test
+    void testStreamingChunkerUsesSameBoundaries() throws Exception {
+        String manual = manual(40_000);
+        String edited = manual.replace("第3节", "第三节");
+
+        List<String> before = stream(manual);
+        List<String> after = stream(edited);
+
+        assertTrue(reuse(before, after) > 0.9);
+        // 流式分块与整篇分块的边界一致（不含末尾的重叠尾块）
+        // (Streaming and whole-document chunking cut at the same places, apart from the overlapping tail chunk)
+        List<String> whole = chunk(manual, true);
+        assertEquals(before.subList(0, before.size() - 1), whole.subList(0, before.size() - 1));
+    }
+
+    private static List<String> chunk(String text, boolean contentDefined) {
+        DocumentChunker chunker = DocumentChunker.builder()
+                .chunkSize(CHUNK_SIZE)
+                .chunkOverlap(OVERLAP)
+                .maxChunks(10_000)
+                .contentDefined(contentDefined)
+                .build();
+        return chunker.chunk(Document.builder().id("manual").title("manual").content(text).metadata(new HashMap<>()).build())
+                .stream().map(Document::getContent).toList();
+    }
+
+    private static List<String> stream(String text) throws Exception {
+        List<String> chunks = new ArrayList<>();
+        new StreamingDocumentChunker(CHUNK_SIZE, OVERLAP, true, true,
+                (index, start, end, content) -> chunks.add(content)).chunk(new StringReader(text));
+        return chunks;
+    }
+
+    /**
+     * 新块中内容与旧块相同的比例（Share of new chunks whose content matches an old chunk）
+     */
+    private static double reuse(List<String> before, List<String> after) {
+        Set<String> old = new HashSet<>(before);
+        return after.stream().filter(old::contains).count() / (double) after.size();
+    }
+
+    /**
+     * 由随机句子组成的手册文本，句长不一（Manual-like text of random sentences of varying length）
+     */
+    private static String manual(int length) {
+        String[] words = {"系统", "部署", "配置", "节点", "索引", "检索", "向量", "模型", "服务", "日志",
+                "缓存", "权限", "备份", "监控", "告警", "网络", "存储", "升级"};
+        Random random = new Random(7);
+        StringBuilder text = new StringBuilder(length + 100);
+        int section = 0;
+        while (text.length() < length) {
+            if (random.nextInt(20) == 0) {
+                text.append("\n第").append(++section).append("节\n");
+            }
+            int count = 4 + random.nextInt(20);
+            for (int i = 0; i < count; i++) {
+                text.append(words[random.nextInt(words.length)]);
+            }
+            text.append(random.nextInt(4) == 0 ? "。\n" : "。");
+        }
+        return text.toString();
+    }
+}
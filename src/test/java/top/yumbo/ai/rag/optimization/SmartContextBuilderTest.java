@@ -1,8 +1,13 @@
 package top.yumbo.ai.rag.optimization;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.yumbo.ai.rag.chunking.ChunkingConfig;
+import top.yumbo.ai.rag.chunking.ChunkingStrategy;
+import top.yumbo.ai.rag.chunking.storage.ChunkIndex;
 import top.yumbo.ai.rag.model.Document;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 
@@ -158,5 +163,45 @@ class SmartContextBuilderTest {
         System.out.println("统计信息: " + stats);
         System.out.println("✅ 统计信息测试通过");
     }
-}
 
+    @Test
+    void testContextFromIngestTimeChunkIndex(@TempDir Path tempDir) {
+        ChunkingConfig config = new ChunkingConfig();
+        config.setChunkSize(100);
+        config.setChunkOverlap(0);
+
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            content.append("第").append(i).append("段普通填充内容。");
+        }
+        content.append("索引关键词只出现在这里。");
+        for (int i = 0; i < 30; i++) {
+            content.append("结尾填充内容。");
+        }
+
+        Document doc = new Document();
+        doc.setTitle("索引文档");
+        doc.setContent(content.toString());
+        doc.setContentHash("hash-1");
+
+        try (ChunkIndex chunkIndex = new ChunkIndex(tempDir.resolve("chunk-index.db").toString())) {
+            SmartContextBuilder builder = new SmartContextBuilder(1000, 150, true,
+                    config, ChunkingStrategy.SIMPLE, null, chunkIndex);
+
+            // 入库时建立块索引 / Build the chunk index at ingest time
+            int indexed = builder.indexChunks(doc);
+            assertTrue(indexed > 1);
+            List<ChunkIndex.ChunkIndexEntry> entries = chunkIndex.get("hash-1").orElseThrow();
+            assertEquals(indexed, entries.size());
+            assertTrue(entries.stream().allMatch(e -> e.getTokenCount() > 0));
+
+            // 再次入库相同内容不会重复切分 / Re-ingesting the same content does not re-chunk
+            assertEquals(0, builder.indexChunks(doc));
+
+            String context = builder.buildSmartContext("索引关键词", List.of(doc));
+
+            assertTrue(context.contains("索引关键词只出现在这里"));
+            assertFalse(context.contains("第0段"));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package top.yumbo.ai.rag.optimization;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式文档分块器测试（Streaming document chunker test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class StreamingDocumentChunkerTest {
+
+    @Test
+    void testChunksEndOnSentenceBoundariesWithOverlap() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("这是第").append(i).append("句话，用来测试流式分块。");
+        }
+
+        List<long[]> ranges = new ArrayList<>();
+        List<String> chunks = new ArrayList<>();
+        StreamingDocumentChunker chunker = new StreamingDocumentChunker(500, 100, true,
+                (index, start, end, content) -> {
+                    assertEquals(chunks.size(), index);
+                    ranges.add(new long[]{start, end});
+                    chunks.add(content);
+                });
+        int count = chunker.chunk(new StringReader(text.toString()));
+
+        assertEquals(chunks.size(), count);
+        assertTrue(count > 1);
+        assertEquals(text.length(), chunker.getCharCount());
+        assertEquals(0, ranges.get(0)[0]);
+        assertEquals(text.length(), ranges.get(count - 1)[1]);
+        for (int i = 0; i < count; i++) {
+            assertEquals(text.substring((int) ranges.get(i)[0], (int) ranges.get(i)[1]).trim(), chunks.get(i));
+            if (i < count - 1) {
+                assertTrue(chunks.get(i).endsWith("。"), chunks.get(i));
+                assertEquals(ranges.get(i)[1] - 100, ranges.get(i + 1)[0]);
+            }
+        }
+    }
+
+    @Test
+    void testSmallInputIsOneChunk() throws Exception {
+        List<String> chunks = new ArrayList<>();
+        StreamingDocumentChunker chunker = new StreamingDocumentChunker(500, 100, true,
+                (index, start, end, content) -> chunks.add(content));
+
+        chunker.write("  short text  ");
+        chunker.close();
+
+        assertEquals(List.of("short text"), chunks);
+    }
+
+    @Test
+    void testLargeStreamIsChunkedWithoutBufferingIt() throws Exception {
+        long total = 20L * 1024 * 1024;
+        long[] longest = {0};
+        StreamingDocumentChunker chunker = new StreamingDocumentChunker(2000, 400, true,
+                (index, start, end, content) -> longest[0] = Math.max(longest[0], end - start));
+
+        int count = chunker.chunk(new GeneratedReader(total));
+
+        assertEquals(total, chunker.getCharCount());
+        assertTrue(count > total / 2000);
+        assertTrue(longest[0] <= 2100, "chunk longer than size plus look-ahead: " + longest[0]);
+    }
+
+    /**
+     * 按需生成内容的字符流，测试不会一次性持有全部文本（Generates text on demand so the test never holds it all）
+     */
+    private static class GeneratedReader extends Reader {
+        private static final String SENTENCE = "Streaming keeps memory bounded by the chunk size. ";
+        private long remaining;
+        private int position = 0;
+
+        GeneratedReader(long length) {
+            this.remaining = length;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int n = (int) Math.min(len, remaining);
+            for (int i = 0; i < n; i++) {
+                cbuf[off + i] = SENTENCE.charAt(position);
+                position = (position + 1) % SENTENCE.length();
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package top.yumbo.ai.rag.ppl.onnx;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.rag.model.Document;
+import top.yumbo.ai.rag.ppl.PPLException;
+import top.yumbo.ai.rag.ppl.PPLProviderType;
+import top.yumbo.ai.rag.ppl.config.PPLConfig;
+import top.yumbo.ai.rag.ppl.config.RerankConfig;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ONNX 困惑度服务测试：桩会话按因果方式生成 logits，批量结果必须与逐条结果一致；
+ * 重排序在时间预算内只重排已打分的候选
+ * (ONNX perplexity service test: a stub session produces causal logits, so batched results must match single ones;
+ * reranking only reorders the candidates scored within the time budget)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class PPLOnnxServiceTest {
+
+    private static final int VOCAB = 16;
+    private static final int MAX_BATCH_SIZE = 3;
+    private static final int MAX_BATCH_TOKENS = 40;
+
+    private final OrtEnvironment env = OrtEnvironment.getEnvironment();
+    private final List<int[]> batches = new ArrayList<>();
+    private PPLOnnxService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        PPLConfig config = new PPLConfig();
+        config.getOnnx().setMaxBatchSize(MAX_BATCH_SIZE);
+        config.getOnnx().setMaxBatchTokens(MAX_BATCH_TOKENS);
+
+        HuggingFaceTokenizer tokenizer = mock(HuggingFaceTokenizer.class);
+        when(tokenizer.encode(anyString())).thenAnswer(invocation -> {
+            String text = invocation.getArgument(0);
+            Encoding encoding = mock(Encoding.class);
+            when(encoding.getIds()).thenReturn(text.chars().mapToLong(c -> c % (VOCAB - 1) + 1).toArray());
+            return encoding;
+        });
+
+        OrtSession session = mock(OrtSession.class);
+        when(session.run(anyMap())).thenAnswer(invocation -> run(invocation.getArgument(0)));
+
+        service = new PPLOnnxService(config, env, session, tokenizer);
+    }
+
+    @Test
+    void testBatchedPerplexityMatchesSingle() throws Exception {
+        List<String> texts = List.of("系统升级前需要备份配置", "ok", "检索", "向量索引在重启后重新加载，避免冷启动",
+                "", "检索", "部署节点", "日志告警的阈值可以在配置文件中调整", "abc");
+
+        List<Double> batched = service.calculatePerplexityBatch(texts);
+
+        // 去重后的 7 条文本分桶推理，每桶受条数和填充后 Token 数限制，且按长度升序
+        // (The 7 distinct texts are scored in buckets bounded by row count and padded tokens, in ascending length)
+        assertEquals(7, batches.stream().mapToInt(lengths -> lengths.length).sum());
+        assertTrue(batches.size() > 1);
+        int previousMax = 0;
+        for (int[] lengths : batches) {
+            int max = lengths[lengths.length - 1];
+            assertTrue(lengths.length <= MAX_BATCH_SIZE);
+            assertTrue(lengths.length == 1 || lengths.length * max <= MAX_BATCH_TOKENS);
+            assertTrue(lengths[0] >= previousMax);
+            previousMax = max;
+        }
+
+        assertEquals(Double.MAX_VALUE, batched.get(4));
+        assertEquals(batched.get(2), batched.get(5));
+        for (int i = 0; i < texts.size(); i++) {
+            if (!texts.get(i).isEmpty()) {
+                assertEquals(service.calculatePerplexity(texts.get(i)), batched.get(i), 1e-9, texts.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testRerankOrdersByHybridScore() throws Exception {
+        PPLOnnxService reranker = reranker(new CountDownLatch(0), null);
+        List<Document> candidates = List.of(doc("d0", 0.9, "100"), doc("d1", 0.8, "1"), doc("d2", 0.7, "20"),
+                doc("d3", 0.6, "2"), doc("d4", 0.5, "5"));
+
+        List<Document> reranked = reranker.rerank("问题", candidates, rerankConfig(4, 0.5, 5000));
+
+        // final = 0.5 * original + 0.5 / (1 + ppl)，第 5 个候选不在前 K 内保持末位
+        // (final = 0.5 * original + 0.5 / (1 + ppl); the fifth candidate is outside the top K and stays last)
+        assertEquals(List.of("d1", "d3", "d0", "d2", "d4"), ids(reranked));
+        assertEquals(0, reranker.getMetrics().getRerankBudgetExceeded());
+        assertEquals(4, reranker.getMetrics().getRerankScoredCandidates());
+    }
+
+    @Test
+    void testRerankKeepsUnscoredCandidatesInPlaceWhenBudgetRunsOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PPLOnnxService reranker = reranker(release, null);
+        // 批大小 2：[d0, d1] [d2, d3] [d4, d5]，含 "slow" 的批次在预算内不会完成
+        // (Batch size 2: [d0, d1] [d2, d3] [d4, d5]; the batch containing "slow" does not finish within the budget)
+        List<Document> candidates = List.of(doc("d0", 1.0, "100"), doc("d1", 1.0, "1"), doc("d2", 1.0, "slow"),
+                doc("d3", 1.0, "2"), doc("d4", 1.0, "1000"), doc("d5", 1.0, "0.5"), doc("d6", 1.0, "0.1"));
+
+        try {
+            List<Document> reranked = reranker.rerank("问题", candidates, rerankConfig(6, 1.0, 300));
+
+            assertEquals(List.of("d5", "d1", "d2", "d3", "d0", "d4", "d6"), ids(reranked));
+            assertEquals(1, reranker.getMetrics().getRerankBudgetExceeded());
+            assertEquals(4, reranker.getMetrics().getRerankScoredCandidates());
+            assertEquals(2, reranker.getMetrics().getRerankUnscoredCandidates());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testRerankRestoresInterruptAndCancelsBatches() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        PPLOnnxService reranker = reranker(release, text -> {
+            if (text.equals("slow")) {
+                // 批次开始后中断调用线程 (Interrupt the caller once the batch has started)
+                caller.interrupt();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                }
+            }
+        });
+        List<Document> candidates = List.of(doc("d0", 1.0, "slow"), doc("d1", 1.0, "1"), doc("d2", 1.0, "2"));
+
+        try {
+            List<Document> reranked = reranker.rerank("问题", candidates, rerankConfig(3, 1.0, 5000));
+
+            assertTrue(Thread.interrupted());
+            assertEquals("d0", reranked.get(0).getId());
+            assertEquals(3, reranked.size());
+            assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        } finally {
+            Thread.interrupted();
+            release.countDown();
+        }
+    }
+
+    /**
+     * 困惑度取自文本本身的重排序服务；"slow" 文本阻塞到 release 释放
+     * (Reranking service whose perplexity is the text itself; the "slow" text blocks until release opens)
+     */
+    private PPLOnnxService reranker(CountDownLatch release, Consumer<String> onText) {
+        PPLConfig config = new PPLConfig();
+        config.getReranking().setParallelism(3);
+        return new PPLOnnxService(config, env, null, null) {
+            @Override
+            public List<Double> calculatePerplexityBatch(List<String> texts) throws PPLException {
+                List<Double> ppls = new ArrayList<>();
+                for (String text : texts) {
+                    if (onText != null) {
+                        onText.accept(text);
+                    } else if (text.equals("slow")) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new PPLException(PPLProviderType.ONNX, "interrupted", e);
+                        }
+                    }
+                    ppls.add(text.equals("slow") ? 1.0 : Double.parseDouble(text));
+                }
+                return ppls;
+            }
+        };
+    }
+
+    private static RerankConfig rerankConfig(int topK, double weight, int timeoutMs) {
+        RerankConfig config = new RerankConfig();
+        config.setTopK(topK);
+        config.setWeight(weight);
+        config.setTimeout(timeoutMs);
+        config.setParallelism(3);
+        return config;
+    }
+
+    private static Document doc(String id, double score, String content) {
+        Document document = Document.builder().id(id).title(id).content(content).build();
+        document.setScore(score);
+        return document;
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    /**
+     * 桩推理：校验填充与掩码，位置 i 的 logits 只取决于前 i+1 个真实 Token，填充位置输出干扰值
+     * (Stub inference: checks padding and masks; logits at position i depend only on the first i+1 real tokens,
+     * padded positions get noise)
+     */
+    private OrtSession.Result run(Map<String, OnnxTensor> inputs) throws Exception {
+        long[][] ids = (long[][]) inputs.get("input_ids").getValue();
+        long[][] mask = (long[][]) inputs.get("attention_mask").getValue();
+        long[][] positions = (long[][]) inputs.get("position_ids").getValue();
+        int batch = ids.length;
+        int seqLen = ids[0].length;
+
+        int[] lengths = new int[batch];
+        FloatBuffer logits = FloatBuffer.allocate(batch * seqLen * VOCAB);
+        for (int row = 0; row < batch; row++) {
+            long hash = 17;
+            for (int i = 0; i < seqLen; i++) {
+                boolean real = ids[row][i] != 0;
+                assertEquals(real ? 1 : 0, mask[row][i]);
+                assertEquals(real ? i : 0, positions[row][i]);
+                if (real) {
+                    lengths[row]++;
+                    hash = hash * 31 + ids[row][i];
+                }
+                for (int v = 0; v < VOCAB; v++) {
+                    logits.put(real ? (float) (3 * Math.sin(hash * 0.37 + v)) : 50f * v);
+                }
+            }
+        }
+        batches.add(lengths);
+        logits.flip();
+
+        OnnxTensor tensor = OnnxTensor.createTensor(env, logits, new long[]{batch, seqLen, VOCAB});
+        OrtSession.Result result = mock(OrtSession.Result.class);
+        when(result.get(0)).thenReturn(tensor);
+        return result;
+    }
+}
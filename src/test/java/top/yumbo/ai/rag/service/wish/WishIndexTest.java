@@ -0,0 +1,171 @@
+package top.yumbo.ai.rag.service.wish;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.yumbo.ai.rag.model.wish.Wish;
+import top.yumbo.ai.rag.model.wish.WishComment;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 愿望索引测试（Wish index test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class WishIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private WishIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new WishIndex(tempDir);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+    }
+
+    private static Wish wish(String id, String status, String category, int votes, int minutesAgo) {
+        Wish wish = new Wish();
+        wish.setId(id);
+        wish.setTitle("Wish " + id);
+        wish.setDescription(id.equals("w3") ? "support dark theme" : "something else");
+        wish.setStatus(status);
+        wish.setCategory(category);
+        wish.setVoteCount(votes);
+        wish.setCreatedAt(LocalDateTime.of(2025, 12, 1, 12, 0).minusMinutes(minutesAgo));
+        return wish;
+    }
+
+    @Test
+    void testWritesAreVisibleBeforeCommitAndDurableAfterClose() throws Exception {
+        index.upsertWish(wish("w1", "pending", "feature", 5, 30));
+        WishComment comment = new WishComment();
+        comment.setId("c1");
+        comment.setContent("first");
+        comment.setCreatedAt(LocalDateTime.of(2025, 12, 1, 12, 0));
+        index.upsertComment("w1", comment);
+
+        // 近实时：未提交也可读到 (Near real time: readable before any commit)
+        assertEquals(1, index.countWishes());
+        assertEquals("w1", index.getCommentWishId("c1"));
+
+        // 关闭时提交，重新打开后仍在 (Committed on close, so still there after reopening)
+        index.close();
+        index = new WishIndex(tempDir);
+        assertEquals(5, index.getWish("w1").getVoteCount());
+        assertEquals(1, index.getComments("w1").size());
+    }
+
+    @Test
+    void testFiltersFacetsAndSortInIndex() throws Exception {
+        index.upsertWish(wish("w1", "pending", "feature", 5, 30));
+        index.upsertWish(wish("w2", "pending", "bug", 9, 20));
+        index.upsertWish(wish("w3", "accepted", "feature", 1, 10));
+        index.upsertWish(wish("w4", "pending", "feature", 7, 0));
+
+        WishIndex.WishPage byVotes = index.listWishes("pending", null, null, WishIndex.SORT_VOTE_COUNT, 0, 10, null);
+        assertEquals(List.of("w2", "w4", "w1"), ids(byVotes));
+        assertEquals(3, byVotes.getTotal());
+        assertEquals(Map.of("pending", 3L, "accepted", 1L), byVotes.getStatusCounts());
+        assertEquals(Map.of("feature", 2L, "bug", 1L), byVotes.getCategoryCounts());
+
+        WishIndex.WishPage newest = index.listWishes(null, "feature", null, null, 0, 10, null);
+        assertEquals(List.of("w4", "w3", "w1"), ids(newest));
+
+        assertEquals(List.of("w3"), ids(index.listWishes(null, null, "dark", null, 0, 10, null)));
+
+        // 覆盖写入更新排序值 (Upsert replaces sort values)
+        Wish updated = wish("w1", "pending", "feature", 20, 30);
+        index.upsertWish(updated);
+        assertEquals("w1", ids(index.listWishes(null, null, null, WishIndex.SORT_VOTE_COUNT, 0, 1, null)).get(0));
+        assertEquals(4, index.countWishes());
+        assertEquals(20, index.getWish("w1").getVoteCount());
+    }
+
+    @Test
+    void testCursorPagingMatchesOffsetPaging() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            index.upsertWish(wish("w" + i, "pending", "feature", i % 4, i));
+        }
+
+        List<String> viaCursor = new ArrayList<>();
+        String cursor = null;
+        do {
+            WishIndex.WishPage page = index.listWishes(null, null, null, WishIndex.SORT_VOTE_COUNT, 0, 10, cursor);
+            viaCursor.addAll(ids(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<String> viaOffset = new ArrayList<>();
+        for (int p = 0; p < 3; p++) {
+            viaOffset.addAll(ids(index.listWishes(null, null, null, WishIndex.SORT_VOTE_COUNT, p, 10, null)));
+        }
+
+        assertEquals(25, viaCursor.size());
+        assertEquals(viaOffset, viaCursor);
+        assertThrows(IllegalArgumentException.class,
+                () -> index.listWishes(null, null, null, null, 0, 10, "not-a-cursor"));
+    }
+
+    @Test
+    void testCommentsStoredAsOwnDocuments() throws Exception {
+        index.upsertWish(wish("w1", "pending", "feature", 0, 0));
+        WishComment first = comment("c1", 5);
+        WishComment second = comment("c2", 1);
+        index.upsertComment("w1", first);
+        index.upsertComment("w1", second);
+
+        assertEquals(List.of("c1", "c2"), index.getComments("w1").stream().map(WishComment::getId).toList());
+        assertEquals("w1", index.getCommentWishId("c2"));
+        assertNull(index.getComment("missing"));
+
+        WishComment liked = index.getComment("c1");
+        liked.getLikedBy().add("u1");
+        liked.setLikeCount(1);
+        index.upsertComment("w1", liked);
+        assertEquals(1, index.getComment("c1").getLikeCount());
+        assertEquals(2, index.getComments("w1").size());
+        assertEquals(1, index.countWishes());
+    }
+
+    private static WishComment comment(String id, int minutesAgo) {
+        WishComment comment = new WishComment();
+        comment.setId(id);
+        comment.setUserId("u0");
+        comment.setContent("comment " + id);
+        comment.setCreatedAt(LocalDateTime.of(2025, 12, 1, 12, 0).minusMinutes(minutesAgo));
+        return comment;
+    }
+
+    @Test
+    void testOutOfRangePagesAreEmpty() throws Exception {
+        index.upsertWish(wish("w1", "pending", "feature", 3, 2));
+        index.upsertWish(wish("w2", "pending", "feature", 1, 1));
+
+        WishIndex.WishPage beyond = index.listWishes(null, null, null, null, Integer.MAX_VALUE, 20, null);
+        assertTrue(beyond.getWishes().isEmpty());
+        assertEquals(2, beyond.getTotal());
+        assertNull(beyond.getNextCursor());
+        assertTrue(index.listWishes(null, null, null, null, 1, Integer.MAX_VALUE, null).getWishes().isEmpty());
+        assertEquals(List.of("w1", "w2"),
+            ids(index.listWishes(null, null, null, WishIndex.SORT_VOTE_COUNT, 0, Integer.MAX_VALUE, null)));
+    }
+
+    private static List<String> ids(WishIndex.WishPage page) {
+        return page.getWishes().stream().map(Wish::getId).toList();
+    }
+}
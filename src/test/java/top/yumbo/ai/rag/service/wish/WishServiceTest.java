@@ -0,0 +1,129 @@
+package top.yumbo.ai.rag.service.wish;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
+import top.yumbo.ai.rag.model.Document;
+import top.yumbo.ai.rag.model.wish.Wish;
+import top.yumbo.ai.rag.model.wish.WishComment;
+import top.yumbo.ai.rag.model.wish.request.CommentRequest;
+import top.yumbo.ai.rag.model.wish.request.WishSubmitRequest;
+import top.yumbo.ai.rag.service.LocalFileRAG;
+import top.yumbo.ai.rag.spring.boot.autoconfigure.LocalFileRAGProperties;
+import top.yumbo.ai.rag.spring.boot.autoconfigure.SimpleRAGService;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 愿望单服务测试：愿望文档是数据源，丢失的索引可连同评论一起重建
+ * (Wish service test: the wish documents are the source of truth, so a lost index is rebuilt with its comments)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class WishServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalFileRAG rag;
+    private WishIndex index;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+        rag.close();
+    }
+
+    @Test
+    void testLostIndexIsRebuiltWithComments() throws Exception {
+        rag = LocalFileRAG.builder().storagePath(tempDir.resolve("kb").toString()).build();
+        SimpleRAGService ragService = new SimpleRAGService(rag, new LocalFileRAGProperties());
+        Path indexPath = tempDir.resolve("wish-index");
+        index = new WishIndex(indexPath);
+        WishService service = new WishService(ragService, index);
+
+        service.submitWish(submit("支持暗色主题"));
+        String wishId = index.listWishes(null, null, null, null, 0, 1, null).getWishes().get(0).getId();
+        service.addComment(wishId, comment("同样需要"));
+        service.addComment(wishId, comment("加一"));
+        String commentId = index.getComments(wishId).get(0).getId();
+        assertTrue((Boolean) service.likeComment(commentId, "u1").get("success"));
+        rag.commit();
+
+        // 索引目录丢失 (The index directory is lost)
+        index.close();
+        FileSystemUtils.deleteRecursively(indexPath);
+        index = new WishIndex(indexPath);
+        new WishService(ragService, index).initIndex();
+
+        assertEquals(1, index.countWishes());
+        assertEquals(2, index.getWish(wishId).getCommentCount());
+        List<WishComment> comments = index.getComments(wishId);
+        assertEquals(List.of("同样需要", "加一"), comments.stream().map(WishComment::getContent).toList());
+        assertEquals(1, comments.get(0).getLikeCount());
+        assertTrue(comments.get(0).getLikedBy().contains("u1"));
+    }
+
+    @Test
+    void testLegacyWishWithoutCategoryIsImported() throws Exception {
+        rag = LocalFileRAG.builder().storagePath(tempDir.resolve("kb").toString()).build();
+        SimpleRAGService ragService = new SimpleRAGService(rag, new LocalFileRAGProperties());
+
+        // 旧版本写入的愿望文档：只有元数据 type，没有分类 (A wish document as earlier versions wrote it: metadata type only, no category)
+        Wish wish = new Wish();
+        wish.setId("legacy-wish");
+        wish.setTitle("导出为 PDF");
+        wish.setDescription("希望支持导出为 PDF");
+        wish.setCategory("feature");
+        wish.setStatus("pending");
+        wish.setCreatedAt(LocalDateTime.now());
+        Document legacy = new Document();
+        legacy.setId(wish.getId());
+        legacy.setTitle(wish.getTitle());
+        legacy.setContent(new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsString(wish));
+        legacy.setMetadata(wish.toMetadata());
+        rag.index(legacy);
+        rag.index(Document.builder().title("运维手册").content("普通知识库文档").metadata(new HashMap<>()).build());
+        rag.commit();
+
+        Path indexPath = tempDir.resolve("wish-index");
+        index = new WishIndex(indexPath);
+        WishService service = new WishService(ragService, index);
+        service.initIndex();
+
+        assertTrue(index.isImported());
+        assertEquals(1, index.countWishes());
+        assertEquals("导出为 PDF", index.getWish("legacy-wish").getTitle());
+        assertTrue(service.getComments("legacy-wish").isEmpty());
+
+        // 导入标记随提交持久化，重启后不再重复导入 (The import marker is committed, so a restart does not import again)
+        index.close();
+        index = new WishIndex(indexPath);
+        assertTrue(index.isImported());
+        assertEquals(1, index.countWishes());
+    }
+
+    private static WishSubmitRequest submit(String title) {
+        WishSubmitRequest request = new WishSubmitRequest();
+        request.setTitle(title);
+        request.setDescription(title + "，夜间阅读更舒适");
+        request.setCategory("feature");
+        return request;
+    }
+
+    private static CommentRequest comment(String content) {
+        CommentRequest request = new CommentRequest();
+        request.setContent(content);
+        request.setUsername("tester");
+        return request;
+    }
+}
@@ -0,0 +1,96 @@
+package top.yumbo.ai.rag.spring.boot.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 多层缓存服务测试 - 语义答案缓存（Multi-layer Cache Service Test - semantic answer cache）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class MultiLayerCacheServiceTest {
+
+    private PerformanceMonitoringService monitoringService;
+    private MultiLayerCacheService cacheService;
+    private Map<String, String> currentHashes;
+
+    @BeforeEach
+    void setUp() {
+        monitoringService = mock(PerformanceMonitoringService.class);
+        cacheService = new MultiLayerCacheService(monitoringService, new KnowledgeQAProperties());
+        currentHashes = new HashMap<>();
+        currentHashes.put("doc-1", "hash-1");
+    }
+
+    private void cacheAnswer() {
+        cacheService.putSemanticAnswer("什么是RAG？", new float[]{1f, 0f, 0f}, "检索增强生成",
+                List.of("rag.md"), Map.of("doc-1", "hash-1"));
+    }
+
+    @Test
+    void testParaphraseHits() {
+        cacheAnswer();
+
+        // 向量未归一化且略有偏差 / Unnormalized and slightly different embedding
+        Optional<MultiLayerCacheService.SemanticAnswer> hit =
+                cacheService.getSemanticAnswer(new float[]{2f, 0.2f, 0f}, currentHashes::get);
+
+        assertTrue(hit.isPresent());
+        assertEquals("检索增强生成", hit.get().getAnswer());
+        assertEquals(List.of("rag.md"), hit.get().getSources());
+        verify(monitoringService).recordCacheAccess("L5_SEMANTIC", true);
+    }
+
+    @Test
+    void testDissimilarQuestionMisses() {
+        cacheAnswer();
+
+        assertTrue(cacheService.getSemanticAnswer(new float[]{0f, 1f, 0f}, currentHashes::get).isEmpty());
+        verify(monitoringService).recordCacheAccess("L5_SEMANTIC", false);
+    }
+
+    @Test
+    void testChangedDocumentInvalidatesEntry() {
+        cacheAnswer();
+        currentHashes.put("doc-1", "hash-2");
+
+        assertTrue(cacheService.getSemanticAnswer(new float[]{1f, 0f, 0f}, currentHashes::get).isEmpty());
+
+        // 条目已被淘汰，即使文档恢复也不再命中 / Entry was evicted, no hit even after the document is restored
+        currentHashes.put("doc-1", "hash-1");
+        assertTrue(cacheService.getSemanticAnswer(new float[]{1f, 0f, 0f}, currentHashes::get).isEmpty());
+        assertEquals(0, cacheService.getStatistics().getL5Size());
+    }
+
+    @Test
+    void testDeletedDocumentMisses() {
+        cacheAnswer();
+        currentHashes.clear();
+
+        assertTrue(cacheService.getSemanticAnswer(new float[]{1f, 0f, 0f}, currentHashes::get).isEmpty());
+    }
+
+    @Test
+    void testDisabled() {
+        KnowledgeQAProperties properties = new KnowledgeQAProperties();
+        properties.getCache().getSemanticAnswer().setEnabled(false);
+        cacheService = new MultiLayerCacheService(monitoringService, properties);
+
+        cacheAnswer();
+
+        assertFalse(cacheService.isSemanticAnswerEnabled());
+        assertTrue(cacheService.getSemanticAnswer(new float[]{1f, 0f, 0f}, currentHashes::get).isEmpty());
+    }
+}
@@ -0,0 +1,54 @@
+package top.yumbo.ai.rag.spring.boot.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mock LLM 客户端延迟测试（Mock LLM client latency test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class MockLLMClientTest {
+
+    @Test
+    void testStreamHonoursFirstTokenDelay() {
+        MockLLMClient client = new MockLLMClient(Duration.ofMillis(200), 1000, false);
+
+        long start = System.nanoTime();
+        String first = client.generateStream("hello").blockFirst(Duration.ofSeconds(5));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(first);
+        assertTrue(elapsedMs >= 200, "first chunk after " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testStreamReassemblesFullResponse() {
+        MockLLMClient client = new MockLLMClient(Duration.ZERO, 1000, false);
+
+        List<String> chunks = client.generateStream("hello").collectList().block(Duration.ofSeconds(10));
+
+        assertNotNull(chunks);
+        assertEquals(client.generate("hello"), String.join("", chunks));
+    }
+
+    @Test
+    void testBlockingLatencyOnlyWhenEnabled() {
+        String response = new MockLLMClient().generate("hello");
+        long chunks = (response.length() + 4) / 5;
+
+        long start = System.nanoTime();
+        new MockLLMClient(Duration.ofMillis(100), 1000, true).generate("hello");
+        long blockingMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(blockingMs >= 100 + chunks, "blocking generate took " + blockingMs + "ms");
+
+        start = System.nanoTime();
+        new MockLLMClient(Duration.ofMillis(100), 1000, false).generate("hello");
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 100);
+    }
+}
@@ -1,12 +1,18 @@
 package top.yumbo.ai.rag.spring.boot.llm;
 
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -88,4 +94,63 @@ class OpenAILLMClientTest {
         System.out.println("图片描述结果 / Image description result:");
         System.out.println(result);
     }
+
+    @Test
+    void testGenerateStreamParsesServerSentEvents() throws Exception {
+        // 本地 SSE 服务，事件被拆分到多次写入 / Local SSE server, events split across several writes
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String part : List.of(
+                        "data: {\"choices\":[{\"delta\":{\"content\":\"Hel\"}}]}\n\n",
+                        "data: {\"choices\":[{\"delta\":{\"con",
+                        "tent\":\"lo\"}}]}\n\ndata: not-json\n\n",
+                        "data: {\"choices\":[{\"delta\":{},\"finish_reason\":\"stop\"}]}\n\n",
+                        "data: [DONE]\n\n")) {
+                    out.write(part.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        });
+        server.start();
+
+        try {
+            LLMClient client = new OpenAILLMClient("test-key", "test-model",
+                    "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions");
+
+            List<String> chunks = client.generateStream("hi")
+                    .collectList()
+                    .block(Duration.ofSeconds(10));
+
+            assertEquals(List.of("Hel", "lo"), chunks);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testGenerateStreamHttpError() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "{\"error\":\"bad key\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(401, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        try {
+            LLMClient client = new OpenAILLMClient("bad-key", "test-model",
+                    "http://127.0.0.1:" + server.getAddress().getPort() + "/");
+
+            Exception error = assertThrows(Exception.class,
+                    () -> client.generateStream("hi").collectList().block(Duration.ofSeconds(10)));
+            assertTrue(String.valueOf(error.getMessage()).contains("401"));
+        } finally {
+            server.stop(0);
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package top.yumbo.ai.rag.spring.boot.monitoring;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService.Stage;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService.StageLatency;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 性能监控服务测试 (Performance monitoring service test)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class PerformanceMonitoringServiceTest {
+
+    @Test
+    void testWindowedStageLatencies() {
+        PerformanceMonitoringService service = new PerformanceMonitoringService();
+        for (int i = 0; i < 10; i++) {
+            service.recordStage(Stage.RERANK, TimeUnit.MILLISECONDS.toNanos(200));
+        }
+
+        // 快照之后的记录才计入窗口 (Only records after the mark fall into the window)
+        service.markWindow();
+        for (int i = 0; i < 10; i++) {
+            service.recordStage(Stage.RERANK, TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        StageLatency window = service.getStageLatencies("1m").get(Stage.RERANK);
+        assertEquals(10, window.getCount());
+        assertEquals(20, window.getP99Ms(), 20 / 8.0);
+
+        StageLatency all = service.getStageLatencies("all").get(Stage.RERANK);
+        assertEquals(20, all.getCount());
+        assertEquals(200, all.getP99Ms(), 200 / 8.0);
+        assertEquals(0, service.getStageLatencies("all").get(Stage.EMBED).getCount());
+
+        assertThrows(IllegalArgumentException.class, () -> service.getStageLatencies("2h"));
+    }
+
+    @Test
+    void testHopeAndLlmMetricsUseHistograms() {
+        PerformanceMonitoringService service = new PerformanceMonitoringService();
+        for (int i = 1; i <= 100; i++) {
+            service.recordHopeQuery(i, i % 2 == 0);
+        }
+
+        PerformanceMonitoringService.HopeMetrics hope = service.getHopeMetrics();
+        assertEquals(100, hope.getQueryCount());
+        assertEquals(0.5, hope.getHitRate(), 1e-9);
+        assertEquals(95, hope.getP95TimeMs(), 95 / 8.0);
+
+        Flux<String> stream = service.timeLlmStream(Flux.just("a", "b", "c"));
+        assertEquals(3, stream.collectList().block().size());
+
+        Map<Stage, StageLatency> latencies = service.getStageLatencies("all");
+        assertEquals(1, latencies.get(Stage.LLM_FIRST_TOKEN).getCount());
+        assertEquals(1, latencies.get(Stage.LLM_TOTAL).getCount());
+        assertEquals(1, service.getLlmMetrics().getSuccessCount());
+
+        service.reset();
+        assertEquals(0, service.getStageLatencies("all").get(Stage.HOPE).getCount());
+    }
+}
@@ -0,0 +1,82 @@
+package top.yumbo.ai.rag.spring.boot.monitoring;
+
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求追踪测试（Request tracer test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class RequestTracerTest {
+
+    private static RequestTracer tracer(int capacity, long slowThresholdMs) {
+        KnowledgeQAProperties.TracingConfig config = new KnowledgeQAProperties.TracingConfig();
+        config.setCapacity(capacity);
+        config.setSlowCapacity(capacity);
+        config.setSlowThresholdMs(slowThresholdMs);
+        return new RequestTracer(config);
+    }
+
+    @Test
+    void testSpansFormTreeOnCurrentThread() {
+        RequestTracer tracer = tracer(10, 60_000);
+        RequestTrace trace = tracer.start("ask");
+
+        try (RequestTrace.Span retrieval = RequestTrace.span("retrieval")) {
+            try (RequestTrace.Span keyword = RequestTrace.span("keyword_search")) {
+                keyword.attr("hits", 3);
+            }
+            RequestTrace.current().attr("docs", 2);
+        }
+        RequestTrace.Span llm = RequestTrace.asyncSpan("llm_stream");
+        trace.detach();
+        assertSame(RequestTrace.current(), RequestTrace.span("ignored"), "no active trace after detach");
+
+        llm.attr("chunks", 5).end();
+        tracer.finish(trace);
+
+        RequestTrace.Span root = trace.getRoot();
+        assertEquals(2, root.getChildren().size());
+        RequestTrace.Span retrieval = root.getChildren().get(0);
+        assertEquals("retrieval", retrieval.getName());
+        assertEquals(2, retrieval.getAttributes().get("docs"));
+        assertEquals(3, retrieval.getChildren().get(0).getAttributes().get("hits"));
+        assertTrue(retrieval.getDurationMs() >= retrieval.getChildren().get(0).getDurationMs());
+        assertEquals(5, root.getChildren().get(1).getAttributes().get("chunks"));
+        assertTrue(trace.getDurationMs() >= 0);
+        assertEquals(List.of(trace), tracer.getRecentTraces(10));
+        assertSame(trace, tracer.findTrace(trace.getTraceId()));
+    }
+
+    @Test
+    void testRingKeepsNewestAndSlowTracesSeparately() {
+        RequestTracer tracer = tracer(3, 0);
+        RequestTrace last = null;
+        for (int i = 0; i < 5; i++) {
+            last = tracer.start("ask");
+            tracer.finish(last);
+        }
+
+        List<RequestTrace> recent = tracer.getRecentTraces(10);
+        assertEquals(3, recent.size());
+        assertSame(last, recent.get(0));
+        assertEquals(3, tracer.getSlowTraces(10).size());
+        assertEquals(1, tracer.getRecentTraces(1).size());
+
+        assertTrue(tracer(3, 0).getRecentTraces(10).isEmpty());
+        assertNull(new RequestTracer(disabledConfig()).start("ask"));
+        assertSame(RequestTrace.current(), RequestTrace.span("noop"));
+    }
+
+    private static KnowledgeQAProperties.TracingConfig disabledConfig() {
+        KnowledgeQAProperties.TracingConfig config = new KnowledgeQAProperties.TracingConfig();
+        config.setEnabled(false);
+        return config;
+    }
+}
@@ -0,0 +1,87 @@
+package top.yumbo.ai.rag.spring.boot.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文件追踪服务测试（File tracking service test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class FileTrackingServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testChangesPersistAcrossRestart() throws Exception {
+        String storage = tempDir.resolve("kb").toString();
+        File kept = Files.writeString(tempDir.resolve("kept.md"), "a").toFile();
+        File removed = Files.writeString(tempDir.resolve("removed.md"), "b").toFile();
+
+        FileTrackingService service = new FileTrackingService();
+        service.initialize(storage);
+        service.markAsIndexed(kept, List.of("doc-1", "doc-2"));
+        service.markAsIndexed(removed);
+        service.saveTracking();
+        service.removeTracking(removed);
+        service.saveTracking();
+        service.close();
+
+        FileTrackingService restarted = new FileTrackingService();
+        restarted.initialize(storage);
+
+        assertFalse(restarted.needsUpdate(kept));
+        assertTrue(restarted.needsUpdate(removed));
+        assertEquals(List.of("doc-1", "doc-2"), restarted.getDocumentIds(kept));
+        assertEquals(List.of(kept), restarted.getTrackedFilesUnder(tempDir));
+        restarted.close();
+    }
+
+    @Test
+    void testChunkHashesMapToDocumentIds() throws Exception {
+        String storage = tempDir.resolve("kb").toString();
+        File file = Files.writeString(tempDir.resolve("chunks.md"), "d").toFile();
+
+        FileTrackingService service = new FileTrackingService();
+        service.initialize(storage);
+        service.markAsIndexed(file, List.of("doc-1", "doc-2", "doc-3"), List.of("h1", "h2", "h1"));
+        service.saveTracking();
+        service.close();
+
+        FileTrackingService restarted = new FileTrackingService();
+        restarted.initialize(storage);
+        Map<String, Deque<String>> chunks = restarted.getChunkDocumentIds(file);
+
+        assertEquals(List.of("doc-1", "doc-3"), List.copyOf(chunks.get("h1")));
+        assertEquals(List.of("doc-2"), List.copyOf(chunks.get("h2")));
+        restarted.close();
+    }
+
+    @Test
+    void testLegacyJsonIsImported() throws Exception {
+        Path storage = Files.createDirectories(tempDir.resolve("kb"));
+        File file = Files.writeString(tempDir.resolve("legacy.md"), "c").toFile();
+        String key = file.getAbsolutePath().replace("\\", "\\\\");
+        Files.writeString(storage.resolve(".file_tracking.json"), "{\"" + key + "\":{\"fileName\":\"legacy.md\","
+                + "\"filePath\":\"" + key + "\",\"lastModified\":" + file.lastModified()
+                + ",\"fileSize\":" + file.length() + ",\"indexedAt\":1}}");
+
+        FileTrackingService service = new FileTrackingService();
+        service.initialize(storage.toString());
+
+        assertFalse(service.needsUpdate(file));
+        assertTrue(service.getDocumentIds(file).isEmpty());
+        service.close();
+    }
+}
@@ -0,0 +1,87 @@
+package top.yumbo.ai.rag.spring.boot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.yumbo.ai.rag.impl.embedding.LocalEmbeddingEngine;
+import top.yumbo.ai.rag.impl.index.SimpleVectorIndexEngine;
+import top.yumbo.ai.rag.model.Document;
+import top.yumbo.ai.rag.service.LocalFileRAG;
+import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService;
+import top.yumbo.ai.rag.spring.boot.monitoring.PerformanceMonitoringService.Stage;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 混合检索测试：调用方传入问题向量时不再重复向量化，也不重复记录向量化阶段
+ * (Hybrid search test: the question is neither embedded again nor timed again as an embed stage when the caller
+ * passes its vector)
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class HybridSearchServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HybridSearchService service;
+    private LocalFileRAG rag;
+    private SimpleVectorIndexEngine vectorIndex;
+    private LocalEmbeddingEngine embeddingEngine;
+    private PerformanceMonitoringService monitoringService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KnowledgeQAProperties properties = new KnowledgeQAProperties();
+        monitoringService = mock(PerformanceMonitoringService.class);
+        service = new HybridSearchService(properties, new SearchConfigService(properties), null, null, null,
+            monitoringService);
+
+        rag = LocalFileRAG.builder().storagePath(tempDir.resolve("kb").toString()).build();
+        vectorIndex = new SimpleVectorIndexEngine(tempDir.resolve("vectors").toString(), 4);
+        String upgrade = rag.index(Document.builder().title("升级手册").content("升级前务必备份配置并停止服务").build());
+        String network = rag.index(Document.builder().title("网络配置").content("节点之间的网络需要开放端口").build());
+        rag.commit();
+        vectorIndex.addDocument(upgrade, new float[]{1, 0, 0, 0});
+        vectorIndex.addDocument(network, new float[]{0, 1, 0, 0});
+
+        embeddingEngine = mock(LocalEmbeddingEngine.class);
+        when(embeddingEngine.embed(anyString())).thenReturn(new float[]{1, 0, 0, 0});
+    }
+
+    @AfterEach
+    void tearDown() {
+        rag.close();
+    }
+
+    @Test
+    void testPrecomputedVectorIsNotEmbeddedAgain() throws Exception {
+        List<Document> documents = service.hybridSearch("如何升级服务", rag, embeddingEngine, vectorIndex,
+            new float[]{1, 0, 0, 0});
+
+        assertFalse(documents.isEmpty());
+        assertEquals("升级手册", documents.get(0).getTitle());
+        verify(embeddingEngine, never()).embed(anyString());
+        verify(monitoringService, never()).recordStage(eq(Stage.EMBED), anyLong());
+        verify(monitoringService).recordStage(eq(Stage.VECTOR_SEARCH), anyLong());
+    }
+
+    @Test
+    void testQuestionIsEmbeddedWithoutVector() throws Exception {
+        List<Document> documents = service.hybridSearch("如何升级服务", rag, embeddingEngine, vectorIndex);
+
+        assertEquals("升级手册", documents.get(0).getTitle());
+        verify(embeddingEngine, times(1)).embed("如何升级服务");
+        verify(monitoringService, times(1)).recordStage(eq(Stage.EMBED), anyLong());
+    }
+}
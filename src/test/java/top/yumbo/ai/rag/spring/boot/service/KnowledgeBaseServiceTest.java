@@ -0,0 +1,207 @@
+package top.yumbo.ai.rag.spring.boot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import top.yumbo.ai.rag.chunking.storage.ChunkIndex;
+import top.yumbo.ai.rag.impl.embedding.LocalEmbeddingEngine;
+import top.yumbo.ai.rag.impl.index.SimpleVectorIndexEngine;
+import top.yumbo.ai.rag.impl.parser.image.SmartImageExtractor;
+import top.yumbo.ai.rag.model.Document;
+import top.yumbo.ai.rag.service.LocalFileRAG;
+import top.yumbo.ai.rag.spring.boot.config.KnowledgeQAProperties;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 知识库增量重建测试：只向量化变化的块（Knowledge base incremental re-index test: only changed chunks are embedded）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class KnowledgeBaseServiceTest {
+
+    private static final int DIM = 4;
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger embeddings = new AtomicInteger();
+    private KnowledgeBaseService service;
+    private FileTrackingService fileTrackingService;
+    private ChunkIndex chunkIndex;
+    private LocalFileRAG rag;
+    private SimpleVectorIndexEngine vectorIndex;
+    private LocalEmbeddingEngine embeddingEngine;
+    private File file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KnowledgeQAProperties properties = new KnowledgeQAProperties();
+        properties.getKnowledgeBase().setStoragePath(tempDir.resolve("kb").toString());
+        KnowledgeQAProperties.DocumentConfig document = properties.getDocument();
+        document.setAutoChunkThresholdMb(0);
+        document.setChunkSize(800);
+        document.setChunkOverlap(100);
+        document.setMaxChunksPerDocument(1000);
+
+        fileTrackingService = new FileTrackingService();
+        chunkIndex = new ChunkIndex(tempDir.resolve("chunk_index.db").toString());
+        service = new KnowledgeBaseService(properties, new DocumentProcessingOptimizer(properties), fileTrackingService,
+            null, SmartImageExtractor.createDefault(), null, null, null, null, chunkIndex, null, null);
+
+        embeddingEngine = mock(LocalEmbeddingEngine.class);
+        when(embeddingEngine.getModelId()).thenReturn("counting");
+        when(embeddingEngine.getEmbeddingDim()).thenReturn(DIM);
+        when(embeddingEngine.embed(anyString())).thenAnswer(invocation -> {
+            embeddings.incrementAndGet();
+            String text = invocation.getArgument(0);
+            return new float[]{text.length(), text.hashCode() % 97, 1, 1};
+        });
+
+        rag = LocalFileRAG.builder().storagePath(tempDir.resolve("kb").toString()).build();
+        vectorIndex = new SimpleVectorIndexEngine(tempDir.resolve("vectors").toString(), DIM);
+        file = tempDir.resolve("manual.txt").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        rag.close();
+        chunkIndex.close();
+    }
+
+    @Test
+    void testUnchangedChunksAreNotReEmbedded() throws Exception {
+        String manual = manual(12_000);
+        List<String> before = index(manual);
+        assertTrue(before.size() > 10);
+        assertEquals(before.size(), embeddings.get());
+        Map<String, String> hashes = contentHashes(before);
+        assertTrue(hashes.values().stream().allMatch(hash -> chunkIndex.get(hash).isPresent()));
+
+        // 中间改一句：只有该句所在的块重新向量化（Edit one sentence in the middle: only its chunk is re-embedded）
+        int at = manual.indexOf('。', manual.length() / 2) + 1;
+        String edited = manual.substring(0, at) + "修改后的说明，升级前务必停止服务。" + manual.substring(at);
+        embeddings.set(0);
+        List<String> after = index(edited);
+
+        assertTrue(embeddings.get() >= 1 && embeddings.get() <= 2, "re-embedded " + embeddings.get());
+        assertEquals(after.size() - embeddings.get(), intersection(before, after).size());
+        assertStaleDocumentsDeleted(before, after);
+        for (String docId : after) {
+            assertTrue(vectorIndex.containsDocument(docId));
+            assertTrue(chunkIndex.get(rag.getDocument(docId).getContentHash()).isPresent(), docId);
+        }
+        // 被替换的块不再占用块索引（Replaced chunks no longer occupy the chunk index）
+        hashes.forEach((docId, hash) -> assertEquals(after.contains(docId), chunkIndex.get(hash).isPresent(), docId));
+    }
+
+    @Test
+    void testRemovedChunksAreDeleted() throws Exception {
+        String manual = manual(12_000);
+        List<String> before = index(manual);
+        Map<String, String> hashes = contentHashes(before);
+
+        // 删掉后半部分：消失的块被删除，保留部分不再向量化（Drop the second half: vanished chunks are deleted, the rest is not re-embedded）
+        String truncated = manual.substring(0, manual.indexOf('。', manual.length() / 2) + 1);
+        embeddings.set(0);
+        List<String> after = index(truncated);
+
+        assertTrue(after.size() < before.size());
+        assertTrue(embeddings.get() <= 1, "re-embedded " + embeddings.get());
+        assertStaleDocumentsDeleted(before, after);
+        assertEquals(after.size(), vectorIndex.size());
+        hashes.forEach((docId, hash) -> assertEquals(after.contains(docId), chunkIndex.get(hash).isPresent(), docId));
+
+        // 删除文件后不留下任何块索引（Deleting the file leaves no chunk index behind）
+        service.removeFile(file, rag, vectorIndex);
+        hashes.values().forEach(hash -> assertTrue(chunkIndex.get(hash).isEmpty()));
+        assertEquals(0, vectorIndex.size());
+    }
+
+    @Test
+    void testReusedChunksFollowTheirNewPosition() throws Exception {
+        String manual = manual(12_000);
+        List<String> before = index(manual);
+
+        // 开头插入一段：后面的块内容不变但序号和偏移后移（Insert a paragraph at the start: later chunks keep their content but move）
+        String edited = "新增一段部署说明，".repeat(60) + "请先备份配置文件。\n" + manual;
+        embeddings.set(0);
+        List<String> after = index(edited);
+
+        assertTrue(intersection(before, after).size() > before.size() / 2);
+        assertTrue(embeddings.get() < after.size() / 2, "re-embedded " + embeddings.get());
+        for (int i = 0; i < after.size(); i++) {
+            Document chunk = rag.getDocument(after.get(i));
+            assertEquals(String.valueOf(i), String.valueOf(chunk.getMetadata().get("chunkIndex")), chunk.getId());
+            assertEquals(file.getName() + " (Part " + (i + 1) + ")", chunk.getTitle());
+            int start = Integer.parseInt(String.valueOf(chunk.getMetadata().get("chunkStart")));
+            assertTrue(edited.startsWith(chunk.getContent(), start), chunk.getId());
+        }
+    }
+
+    private List<String> index(String content) throws Exception {
+        long previous = file.exists() ? file.lastModified() : 0;
+        Files.writeString(file.toPath(), content);
+        file.setLastModified(Math.max(previous + 2000, System.currentTimeMillis()));
+        service.indexFile(file, rag, embeddingEngine, vectorIndex);
+        return fileTrackingService.getDocumentIds(file);
+    }
+
+    private void assertStaleDocumentsDeleted(List<String> before, List<String> after) {
+        Set<String> stale = new HashSet<>(before);
+        after.forEach(stale::remove);
+        assertFalse(stale.isEmpty());
+        for (String docId : stale) {
+            assertNull(rag.getDocument(docId), docId);
+            assertFalse(vectorIndex.containsDocument(docId), docId);
+        }
+    }
+
+    private Map<String, String> contentHashes(List<String> docIds) {
+        Map<String, String> hashes = new HashMap<>();
+        for (String docId : docIds) {
+            hashes.put(docId, rag.getDocument(docId).getContentHash());
+        }
+        return hashes;
+    }
+
+    private static Set<String> intersection(List<String> a, List<String> b) {
+        Set<String> common = new HashSet<>(a);
+        common.retainAll(new HashSet<>(b));
+        return common;
+    }
+
+    /**
+     * 由随机句子组成的手册文本（Manual-like text of random sentences）
+     */
+    private static String manual(int length) {
+        String[] words = {"系统", "部署", "配置", "节点", "索引", "检索", "向量", "模型", "服务", "日志",
+                "缓存", "权限", "备份", "监控", "告警", "网络", "存储", "升级"};
+        Random random = new Random(11);
+        StringBuilder text = new StringBuilder(length + 100);
+        while (text.length() < length) {
+            int count = 4 + random.nextInt(20);
+            for (int i = 0; i < count; i++) {
+                text.append(words[random.nextInt(words.length)]);
+            }
+            text.append(random.nextInt(4) == 0 ? "。\n" : "。");
+        }
+        return text.toString();
+    }
+}
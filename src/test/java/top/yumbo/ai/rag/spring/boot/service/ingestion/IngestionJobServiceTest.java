@@ -0,0 +1,142 @@
+package top.yumbo.ai.rag.spring.boot.service.ingestion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 入库任务服务测试（Ingestion job service test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class IngestionJobServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private IngestionJobStore store;
+    private IngestionJobService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new IngestionJobStore(tempDir.resolve("ingestion-jobs.db").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+        store.close();
+    }
+
+    @Test
+    void testSubmitReturnsImmediatelyAndCompletesInBackground() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("guide.md"), "# 部署指南");
+        CountDownLatch release = new CountDownLatch(1);
+        service = new IngestionJobService(store, (f, progress) -> {
+            progress.accept(IngestionJob.STAGE_INDEXING, 20);
+            release.await(5, TimeUnit.SECONDS);
+            return 3;
+        }, 2);
+
+        IngestionJob job = service.submit(file);
+        assertEquals(IngestionJob.Status.QUEUED, job.getStatus());
+        assertTrue(service.getJob(job.getJobId()).isPresent());
+
+        release.countDown();
+        IngestionJob done = awaitFinished(job.getJobId());
+
+        assertEquals(IngestionJob.Status.SUCCEEDED, done.getStatus());
+        assertEquals(100, done.getProgress());
+        assertEquals(3, done.getDocumentCount());
+        assertEquals(1, done.getAttempts());
+    }
+
+    @Test
+    void testFailureIsRecorded() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("broken.pdf"), "not a pdf");
+        service = new IngestionJobService(store, (f, progress) -> {
+            throw new IllegalStateException("parse error");
+        }, 1);
+
+        IngestionJob done = awaitFinished(service.submit(file).getJobId());
+
+        assertEquals(IngestionJob.Status.FAILED, done.getStatus());
+        assertEquals("parse error", done.getError());
+    }
+
+    @Test
+    void testUnfinishedJobsResumeAfterRestart() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("notes.txt"), "内容");
+        store.save(IngestionJob.builder()
+                .jobId("interrupted")
+                .fileName("notes.txt")
+                .filePath(file.toString())
+                .status(IngestionJob.Status.RUNNING)
+                .stage(IngestionJob.STAGE_INDEXING)
+                .progress(20)
+                .attempts(1)
+                .createdAt(System.currentTimeMillis())
+                .build());
+
+        AtomicInteger indexed = new AtomicInteger();
+        service = new IngestionJobService(store, (f, progress) -> {
+            indexed.incrementAndGet();
+            return 1;
+        }, 1);
+
+        IngestionJob done = awaitFinished("interrupted");
+
+        assertEquals(IngestionJob.Status.SUCCEEDED, done.getStatus());
+        assertEquals(2, done.getAttempts());
+        assertEquals(1, indexed.get());
+        assertTrue(store.findUnfinished().isEmpty());
+
+        List<IngestionJob> recent = service.listJobs(10);
+        assertEquals(1, recent.size());
+    }
+
+    @Test
+    void testSubmitAfterCloseIsRecordedAsNotStarted() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("late.md"), "# 关闭后提交");
+        AtomicInteger indexed = new AtomicInteger();
+        service = new IngestionJobService(store, (f, progress) -> indexed.incrementAndGet(), 1);
+        service.close();
+
+        IngestionJob job = assertDoesNotThrow(() -> service.submit(file));
+
+        assertEquals(IngestionJob.Status.FAILED, job.getStatus());
+        assertEquals(IngestionJob.STAGE_NOT_STARTED, job.getStage());
+        IngestionJob stored = store.findById(job.getJobId()).orElseThrow();
+        assertEquals(IngestionJob.Status.FAILED, stored.getStatus());
+        assertEquals(IngestionJob.STAGE_NOT_STARTED, stored.getStage());
+        assertNotNull(stored.getError());
+        assertTrue(store.findUnfinished().isEmpty());
+        assertEquals(0, indexed.get());
+    }
+
+    private IngestionJob awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            IngestionJob job = store.findById(jobId).orElseThrow();
+            if (job.isFinished()) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+        fail("job " + jobId + " did not finish");
+        return null;
+    }
+}
@@ -0,0 +1,104 @@
+package top.yumbo.ai.rag.spring.boot.service.ingestion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 源目录监听器测试（Source folder watcher test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class SourceFolderWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<Path> changed = new CopyOnWriteArrayList<>();
+    private final List<Path> deleted = new CopyOnWriteArrayList<>();
+    private SourceFolderWatcher watcher;
+
+    @AfterEach
+    void tearDown() {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    @Test
+    void testBurstOfWritesReportedOnce() throws Exception {
+        start();
+
+        Path file = tempDir.resolve("report.md");
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(file, "版本 " + i);
+            Thread.sleep(20);
+        }
+
+        awaitCondition(() -> !changed.isEmpty());
+        Thread.sleep(500);
+        assertEquals(List.of(file), changed);
+    }
+
+    @Test
+    void testDeleteAndUnsupportedFiles() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("old.md"), "内容");
+        start();
+
+        Files.writeString(tempDir.resolve("ignored.tmp"), "临时");
+        Files.delete(file);
+
+        awaitCondition(() -> !deleted.isEmpty());
+        Thread.sleep(300);
+        assertEquals(List.of(file), deleted);
+        assertTrue(changed.isEmpty());
+    }
+
+    @Test
+    void testFilesInNewDirectoryAreReported() throws Exception {
+        start();
+
+        Path dir = Files.createDirectories(tempDir.resolve("2025").resolve("q4"));
+        Path file = Files.writeString(dir.resolve("plan.md"), "计划");
+
+        awaitCondition(() -> changed.contains(file));
+    }
+
+    private void start() throws Exception {
+        watcher = new SourceFolderWatcher(tempDir, 200, path -> path.toString().endsWith(".md"),
+                new SourceFolderWatcher.Listener() {
+                    @Override
+                    public void onFileChanged(Path file) {
+                        changed.add(file);
+                    }
+
+                    @Override
+                    public void onFileDeleted(Path path) {
+                        deleted.add(path);
+                    }
+
+                    @Override
+                    public void onOverflow() {
+                    }
+                });
+        watcher.start();
+    }
+
+    private void awaitCondition(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met; changed=" + changed + ", deleted=" + deleted);
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package top.yumbo.ai.rag.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 无锁延迟直方图测试（Lock-free latency histogram test）
+ *
+ * @author AI Reviewer Team
+ * @since 2025-12-20
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverValuesWithBoundedError() {
+        for (long value : new long[]{0, 1, 7, 8, 15, 16, 100, 1_000, 123_456, 9_999_999_999L}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertTrue(upper >= value, "value " + value);
+            assertTrue(upper - value <= value / 8, "value " + value);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.upperBound(bucket - 1) < value, "value " + value);
+            }
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(500.5, snapshot.mean(), 1e-9);
+        assertEquals(1000, snapshot.max());
+        assertEquals(500, snapshot.percentile(0.50), 500 / 8.0);
+        assertEquals(950, snapshot.percentile(0.95), 950 / 8.0);
+        assertEquals(990, snapshot.percentile(0.99), 990 / 8.0);
+        assertEquals(1000, snapshot.percentile(1.0));
+    }
+
+    @Test
+    void testDifferenceOfSnapshotsCoversOnlyNewValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(10_000);
+        }
+        LatencyHistogram.Snapshot earlier = histogram.snapshot();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(10);
+        }
+
+        LatencyHistogram.Snapshot window = histogram.snapshot().minus(earlier);
+        assertEquals(100, window.count());
+        assertEquals(10, window.percentile(0.99));
+        assertEquals(10, window.max());
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(4);
+        int threads = 8;
+        int perThread = 50_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(i % 1000);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals((long) threads * perThread, snapshot.count());
+        assertEquals(999, snapshot.max());
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().count());
+    }
+}